@@ -32,6 +32,8 @@ public interface ContentValidator {
     String getType();
 
 	/**
+	 * @param message the message returned by the content transformer, either the message text or a
+	 *                {@link ParsedContent} when the transformer already parsed it. A ParsedContent is read only.
 	 * @param dynamicParameter that message.
 	 * @return ContentInfo.
 	 */
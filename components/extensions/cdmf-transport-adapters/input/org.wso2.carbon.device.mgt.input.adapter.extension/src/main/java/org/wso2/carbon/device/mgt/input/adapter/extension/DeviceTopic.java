@@ -0,0 +1,125 @@
+/*
+*  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.carbon.device.mgt.input.adapter.extension;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The device a topic of the form tenantDomain/deviceType/deviceId/... belongs to. Topics are parsed once and the
+ * result is cached, hence every component handling a message of a device gets the same instance instead of
+ * splitting the topic again.
+ * A level which is not present in the topic is null, levels are resolved the same way as splitting the topic by
+ * "/" would, i.e. empty trailing levels are ignored.
+ * The cache is read without locking as it is used on every message the broker authorizes. It holds up to
+ * {@link #MAX_CACHED_TOPICS} topics and is cleared once it is full, the topics in use are then cached again as
+ * their messages arrive.
+ */
+public final class DeviceTopic {
+
+    private static final int MAX_CACHED_TOPICS = 10000;
+    private static final ConcurrentHashMap<String, DeviceTopic> cachedTopics = new ConcurrentHashMap<>();
+
+    private final String tenantDomain;
+    private final String deviceType;
+    private final String deviceId;
+    private final String suffix;
+
+    private DeviceTopic(String tenantDomain, String deviceType, String deviceId, String suffix) {
+        this.tenantDomain = tenantDomain;
+        this.deviceType = deviceType;
+        this.deviceId = deviceId;
+        this.suffix = suffix;
+    }
+
+    /**
+     * @param topic topic a message was received on or published to.
+     * @return the parsed topic.
+     */
+    public static DeviceTopic parse(String topic) {
+        DeviceTopic deviceTopic = cachedTopics.get(topic);
+        if (deviceTopic == null) {
+            // a topic parsed twice concurrently yields equal instances
+            deviceTopic = parseTopic(topic);
+            if (cachedTopics.size() >= MAX_CACHED_TOPICS) {
+                cachedTopics.clear();
+            }
+            cachedTopics.put(topic, deviceTopic);
+        }
+        return deviceTopic;
+    }
+
+    private static DeviceTopic parseTopic(String topic) {
+        int tenantDomainEnd = topic.indexOf('/');
+        if (tenantDomainEnd < 0 || isEmptyLevels(topic, tenantDomainEnd)) {
+            return new DeviceTopic(tenantDomainEnd < 0 ? topic : topic.substring(0, tenantDomainEnd), null, null,
+                                   null);
+        }
+        String tenantDomain = topic.substring(0, tenantDomainEnd);
+        int deviceTypeEnd = topic.indexOf('/', tenantDomainEnd + 1);
+        if (deviceTypeEnd < 0 || isEmptyLevels(topic, deviceTypeEnd)) {
+            return new DeviceTopic(tenantDomain, topic.substring(tenantDomainEnd + 1, deviceTypeEnd < 0
+                    ? topic.length() : deviceTypeEnd), null, null);
+        }
+        String deviceType = topic.substring(tenantDomainEnd + 1, deviceTypeEnd);
+        int deviceIdEnd = topic.indexOf('/', deviceTypeEnd + 1);
+        if (deviceIdEnd < 0) {
+            return new DeviceTopic(tenantDomain, deviceType, topic.substring(deviceTypeEnd + 1), null);
+        }
+        String suffix = isEmptyLevels(topic, deviceIdEnd) ? null : topic.substring(deviceIdEnd + 1);
+        return new DeviceTopic(tenantDomain, deviceType, topic.substring(deviceTypeEnd + 1, deviceIdEnd), suffix);
+    }
+
+    /**
+     * @return true if the topic has only separators after the given index.
+     */
+    private static boolean isEmptyLevels(String topic, int index) {
+        for (int i = index; i < topic.length(); i++) {
+            if (topic.charAt(i) != '/') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public String getTenantDomain() {
+        return tenantDomain;
+    }
+
+    public String getDeviceType() {
+        return deviceType;
+    }
+
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    /**
+     * @return the levels after the device id, e.g. the event or operation path, null if there is none.
+     */
+    public String getSuffix() {
+        return suffix;
+    }
+
+    /**
+     * @return true if the topic identifies a device, i.e. it has both the device type and the device id levels.
+     */
+    public boolean isDeviceTopic() {
+        return deviceId != null;
+    }
+}
@@ -0,0 +1,166 @@
+/*
+*  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.carbon.device.mgt.input.adapter.extension;
+
+import org.json.simple.JSONAware;
+import org.json.simple.JSONValue;
+
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * This holds an already parsed message so that it can be passed from the ContentTransformer to the
+ * ContentValidator without serializing and re-parsing it. Input adapters serialize it once through
+ * {@link #toJSONString()} before handing it over to the event receiver.
+ * <p/>
+ * The same instance is published after validation, so it does not allow validators to change the message:
+ * {@link #getContent()} returns a read only view of the parsed tree. Validators which work on the message text
+ * should use {@link #toJSONString()} instead of casting the message to a String.
+ */
+public class ParsedContent implements JSONAware {
+    /**
+     * parsed json tree, either a JSONObject for a single event or a JSONArray of JSONObjects for multiple events.
+     */
+    private final Object content;
+    private final String deviceId;
+    private final String deviceType;
+
+    public ParsedContent(Object content, String deviceId, String deviceType) {
+        this.content = content;
+        this.deviceId = deviceId;
+        this.deviceType = deviceType;
+    }
+
+    /**
+     * @return read only view of the parsed tree, json objects are returned as a Map and json arrays as a List.
+     * Any attempt to modify the view throws an UnsupportedOperationException.
+     */
+    public Object getContent() {
+        return readOnlyView(content);
+    }
+
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    public String getDeviceType() {
+        return deviceType;
+    }
+
+    @Override
+    public String toJSONString() {
+        return JSONValue.toJSONString(content);
+    }
+
+    @Override
+    public String toString() {
+        return toJSONString();
+    }
+
+    /**
+     * Wraps the nested objects and arrays as they are accessed, so that the tree is not copied.
+     */
+    @SuppressWarnings("unchecked")
+    private static Object readOnlyView(Object value) {
+        if (value instanceof Map) {
+            return new ReadOnlyMap((Map<Object, Object>) value);
+        } else if (value instanceof List) {
+            return new ReadOnlyList((List<Object>) value);
+        }
+        return value;
+    }
+
+    private static class ReadOnlyMap extends AbstractMap<Object, Object> {
+        private final Map<Object, Object> map;
+
+        ReadOnlyMap(Map<Object, Object> map) {
+            this.map = map;
+        }
+
+        @Override
+        public Object get(Object key) {
+            return readOnlyView(map.get(key));
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return map.containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            return map.size();
+        }
+
+        @Override
+        public Set<Entry<Object, Object>> entrySet() {
+            return new AbstractSet<Entry<Object, Object>>() {
+                @Override
+                public Iterator<Entry<Object, Object>> iterator() {
+                    final Iterator<Entry<Object, Object>> iterator = map.entrySet().iterator();
+                    return new Iterator<Entry<Object, Object>>() {
+                        @Override
+                        public boolean hasNext() {
+                            return iterator.hasNext();
+                        }
+
+                        @Override
+                        public Entry<Object, Object> next() {
+                            Entry<Object, Object> entry = iterator.next();
+                            return new SimpleImmutableEntry<>(entry.getKey(), readOnlyView(entry.getValue()));
+                        }
+
+                        @Override
+                        public void remove() {
+                            throw new UnsupportedOperationException("Parsed content cannot be modified.");
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return map.size();
+                }
+            };
+        }
+    }
+
+    private static class ReadOnlyList extends AbstractList<Object> {
+        private final List<Object> list;
+
+        ReadOnlyList(List<Object> list) {
+            this.list = list;
+        }
+
+        @Override
+        public Object get(int index) {
+            return readOnlyView(list.get(index));
+        }
+
+        @Override
+        public int size() {
+            return list.size();
+        }
+    }
+}
@@ -18,7 +18,6 @@
 
 package org.wso2.carbon.device.mgt.input.adapter.extension.transformer;
 
-import com.jayway.jsonpath.JsonPath;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.json.simple.JSONArray;
@@ -26,6 +25,8 @@ import org.json.simple.JSONObject;
 import org.json.simple.parser.JSONParser;
 import org.json.simple.parser.ParseException;
 import org.wso2.carbon.device.mgt.input.adapter.extension.ContentTransformer;
+import org.wso2.carbon.device.mgt.input.adapter.extension.DeviceTopic;
+import org.wso2.carbon.device.mgt.input.adapter.extension.ParsedContent;
 
 import java.util.Map;
 
@@ -35,7 +36,7 @@ import java.util.Map;
 public class MQTTContentTransformer implements ContentTransformer {
     private static final String MQTT_CONTENT_TRANSFORMER = "device-meta-transformer";
     private static final String TOPIC = "topic";
-    private static String JSON_ARRAY_START_CHAR = "[";
+    private static final String DEVICE_ID = "deviceId";
 
     private static final Log log = LogFactory.getLog(MQTTContentTransformer.class);
 
@@ -47,15 +48,18 @@ public class MQTTContentTransformer implements ContentTransformer {
     @Override
     public Object transform(Object messagePayload, Map<String, Object> dynamicProperties) {
         String topic = (String) dynamicProperties.get(TOPIC);
-        String topics[] = topic.split("/");
-        String deviceId = topics[2];
-        String deviceType = topics[1];
+        DeviceTopic deviceTopic = DeviceTopic.parse(topic);
+        String deviceId = deviceTopic.getDeviceId();
+        String deviceType = deviceTopic.getDeviceType();
         String message = (String) messagePayload;
         try {
-            if (message.startsWith(JSON_ARRAY_START_CHAR)) {
-                return processMultipleEvents(message, deviceId, deviceType);
+            JSONParser parser = new JSONParser();
+            Object parsedMessage = parser.parse(message);
+            if (parsedMessage instanceof JSONArray) {
+                return new ParsedContent(processMultipleEvents((JSONArray) parsedMessage, deviceId), deviceId,
+                                         deviceType);
             } else {
-                return processSingleEvent(message, deviceId, deviceType);
+                return new ParsedContent(processSingleEvent(parsedMessage, deviceId), deviceId, deviceType);
             }
         } catch (ParseException e) {
             log.error("Invalid input " + message, e);
@@ -63,27 +67,22 @@ public class MQTTContentTransformer implements ContentTransformer {
         }
     }
 
-    private String processSingleEvent(String msg, String deviceIdFromTopic, String deviceIdJsonPath)
-            throws ParseException {
-        JSONParser parser = new JSONParser();
+    private JSONObject processSingleEvent(Object payload, String deviceIdFromTopic) {
         JSONObject jsonObject = new JSONObject();
-        jsonObject.put("deviceId", deviceIdFromTopic);
+        jsonObject.put(DEVICE_ID, deviceIdFromTopic);
         JSONObject eventObject = new JSONObject();
-        eventObject.put("payloadData", parser.parse(msg));
+        eventObject.put("payloadData", payload);
         eventObject.put("metaData", jsonObject);
         JSONObject event = new JSONObject();
         event.put("event", eventObject);
-        return event.toJSONString();
+        return event;
     }
 
-    private String processMultipleEvents(String msg, String deviceIdFromTopic, String deviceIdJsonPath)
-            throws ParseException {
-        JSONParser jsonParser = new JSONParser();
-        JSONArray jsonArray = (JSONArray) jsonParser.parse(msg);
+    private JSONArray processMultipleEvents(JSONArray jsonArray, String deviceIdFromTopic) {
         JSONArray eventsArray = new JSONArray();
-        for (int i = 0; i < jsonArray.size(); i++) {
-            eventsArray.add(i, processSingleEvent(jsonArray.get(i).toString(), deviceIdFromTopic, deviceIdJsonPath));
+        for (Object payload : jsonArray) {
+            eventsArray.add(processSingleEvent(payload, deviceIdFromTopic));
         }
-        return eventsArray.toJSONString();
+        return eventsArray;
     }
 }
@@ -0,0 +1,65 @@
+/*
+*  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.carbon.device.mgt.input.adapter.extension.util;
+
+/**
+ * This is the key of the device authorization cache.
+ */
+public class AuthorizationCacheKey {
+    private final String tenantDomain;
+    private final String username;
+    private final String deviceId;
+    private final String deviceType;
+
+    public AuthorizationCacheKey(String tenantDomain, String username, String deviceId, String deviceType) {
+        this.tenantDomain = tenantDomain;
+        this.username = username;
+        this.deviceId = deviceId;
+        this.deviceType = deviceType;
+    }
+
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    public String getDeviceType() {
+        return deviceType;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = String.valueOf(this.deviceType).hashCode();
+        result = 31 * result + ("@" + this.deviceId + "@" + this.tenantDomain + "@" + this.username).hashCode();
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof AuthorizationCacheKey)) {
+            return false;
+        }
+        AuthorizationCacheKey that = (AuthorizationCacheKey) obj;
+        return equals(deviceType, that.deviceType) && equals(deviceId, that.deviceId)
+                && equals(tenantDomain, that.tenantDomain) && equals(username, that.username);
+    }
+
+    private static boolean equals(String first, String second) {
+        return (first == null) ? second == null : first.equals(second);
+    }
+}
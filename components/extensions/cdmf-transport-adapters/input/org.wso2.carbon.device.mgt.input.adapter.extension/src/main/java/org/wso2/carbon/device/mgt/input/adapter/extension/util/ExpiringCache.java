@@ -0,0 +1,126 @@
+/*
+*  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.carbon.device.mgt.input.adapter.extension.util;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This is a bounded in memory cache where each entry expires after its own time to live. It is used to avoid
+ * calling remote services for every event or connection handled by the adapters.
+ *
+ * @param <K> type of the cache key.
+ * @param <V> type of the cached value.
+ */
+public class ExpiringCache<K, V> {
+
+    private final ConcurrentHashMap<K, CacheEntry<V>> entries = new ConcurrentHashMap<>();
+    private final int maxSize;
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    public ExpiringCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @return the cached value or null if there is no live entry for the key.
+     */
+    public V get(K key) {
+        CacheEntry<V> entry = entries.get(key);
+        if (entry == null) {
+            missCount.incrementAndGet();
+            return null;
+        }
+        if (entry.isExpired(System.currentTimeMillis())) {
+            entries.remove(key, entry);
+            missCount.incrementAndGet();
+            return null;
+        }
+        hitCount.incrementAndGet();
+        return entry.value;
+    }
+
+    /**
+     * Adds the value to the cache, it will be treated as absent after the given time to live.
+     */
+    public void put(K key, V value, long timeToLiveInMillis) {
+        if (maxSize <= 0 || timeToLiveInMillis <= 0) {
+            return;
+        }
+        if (entries.size() >= maxSize) {
+            evict();
+        }
+        entries.put(key, new CacheEntry<>(value, System.currentTimeMillis() + timeToLiveInMillis));
+    }
+
+    public void remove(K key) {
+        entries.remove(key);
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Removes the expired entries, if the cache is still full then entries are removed until there is room for a
+     * tenth of the capacity so that eviction does not run for every put.
+     */
+    private void evict() {
+        long now = System.currentTimeMillis();
+        for (Iterator<Map.Entry<K, CacheEntry<V>>> iterator = entries.entrySet().iterator(); iterator.hasNext(); ) {
+            if (iterator.next().getValue().isExpired(now)) {
+                iterator.remove();
+            }
+        }
+        int target = maxSize - Math.max(1, maxSize / 10);
+        for (Iterator<K> iterator = entries.keySet().iterator(); iterator.hasNext() && entries.size() > target; ) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    private static class CacheEntry<V> {
+        private final V value;
+        private final long expiryTime;
+
+        CacheEntry(V value, long expiryTime) {
+            this.value = value;
+            this.expiryTime = expiryTime;
+        }
+
+        boolean isExpired(long now) {
+            return now >= expiryTime;
+        }
+    }
+}
@@ -0,0 +1,429 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.device.mgt.input.adapter.extension.util;
+
+import org.eclipse.paho.client.mqttv3.MqttClientPersistence;
+import org.eclipse.paho.client.mqttv3.MqttPersistable;
+import org.eclipse.paho.client.mqttv3.MqttPersistenceException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Paho client persistence which appends the persisted messages to a single memory mapped log file, instead of
+ * writing and syncing a file per message as the default file persistence does. The live messages are also kept in
+ * memory, the log is only read when the client is opened in order to recover the messages of the previous run.
+ * Space of removed messages is reclaimed by compacting the log into a new file once it is full.
+ * The log is not forced to the disk on every write but written back by the operating system, hence the messages
+ * survive a restart of the server but not a failure of the machine itself.
+ * The log file is locked while the client is open, so a second client with the same client id and server uri fails
+ * to open with {@link MqttPersistenceException#REASON_CODE_PERSISTENCE_IN_USE}.
+ */
+public class MQTTMappedFilePersistence implements MqttClientPersistence {
+
+    private static final byte RECORD_END = 0;
+    private static final byte RECORD_PUT = 1;
+    private static final byte RECORD_REMOVE = 2;
+    private static final String LOG_FILE_PREFIX = "paho-";
+    private static final String LOG_FILE_SUFFIX = ".log";
+    private static final String COMPACTED_FILE_SUFFIX = ".compacted";
+
+    private final String directory;
+    private final int initialSize;
+    private final Map<String, PersistedMessage> messages = new HashMap<>();
+    private File logFile;
+    private RandomAccessFile randomAccessFile;
+    private FileLock fileLock;
+    private MappedByteBuffer buffer;
+
+    /**
+     * @param directory   directory the log file is created in.
+     * @param initialSize initial size of the log file in bytes, the log grows when the live messages do not fit.
+     */
+    public MQTTMappedFilePersistence(String directory, int initialSize) {
+        this.directory = directory;
+        this.initialSize = Math.max(initialSize, 1024);
+    }
+
+    @Override
+    public synchronized void open(String clientId, String serverURI) throws MqttPersistenceException {
+        File logDirectory = new File(directory);
+        if (!logDirectory.isDirectory() && !logDirectory.mkdirs()) {
+            throw new MqttPersistenceException(new IOException("Unable to create directory " + directory));
+        }
+        messages.clear();
+        logFile = new File(logDirectory, LOG_FILE_PREFIX + toFileName(clientId + "-" + serverURI) + LOG_FILE_SUFFIX);
+        try {
+            RandomAccessFile file = new RandomAccessFile(logFile, "rw");
+            FileLock lock;
+            try {
+                lock = file.getChannel().tryLock();
+            } catch (OverlappingFileLockException e) {
+                // the log is already locked by another client of this server
+                lock = null;
+            }
+            if (lock == null) {
+                file.close();
+                throw new MqttPersistenceException(MqttPersistenceException.REASON_CODE_PERSISTENCE_IN_USE);
+            }
+            randomAccessFile = file;
+            fileLock = lock;
+            int size = (int) Math.max(file.length(), initialSize);
+            buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+            recover();
+        } catch (IOException e) {
+            try {
+                releaseFile();
+            } catch (IOException ignored) {
+                // the error of opening the log is reported
+            }
+            throw new MqttPersistenceException(e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws MqttPersistenceException {
+        checkIsOpen();
+        boolean empty = messages.isEmpty();
+        messages.clear();
+        try {
+            releaseFile();
+        } catch (IOException e) {
+            throw new MqttPersistenceException(e);
+        }
+        if (empty && !logFile.delete()) {
+            logFile.deleteOnExit();
+        }
+    }
+
+    @Override
+    public synchronized void put(String key, MqttPersistable persistable) throws MqttPersistenceException {
+        checkIsOpen();
+        PersistedMessage message = new PersistedMessage(
+                copy(persistable.getHeaderBytes(), persistable.getHeaderOffset(), persistable.getHeaderLength()),
+                copy(persistable.getPayloadBytes(), persistable.getPayloadOffset(), persistable.getPayloadLength()));
+        PersistedMessage previous = messages.put(key, message);
+        try {
+            append(RECORD_PUT, key, message);
+        } catch (MqttPersistenceException e) {
+            // the message is not persisted, the previous state is kept so that memory matches the log
+            if (previous == null) {
+                messages.remove(key);
+            } else {
+                messages.put(key, previous);
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public synchronized MqttPersistable get(String key) throws MqttPersistenceException {
+        checkIsOpen();
+        return messages.get(key);
+    }
+
+    @Override
+    public synchronized void remove(String key) throws MqttPersistenceException {
+        checkIsOpen();
+        PersistedMessage removed = messages.remove(key);
+        if (removed != null) {
+            try {
+                append(RECORD_REMOVE, key, null);
+            } catch (MqttPersistenceException e) {
+                messages.put(key, removed);
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    public synchronized Enumeration keys() throws MqttPersistenceException {
+        checkIsOpen();
+        return Collections.enumeration(new ArrayList<>(messages.keySet()));
+    }
+
+    @Override
+    public synchronized void clear() throws MqttPersistenceException {
+        checkIsOpen();
+        messages.clear();
+        buffer.position(0);
+        buffer.put(0, RECORD_END);
+    }
+
+    @Override
+    public synchronized boolean containsKey(String key) throws MqttPersistenceException {
+        checkIsOpen();
+        return messages.containsKey(key);
+    }
+
+    /**
+     * Replays the log, a record which was not completely written before the previous run ended marks the end.
+     */
+    private void recover() {
+        buffer.position(0);
+        while (buffer.hasRemaining()) {
+            int recordStart = buffer.position();
+            try {
+                byte type = buffer.get();
+                if (type == RECORD_PUT) {
+                    String key = new String(readBytes(), StandardCharsets.UTF_8);
+                    byte[] header = readBytes();
+                    byte[] payload = readBytes();
+                    messages.put(key, new PersistedMessage(header, payload));
+                } else if (type == RECORD_REMOVE) {
+                    messages.remove(new String(readBytes(), StandardCharsets.UTF_8));
+                } else {
+                    buffer.position(recordStart);
+                    break;
+                }
+            } catch (BufferUnderflowException | IllegalArgumentException e) {
+                buffer.position(recordStart);
+                break;
+            }
+        }
+        markEnd(buffer);
+    }
+
+    private byte[] readBytes() {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IllegalArgumentException("Invalid record length " + length);
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private void append(byte type, String key, PersistedMessage message) throws MqttPersistenceException {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        // one more byte is needed to mark the end of the log
+        if (buffer.remaining() < getRecordSize(keyBytes, message) + 1) {
+            try {
+                // the live messages, including this one, are written to the compacted log
+                compact(getRecordSize(keyBytes, message) + 1);
+            } catch (IOException e) {
+                throw new MqttPersistenceException(e);
+            }
+            return;
+        }
+        writeRecord(buffer, type, keyBytes, message);
+        markEnd(buffer);
+    }
+
+    /**
+     * Writes the live messages to a new log file which replaces the current one once it is completely written, so
+     * that a failure while compacting does not corrupt the log. The new log is sized to fit the live messages.
+     * If the new log can not replace the current one, the current log is opened again and the store keeps using it.
+     */
+    private void compact(int required) throws IOException {
+        long liveSize = required;
+        for (Map.Entry<String, PersistedMessage> entry : messages.entrySet()) {
+            liveSize += getRecordSize(entry.getKey().getBytes(StandardCharsets.UTF_8), entry.getValue());
+        }
+        long size = initialSize;
+        while (size < liveSize) {
+            size *= 2;
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Persisted messages do not fit in to a log file of " + logFile.getPath());
+        }
+        int logEnd = buffer.position();
+        File compactedFile = new File(logFile.getPath() + COMPACTED_FILE_SUFFIX);
+        RandomAccessFile compactedRandomAccessFile = new RandomAccessFile(compactedFile, "rw");
+        try {
+            compactedRandomAccessFile.setLength(0);
+            FileLock compactedFileLock = compactedRandomAccessFile.getChannel().lock();
+            MappedByteBuffer compactedBuffer = compactedRandomAccessFile.getChannel()
+                    .map(FileChannel.MapMode.READ_WRITE, 0, size);
+            for (Map.Entry<String, PersistedMessage> entry : messages.entrySet()) {
+                writeRecord(compactedBuffer, RECORD_PUT, entry.getKey().getBytes(StandardCharsets.UTF_8),
+                            entry.getValue());
+            }
+            markEnd(compactedBuffer);
+            compactedBuffer.force();
+            releaseFile();
+            try {
+                Files.move(compactedFile.toPath(), logFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                           StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                // the current log is left in place by the failed move
+                try {
+                    reopen(logEnd);
+                } catch (IOException reopenError) {
+                    IOException closedError = new IOException("Persistence of " + logFile.getPath() + " is closed, "
+                            + "the log could not be opened again after a failed compaction.", e);
+                    closedError.addSuppressed(reopenError);
+                    throw closedError;
+                }
+                throw e;
+            }
+            randomAccessFile = compactedRandomAccessFile;
+            fileLock = compactedFileLock;
+            buffer = compactedBuffer;
+        } catch (IOException e) {
+            compactedRandomAccessFile.close();
+            if (!compactedFile.delete()) {
+                compactedFile.deleteOnExit();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Maps the current log again after it was released for a compaction which failed, appending continues at the
+     * given position.
+     */
+    private void reopen(int position) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(logFile, "rw");
+        try {
+            FileLock lock;
+            try {
+                lock = file.getChannel().tryLock();
+            } catch (OverlappingFileLockException e) {
+                lock = null;
+            }
+            if (lock == null) {
+                throw new IOException("Log file " + logFile.getPath() + " is locked by another client.");
+            }
+            MappedByteBuffer logBuffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, file.length());
+            logBuffer.position(position);
+            randomAccessFile = file;
+            fileLock = lock;
+            buffer = logBuffer;
+        } catch (IOException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    private static int getRecordSize(byte[] keyBytes, PersistedMessage message) {
+        int size = 1 + 4 + keyBytes.length;
+        if (message != null) {
+            size += 4 + message.header.length + 4 + message.payload.length;
+        }
+        return size;
+    }
+
+    private static void writeRecord(ByteBuffer target, byte type, byte[] keyBytes, PersistedMessage message) {
+        target.put(type);
+        target.putInt(keyBytes.length).put(keyBytes);
+        if (message != null) {
+            target.putInt(message.header.length).put(message.header);
+            target.putInt(message.payload.length).put(message.payload);
+        }
+    }
+
+    private static void markEnd(ByteBuffer target) {
+        if (target.hasRemaining()) {
+            target.put(target.position(), RECORD_END);
+        }
+    }
+
+    private void releaseFile() throws IOException {
+        buffer = null;
+        if (randomAccessFile != null) {
+            try {
+                if (fileLock != null && fileLock.isValid()) {
+                    fileLock.release();
+                }
+            } finally {
+                fileLock = null;
+                randomAccessFile.close();
+                randomAccessFile = null;
+            }
+        }
+    }
+
+    private void checkIsOpen() throws MqttPersistenceException {
+        if (buffer == null) {
+            throw new MqttPersistenceException();
+        }
+    }
+
+    private static byte[] copy(byte[] bytes, int offset, int length) {
+        byte[] copy = new byte[bytes == null ? 0 : length];
+        if (bytes != null) {
+            System.arraycopy(bytes, offset, copy, 0, length);
+        }
+        return copy;
+    }
+
+    private static String toFileName(String name) {
+        StringBuilder fileName = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            fileName.append(Character.isLetterOrDigit(c) || c == '-' ? c : '_');
+        }
+        return fileName.toString();
+    }
+
+    private static class PersistedMessage implements MqttPersistable {
+        private final byte[] header;
+        private final byte[] payload;
+
+        PersistedMessage(byte[] header, byte[] payload) {
+            this.header = header;
+            this.payload = payload;
+        }
+
+        @Override
+        public byte[] getHeaderBytes() {
+            return header;
+        }
+
+        @Override
+        public int getHeaderLength() {
+            return header.length;
+        }
+
+        @Override
+        public int getHeaderOffset() {
+            return 0;
+        }
+
+        @Override
+        public byte[] getPayloadBytes() {
+            return payload;
+        }
+
+        @Override
+        public int getPayloadLength() {
+            return payload.length;
+        }
+
+        @Override
+        public int getPayloadOffset() {
+            return 0;
+        }
+    }
+}
@@ -26,7 +26,10 @@ import org.json.simple.parser.JSONParser;
 import org.json.simple.parser.ParseException;
 import org.wso2.carbon.device.mgt.input.adapter.extension.ContentInfo;
 import org.wso2.carbon.device.mgt.input.adapter.extension.ContentValidator;
+import org.wso2.carbon.device.mgt.input.adapter.extension.DeviceTopic;
+import org.wso2.carbon.device.mgt.input.adapter.extension.ParsedContent;
 
+import java.util.List;
 import java.util.Map;
 
 public class MQTTContentValidator implements ContentValidator {
@@ -34,9 +37,8 @@ public class MQTTContentValidator implements ContentValidator {
     private static final Log log = LogFactory.getLog(MQTTContentValidator.class);
     private static final String CDMF_MQTT_CONTENT_VALIDATOR = "deviceid-topic-content-validator";
     private static final String DEVICE_ID_JSON_PATH = "event.metaData.deviceId";
-    private static final String DEVICE_TYPE_JSON_PATH = "event.metaData.deviceId";
+    private static final String[] DEVICE_ID_PATH_ELEMENTS = DEVICE_ID_JSON_PATH.split("\\.");
     private static final String TOPIC = "topic";
-    private static final int DEVICE_ID_TOPIC_HIERARCHY_INDEX = 2;
 
     @Override
     public String getType() {
@@ -45,10 +47,15 @@ public class MQTTContentValidator implements ContentValidator {
 
     @Override
     public ContentInfo validate(Object msgPayload, Map<String, Object> dynamicParams) {
+        if (msgPayload instanceof ParsedContent) {
+            ParsedContent parsedContent = (ParsedContent) msgPayload;
+            return new ContentInfo(processParsedContent(parsedContent.getContent(), parsedContent.getDeviceId()),
+                                   msgPayload);
+        } else if (!(msgPayload instanceof String)) {
+            return new ContentInfo(false, msgPayload);
+        }
         String topic = (String) dynamicParams.get(TOPIC);
-        String topics[] = topic.split("/");
-        int deviceIdInTopicHierarchyLevelIndex = DEVICE_ID_TOPIC_HIERARCHY_INDEX;
-        String deviceIdFromTopic = topics[deviceIdInTopicHierarchyLevelIndex];
+        String deviceIdFromTopic = DeviceTopic.parse(topic).getDeviceId();
         boolean status;
         String message = (String) msgPayload;
         if (message.startsWith(JSON_ARRAY_START_CHAR)) {
@@ -59,6 +66,37 @@ public class MQTTContentValidator implements ContentValidator {
         return new ContentInfo(status, msgPayload);
     }
 
+    private boolean processParsedContent(Object content, String deviceIdFromTopic) {
+        if (content instanceof List) {
+            List<?> events = (List<?>) content;
+            if (events.isEmpty()) {
+                return false;
+            }
+            for (Object event : events) {
+                if (!processParsedEvent(event, deviceIdFromTopic)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return processParsedEvent(content, deviceIdFromTopic);
+    }
+
+    /**
+     * Walks event.metaData.deviceId of an already parsed event, which is what DEVICE_ID_JSON_PATH resolves to.
+     */
+    private boolean processParsedEvent(Object event, String deviceIdFromTopic) {
+        Object value = event;
+        for (String key : DEVICE_ID_PATH_ELEMENTS) {
+            if (!(value instanceof Map)) {
+                return false;
+            }
+            value = ((Map<?, ?>) value).get(key);
+        }
+        String deviceIdFromContent = (value != null) ? value.toString() : "";
+        return deviceIdFromContent.equals(deviceIdFromTopic);
+    }
+
     private boolean processSingleEvent(String msg, String deviceIdFromTopic, String deviceIdJsonPath) {
         Object res = JsonPath.read(msg, deviceIdJsonPath);
         String deviceIdFromContent = (res != null) ? res.toString() : "";
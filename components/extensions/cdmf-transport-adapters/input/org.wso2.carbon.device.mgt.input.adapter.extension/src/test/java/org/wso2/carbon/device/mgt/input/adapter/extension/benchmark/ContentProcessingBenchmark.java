@@ -0,0 +1,100 @@
+/*
+*  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.carbon.device.mgt.input.adapter.extension.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wso2.carbon.device.mgt.input.adapter.extension.ContentInfo;
+import org.wso2.carbon.device.mgt.input.adapter.extension.ParsedContent;
+import org.wso2.carbon.device.mgt.input.adapter.extension.transformer.MQTTContentTransformer;
+import org.wso2.carbon.device.mgt.input.adapter.extension.validator.MQTTContentValidator;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the MQTT transformer/validator chain handing over the parsed content with the chain handing over the
+ * serialized content, which the validator parses again.
+ * Run with: java -cp target/test-classes:target/classes:&lt;test classpath&gt; org.openjdk.jmh.Main
+ * ContentProcessingBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContentProcessingBenchmark {
+
+    private static final String DEVICE_ID = "8fb7b2b5d4c4a2e1";
+    private static final String SINGLE_EVENT = "{\"temperature\":24.5,\"humidity\":61,\"owner\":\"admin\"," +
+            "\"time\":1490241843000}";
+
+    @Param({"1", "20"})
+    private int eventsPerMessage;
+
+    private MQTTContentTransformer transformer;
+    private MQTTContentValidator validator;
+    private Map<String, Object> dynamicProperties;
+    private String message;
+
+    @Setup
+    public void setup() {
+        transformer = new MQTTContentTransformer();
+        validator = new MQTTContentValidator();
+        dynamicProperties = new HashMap<>();
+        dynamicProperties.put("topic", "carbon.super/virtual_firealarm/" + DEVICE_ID + "/temperature");
+        if (eventsPerMessage == 1) {
+            message = SINGLE_EVENT;
+        } else {
+            StringBuilder builder = new StringBuilder("[");
+            for (int i = 0; i < eventsPerMessage; i++) {
+                if (i > 0) {
+                    builder.append(',');
+                }
+                builder.append(SINGLE_EVENT);
+            }
+            message = builder.append(']').toString();
+        }
+    }
+
+    @Benchmark
+    public String parsedContent() {
+        Object transformed = transformer.transform(message, dynamicProperties);
+        ContentInfo contentInfo = validator.validate(transformed, dynamicProperties);
+        return contentInfo.isValidContent() ? ((ParsedContent) contentInfo.getMessage()).toJSONString() : null;
+    }
+
+    @Benchmark
+    public String serializedContent() {
+        String transformed = ((ParsedContent) transformer.transform(message, dynamicProperties)).toJSONString();
+        ContentInfo contentInfo = validator.validate(transformed, dynamicProperties);
+        return contentInfo.isValidContent() ? (String) contentInfo.getMessage() : null;
+    }
+}
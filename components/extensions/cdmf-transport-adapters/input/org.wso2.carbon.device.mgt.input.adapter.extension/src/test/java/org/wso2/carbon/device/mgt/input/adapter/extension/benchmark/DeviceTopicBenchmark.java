@@ -0,0 +1,82 @@
+/*
+*  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.carbon.device.mgt.input.adapter.extension.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wso2.carbon.device.mgt.input.adapter.extension.DeviceTopic;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares reading the device of a topic through the shared DeviceTopic cache with splitting the topic on every
+ * message. With more devices than the cache holds, the cache is cleared whenever it fills up and topics are parsed
+ * again.
+ * Run with: java -cp target/test-classes:target/classes:&lt;test classpath&gt; org.openjdk.jmh.Main
+ * DeviceTopicBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeviceTopicBenchmark {
+
+    @Param({"100", "100000"})
+    private int deviceCount;
+
+    private String[] topics;
+    private int next;
+
+    @Setup
+    public void setup() {
+        topics = new String[deviceCount];
+        for (int i = 0; i < deviceCount; i++) {
+            topics[i] = "carbon.super/virtual_firealarm/8fb7b2b5d4c4a2e" + i + "/temperature";
+        }
+    }
+
+    @Benchmark
+    public String deviceTopic() {
+        DeviceTopic deviceTopic = DeviceTopic.parse(nextTopic());
+        return deviceTopic.isDeviceTopic() ? deviceTopic.getDeviceId() : null;
+    }
+
+    @Benchmark
+    public String split() {
+        String[] topicParams = nextTopic().split("/");
+        return topicParams.length > 2 ? topicParams[2] : null;
+    }
+
+    private String nextTopic() {
+        String topic = topics[next];
+        next = (next + 1) % topics.length;
+        return topic;
+    }
+}
@@ -0,0 +1,155 @@
+/*
+*  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.carbon.device.mgt.input.adapter.extension.benchmark;
+
+import org.eclipse.paho.client.mqttv3.MqttClientPersistence;
+import org.eclipse.paho.client.mqttv3.MqttPersistable;
+import org.eclipse.paho.client.mqttv3.MqttPersistenceException;
+import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
+import org.eclipse.paho.client.mqttv3.persist.MqttDefaultFilePersistence;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wso2.carbon.device.mgt.input.adapter.extension.util.MQTTMappedFilePersistence;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the persistence stores an MQTT client can be configured with on the path of a QoS 1 message: the message
+ * is stored when it is sent and removed when it is acknowledged, with a window of messages in flight.
+ * Run with: java -cp target/test-classes:target/classes:&lt;test classpath&gt; org.openjdk.jmh.Main
+ * MQTTPersistenceBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MQTTPersistenceBenchmark {
+
+    private static final int IN_FLIGHT_WINDOW = 10;
+    private static final int MAPPED_FILE_SIZE = 1024 * 1024;
+
+    @Param({"file", "memory", "mappedFile"})
+    private String persistenceType;
+
+    private MqttClientPersistence persistence;
+    private MqttPersistable message;
+    private File directory;
+    private long next;
+
+    @Setup
+    public void setup() throws IOException, MqttPersistenceException {
+        directory = Files.createTempDirectory("mqtt-persistence").toFile();
+        switch (persistenceType) {
+            case "file":
+                persistence = new MqttDefaultFilePersistence(directory.getAbsolutePath());
+                break;
+            case "memory":
+                persistence = new MemoryPersistence();
+                break;
+            default:
+                persistence = new MQTTMappedFilePersistence(directory.getAbsolutePath(), MAPPED_FILE_SIZE);
+        }
+        persistence.open("benchmark-client", "tcp://127.0.0.1:1883");
+        byte[] payload = ("{\"event\":{\"metaData\":{\"owner\":\"admin\",\"deviceId\":\"8fb7b2b5d4c4a2e1\"," +
+                "\"time\":1490241843000},\"payloadData\":{\"temperature\":24.5,\"humidity\":61}}}").getBytes();
+        message = new BenchmarkPersistable(new byte[]{0x32, (byte) payload.length}, payload);
+    }
+
+    @TearDown
+    public void tearDown() throws MqttPersistenceException {
+        persistence.close();
+        delete(directory);
+    }
+
+    @Benchmark
+    public long storeAndAcknowledge() throws MqttPersistenceException {
+        long id = next++;
+        persistence.put("s-" + id, message);
+        if (id >= IN_FLIGHT_WINDOW) {
+            persistence.remove("s-" + (id - IN_FLIGHT_WINDOW));
+        }
+        return id;
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    private static class BenchmarkPersistable implements MqttPersistable {
+
+        private final byte[] header;
+        private final byte[] payload;
+
+        BenchmarkPersistable(byte[] header, byte[] payload) {
+            this.header = header;
+            this.payload = payload;
+        }
+
+        @Override
+        public byte[] getHeaderBytes() {
+            return header;
+        }
+
+        @Override
+        public int getHeaderLength() {
+            return header.length;
+        }
+
+        @Override
+        public int getHeaderOffset() {
+            return 0;
+        }
+
+        @Override
+        public byte[] getPayloadBytes() {
+            return payload;
+        }
+
+        @Override
+        public int getPayloadLength() {
+            return payload.length;
+        }
+
+        @Override
+        public int getPayloadOffset() {
+            return 0;
+        }
+    }
+}
@@ -36,9 +36,11 @@ import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.RejectedExecutionHandler;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 public final class HTTPEventAdapter implements InputEventAdapter {
 
@@ -47,6 +49,9 @@ public final class HTTPEventAdapter implements InputEventAdapter {
     private InputEventAdapterListener eventAdaptorListener;
     private final String id = UUID.randomUUID().toString();
     public static ExecutorService executorService;
+    private static int executorJobQueueSize;
+    private static final AtomicLong acceptedEventCount = new AtomicLong();
+    private static final AtomicLong rejectedEventCount = new AtomicLong();
     private static final Log log = LogFactory.getLog(HTTPEventAdapter.class);
     private boolean isConnected = false;
 
@@ -99,6 +104,11 @@ public final class HTTPEventAdapter implements InputEventAdapter {
             RejectedExecutionHandler rejectedExecutionHandler = new RejectedExecutionHandler() {
                 @Override
                 public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+                    if (r instanceof HTTPMessageServlet.HTTPRequestProcessor
+                            && ((HTTPMessageServlet.HTTPRequestProcessor) r).isRejectable()) {
+                        // the request is answered with 429 instead of holding the servlet thread.
+                        throw new RejectedExecutionException("Event queue of the http adapter is full");
+                    }
                     try {
                         executor.getQueue().put(r);
                     } catch (InterruptedException e) {
@@ -108,12 +118,49 @@ public final class HTTPEventAdapter implements InputEventAdapter {
 
             };
 
+            executorJobQueueSize = jobQueueSize;
             executorService = new ThreadPoolExecutor(minThread, maxThread, defaultKeepAliveTime, TimeUnit.MILLISECONDS,
                     new LinkedBlockingQueue<Runnable>(jobQueueSize), rejectedExecutionHandler);
 
         }
     }
 
+    /**
+     * @return number of events waiting in the executor queue.
+     */
+    public static int getQueueDepth() {
+        if (executorService instanceof ThreadPoolExecutor) {
+            return ((ThreadPoolExecutor) executorService).getQueue().size();
+        }
+        return 0;
+    }
+
+    public static int getJobQueueSize() {
+        return executorJobQueueSize;
+    }
+
+    /**
+     * @return number of events accepted for processing by all http adapters.
+     */
+    public static long getAcceptedEventCount() {
+        return acceptedEventCount.get();
+    }
+
+    /**
+     * @return number of events rejected with 429 since the executor queue was above its high water mark.
+     */
+    public static long getRejectedEventCount() {
+        return rejectedEventCount.get();
+    }
+
+    static void incrementAcceptedEventCount() {
+        acceptedEventCount.incrementAndGet();
+    }
+
+    static void incrementRejectedEventCount() {
+        rejectedEventCount.incrementAndGet();
+    }
+
     @Override
     public void testConnect() throws TestConnectionNotSupportedException {
         throw new TestConnectionNotSupportedException("not-supported");
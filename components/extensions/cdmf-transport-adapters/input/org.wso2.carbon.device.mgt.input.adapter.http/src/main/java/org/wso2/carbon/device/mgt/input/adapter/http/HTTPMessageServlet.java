@@ -36,12 +36,15 @@ import org.wso2.carbon.device.mgt.input.adapter.extension.ContentValidator;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * This will act as the event reciver.
@@ -50,6 +53,9 @@ public class HTTPMessageServlet extends HttpServlet {
 
 	private static final String AUTH_MESSAGE_STORE_AUTHENTICATION_INFO = "AUTH_MESSAGE_STORE_AUTHENTICATION_INFO";
 	private static final String AUTH_FAILURE_RESPONSE = "_AUTH_FAILURE_";
+	private static final int PAYLOAD_TOO_LARGE = 413;
+	private static final int TOO_MANY_REQUESTS = 429;
+	private static final String RETRY_AFTER_HEADER = "Retry-After";
 
 	private static Log log = LogFactory.getLog(HTTPMessageServlet.class);
 
@@ -58,6 +64,10 @@ public class HTTPMessageServlet extends HttpServlet {
 	private InputEventAdapterListener eventAdaptorListener;
 	private int tenantId;
 	private String exposedTransports;
+	private int maximumRequestBodySize;
+	private boolean asyncResponse;
+	private int queueHighWaterMark;
+	private String retryAfterInSeconds;
 	private static JWTAuthenticator jwtAuthenticator;
 	private static OAuthAuthenticator oAuthAuthenticator;
     private static DeviceAuthorizer deviceAuthorizer;
@@ -95,6 +105,33 @@ public class HTTPMessageServlet extends HttpServlet {
                     .getContentTransformer(contentValidatorType);
 		}
 
+		String maximumRequestBodySize = globalProperties.get(HTTPEventAdapterConstants.MAXIMUM_REQUEST_BODY_SIZE);
+		if (maximumRequestBodySize != null && !maximumRequestBodySize.isEmpty()) {
+			this.maximumRequestBodySize = Integer.parseInt(maximumRequestBodySize);
+		} else {
+			this.maximumRequestBodySize = HTTPEventAdapterConstants.DEFAULT_MAXIMUM_REQUEST_BODY_SIZE;
+		}
+
+		String responseMode = eventAdapterConfiguration.getProperties().get(
+				HTTPEventAdapterConstants.ADAPTER_CONF_RESPONSE_MODE);
+		if (responseMode == null || responseMode.isEmpty()) {
+			responseMode = globalProperties.get(HTTPEventAdapterConstants.ADAPTER_CONF_RESPONSE_MODE);
+		}
+		this.asyncResponse = HTTPEventAdapterConstants.RESPONSE_MODE_ASYNC.equalsIgnoreCase(responseMode);
+		String queueHighWaterMark = globalProperties.get(HTTPEventAdapterConstants.ADAPTER_QUEUE_HIGH_WATER_MARK_NAME);
+		if (queueHighWaterMark != null && !queueHighWaterMark.isEmpty()) {
+			this.queueHighWaterMark = Integer.parseInt(queueHighWaterMark);
+		} else {
+			this.queueHighWaterMark = HTTPEventAdapter.getJobQueueSize()
+					* HTTPEventAdapterConstants.DEFAULT_QUEUE_HIGH_WATER_MARK_PERCENTAGE / 100;
+		}
+		String retryAfterInSeconds = globalProperties.get(HTTPEventAdapterConstants.ADAPTER_RETRY_AFTER_NAME);
+		if (retryAfterInSeconds != null && !retryAfterInSeconds.isEmpty()) {
+			this.retryAfterInSeconds = retryAfterInSeconds;
+		} else {
+			this.retryAfterInSeconds = String.valueOf(HTTPEventAdapterConstants.DEFAULT_RETRY_AFTER_IN_SECONDS);
+		}
+
 		jwtAuthenticator = new JWTAuthenticator();
 		oAuthAuthenticator = new OAuthAuthenticator(globalProperties);
         deviceAuthorizer = new DeviceAuthorizer(globalProperties);
@@ -104,9 +141,15 @@ public class HTTPMessageServlet extends HttpServlet {
 	protected void doPost(HttpServletRequest req,
 						  HttpServletResponse res) throws IOException {
 
-		String data = this.inputStreamToString(req.getInputStream());
+		if (asyncResponse && HTTPEventAdapter.getQueueDepth() >= queueHighWaterMark) {
+			rejectRequest(res);
+			return;
+		}
+		String data = this.readRequestBody(req);
 		if (data == null) {
-			log.warn("Event Object is empty/null");
+			res.setStatus(PAYLOAD_TOO_LARGE);
+			log.warn("Dropping the request since its body exceeds the maximum size of " + maximumRequestBodySize
+							 + " bytes");
 			return;
 		}
 		AuthenticationInfo authenticationInfo = null;
@@ -173,10 +216,18 @@ public class HTTPMessageServlet extends HttpServlet {
                     data = (String) contentTransformer.transform(data, paramMap);
                     ContentInfo contentInfo = contentValidator.validate(data, paramMap);
                     if (contentInfo != null && contentInfo.isValidContent()) {
-                        HTTPEventAdapter.executorService.submit(new HTTPRequestProcessor(eventAdaptorListener,
-                                                                                         (String) contentInfo
-                                                                                                 .getMessage(),
-                                                                                         tenantId));
+                        try {
+                            HTTPEventAdapter.executorService.execute(
+                                    new HTTPRequestProcessor(eventAdaptorListener, (String) contentInfo.getMessage(),
+                                                             tenantId, asyncResponse));
+                        } catch (RejectedExecutionException e) {
+                            rejectRequest(res);
+                            return;
+                        }
+                        HTTPEventAdapter.incrementAcceptedEventCount();
+                        if (asyncResponse) {
+                            res.setStatus(HttpServletResponse.SC_ACCEPTED);
+                        }
                     }
                 }
             } else {
@@ -198,11 +249,25 @@ public class HTTPMessageServlet extends HttpServlet {
 		private InputEventAdapterListener inputEventAdapterListener;
 		private String payload;
 		private int tenantId;
+		private boolean rejectable;
 
 		public HTTPRequestProcessor(InputEventAdapterListener inputEventAdapterListener, String payload, int tenantId) {
+			this(inputEventAdapterListener, payload, tenantId, false);
+		}
+
+		public HTTPRequestProcessor(InputEventAdapterListener inputEventAdapterListener, String payload, int tenantId,
+									boolean rejectable) {
 			this.inputEventAdapterListener = inputEventAdapterListener;
 			this.payload = payload;
 			this.tenantId = tenantId;
+			this.rejectable = rejectable;
+		}
+
+		/**
+		 * @return true if the event should be rejected rather than waiting for space when the queue is full.
+		 */
+		public boolean isRejectable() {
+			return rejectable;
 		}
 
 		public void run() {
@@ -245,15 +310,67 @@ public class HTTPMessageServlet extends HttpServlet {
 		return authenticationInfo;
 	}
 
-	private String inputStreamToString(InputStream in) throws IOException {
-		ByteArrayOutputStream out = new ByteArrayOutputStream();
-		byte[] buff = new byte[1024];
-		int i;
-		while ((i = in.read(buff)) > 0) {
-			out.write(buff, 0, i);
+	private void rejectRequest(HttpServletResponse res) {
+		HTTPEventAdapter.incrementRejectedEventCount();
+		res.setHeader(RETRY_AFTER_HEADER, retryAfterInSeconds);
+		res.setStatus(TOO_MANY_REQUESTS);
+		if (log.isDebugEnabled()) {
+			log.debug("Rejecting the request since the event queue is above its high water mark, queue depth : "
+							  + HTTPEventAdapter.getQueueDepth());
+		}
+	}
+
+	/**
+	 * Reads the request body into a buffer sized from the Content-Length header and decodes it once with the
+	 * charset of the request, which defaults to UTF-8.
+	 *
+	 * @return the request body or null if it exceeds the maximum request body size.
+	 */
+	private String readRequestBody(HttpServletRequest req) throws IOException {
+		int contentLength = req.getContentLength();
+		if (contentLength > maximumRequestBodySize) {
+			return null;
+		}
+		byte[] buffer = new byte[contentLength >= 0 ? contentLength
+				: Math.min(HTTPEventAdapterConstants.DEFAULT_REQUEST_BUFFER_SIZE, maximumRequestBodySize)];
+		int length = 0;
+		InputStream in = req.getInputStream();
+		while (true) {
+			if (length == buffer.length) {
+				int next = in.read();
+				if (next == -1) {
+					break;
+				}
+				// body is longer than the content length header or the content length is unknown.
+				if (length >= maximumRequestBodySize) {
+					return null;
+				}
+				int newSize = (int) Math.min((long) maximumRequestBodySize,
+											 Math.max(2L * buffer.length, HTTPEventAdapterConstants
+													 .DEFAULT_REQUEST_BUFFER_SIZE));
+				buffer = Arrays.copyOf(buffer, newSize);
+				buffer[length++] = (byte) next;
+				continue;
+			}
+			int i = in.read(buffer, length, buffer.length - length);
+			if (i == -1) {
+				break;
+			}
+			length += i;
+		}
+		return new String(buffer, 0, length, getCharset(req));
+	}
+
+	private Charset getCharset(HttpServletRequest req) {
+		String characterEncoding = req.getCharacterEncoding();
+		if (characterEncoding != null) {
+			try {
+				return Charset.forName(characterEncoding);
+			} catch (IllegalArgumentException e) {
+				log.warn("Unsupported character encoding " + characterEncoding + ", decoding the request as UTF-8");
+			}
 		}
-		out.close();
-		return out.toString();
+		return StandardCharsets.UTF_8;
 	}
 
 }
@@ -30,12 +30,15 @@ import feign.slf4j.Slf4jLogger;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.base.ServerConfiguration;
+import org.wso2.carbon.device.mgt.input.adapter.extension.util.AuthorizationCacheKey;
+import org.wso2.carbon.device.mgt.input.adapter.extension.util.ExpiringCache;
 import org.wso2.carbon.device.mgt.input.adapter.http.authorization.client.OAuthRequestInterceptor;
 import org.wso2.carbon.device.mgt.input.adapter.http.authorization.client.dto.AuthorizationRequest;
 import org.wso2.carbon.device.mgt.input.adapter.http.authorization.client.dto.DeviceAccessAuthorizationAdminService;
 import org.wso2.carbon.device.mgt.input.adapter.http.authorization.client.dto.DeviceAuthorizationResult;
 import org.wso2.carbon.device.mgt.input.adapter.http.authorization.client.dto.DeviceIdentifier;
 import org.wso2.carbon.device.mgt.input.adapter.http.util.AuthenticationInfo;
+import org.wso2.carbon.device.mgt.input.adapter.http.util.HTTPEventAdapterConstants;
 import org.wso2.carbon.device.mgt.input.adapter.http.util.PropertyUtils;
 import org.wso2.carbon.event.input.adapter.core.exception.InputEventAdapterException;
 
@@ -46,8 +49,14 @@ import java.io.InputStream;
 import java.security.*;
 import java.security.cert.CertificateException;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This authorizer crossvalidates the request with device id and device type.
@@ -59,11 +68,51 @@ public class DeviceAuthorizer {
     private static final String DEVICE_MGT_SERVER_URL = "deviceMgtServerUrl";
     private static Log log = LogFactory.getLog(DeviceAuthorizer.class);
 
+    private ExpiringCache<AuthorizationCacheKey, Boolean> authorizationCache;
+    private long cacheTimeoutInMillis;
+    private long negativeCacheTimeoutInMillis;
+    private int batchSize;
+    /**
+     * Time a request waits for the authorization of its batch, also used as the connect and read timeouts.
+     */
+    private long timeoutInMillis;
+    /**
+     * Authorization requests that are yet to be sent, per tenant domain and username.
+     */
+    private final ConcurrentHashMap<String, UserBatches> pendingBatches = new ConcurrentHashMap<>();
+
     public DeviceAuthorizer(Map<String, String> globalProperties) {
+        int cacheSize = HTTPEventAdapterConstants.DEFAULT_AUTHORIZATION_CACHE_SIZE;
+        if (globalProperties.get(HTTPEventAdapterConstants.AUTHORIZATION_CACHE_SIZE) != null) {
+            cacheSize = Integer.parseInt(globalProperties.get(HTTPEventAdapterConstants.AUTHORIZATION_CACHE_SIZE));
+        }
+        long cacheTimeout = HTTPEventAdapterConstants.DEFAULT_AUTHORIZATION_CACHE_TIMEOUT;
+        if (globalProperties.get(HTTPEventAdapterConstants.AUTHORIZATION_CACHE_TIMEOUT) != null) {
+            cacheTimeout = Long.parseLong(globalProperties.get(HTTPEventAdapterConstants.AUTHORIZATION_CACHE_TIMEOUT));
+        }
+        long negativeCacheTimeout = HTTPEventAdapterConstants.DEFAULT_AUTHORIZATION_CACHE_NEGATIVE_TIMEOUT;
+        if (globalProperties.get(HTTPEventAdapterConstants.AUTHORIZATION_CACHE_NEGATIVE_TIMEOUT) != null) {
+            negativeCacheTimeout = Long.parseLong(
+                    globalProperties.get(HTTPEventAdapterConstants.AUTHORIZATION_CACHE_NEGATIVE_TIMEOUT));
+        }
+        batchSize = HTTPEventAdapterConstants.DEFAULT_AUTHORIZATION_BATCH_SIZE;
+        if (globalProperties.get(HTTPEventAdapterConstants.AUTHORIZATION_BATCH_SIZE) != null) {
+            batchSize = Integer.parseInt(globalProperties.get(HTTPEventAdapterConstants.AUTHORIZATION_BATCH_SIZE));
+        }
+        int timeout = HTTPEventAdapterConstants.DEFAULT_AUTHORIZATION_TIMEOUT;
+        if (globalProperties.get(HTTPEventAdapterConstants.AUTHORIZATION_TIMEOUT) != null) {
+            timeout = Integer.parseInt(globalProperties.get(HTTPEventAdapterConstants.AUTHORIZATION_TIMEOUT));
+        }
+        authorizationCache = new ExpiringCache<>(cacheSize);
+        timeoutInMillis = timeout;
+        cacheTimeoutInMillis = cacheTimeout * 1000;
+        negativeCacheTimeoutInMillis = negativeCacheTimeout * 1000;
+
         try {
             deviceAccessAuthorizationAdminService = Feign.builder().client(getSSLClient()).logger(new Slf4jLogger())
                     .logLevel(Logger.Level.FULL).requestInterceptor(new OAuthRequestInterceptor(globalProperties))
                     .contract(new JAXRSContract()).encoder(new GsonEncoder()).decoder(new GsonDecoder())
+                    .options(new Request.Options(timeout, timeout))
                     .target(DeviceAccessAuthorizationAdminService.class, getDeviceMgtServerUrl(globalProperties)
                             + CDMF_SERVER_BASE_CONTEXT);
         } catch (InputEventAdapterException e) {
@@ -72,34 +121,200 @@ public class DeviceAuthorizer {
     }
 
 
+    /**
+     * Checks whether the authenticated user has access to the device. Decisions are cached and cache misses of the
+     * same user that occur while an authorization call is in progress are sent together in the next call. Both the
+     * wait of a batch for its turn and the wait for the answer once it is sent are bounded by the authorization
+     * timeout, a request that is not answered in time is rejected.
+     */
     public boolean isAuthorized(AuthenticationInfo authenticationInfo, String deviceId, String deviceType) {
 
         if (deviceId != null && !deviceId.isEmpty() && deviceType != null && !deviceType.isEmpty()) {
+            AuthorizationCacheKey cacheKey = new AuthorizationCacheKey(authenticationInfo.getTenantDomain(),
+                                                                       authenticationInfo.getUsername(), deviceId,
+                                                                       deviceType);
+            Boolean cachedDecision = authorizationCache.get(cacheKey);
+            if (cachedDecision != null) {
+                return cachedDecision;
+            }
+            String userKey = authenticationInfo.getTenantDomain() + "@" + authenticationInfo.getUsername();
+            UserBatches userBatches = pendingBatches.get(userKey);
+            if (userBatches == null) {
+                UserBatches newUserBatches = new UserBatches();
+                userBatches = pendingBatches.putIfAbsent(userKey, newUserBatches);
+                if (userBatches == null) {
+                    userBatches = newUserBatches;
+                }
+            }
+            AuthorizationBatch batch;
+            boolean leader = false;
+            synchronized (userBatches) {
+                batch = userBatches.open;
+                if (batch == null || batch.devices.size() >= batchSize) {
+                    batch = new AuthorizationBatch(userBatches.last,
+                                                   System.currentTimeMillis() + timeoutInMillis);
+                    userBatches.open = batch;
+                    userBatches.last = batch;
+                    leader = true;
+                }
+                batch.devices.add(cacheKey);
+            }
+            if (leader) {
+                sendBatch(authenticationInfo, userKey, userBatches, batch);
+            }
+            return batch.isAuthorized(cacheKey, timeoutInMillis);
+        }
+        return false;
+    }
+
+    public long getCacheHitCount() {
+        return authorizationCache.getHitCount();
+    }
+
+    public long getCacheMissCount() {
+        return authorizationCache.getMissCount();
+    }
 
+    /**
+     * Sends the batch once the previous batch of the user is completed, so that the devices which are queried
+     * while a call is in progress are gathered into a single request. If the previous batch is still not completed
+     * when the wait of this batch runs out, the batch fails without calling the server.
+     */
+    private void sendBatch(AuthenticationInfo authenticationInfo, String userKey, UserBatches userBatches,
+                           AuthorizationBatch batch) {
+        Set<AuthorizationCacheKey> authorizedDevices = null;
+        try {
+            boolean previousCompleted = batch.previous == null
+                    || await(batch.previous.completed, batch.queuedUntil);
+            List<DeviceIdentifier> deviceIdentifiers = new ArrayList<>();
+            synchronized (userBatches) {
+                if (userBatches.open == batch) {
+                    userBatches.open = null;
+                }
+                if (previousCompleted) {
+                    for (AuthorizationCacheKey cacheKey : batch.devices) {
+                        DeviceIdentifier deviceIdentifier = new DeviceIdentifier();
+                        deviceIdentifier.setId(cacheKey.getDeviceId());
+                        deviceIdentifier.setType(cacheKey.getDeviceType());
+                        deviceIdentifiers.add(deviceIdentifier);
+                    }
+                }
+            }
+            if (!previousCompleted) {
+                log.warn("Previous device authorization of " + userKey + " is not completed within "
+                                 + timeoutInMillis + "ms, rejecting " + batch.devices.size() + " devices.");
+                return;
+            }
             AuthorizationRequest authorizationRequest = new AuthorizationRequest();
             authorizationRequest.setTenantDomain(authenticationInfo.getTenantDomain());
             authorizationRequest.setUsername(authenticationInfo.getUsername());
-            DeviceIdentifier deviceIdentifier = new DeviceIdentifier();
-            deviceIdentifier.setId(deviceId);
-            deviceIdentifier.setType(deviceType);
-            List<DeviceIdentifier> deviceIdentifiers = new ArrayList<>();
-            deviceIdentifiers.add(deviceIdentifier);
             authorizationRequest.setDeviceIdentifiers(deviceIdentifiers);
+            batch.sent(System.currentTimeMillis() + timeoutInMillis);
             try {
                 DeviceAuthorizationResult deviceAuthorizationResult =
                         deviceAccessAuthorizationAdminService.isAuthorized(authorizationRequest);
+                authorizedDevices = new HashSet<>();
                 List<DeviceIdentifier> devices = deviceAuthorizationResult.getAuthorizedDevices();
-                if (devices != null && devices.size() > 0) {
-                    DeviceIdentifier authorizedDevice = devices.get(0);
-                    if (authorizedDevice.getId().equals(deviceId) && authorizedDevice.getType().equals(deviceType)) {
-                        return true;
+                for (AuthorizationCacheKey cacheKey : batch.devices) {
+                    boolean authorized = false;
+                    if (devices != null) {
+                        for (DeviceIdentifier authorizedDevice : devices) {
+                            if (cacheKey.getDeviceId().equals(authorizedDevice.getId())
+                                    && cacheKey.getDeviceType().equalsIgnoreCase(authorizedDevice.getType())) {
+                                authorized = true;
+                                break;
+                            }
+                        }
+                    }
+                    if (authorized) {
+                        authorizedDevices.add(cacheKey);
+                        authorizationCache.put(cacheKey, true, cacheTimeoutInMillis);
+                    } else {
+                        authorizationCache.put(cacheKey, false, negativeCacheTimeoutInMillis);
                     }
                 }
             } catch (FeignException e) {
                 log.error(e.getMessage(), e);
             }
+        } finally {
+            batch.complete(authorizedDevices);
+            synchronized (userBatches) {
+                if (userBatches.last == batch) {
+                    pendingBatches.remove(userKey, userBatches);
+                }
+            }
+        }
+    }
+
+    /**
+     * Holds the batch that accepts new devices and the latest batch created for a user.
+     */
+    private static class UserBatches {
+        private AuthorizationBatch open;
+        private AuthorizationBatch last;
+    }
+
+    /**
+     * Devices to be authorized in a single call and the outcome of that call.
+     */
+    private static class AuthorizationBatch {
+        private final AuthorizationBatch previous;
+        /**
+         * Time until which the batch waits for the previous batch before it is sent.
+         */
+        private final long queuedUntil;
+        private final Set<AuthorizationCacheKey> devices = new LinkedHashSet<>();
+        private final CountDownLatch dispatched = new CountDownLatch(1);
+        private final CountDownLatch completed = new CountDownLatch(1);
+        /**
+         * Time until which the answer of the call is awaited, set when the batch is sent.
+         */
+        private volatile long answeredUntil;
+        private volatile Set<AuthorizationCacheKey> authorizedDevices;
+
+        AuthorizationBatch(AuthorizationBatch previous, long queuedUntil) {
+            this.previous = previous;
+            this.queuedUntil = queuedUntil;
+        }
+
+        void sent(long answeredUntil) {
+            this.answeredUntil = answeredUntil;
+            dispatched.countDown();
+        }
+
+        void complete(Set<AuthorizationCacheKey> authorizedDevices) {
+            this.authorizedDevices = authorizedDevices;
+            dispatched.countDown();
+            completed.countDown();
+        }
+
+        /**
+         * Waits for the batch to be sent and then for its answer, each wait is bounded separately so that devices
+         * queued behind a slow call are not rejected before their own call is made. The leader of the batch gives up
+         * waiting for its turn at {@link #queuedUntil}, the wait to be sent allows the timeout on top of it for the
+         * leader to get there. A failed or timed out call is treated as unauthorized.
+         */
+        boolean isAuthorized(AuthorizationCacheKey cacheKey, long timeoutInMillis) {
+            if (!await(dispatched, queuedUntil + timeoutInMillis) || !await(completed, answeredUntil)) {
+                log.warn("Timed out while waiting for device authorization.");
+                return false;
+            }
+            Set<AuthorizationCacheKey> result = authorizedDevices;
+            return result != null && result.contains(cacheKey);
+        }
+    }
+
+    /**
+     * @return whether the latch is released before the given time.
+     */
+    private static boolean await(CountDownLatch latch, long until) {
+        try {
+            long remaining = until - System.currentTimeMillis();
+            return latch.await(Math.max(remaining, 0), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
         }
-        return false;
     }
 
     private String getDeviceMgtServerUrl(Map<String, String> properties) throws InputEventAdapterException {
@@ -18,13 +18,16 @@
 
 package org.wso2.carbon.device.mgt.input.adapter.http.oauth;
 
+import org.apache.axiom.util.base64.Base64Utils;
 import org.apache.axis2.context.ServiceContext;
 import org.apache.axis2.transport.http.HTTPConstants;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.commons.pool.impl.GenericObjectPool;
+import org.wso2.carbon.device.mgt.input.adapter.extension.util.ExpiringCache;
 import org.wso2.carbon.device.mgt.input.adapter.http.internal.InputAdapterServiceDataHolder;
 import org.wso2.carbon.device.mgt.input.adapter.http.util.AuthenticationInfo;
+import org.wso2.carbon.device.mgt.input.adapter.http.util.HTTPEventAdapterConstants;
 import org.wso2.carbon.event.input.adapter.core.InputEventAdapterConfiguration;
 import org.wso2.carbon.identity.oauth2.stub.OAuth2TokenValidationServiceStub;
 import org.wso2.carbon.identity.oauth2.stub.dto.OAuth2TokenValidationRequestDTO;
@@ -35,7 +38,10 @@ import org.wso2.carbon.user.core.service.RealmService;
 import org.wso2.carbon.utils.multitenancy.MultitenantUtils;
 
 import javax.servlet.http.HttpServletRequest;
+import java.nio.charset.StandardCharsets;
 import java.rmi.RemoteException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -50,10 +56,48 @@ public class OAuthAuthenticator {
     private static final Pattern PATTERN = Pattern.compile("[B|b]earer\\s");
     private static final String TOKEN_TYPE = "bearer";
     private static final String AUTHORIZATION_HEADER = "Authorization";
+    private static final String TOKEN_HASH_ALGORITHM = "SHA-256";
     private static Log log = LogFactory.getLog(OAuthAuthenticator.class);
 
+    /**
+     * Validation results keyed by the hash of the token, so that the raw tokens are not kept in memory.
+     */
+    private ExpiringCache<String, AuthenticationInfo> tokenCache;
+    private long cacheTimeoutInMillis;
+    private long negativeCacheTimeoutInMillis;
+
     public OAuthAuthenticator(Map<String, String> globalProperties) {
         this.stubs = new GenericObjectPool(new OAuthTokenValidaterStubFactory(globalProperties));
+        int cacheSize = HTTPEventAdapterConstants.DEFAULT_TOKEN_CACHE_SIZE;
+        if (globalProperties.get(HTTPEventAdapterConstants.TOKEN_CACHE_SIZE) != null) {
+            cacheSize = Integer.parseInt(globalProperties.get(HTTPEventAdapterConstants.TOKEN_CACHE_SIZE));
+        }
+        long cacheTimeout = HTTPEventAdapterConstants.DEFAULT_TOKEN_CACHE_TIMEOUT;
+        if (globalProperties.get(HTTPEventAdapterConstants.TOKEN_CACHE_TIMEOUT) != null) {
+            cacheTimeout = Long.parseLong(globalProperties.get(HTTPEventAdapterConstants.TOKEN_CACHE_TIMEOUT));
+        }
+        long negativeCacheTimeout = HTTPEventAdapterConstants.DEFAULT_TOKEN_CACHE_NEGATIVE_TIMEOUT;
+        if (globalProperties.get(HTTPEventAdapterConstants.TOKEN_CACHE_NEGATIVE_TIMEOUT) != null) {
+            negativeCacheTimeout = Long.parseLong(
+                    globalProperties.get(HTTPEventAdapterConstants.TOKEN_CACHE_NEGATIVE_TIMEOUT));
+        }
+        this.tokenCache = new ExpiringCache<>(cacheSize);
+        this.cacheTimeoutInMillis = cacheTimeout * 1000;
+        this.negativeCacheTimeoutInMillis = negativeCacheTimeout * 1000;
+    }
+
+    /**
+     * @return number of token validations served from the cache.
+     */
+    public long getCacheHitCount() {
+        return tokenCache.getHitCount();
+    }
+
+    /**
+     * @return number of token validations which required a call to the token validation service.
+     */
+    public long getCacheMissCount() {
+        return tokenCache.getMissCount();
     }
 
     public AuthenticationInfo authenticate(HttpServletRequest req) {
@@ -111,7 +155,11 @@ public class OAuthAuthenticator {
             return authenticationInfo;
         }
         authenticated = tokenValidationResponse.getValid();
+        long cacheTimeout;
         if (authenticated) {
+            // expiry time is the remaining validity of the token in seconds, do not serve it from the cache after
+            // it is expired.
+            cacheTimeout = Math.min(cacheTimeoutInMillis, tokenValidationResponse.getExpiryTime() * 1000);
             String authorizedUser = tokenValidationResponse.getAuthorizedUser();
             String username = MultitenantUtils.getTenantAwareUsername(authorizedUser);
             String tenantDomain = MultitenantUtils.getTenantDomain(authorizedUser);
@@ -122,6 +170,7 @@ public class OAuthAuthenticator {
             authenticationInfo.setTenantId(tenantId);
             authenticationInfo.setScopes(tokenValidationResponse.getScope());
         } else {
+            cacheTimeout = negativeCacheTimeoutInMillis;
             if (log.isDebugEnabled()) {
                 log.debug("Token validation failed for token: " + token);
             }
@@ -130,6 +179,7 @@ public class OAuthAuthenticator {
                 .getLastOperationContext().getServiceContext();
         cookie = (String) serviceContext.getProperty(HTTPConstants.COOKIE_STRING);
         authenticationInfo.setAuthenticated(authenticated);
+        tokenCache.put(getTokenHash(token), copy(authenticationInfo), cacheTimeout);
         return authenticationInfo;
     }
 
@@ -140,6 +190,10 @@ public class OAuthAuthenticator {
      * @return AuthenticationInfo with the validated results.
      */
     private AuthenticationInfo validateToken(String token) {
+        AuthenticationInfo cachedAuthenticationInfo = tokenCache.get(getTokenHash(token));
+        if (cachedAuthenticationInfo != null) {
+            return copy(cachedAuthenticationInfo);
+        }
         OAuth2TokenValidationServiceStub tokenValidationServiceStub = null;
         try {
             Object stub = this.stubs.borrowObject();
@@ -173,4 +227,29 @@ public class OAuthAuthenticator {
         authenticationInfo.setTenantId(-1);
         return authenticationInfo;
     }
+
+    /**
+     * The cached results are shared between requests while the callers may modify the result they get, so only
+     * copies are stored in and handed out of the cache.
+     */
+    private static AuthenticationInfo copy(AuthenticationInfo authenticationInfo) {
+        AuthenticationInfo copy = new AuthenticationInfo();
+        copy.setAuthenticated(authenticationInfo.isAuthenticated());
+        copy.setUsername(authenticationInfo.getUsername());
+        copy.setTenantDomain(authenticationInfo.getTenantDomain());
+        copy.setTenantId(authenticationInfo.getTenantId());
+        String[] scopes = authenticationInfo.getScopes();
+        copy.setScopes((scopes == null) ? null : scopes.clone());
+        return copy;
+    }
+
+    private String getTokenHash(String token) {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance(TOKEN_HASH_ALGORITHM);
+            return Base64Utils.encode(messageDigest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            // every java platform is required to support SHA-256.
+            throw new IllegalStateException("Unable to hash the token with " + TOKEN_HASH_ALGORITHM, e);
+        }
+    }
 }
@@ -61,4 +61,30 @@ public final class HTTPEventAdapterConstants {
     public static final String DEFAULT = "default";
     public static final String ADAPTER_CONF_CONTENT_TRANSFORMER_CLASSNAME = "contentTransformer";
     public static final String ADAPTER_CONF_CONTENT_TRANSFORMER_CLASSNAME_HINT = "contentTransformer.hint";
+    public static final String TOKEN_CACHE_SIZE = "tokenCacheSize";
+    public static final int DEFAULT_TOKEN_CACHE_SIZE = 10000;
+    public static final String TOKEN_CACHE_TIMEOUT = "tokenCacheTimeoutInSeconds";
+    public static final long DEFAULT_TOKEN_CACHE_TIMEOUT = 300;
+    public static final String TOKEN_CACHE_NEGATIVE_TIMEOUT = "tokenCacheNegativeTimeoutInSeconds";
+    public static final long DEFAULT_TOKEN_CACHE_NEGATIVE_TIMEOUT = 30;
+    public static final String AUTHORIZATION_CACHE_SIZE = "authorizationCacheSize";
+    public static final int DEFAULT_AUTHORIZATION_CACHE_SIZE = 10000;
+    public static final String AUTHORIZATION_CACHE_TIMEOUT = "authorizationCacheTimeoutInSeconds";
+    public static final long DEFAULT_AUTHORIZATION_CACHE_TIMEOUT = 300;
+    public static final String AUTHORIZATION_CACHE_NEGATIVE_TIMEOUT = "authorizationCacheNegativeTimeoutInSeconds";
+    public static final long DEFAULT_AUTHORIZATION_CACHE_NEGATIVE_TIMEOUT = 30;
+    public static final String AUTHORIZATION_BATCH_SIZE = "authorizationBatchSize";
+    public static final int DEFAULT_AUTHORIZATION_BATCH_SIZE = 100;
+    public static final String AUTHORIZATION_TIMEOUT = "authorizationTimeoutInMillis";
+    public static final int DEFAULT_AUTHORIZATION_TIMEOUT = 5000;
+    public static final String MAXIMUM_REQUEST_BODY_SIZE = "maximumRequestBodySize";
+    public static final int DEFAULT_MAXIMUM_REQUEST_BODY_SIZE = 10 * 1024 * 1024;
+    public static final int DEFAULT_REQUEST_BUFFER_SIZE = 4096;
+    public static final String ADAPTER_CONF_RESPONSE_MODE = "responseMode";
+    public static final String RESPONSE_MODE_SYNC = "sync";
+    public static final String RESPONSE_MODE_ASYNC = "async";
+    public static final String ADAPTER_QUEUE_HIGH_WATER_MARK_NAME = "queueHighWaterMark";
+    public static final int DEFAULT_QUEUE_HIGH_WATER_MARK_PERCENTAGE = 80;
+    public static final String ADAPTER_RETRY_AFTER_NAME = "retryAfterInSeconds";
+    public static final int DEFAULT_RETRY_AFTER_IN_SECONDS = 1;
 }
@@ -148,7 +148,9 @@ public class MQTTEventAdapter implements InputEventAdapter {
 
     @Override
     public boolean isEventDuplicatedInCluster() {
-        return true;
+        // with a shared subscription the broker delivers each message to only one node of the cluster.
+        return mqttBrokerConnectionConfiguration == null
+                || mqttBrokerConnectionConfiguration.getSharedSubscriptionGroup() == null;
     }
 
     @Override
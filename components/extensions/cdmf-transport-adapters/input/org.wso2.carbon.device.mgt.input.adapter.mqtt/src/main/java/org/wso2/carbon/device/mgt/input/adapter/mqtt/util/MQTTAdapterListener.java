@@ -29,7 +29,7 @@ import org.apache.http.entity.ContentType;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.message.BasicHeader;
 import org.eclipse.paho.client.mqttv3.*;
-import org.eclipse.paho.client.mqttv3.persist.MqttDefaultFilePersistence;
+import org.json.simple.JSONAware;
 import org.json.simple.JSONObject;
 import org.json.simple.parser.JSONParser;
 import org.json.simple.parser.ParseException;
@@ -39,6 +39,7 @@ import org.wso2.carbon.core.multitenancy.utils.TenantAxisUtils;
 import org.wso2.carbon.device.mgt.input.adapter.extension.ContentInfo;
 import org.wso2.carbon.device.mgt.input.adapter.extension.ContentTransformer;
 import org.wso2.carbon.device.mgt.input.adapter.extension.ContentValidator;
+import org.wso2.carbon.device.mgt.input.adapter.extension.DeviceTopic;
 import org.wso2.carbon.device.mgt.input.adapter.mqtt.internal.InputAdapterServiceDataHolder;
 import org.wso2.carbon.event.input.adapter.core.InputEventAdapterConfiguration;
 import org.wso2.carbon.event.input.adapter.core.InputEventAdapterListener;
@@ -61,18 +62,20 @@ import java.util.Map;
 public class MQTTAdapterListener implements MqttCallback, Runnable {
     private static final Log log = LogFactory.getLog(MQTTAdapterListener.class);
 
-    private MqttClient mqttClient;
+    private MqttClient[] mqttClients;
     private MqttConnectOptions connectionOptions;
     private boolean cleanSession;
     private boolean connectionInitialized;
 
     private MQTTBrokerConnectionConfiguration mqttBrokerConnectionConfiguration;
     private String topic;
+    private String subscriptionTopic;
     private String tenantDomain;
     private volatile boolean connectionSucceeded = false;
     private ContentValidator contentValidator;
     private ContentTransformer contentTransformer;
     private InputEventAdapterConfiguration inputEventAdapterConfiguration;
+    private MQTTMessageDispatcher messageDispatcher;
 
     private InputEventAdapterListener eventAdapterListener = null;
 
@@ -90,27 +93,44 @@ public class MQTTAdapterListener implements MqttCallback, Runnable {
         int keepAlive = mqttBrokerConnectionConfiguration.getKeepAlive();
         this.topic = PropertyUtils.replaceTenantDomainProperty(topic);
         this.eventAdapterListener = inputEventAdapterListener;
-        this.tenantDomain = this.topic.split("/")[0];
+        this.tenantDomain = DeviceTopic.parse(this.topic).getTenantDomain();
         //this is to allow server listener from IoT Core to connect.
         if (this.tenantDomain.equals("+")) {
             this.tenantDomain = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantDomain();
         }
-
-        //SORTING messages until the server fetches them
-        String temp_directory = System.getProperty("java.io.tmpdir");
-        MqttDefaultFilePersistence dataStore = new MqttDefaultFilePersistence(temp_directory);
+        String sharedSubscriptionGroup = mqttBrokerConnectionConfiguration.getSharedSubscriptionGroup();
+        if (sharedSubscriptionGroup != null) {
+            // each message of a shared subscription is delivered to only one of the subscribers of the group.
+            this.subscriptionTopic = MQTTEventAdapterConstants.SHARED_SUBSCRIPTION_PREFIX + sharedSubscriptionGroup
+                    + "/" + this.topic;
+        } else {
+            this.subscriptionTopic = this.topic;
+        }
 
         try {
             connectionOptions = new MqttConnectOptions();
             connectionOptions.setCleanSession(cleanSession);
             connectionOptions.setKeepAliveInterval(keepAlive);
 
-            // Construct an MQTT blocking mode client
-            mqttClient = new MqttClient(this.mqttBrokerConnectionConfiguration.getBrokerUrl(), mqttClientId,
-                    dataStore);
-
-            // Set this wrapper as the callback handler
-            mqttClient.setCallback(this);
+            // Construct MQTT blocking mode clients, inbound load is shared among them when subscribed to a shared
+            // subscription.
+            int connectionCount = mqttBrokerConnectionConfiguration.getConnectionCount();
+            mqttClients = new MqttClient[connectionCount];
+            for (int i = 0; i < connectionCount; i++) {
+                String clientId = (connectionCount == 1) ? mqttClientId : mqttClientId + "-" + i;
+                //SORTING messages until the server fetches them, each client requires a store of its own
+                mqttClients[i] = new MqttClient(this.mqttBrokerConnectionConfiguration.getBrokerUrl(), clientId,
+                                                mqttBrokerConnectionConfiguration.createClientPersistence());
+                // Set this wrapper as the callback handler
+                mqttClients[i].setCallback(this);
+            }
+            if (mqttBrokerConnectionConfiguration.isAsyncDispatch()) {
+                messageDispatcher = new MQTTMessageDispatcher(inputEventAdapterConfiguration.getName(), this,
+                                                              mqttBrokerConnectionConfiguration
+                                                                      .getDispatchWorkerCount(),
+                                                              mqttBrokerConnectionConfiguration
+                                                                      .getDispatchQueueSize());
+            }
             String contentValidatorType = this.mqttBrokerConnectionConfiguration.getContentValidatorType();
 
             if (contentValidatorType == null || contentValidatorType.equals(MQTTEventAdapterConstants.DEFAULT)) {
@@ -202,23 +222,28 @@ public class MQTTAdapterListener implements MqttCallback, Runnable {
                 }
             }
         }
-        try {
-            mqttClient.connect(connectionOptions);
-        } catch (MqttException e) {
-            log.warn("Broker is unreachable, Waiting.....");
-            return false;
-        }
-        try {
-            mqttClient.subscribe(topic);
-            log.info("mqtt receiver subscribed to topic: " + topic);
-        } catch (MqttException e) {
-            log.error("Failed to subscribe to topic: " + topic + ", Retrying.....");
+        for (MqttClient mqttClient : mqttClients) {
+            if (mqttClient.isConnected()) {
+                continue;
+            }
             try {
-                mqttClient.disconnect();
-            } catch (MqttException ex) {
-                // do nothing.
+                mqttClient.connect(connectionOptions);
+            } catch (MqttException e) {
+                log.warn("Broker is unreachable, Waiting.....");
+                return false;
+            }
+            try {
+                mqttClient.subscribe(subscriptionTopic);
+                log.info("mqtt receiver subscribed to topic: " + subscriptionTopic);
+            } catch (MqttException e) {
+                log.error("Failed to subscribe to topic: " + subscriptionTopic + ", Retrying.....");
+                try {
+                    mqttClient.disconnect();
+                } catch (MqttException ex) {
+                    // do nothing.
+                }
+                return false;
             }
-            return false;
         }
         return true;
 
@@ -226,30 +251,55 @@ public class MQTTAdapterListener implements MqttCallback, Runnable {
 
     public void stopListener(String adapterName) {
         if (connectionSucceeded) {
-            try {
-                if (!ServerStatus.getCurrentStatus().equals(ServerStatus.STATUS_SHUTTING_DOWN) || cleanSession) {
-                    mqttClient.unsubscribe(topic);
+            for (MqttClient mqttClient : mqttClients) {
+                try {
+                    if (!ServerStatus.getCurrentStatus().equals(ServerStatus.STATUS_SHUTTING_DOWN) || cleanSession) {
+                        mqttClient.unsubscribe(subscriptionTopic);
+                    }
+                    mqttClient.disconnect(3000);
+                } catch (MqttException e) {
+                    log.error("Can not unsubscribe from the destination " + subscriptionTopic +
+                            " with the event adapter " + adapterName, e);
                 }
-                mqttClient.disconnect(3000);
-            } catch (MqttException e) {
-                log.error("Can not unsubscribe from the destination " + topic +
-                        " with the event adapter " + adapterName, e);
             }
         }
+        if (messageDispatcher != null) {
+            messageDispatcher.stop();
+        }
         connectionSucceeded = true;
     }
 
     @Override
     public void connectionLost(Throwable throwable) {
         log.warn("MQTT connection not reachable " + throwable);
-        connectionSucceeded = false;
+        synchronized (this) {
+            // a reconnection thread is already running, it reconnects all the clients which are disconnected.
+            if (!connectionSucceeded) {
+                return;
+            }
+            connectionSucceeded = false;
+        }
         new Thread(this).start();
     }
 
     @Override
     public void messageArrived(String topic, MqttMessage mqttMessage) throws Exception {
+        String msgText = mqttMessage.toString();
+        if (messageDispatcher != null) {
+            messageDispatcher.dispatch(topic, msgText);
+        } else {
+            processMessage(topic, msgText);
+        }
+    }
+
+    /**
+     * Processes a received message within the tenant flow of the adapter and publishes it to the event receiver.
+     *
+     * @param topic   topic the message was received on.
+     * @param msgText message payload.
+     */
+    public void processMessage(String topic, String msgText) {
         try {
-            String msgText = mqttMessage.toString();
             if (log.isDebugEnabled()) {
                 log.debug(msgText);
             }
@@ -274,7 +324,12 @@ public class MQTTAdapterListener implements MqttCallback, Runnable {
                 Object transformedMessage = contentTransformer.transform(msgText, dynamicProperties);
                 contentInfo = contentValidator.validate(transformedMessage, dynamicProperties);
                 if (contentInfo != null && contentInfo.isValidContent()) {
-                    inputEventAdapterListener.onEvent(contentInfo.getMessage());
+                    Object message = contentInfo.getMessage();
+                    if (message instanceof JSONAware) {
+                        // parsed content is serialized only once, right before it is handed over to the receiver.
+                        message = ((JSONAware) message).toJSONString();
+                    }
+                    inputEventAdapterListener.onEvent(message);
                 }
             } else {
                 inputEventAdapterListener.onEvent(msgText);
@@ -299,8 +354,7 @@ public class MQTTAdapterListener implements MqttCallback, Runnable {
                     connectionDuration = MQTTEventAdapterConstants.MAXIMUM_RECONNECTION_DURATION;
                 }
                 Thread.sleep(connectionDuration);
-                if (startListener()) {
-                    connectionSucceeded = true;
+                if (startListener() && markConnectionSucceeded()) {
                     log.info("MQTT Connection successful");
                 }
             } catch (InterruptedException e) {
@@ -311,11 +365,46 @@ public class MQTTAdapterListener implements MqttCallback, Runnable {
         }
     }
 
+    /**
+     * A client may drop after it is reconnected and before the loop ends, connectionLost does not start another
+     * reconnection thread while this one runs, so the loop ends only if every client is still connected.
+     */
+    private synchronized boolean markConnectionSucceeded() {
+        if (!isConnected()) {
+            return false;
+        }
+        connectionSucceeded = true;
+        return true;
+    }
+
+    /**
+     * @return true if all the clients of the listener are connected to the broker.
+     */
+    public boolean isConnected() {
+        for (MqttClient mqttClient : mqttClients) {
+            if (!mqttClient.isConnected()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     public void createConnection() {
         connectionInitialized = true;
+        if (messageDispatcher != null) {
+            messageDispatcher.start();
+        }
         new Thread(this).start();
     }
 
+    /**
+     * @return the dispatcher which exposes the worker queue depth and message counters, null when messages are
+     * processed on the paho callback thread.
+     */
+    public MQTTMessageDispatcher getMessageDispatcher() {
+        return messageDispatcher;
+    }
+
     public boolean isConnectionInitialized() {
         return connectionInitialized;
     }
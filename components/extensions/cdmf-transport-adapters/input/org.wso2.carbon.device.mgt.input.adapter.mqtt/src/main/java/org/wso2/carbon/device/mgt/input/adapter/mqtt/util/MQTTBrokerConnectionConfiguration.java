@@ -17,6 +17,10 @@
 */
 package org.wso2.carbon.device.mgt.input.adapter.mqtt.util;
 
+import org.eclipse.paho.client.mqttv3.MqttClientPersistence;
+import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
+import org.eclipse.paho.client.mqttv3.persist.MqttDefaultFilePersistence;
+import org.wso2.carbon.device.mgt.input.adapter.extension.util.MQTTMappedFilePersistence;
 import org.wso2.carbon.event.input.adapter.core.InputEventAdapterConfiguration;
 import org.wso2.carbon.event.input.adapter.core.exception.InputEventAdapterException;
 
@@ -38,6 +42,14 @@ public class MQTTBrokerConnectionConfiguration {
     private String contentTransformerType;
     private String adapterName;
     private boolean globalCredentailSet;
+    private boolean asyncDispatch;
+    private int dispatchWorkerCount;
+    private int dispatchQueueSize;
+    private int connectionCount;
+    private String sharedSubscriptionGroup;
+    private String persistence;
+    private String persistenceDirectory;
+    private int persistenceFileSize;
 
     public String getBrokerScopes() {
         return brokerScopes;
@@ -83,6 +95,51 @@ public class MQTTBrokerConnectionConfiguration {
         return adapterName;
     }
 
+    public boolean isAsyncDispatch() {
+        return asyncDispatch;
+    }
+
+    public int getDispatchWorkerCount() {
+        return dispatchWorkerCount;
+    }
+
+    public int getDispatchQueueSize() {
+        return dispatchQueueSize;
+    }
+
+    public int getConnectionCount() {
+        return connectionCount;
+    }
+
+    /**
+     * @return the group name of the shared subscription, null if the topic is subscribed without sharing.
+     */
+    public String getSharedSubscriptionGroup() {
+        return sharedSubscriptionGroup;
+    }
+
+    /**
+     * @return the type of the store paho keeps the messages in flight in, one of file, memory or mappedFile.
+     */
+    public String getPersistence() {
+        return persistence;
+    }
+
+    /**
+     * Creates the store of the messages in flight of a client, each client requires its own store.
+     * Messages kept in memory are lost when the server stops, hence memory persistence suits QoS 0 or idempotent
+     * traffic. File persistence writes a file per message while the mapped file persistence appends all the
+     * messages of a client to a single log.
+     */
+    public MqttClientPersistence createClientPersistence() {
+        if (MQTTEventAdapterConstants.PERSISTENCE_MEMORY.equals(persistence)) {
+            return new MemoryPersistence();
+        } else if (MQTTEventAdapterConstants.PERSISTENCE_MAPPED_FILE.equals(persistence)) {
+            return new MQTTMappedFilePersistence(persistenceDirectory, persistenceFileSize);
+        }
+        return new MqttDefaultFilePersistence(persistenceDirectory);
+    }
+
     public MQTTBrokerConnectionConfiguration(InputEventAdapterConfiguration eventAdapterConfiguration,
                                              Map<String, String> globalProperties) throws InputEventAdapterException {
 
@@ -133,5 +190,79 @@ public class MQTTBrokerConnectionConfiguration {
         }
         this.contentTransformerType = eventAdapterConfiguration.getProperties()
                 .get(MQTTEventAdapterConstants.ADAPTER_CONF_CONTENT_TRANSFORMER_TYPE);
+        String dispatchMode = getProperty(eventAdapterConfiguration, globalProperties,
+                                          MQTTEventAdapterConstants.ADAPTER_CONF_DISPATCH_MODE);
+        this.asyncDispatch = MQTTEventAdapterConstants.DISPATCH_MODE_ASYNC.equalsIgnoreCase(dispatchMode);
+        String dispatchWorkerCount = getProperty(eventAdapterConfiguration, globalProperties,
+                                                 MQTTEventAdapterConstants.ADAPTER_CONF_DISPATCH_WORKER_COUNT);
+        if (dispatchWorkerCount != null) {
+            this.dispatchWorkerCount = Integer.parseInt(dispatchWorkerCount);
+        } else {
+            this.dispatchWorkerCount = MQTTEventAdapterConstants.ADAPTER_CONF_DEFAULT_DISPATCH_WORKER_COUNT;
+        }
+        String dispatchQueueSize = getProperty(eventAdapterConfiguration, globalProperties,
+                                               MQTTEventAdapterConstants.ADAPTER_CONF_DISPATCH_QUEUE_SIZE);
+        if (dispatchQueueSize != null) {
+            this.dispatchQueueSize = Integer.parseInt(dispatchQueueSize);
+        } else {
+            this.dispatchQueueSize = MQTTEventAdapterConstants.ADAPTER_CONF_DEFAULT_DISPATCH_QUEUE_SIZE;
+        }
+        if (this.dispatchWorkerCount < 1 || this.dispatchQueueSize < 1) {
+            throw new InputEventAdapterException("Invalid dispatch configuration for adapter " + adapterName
+                                                         + ", worker count and queue size should be positive.");
+        }
+        String connectionCount = getProperty(eventAdapterConfiguration, globalProperties,
+                                             MQTTEventAdapterConstants.ADAPTER_CONF_CONNECTION_COUNT);
+        if (connectionCount != null) {
+            this.connectionCount = Integer.parseInt(connectionCount);
+        } else {
+            this.connectionCount = MQTTEventAdapterConstants.ADAPTER_CONF_DEFAULT_CONNECTION_COUNT;
+        }
+        this.sharedSubscriptionGroup = getProperty(eventAdapterConfiguration, globalProperties,
+                                                   MQTTEventAdapterConstants.ADAPTER_CONF_SHARED_SUBSCRIPTION_GROUP);
+        if (this.connectionCount < 1) {
+            throw new InputEventAdapterException("Invalid connection count for adapter " + adapterName);
+        }
+        if (this.connectionCount > 1 && this.sharedSubscriptionGroup == null) {
+            // without a shared subscription every connection would receive every message.
+            throw new InputEventAdapterException("Adapter " + adapterName + " requires a shared subscription "
+                                                         + "group to open multiple connections.");
+        }
+        String persistence = getProperty(eventAdapterConfiguration, globalProperties,
+                                         MQTTEventAdapterConstants.ADAPTER_CONF_PERSISTENCE);
+        if (persistence == null || MQTTEventAdapterConstants.PERSISTENCE_FILE.equalsIgnoreCase(persistence)) {
+            this.persistence = MQTTEventAdapterConstants.PERSISTENCE_FILE;
+        } else if (MQTTEventAdapterConstants.PERSISTENCE_MEMORY.equalsIgnoreCase(persistence)) {
+            this.persistence = MQTTEventAdapterConstants.PERSISTENCE_MEMORY;
+        } else if (MQTTEventAdapterConstants.PERSISTENCE_MAPPED_FILE.equalsIgnoreCase(persistence)) {
+            this.persistence = MQTTEventAdapterConstants.PERSISTENCE_MAPPED_FILE;
+        } else {
+            throw new InputEventAdapterException("Invalid persistence " + persistence + " for adapter " + adapterName
+                                                         + ", it should be one of file, memory or mappedFile.");
+        }
+        this.persistenceDirectory = getProperty(eventAdapterConfiguration, globalProperties,
+                                                MQTTEventAdapterConstants.ADAPTER_CONF_PERSISTENCE_DIRECTORY);
+        if (this.persistenceDirectory == null) {
+            this.persistenceDirectory = System.getProperty(MQTTEventAdapterConstants.ADAPTER_TEMP_DIRECTORY_NAME);
+        }
+        String persistenceFileSize = getProperty(eventAdapterConfiguration, globalProperties,
+                                                 MQTTEventAdapterConstants.ADAPTER_CONF_PERSISTENCE_FILE_SIZE);
+        if (persistenceFileSize != null) {
+            this.persistenceFileSize = Integer.parseInt(persistenceFileSize);
+        } else {
+            this.persistenceFileSize = MQTTEventAdapterConstants.ADAPTER_CONF_DEFAULT_PERSISTENCE_FILE_SIZE;
+        }
+    }
+
+    /**
+     * Adapter level property is given the priority, if it is not set then the global property is returned.
+     */
+    private static String getProperty(InputEventAdapterConfiguration eventAdapterConfiguration,
+                                      Map<String, String> globalProperties, String key) {
+        String value = eventAdapterConfiguration.getProperties().get(key);
+        if (value == null || value.isEmpty()) {
+            value = globalProperties.get(key);
+        }
+        return (value == null || value.isEmpty()) ? null : value;
     }
 }
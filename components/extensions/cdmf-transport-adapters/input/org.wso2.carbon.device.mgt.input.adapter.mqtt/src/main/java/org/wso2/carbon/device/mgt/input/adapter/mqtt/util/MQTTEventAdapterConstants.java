@@ -47,6 +47,25 @@ public class MQTTEventAdapterConstants {
     public static final String ADAPTER_CONF_CLEAN_SESSION_HINT = "cleanSession.hint";
     public static final String ADAPTER_CONF_KEEP_ALIVE = "keepAlive";
     public static final int ADAPTER_CONF_DEFAULT_KEEP_ALIVE = 20000;
+    public static final String ADAPTER_CONF_DISPATCH_MODE = "dispatchMode";
+    public static final String DISPATCH_MODE_SYNC = "sync";
+    public static final String DISPATCH_MODE_ASYNC = "async";
+    public static final String ADAPTER_CONF_DISPATCH_WORKER_COUNT = "dispatchWorkerCount";
+    public static final int ADAPTER_CONF_DEFAULT_DISPATCH_WORKER_COUNT = 4;
+    public static final String ADAPTER_CONF_DISPATCH_QUEUE_SIZE = "dispatchQueueSize";
+    public static final int ADAPTER_CONF_DEFAULT_DISPATCH_QUEUE_SIZE = 1000;
+    public static final String ADAPTER_CONF_CONNECTION_COUNT = "connectionCount";
+    public static final int ADAPTER_CONF_DEFAULT_CONNECTION_COUNT = 1;
+    public static final String ADAPTER_CONF_SHARED_SUBSCRIPTION_GROUP = "sharedSubscriptionGroup";
+    public static final String SHARED_SUBSCRIPTION_PREFIX = "$share/";
+    public static final String ADAPTER_CONF_PERSISTENCE = "persistence";
+    public static final String PERSISTENCE_FILE = "file";
+    public static final String PERSISTENCE_MEMORY = "memory";
+    public static final String PERSISTENCE_MAPPED_FILE = "mappedFile";
+    public static final String ADAPTER_CONF_PERSISTENCE_DIRECTORY = "persistenceDirectory";
+    public static final String ADAPTER_CONF_PERSISTENCE_FILE_SIZE = "persistenceFileSize";
+    public static final int ADAPTER_CONF_DEFAULT_PERSISTENCE_FILE_SIZE = 1024 * 1024;
+    public static final String ADAPTER_TEMP_DIRECTORY_NAME = "java.io.tmpdir";
 
     public static final int INITIAL_RECONNECTION_DURATION = 4000;
     public static final int RECONNECTION_PROGRESS_FACTOR = 2;
@@ -0,0 +1,203 @@
+/*
+*  Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+package org.wso2.carbon.device.mgt.input.adapter.mqtt.util;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This hands over received mqtt messages to a bounded pool of worker lanes so that the paho callback thread is
+ * not held while the message is processed. Messages of the same device are always hashed to the same lane, hence
+ * the order of the events of a device is preserved.
+ * When the lane of a message is full the paho callback thread waits until space becomes available. While it
+ * waits paho neither acknowledges the message nor reads from the connection, so the broker stops sending once its
+ * in-flight window is exhausted instead of the adapter dropping messages.
+ */
+public class MQTTMessageDispatcher {
+    private static final Log log = LogFactory.getLog(MQTTMessageDispatcher.class);
+    private static final long WAIT_TIME_FOR_FULL_QUEUE_WARNING_IN_MILLIS = 1000;
+
+    private final String adapterName;
+    private final MQTTAdapterListener adapterListener;
+    private final Lane[] lanes;
+    private final AtomicLong dispatchedCount = new AtomicLong();
+    private final AtomicLong processedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong backPressuredCount = new AtomicLong();
+    private volatile boolean running;
+
+    public MQTTMessageDispatcher(String adapterName, MQTTAdapterListener adapterListener, int workerCount,
+                                 int queueSize) {
+        this.adapterName = adapterName;
+        this.adapterListener = adapterListener;
+        this.lanes = new Lane[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            lanes[i] = new Lane(queueSize);
+        }
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        for (int i = 0; i < lanes.length; i++) {
+            Thread worker = new Thread(lanes[i], "MQTTInputAdapterWorker-" + adapterName + "-" + i);
+            worker.setDaemon(true);
+            lanes[i].worker = worker;
+            worker.start();
+        }
+    }
+
+    public synchronized void stop() {
+        running = false;
+        for (Lane lane : lanes) {
+            if (lane.worker != null) {
+                lane.worker.interrupt();
+                lane.worker = null;
+            }
+            droppedCount.addAndGet(lane.queue.size());
+            lane.queue.clear();
+        }
+    }
+
+    /**
+     * Queues the message in the lane of the device it belongs to, waiting while that lane is full.
+     *
+     * @param topic   topic the message was received on.
+     * @param message message payload.
+     */
+    public void dispatch(String topic, String message) {
+        if (!running) {
+            droppedCount.incrementAndGet();
+            log.warn("Dropping message received on " + topic + " since the dispatcher of adapter " + adapterName
+                             + " is stopped.");
+            return;
+        }
+        Lane lane = lanes[(getDeviceKey(topic).hashCode() & Integer.MAX_VALUE) % lanes.length];
+        ReceivedMessage receivedMessage = new ReceivedMessage(topic, message);
+        try {
+            if (!lane.queue.offer(receivedMessage)) {
+                backPressuredCount.incrementAndGet();
+                while (!lane.queue.offer(receivedMessage, WAIT_TIME_FOR_FULL_QUEUE_WARNING_IN_MILLIS,
+                                         TimeUnit.MILLISECONDS)) {
+                    if (!running) {
+                        droppedCount.incrementAndGet();
+                        return;
+                    }
+                    log.warn("Worker queue of mqtt adapter " + adapterName + " is full, holding back the broker.");
+                }
+            }
+            dispatchedCount.incrementAndGet();
+        } catch (InterruptedException e) {
+            droppedCount.incrementAndGet();
+            Thread.currentThread().interrupt();
+            log.error("Interrupted while queueing message received on " + topic + ", message is dropped.", e);
+        }
+    }
+
+    /**
+     * @return the number of messages waiting in all the lanes.
+     */
+    public int getQueueDepth() {
+        int depth = 0;
+        for (Lane lane : lanes) {
+            depth += lane.queue.size();
+        }
+        return depth;
+    }
+
+    public long getDispatchedCount() {
+        return dispatchedCount.get();
+    }
+
+    public long getProcessedCount() {
+        return processedCount.get();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * @return the number of messages that had to wait for a free slot, i.e. the number of times flow control was
+     * applied towards the broker.
+     */
+    public long getBackPressuredCount() {
+        return backPressuredCount.get();
+    }
+
+    /**
+     * Topics are in the form of tenantDomain/deviceType/deviceId/..., messages are keyed by the device hierarchy
+     * so that one device always maps to one lane.
+     */
+    private static String getDeviceKey(String topic) {
+        int index = -1;
+        for (int level = 0; level < 3; level++) {
+            index = topic.indexOf('/', index + 1);
+            if (index < 0) {
+                return topic;
+            }
+        }
+        return topic.substring(0, index);
+    }
+
+    private static class ReceivedMessage {
+        private final String topic;
+        private final String message;
+
+        ReceivedMessage(String topic, String message) {
+            this.topic = topic;
+            this.message = message;
+        }
+    }
+
+    private class Lane implements Runnable {
+        private final BlockingQueue<ReceivedMessage> queue;
+        private volatile Thread worker;
+
+        Lane(int queueSize) {
+            this.queue = new ArrayBlockingQueue<>(queueSize);
+        }
+
+        @Override
+        public void run() {
+            while (running && worker == Thread.currentThread()) {
+                ReceivedMessage receivedMessage;
+                try {
+                    receivedMessage = queue.take();
+                } catch (InterruptedException e) {
+                    break;
+                }
+                try {
+                    adapterListener.processMessage(receivedMessage.topic, receivedMessage.message);
+                } catch (Throwable t) {
+                    log.error("Error occurred while processing message received on " + receivedMessage.topic
+                                      + " by mqtt adapter " + adapterName, t);
+                } finally {
+                    processedCount.incrementAndGet();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.device.mgt.input.adapter.mqtt.util;
+
+import io.moquette.BrokerConstants;
+import io.moquette.broker.Server;
+import io.moquette.broker.config.MemoryConfig;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.device.mgt.input.adapter.extension.InputAdapterExtensionServiceImpl;
+import org.wso2.carbon.device.mgt.input.adapter.mqtt.internal.InputAdapterServiceDataHolder;
+import org.wso2.carbon.event.input.adapter.core.InputEventAdapterConfiguration;
+import org.wso2.carbon.utils.multitenancy.MultitenantConstants;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Checks that the listener reconnects all of its connections when the broker restarts, against an embedded broker.
+ */
+public class MQTTAdapterListenerTest {
+
+    private static final long CONNECTION_TIMEOUT = 90000;
+    private static final String TOPIC = "carbon.super/test_device/+/events";
+
+    private Server broker;
+    private Properties brokerProperties;
+    private MQTTAdapterListener listener;
+
+    @BeforeClass
+    public void init() throws Exception {
+        brokerProperties = new Properties();
+        brokerProperties.setProperty(BrokerConstants.HOST_PROPERTY_NAME, "127.0.0.1");
+        brokerProperties.setProperty(BrokerConstants.PORT_PROPERTY_NAME, String.valueOf(getFreePort()));
+        brokerProperties.setProperty(BrokerConstants.WEB_SOCKET_PORT_PROPERTY_NAME, BrokerConstants.DISABLED_PORT_BIND);
+        brokerProperties.setProperty(BrokerConstants.ALLOW_ANONYMOUS_PROPERTY_NAME, "true");
+        brokerProperties.setProperty(BrokerConstants.PERSISTENT_STORE_PROPERTY_NAME, "");
+        startBroker();
+        InputAdapterServiceDataHolder.setInputAdapterExtensionService(new InputAdapterExtensionServiceImpl());
+
+        Map<String, String> properties = new HashMap<>();
+        properties.put(MQTTEventAdapterConstants.ADAPTER_CONF_URL,
+                       "tcp://127.0.0.1:" + brokerProperties.getProperty(BrokerConstants.PORT_PROPERTY_NAME));
+        properties.put(MQTTEventAdapterConstants.ADAPTER_CONF_CONTENT_VALIDATOR_TYPE, MQTTEventAdapterConstants.DEFAULT);
+        properties.put(MQTTEventAdapterConstants.ADAPTER_CONF_CLIENTID, "reconnect-test");
+        properties.put(MQTTEventAdapterConstants.ADAPTER_CONF_PERSISTENCE,
+                       MQTTEventAdapterConstants.PERSISTENCE_MEMORY);
+        properties.put(MQTTEventAdapterConstants.ADAPTER_CONF_CONNECTION_COUNT, "2");
+        properties.put(MQTTEventAdapterConstants.ADAPTER_CONF_SHARED_SUBSCRIPTION_GROUP, "reconnect-test");
+        InputEventAdapterConfiguration adapterConfiguration = new InputEventAdapterConfiguration();
+        adapterConfiguration.setName("reconnect-test-adapter");
+        adapterConfiguration.setProperties(properties);
+        Map<String, String> globalProperties = new HashMap<>();
+        globalProperties.put(MQTTEventAdapterConstants.ADAPTER_CONF_DCR_URL, "https://localhost/dynamic-client");
+
+        PrivilegedCarbonContext.startTenantFlow();
+        try {
+            PrivilegedCarbonContext.getThreadLocalCarbonContext()
+                    .setTenantDomain(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
+            PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantId(MultitenantConstants.SUPER_TENANT_ID);
+            listener = new MQTTAdapterListener(new MQTTBrokerConnectionConfiguration(adapterConfiguration,
+                                                                                     globalProperties),
+                                               TOPIC, adapterConfiguration, null);
+        } finally {
+            PrivilegedCarbonContext.endTenantFlow();
+        }
+    }
+
+    @AfterClass
+    public void cleanup() {
+        if (listener != null) {
+            listener.stopListener("reconnect-test-adapter");
+        }
+        if (broker != null) {
+            broker.stopServer();
+        }
+    }
+
+    @Test
+    public void testConnection() throws InterruptedException {
+        listener.createConnection();
+        Assert.assertTrue(waitForConnection(true), "Listener did not connect to the broker.");
+    }
+
+    @Test(dependsOnMethods = "testConnection")
+    public void testReconnectionAfterBrokerRestart() throws Exception {
+        broker.stopServer();
+        Assert.assertTrue(waitForConnection(false), "Listener did not notice the broker going down.");
+        startBroker();
+        Assert.assertTrue(waitForConnection(true), "Listener did not reconnect all its clients to the broker.");
+    }
+
+    @Test(dependsOnMethods = "testReconnectionAfterBrokerRestart")
+    public void testReconnectionAfterSecondBrokerRestart() throws Exception {
+        broker.stopServer();
+        Assert.assertTrue(waitForConnection(false), "Listener did not notice the broker going down.");
+        startBroker();
+        Assert.assertTrue(waitForConnection(true), "Listener did not reconnect all its clients to the broker.");
+    }
+
+    private void startBroker() throws IOException {
+        broker = new Server();
+        broker.startServer(new MemoryConfig(brokerProperties));
+    }
+
+    /**
+     * Waits until all the clients are connected, or until a client is disconnected when connected is false.
+     */
+    private boolean waitForConnection(boolean connected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + CONNECTION_TIMEOUT;
+        while (System.currentTimeMillis() < deadline) {
+            if (listener.isConnected() == connected) {
+                return true;
+            }
+            Thread.sleep(200);
+        }
+        return false;
+    }
+
+    private static int getFreePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
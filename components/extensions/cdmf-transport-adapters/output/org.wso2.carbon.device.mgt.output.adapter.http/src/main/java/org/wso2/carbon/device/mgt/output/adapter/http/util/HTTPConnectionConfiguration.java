@@ -30,6 +30,7 @@ public class HTTPConnectionConfiguration {
     private String scopes;
     private String tokenUrl;
     private boolean globalCredentialSet;
+    private long tokenRefreshMarginInMillis;
 
     public HTTPConnectionConfiguration(OutputEventAdapterConfiguration eventAdapterConfiguration,
                                        Map<String, String> globalProperties) {
@@ -50,6 +51,12 @@ public class HTTPConnectionConfiguration {
         if (scopes == null) {
             this.scopes = HTTPEventAdapterConstants.EMPTY_STRING;
         }
+        String tokenRefreshMargin = globalProperties.get(HTTPEventAdapterConstants.TOKEN_REFRESH_MARGIN_IN_SECONDS);
+        if (tokenRefreshMargin != null) {
+            this.tokenRefreshMarginInMillis = Long.parseLong(tokenRefreshMargin) * 1000;
+        } else {
+            this.tokenRefreshMarginInMillis = HTTPEventAdapterConstants.DEFAULT_TOKEN_REFRESH_MARGIN_IN_SECONDS * 1000L;
+        }
     }
 
     public String getTokenUrl() {
@@ -80,4 +87,11 @@ public class HTTPConnectionConfiguration {
         return globalCredentialSet;
     }
 
+    /**
+     * @return how long before its expiry a cached access token is renewed.
+     */
+    public long getTokenRefreshMarginInMillis() {
+        return tokenRefreshMarginInMillis;
+    }
+
 }
@@ -65,4 +65,25 @@ public class HTTPEventAdapterConstants {
     public static final int DEFAULT_DEFAULT_MAX_CONNECTIONS_PER_HOST = 2;
     public static final String MAX_TOTAL_CONNECTIONS = "maxTotalConnections";
     public static final int DEFAULT_MAX_TOTAL_CONNECTIONS = 20;
+
+    //configurations for reusing the access token across events
+    public static final String TOKEN_REFRESH_MARGIN_IN_SECONDS = "tokenRefreshMarginInSeconds";
+    public static final int DEFAULT_TOKEN_REFRESH_MARGIN_IN_SECONDS = 60;
+    public static final String AUTHORIZATION_HEADER_VALUE_BEARER_PREFIX = "Bearer ";
+
+    //configurations for batching and compressing the events
+    public static final String ADAPTER_BATCH_SIZE = "http.batch.size";
+    public static final String ADAPTER_BATCH_SIZE_HINT = "http.batch.size.hint";
+    public static final int DEFAULT_BATCH_SIZE = 1;
+    public static final String ADAPTER_BATCH_MAX_BYTES = "http.batch.max.bytes";
+    public static final String ADAPTER_BATCH_MAX_BYTES_HINT = "http.batch.max.bytes.hint";
+    public static final int DEFAULT_BATCH_MAX_BYTES = 1024 * 1024;
+    public static final String ADAPTER_BATCH_LINGER_TIME = "http.batch.linger.time";
+    public static final String ADAPTER_BATCH_LINGER_TIME_HINT = "http.batch.linger.time.hint";
+    public static final long DEFAULT_BATCH_LINGER_TIME_IN_MILLIS = 1000;
+    public static final String ADAPTER_COMPRESSION = "http.compression";
+    public static final String ADAPTER_COMPRESSION_HINT = "http.compression.hint";
+    public static final String COMPRESSION_NONE = "none";
+    public static final String COMPRESSION_GZIP = "gzip";
+    public static final String CONTENT_ENCODING_HEADER_NAME = "Content-Encoding";
 }
@@ -0,0 +1,166 @@
+/*
+*  Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*  http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+
+package org.wso2.carbon.device.mgt.output.adapter.http.benchmark;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.httpclient.HttpClient;
+import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
+import org.apache.commons.httpclient.methods.ByteArrayRequestEntity;
+import org.apache.commons.httpclient.methods.PostMethod;
+import org.apache.commons.httpclient.methods.StringRequestEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wso2.carbon.device.mgt.output.adapter.http.util.HTTPEventAdapterConstants;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Measures the events delivered per millisecond to a local stub server when the events are posted one per request
+ * and when they are posted as JSON array batches, with and without gzip compression of the request body. The
+ * requests are built the same way the adapter builds them.
+ * Run with: java -cp target/test-classes:target/classes:&lt;test classpath&gt; org.openjdk.jmh.Main
+ * HTTPPublishBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HTTPPublishBenchmark {
+
+    private static final int EVENTS = 100;
+    private static final String CONTENT_TYPE = "application/json";
+
+    @Param({"1", "10", "100"})
+    private int batchSize;
+
+    @Param({"none", HTTPEventAdapterConstants.COMPRESSION_GZIP})
+    private String compression;
+
+    private HttpServer server;
+    private MultiThreadedHttpConnectionManager connectionManager;
+    private HttpClient httpClient;
+    private String url;
+    private List<String> events;
+
+    @Setup
+    public void setup() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/events", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                byte[] buffer = new byte[4096];
+                try (InputStream inputStream = exchange.getRequestBody()) {
+                    while (inputStream.read(buffer) != -1) {
+                        // the body is drained so that the connection can be reused
+                    }
+                }
+                exchange.sendResponseHeaders(200, -1);
+                exchange.close();
+            }
+        });
+        server.start();
+        url = "http://127.0.0.1:" + server.getAddress().getPort() + "/events";
+
+        connectionManager = new MultiThreadedHttpConnectionManager();
+        httpClient = new HttpClient(connectionManager);
+        events = new ArrayList<>(EVENTS);
+        for (int i = 0; i < EVENTS; i++) {
+            events.add("{\"event\":{\"metaData\":{\"owner\":\"admin\",\"deviceId\":\"8fb7b2b5d4c4a2e" + (i % 10)
+                               + "\",\"time\":" + (1490241843000L + i) + "},\"payloadData\":{\"temperature\":"
+                               + (20 + i % 15) + ".5,\"humidity\":" + (40 + i % 30) + "}}}");
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        connectionManager.shutdown();
+        server.stop(0);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public int publish() throws IOException {
+        int status = 0;
+        for (int from = 0; from < EVENTS; from += batchSize) {
+            int to = Math.min(from + batchSize, EVENTS);
+            String payload = batchSize == 1 ? events.get(from) : toJSONArray(events.subList(from, to));
+            status += post(payload);
+        }
+        return status;
+    }
+
+    private int post(String payload) throws IOException {
+        PostMethod method = new PostMethod(url);
+        try {
+            if (HTTPEventAdapterConstants.COMPRESSION_GZIP.equals(compression)) {
+                method.setRequestEntity(new ByteArrayRequestEntity(gzip(payload), CONTENT_TYPE + "; charset=UTF-8"));
+                method.setRequestHeader(HTTPEventAdapterConstants.CONTENT_ENCODING_HEADER_NAME,
+                                        HTTPEventAdapterConstants.COMPRESSION_GZIP);
+            } else {
+                method.setRequestEntity(new StringRequestEntity(payload, CONTENT_TYPE, "UTF-8"));
+            }
+            return httpClient.executeMethod(method);
+        } finally {
+            method.releaseConnection();
+        }
+    }
+
+    private static String toJSONArray(List<String> payloads) {
+        StringBuilder jsonArray = new StringBuilder();
+        jsonArray.append('[');
+        for (int i = 0; i < payloads.size(); i++) {
+            if (i > 0) {
+                jsonArray.append(',');
+            }
+            jsonArray.append(payloads.get(i));
+        }
+        return jsonArray.append(']').toString();
+    }
+
+    private static byte[] gzip(String payload) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream)) {
+            gzipOutputStream.write(payload.getBytes(StandardCharsets.UTF_8));
+        }
+        return outputStream.toByteArray();
+    }
+}
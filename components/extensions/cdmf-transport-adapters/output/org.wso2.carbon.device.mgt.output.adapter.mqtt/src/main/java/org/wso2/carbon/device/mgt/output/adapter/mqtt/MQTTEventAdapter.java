@@ -172,13 +172,7 @@ public class MQTTEventAdapter implements OutputEventAdapter {
         @Override
         public void run() {
             try {
-                if (!mqttAdapterPublisher.isConnected()) {
-                    synchronized (MQTTEventAdapter.class) {
-                        if (!mqttAdapterPublisher.isConnected()) {
-                            mqttAdapterPublisher.connect();
-                        }
-                    }
-                }
+                // the publisher reconnects the connection of the topic when it is broken
                 mqttAdapterPublisher.publish(mqttBrokerConnectionConfiguration.getQos(), message.toString(), topic);
             } catch (Throwable t) {
                 EventAdapterUtil.logAndDrop(eventAdapterConfiguration.getName(), message, null, t, log, tenantId);
@@ -26,11 +26,14 @@ import org.apache.http.client.methods.HttpPost;
 import org.apache.http.entity.ContentType;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.message.BasicHeader;
+import org.eclipse.paho.client.mqttv3.IMqttActionListener;
+import org.eclipse.paho.client.mqttv3.IMqttToken;
+import org.eclipse.paho.client.mqttv3.MqttAsyncClient;
 import org.eclipse.paho.client.mqttv3.MqttClient;
+import org.eclipse.paho.client.mqttv3.MqttClientPersistence;
 import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
 import org.eclipse.paho.client.mqttv3.MqttException;
 import org.eclipse.paho.client.mqttv3.MqttMessage;
-import org.eclipse.paho.client.mqttv3.persist.MqttDefaultFilePersistence;
 import org.json.simple.JSONObject;
 import org.json.simple.parser.JSONParser;
 import org.json.simple.parser.ParseException;
@@ -50,17 +53,29 @@ import java.net.URL;
 import java.security.KeyManagementException;
 import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * MQTT publisher related configuration initialization and publishing capabilties are implemented here.
+ * Messages are published through a pool of non blocking connections, a topic is always published through the same
+ * connection so that the order of the messages of a topic is preserved. Each connection allows a bounded number of
+ * messages to wait for their acknowledgement, a publisher waits for a free slot once that window is full.
  */
 public class MQTTAdapterPublisher {
 
     private static final Log log = LogFactory.getLog(MQTTAdapterPublisher.class);
-    private MqttClient mqttClient;
+    private final PooledConnection[] connections;
     private MQTTBrokerConnectionConfiguration mqttBrokerConnectionConfiguration;
     String clientId;
     int tenantId;
+    private final AtomicInteger inFlightCount = new AtomicInteger();
+    private final AtomicLong publishedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong totalPublishLatency = new AtomicLong();
+    private final AtomicLong maxPublishLatency = new AtomicLong();
 
     public MQTTAdapterPublisher(MQTTBrokerConnectionConfiguration mqttBrokerConnectionConfiguration, String clientId
             , int tenantId) {
@@ -69,6 +84,19 @@ public class MQTTAdapterPublisher {
             this.clientId = MqttClient.generateClientId();
         }
         this.mqttBrokerConnectionConfiguration = mqttBrokerConnectionConfiguration;
+        int poolSize = mqttBrokerConnectionConfiguration.getConnectionPoolSize();
+        int windowSize = (mqttBrokerConnectionConfiguration.getMaxInflightMessages() + poolSize - 1) / poolSize;
+        if (windowSize > MQTTEventAdapterConstants.MAX_INFLIGHT_MESSAGES_PER_CONNECTION) {
+            log.warn("A connection of the mqtt client cannot have more than "
+                             + MQTTEventAdapterConstants.MAX_INFLIGHT_MESSAGES_PER_CONNECTION
+                             + " messages in flight, increase the connection pool size of adapter "
+                             + mqttBrokerConnectionConfiguration.getAdapterName() + " to allow more messages.");
+            windowSize = MQTTEventAdapterConstants.MAX_INFLIGHT_MESSAGES_PER_CONNECTION;
+        }
+        this.connections = new PooledConnection[poolSize];
+        for (int i = 0; i < poolSize; i++) {
+            connections[i] = new PooledConnection(i, windowSize);
+        }
         connect();
     }
 
@@ -76,74 +104,237 @@ public class MQTTAdapterPublisher {
         if (clientId == null || clientId.trim().isEmpty()) {
             clientId = MqttClient.generateClientId();
         }
-        boolean cleanSession = mqttBrokerConnectionConfiguration.isCleanSession();
-        int keepAlive = mqttBrokerConnectionConfiguration.getKeepAlive();
-        String temp_directory = System.getProperty(MQTTEventAdapterConstants.ADAPTER_TEMP_DIRECTORY_NAME);
-        MqttDefaultFilePersistence dataStore = new MqttDefaultFilePersistence(temp_directory);
-        try {
-            MqttConnectOptions connectionOptions = new MqttConnectOptions();
-            connectionOptions.setCleanSession(cleanSession);
-            connectionOptions.setKeepAliveInterval(keepAlive);
-            if (mqttBrokerConnectionConfiguration.getUsername() != null) {
-                connectionOptions.setUserName(getToken());
-                connectionOptions.setPassword(MQTTEventAdapterConstants.DEFAULT_PASSWORD.toCharArray());
-            }
-            // Construct an MQTT blocking mode client
-            mqttClient = new MqttClient(mqttBrokerConnectionConfiguration.getBrokerUrl(), clientId, dataStore);
-            mqttClient.connect(connectionOptions);
-
-        } catch (MqttException e) {
-            log.error("Error occurred when constructing MQTT client for broker url : "
-                              + mqttBrokerConnectionConfiguration.getBrokerUrl(), e);
-            handleException(e);
+        for (PooledConnection connection : connections) {
+            connection.connect();
         }
     }
 
     public boolean isConnected() {
-        return mqttClient.isConnected();
+        for (PooledConnection connection : connections) {
+            if (!connection.isConnected()) {
+                return false;
+            }
+        }
+        return true;
     }
 
     public void publish(int qos, String payload, String topic) {
-        try {
-            // Create and configure a message
-            MqttMessage message = new MqttMessage(payload.getBytes());
-            message.setQos(qos);
-            mqttClient.publish(topic, message);
-        } catch (MqttException e) {
-            log.error("Error occurred when publishing message for MQTT server : " + mqttClient.getServerURI(), e);
-            handleException(e);
-        }
+        // Create and configure a message
+        MqttMessage message = new MqttMessage(payload.getBytes());
+        message.setQos(qos);
+        publish(message, topic);
     }
 
     public void publish(String payload, String topic) {
-        try {
-            // Create and configure a message
-            MqttMessage message = new MqttMessage(payload.getBytes());
-            mqttClient.publish(topic, message);
-        } catch (MqttException e) {
-            log.error("Error occurred when publishing message for MQTT server : " + mqttClient.getServerURI(), e);
-            handleException(e);
-        }
+        // Create and configure a message
+        MqttMessage message = new MqttMessage(payload.getBytes());
+        publish(message, topic);
     }
 
     public void close() throws OutputEventAdapterException {
+        MqttException closeError = null;
+        for (PooledConnection connection : connections) {
+            try {
+                connection.close();
+            } catch (MqttException e) {
+                closeError = e;
+            }
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Mqtt publisher of adapter " + mqttBrokerConnectionConfiguration.getAdapterName()
+                              + " is closed, published : " + getPublishedCount() + ", dropped : " + getDroppedCount()
+                              + ", average publish latency : " + getAveragePublishLatencyInMillis() + "ms");
+        }
+        if (closeError != null) {
+            throw new OutputEventAdapterException(closeError);
+        }
+    }
+
+    /**
+     * @return the number of messages sent to the broker and waiting for their acknowledgement.
+     */
+    public int getInFlightCount() {
+        return inFlightCount.get();
+    }
+
+    public long getPublishedCount() {
+        return publishedCount.get();
+    }
+
+    /**
+     * @return the number of messages which could not be published.
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * @return the average time taken from sending a message until it is acknowledged by the broker.
+     */
+    public double getAveragePublishLatencyInMillis() {
+        long published = publishedCount.get();
+        return published == 0 ? 0 : totalPublishLatency.get() / (published * 1000000.0);
+    }
+
+    public double getMaxPublishLatencyInMillis() {
+        return maxPublishLatency.get() / 1000000.0;
+    }
+
+    private void publish(MqttMessage message, String topic) {
+        PooledConnection connection = connections[(topic.hashCode() & Integer.MAX_VALUE) % connections.length];
         try {
-            mqttClient.disconnect(1000);
-            mqttClient.close();
-        } catch (MqttException e) {
-            throw new OutputEventAdapterException(e);
+            connection.publish(topic, message);
+        } catch (RuntimeException e) {
+            droppedCount.incrementAndGet();
+            throw e;
+        }
+    }
+
+    private void recordPublishLatency(long latency) {
+        publishedCount.incrementAndGet();
+        totalPublishLatency.addAndGet(latency);
+        long max = maxPublishLatency.get();
+        while (latency > max && !maxPublishLatency.compareAndSet(max, latency)) {
+            max = maxPublishLatency.get();
         }
     }
 
     private void handleException(MqttException e) {
         //Check for Client not connected exception code and throw ConnectionUnavailableException
-        if (e.getReasonCode() == 32104) {
+        if (e.getReasonCode() == MqttException.REASON_CODE_CLIENT_NOT_CONNECTED) {
             throw new ConnectionUnavailableException(e);
         } else {
             throw new OutputEventAdapterRuntimeException(e);
         }
     }
 
+    /**
+     * A connection of the pool. Reconnecting is synchronized on the connection itself, hence a broken connection
+     * only holds back the messages published through it. Once closed, the connection is not reconnected and
+     * messages published through it are rejected.
+     */
+    private class PooledConnection {
+
+        private final int index;
+        private final int windowSize;
+        private volatile MqttAsyncClient mqttClient;
+        private volatile Semaphore inFlightPermits;
+        private volatile boolean closed;
+
+        PooledConnection(int index, int windowSize) {
+            this.index = index;
+            this.windowSize = windowSize;
+            this.inFlightPermits = new Semaphore(windowSize);
+        }
+
+        boolean isConnected() {
+            MqttAsyncClient client = mqttClient;
+            return client != null && client.isConnected();
+        }
+
+        synchronized void connect() {
+            if (closed) {
+                throw new ConnectionUnavailableException("MQTT connection to " + mqttBrokerConnectionConfiguration
+                        .getBrokerUrl() + " is closed.");
+            }
+            if (isConnected()) {
+                return;
+            }
+            boolean cleanSession = mqttBrokerConnectionConfiguration.isCleanSession();
+            int keepAlive = mqttBrokerConnectionConfiguration.getKeepAlive();
+            try {
+                MqttConnectOptions connectionOptions = new MqttConnectOptions();
+                connectionOptions.setCleanSession(cleanSession);
+                connectionOptions.setKeepAliveInterval(keepAlive);
+                if (mqttBrokerConnectionConfiguration.getUsername() != null) {
+                    connectionOptions.setUserName(getToken());
+                    connectionOptions.setPassword(MQTTEventAdapterConstants.DEFAULT_PASSWORD.toCharArray());
+                }
+                if (mqttClient == null) {
+                    MqttClientPersistence dataStore = mqttBrokerConnectionConfiguration.createClientPersistence();
+                    String connectionClientId = connections.length == 1 ? clientId : clientId + "_" + index;
+                    // Construct an MQTT non blocking mode client
+                    mqttClient = new MqttAsyncClient(mqttBrokerConnectionConfiguration.getBrokerUrl(),
+                                                     connectionClientId, dataStore);
+                }
+                mqttClient.connect(connectionOptions).waitForCompletion();
+                // acknowledgements of the messages sent before the connection was lost may never arrive
+                inFlightPermits = new Semaphore(windowSize);
+            } catch (MqttException e) {
+                log.error("Error occurred when constructing MQTT client for broker url : "
+                                  + mqttBrokerConnectionConfiguration.getBrokerUrl(), e);
+                handleException(e);
+            }
+        }
+
+        /**
+         * Publishes through the client of the connection as read once, so that a concurrent close can only fail the
+         * publish with a MqttException instead of leaving a null client behind.
+         */
+        void publish(final String topic, MqttMessage message) {
+            if (!closed && !isConnected()) {
+                connect();
+            }
+            final MqttAsyncClient client = mqttClient;
+            if (closed || client == null) {
+                throw new ConnectionUnavailableException("MQTT connection to " + mqttBrokerConnectionConfiguration
+                        .getBrokerUrl() + " is closed, message to topic " + topic + " is not published.");
+            }
+            final Semaphore permits = inFlightPermits;
+            try {
+                if (!permits.tryAcquire(mqttBrokerConnectionConfiguration.getPublishTimeout(),
+                                        TimeUnit.MILLISECONDS)) {
+                    throw new OutputEventAdapterRuntimeException("No acknowledgement was received from the broker "
+                                                                         + "for the messages in flight.");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new OutputEventAdapterRuntimeException("Interrupted while waiting to publish to " + topic, e);
+            }
+            final long startTime = System.nanoTime();
+            inFlightCount.incrementAndGet();
+            try {
+                client.publish(topic, message, null, new IMqttActionListener() {
+                    @Override
+                    public void onSuccess(IMqttToken asyncActionToken) {
+                        permits.release();
+                        inFlightCount.decrementAndGet();
+                        recordPublishLatency(System.nanoTime() - startTime);
+                    }
+
+                    @Override
+                    public void onFailure(IMqttToken asyncActionToken, Throwable exception) {
+                        permits.release();
+                        inFlightCount.decrementAndGet();
+                        droppedCount.incrementAndGet();
+                        log.error("Error occurred when publishing message to topic " + topic + " of MQTT server : "
+                                          + mqttBrokerConnectionConfiguration.getBrokerUrl(), exception);
+                    }
+                });
+            } catch (MqttException e) {
+                permits.release();
+                inFlightCount.decrementAndGet();
+                log.error("Error occurred when publishing message for MQTT server : " + client.getServerURI(), e);
+                handleException(e);
+            }
+        }
+
+        synchronized void close() throws MqttException {
+            closed = true;
+            if (mqttClient == null) {
+                return;
+            }
+            try {
+                if (mqttClient.isConnected()) {
+                    mqttClient.disconnect(1000).waitForCompletion();
+                }
+            } finally {
+                mqttClient.close();
+                mqttClient = null;
+            }
+        }
+    }
+
     private String getToken() {
         String username = this.mqttBrokerConnectionConfiguration.getUsername();
         String password = this.mqttBrokerConnectionConfiguration.getPassword();
@@ -17,6 +17,12 @@
 */
 package org.wso2.carbon.device.mgt.output.adapter.mqtt.util;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.eclipse.paho.client.mqttv3.MqttClientPersistence;
+import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
+import org.eclipse.paho.client.mqttv3.persist.MqttDefaultFilePersistence;
+import org.wso2.carbon.device.mgt.input.adapter.extension.util.MQTTMappedFilePersistence;
 import org.wso2.carbon.event.output.adapter.core.OutputEventAdapterConfiguration;
 import org.wso2.carbon.event.output.adapter.core.exception.OutputEventAdapterException;
 
@@ -24,6 +30,8 @@ import java.util.Map;
 
 public class MQTTBrokerConnectionConfiguration {
 
+    private static final Log log = LogFactory.getLog(MQTTBrokerConnectionConfiguration.class);
+
     private String adapterName;
     private String username;
     private String password;
@@ -35,6 +43,12 @@ public class MQTTBrokerConnectionConfiguration {
     private int keepAlive;
     private boolean globalCredentailSet;
     private int qos;
+    private int maxInflightMessages;
+    private int connectionPoolSize;
+    private long publishTimeout;
+    private String persistence;
+    private String persistenceDirectory;
+    private int persistenceFileSize;
 
     public String getTokenUrl() {
         return tokenUrl;
@@ -79,6 +93,41 @@ public class MQTTBrokerConnectionConfiguration {
     public int getQos() {
         return qos;
     }
+
+    public int getMaxInflightMessages() {
+        return maxInflightMessages;
+    }
+
+    public int getConnectionPoolSize() {
+        return connectionPoolSize;
+    }
+
+    public long getPublishTimeout() {
+        return publishTimeout;
+    }
+
+    /**
+     * @return the type of the store paho keeps the messages in flight in, one of file, memory or mappedFile.
+     */
+    public String getPersistence() {
+        return persistence;
+    }
+
+    /**
+     * Creates the store of the messages in flight of a client, each client requires its own store.
+     * Messages kept in memory are lost when the server stops, hence memory persistence suits QoS 0 or idempotent
+     * traffic. File persistence writes a file per message while the mapped file persistence appends all the
+     * messages of a client to a single log.
+     */
+    public MqttClientPersistence createClientPersistence() {
+        if (MQTTEventAdapterConstants.PERSISTENCE_MEMORY.equals(persistence)) {
+            return new MemoryPersistence();
+        } else if (MQTTEventAdapterConstants.PERSISTENCE_MAPPED_FILE.equals(persistence)) {
+            return new MQTTMappedFilePersistence(persistenceDirectory, persistenceFileSize);
+        }
+        return new MqttDefaultFilePersistence(persistenceDirectory);
+    }
+
     public MQTTBrokerConnectionConfiguration(OutputEventAdapterConfiguration eventAdapterConfiguration,
                                              Map<String, String> globalProperties) {
         adapterName = eventAdapterConfiguration.getName();
@@ -122,8 +171,47 @@ public class MQTTBrokerConnectionConfiguration {
             qosVal = eventAdapterConfiguration.getStaticProperties().get(MQTTEventAdapterConstants.ADAPTER_MESSAGE_QOS);
             this.qos = Integer.parseInt(qosVal);
         }
-
-
+        if (globalProperties.get(MQTTEventAdapterConstants.ADAPTER_CONF_CONNECTION_POOL_SIZE) != null) {
+            connectionPoolSize = Math.max(1, Integer.parseInt(
+                    globalProperties.get(MQTTEventAdapterConstants.ADAPTER_CONF_CONNECTION_POOL_SIZE)));
+        } else {
+            connectionPoolSize = MQTTEventAdapterConstants.DEFAULT_CONNECTION_POOL_SIZE;
+        }
+        if (globalProperties.get(MQTTEventAdapterConstants.ADAPTER_CONF_MAX_INFLIGHT_MESSAGES) != null) {
+            maxInflightMessages = Math.max(1, Integer.parseInt(
+                    globalProperties.get(MQTTEventAdapterConstants.ADAPTER_CONF_MAX_INFLIGHT_MESSAGES)));
+        } else {
+            maxInflightMessages = MQTTEventAdapterConstants.DEFAULT_MAX_INFLIGHT_MESSAGES;
+        }
+        if (globalProperties.get(MQTTEventAdapterConstants.ADAPTER_CONF_PUBLISH_TIMEOUT) != null) {
+            publishTimeout = Long.parseLong(
+                    globalProperties.get(MQTTEventAdapterConstants.ADAPTER_CONF_PUBLISH_TIMEOUT));
+        } else {
+            publishTimeout = MQTTEventAdapterConstants.DEFAULT_PUBLISH_TIMEOUT_IN_MILLIS;
+        }
+        String persistence = globalProperties.get(MQTTEventAdapterConstants.ADAPTER_CONF_PERSISTENCE);
+        if (MQTTEventAdapterConstants.PERSISTENCE_MEMORY.equalsIgnoreCase(persistence)) {
+            this.persistence = MQTTEventAdapterConstants.PERSISTENCE_MEMORY;
+        } else if (MQTTEventAdapterConstants.PERSISTENCE_MAPPED_FILE.equalsIgnoreCase(persistence)) {
+            this.persistence = MQTTEventAdapterConstants.PERSISTENCE_MAPPED_FILE;
+        } else {
+            if (persistence != null && !persistence.isEmpty()
+                    && !MQTTEventAdapterConstants.PERSISTENCE_FILE.equalsIgnoreCase(persistence)) {
+                log.warn("Invalid persistence " + persistence + " for adapter " + adapterName
+                                 + ", file persistence is used.");
+            }
+            this.persistence = MQTTEventAdapterConstants.PERSISTENCE_FILE;
+        }
+        this.persistenceDirectory = globalProperties.get(MQTTEventAdapterConstants.ADAPTER_CONF_PERSISTENCE_DIRECTORY);
+        if (persistenceDirectory == null || persistenceDirectory.isEmpty()) {
+            this.persistenceDirectory = System.getProperty(MQTTEventAdapterConstants.ADAPTER_TEMP_DIRECTORY_NAME);
+        }
+        if (globalProperties.get(MQTTEventAdapterConstants.ADAPTER_CONF_PERSISTENCE_FILE_SIZE) != null) {
+            persistenceFileSize = Integer.parseInt(
+                    globalProperties.get(MQTTEventAdapterConstants.ADAPTER_CONF_PERSISTENCE_FILE_SIZE));
+        } else {
+            persistenceFileSize = MQTTEventAdapterConstants.ADAPTER_CONF_DEFAULT_PERSISTENCE_FILE_SIZE;
+        }
     }
 
 }
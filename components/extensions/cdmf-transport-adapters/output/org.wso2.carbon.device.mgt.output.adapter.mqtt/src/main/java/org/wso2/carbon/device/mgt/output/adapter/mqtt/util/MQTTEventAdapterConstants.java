@@ -46,6 +46,21 @@ public final class MQTTEventAdapterConstants {
     public static final String EMPTY_STRING = "";
     public static final String ADAPTER_CONF_KEEP_ALIVE = "keepAlive";
     public static final int ADAPTER_CONF_DEFAULT_KEEP_ALIVE = 60000;
+    public static final String ADAPTER_CONF_MAX_INFLIGHT_MESSAGES = "maxInflightMessages";
+    public static final int DEFAULT_MAX_INFLIGHT_MESSAGES = 10;
+    // paho 1.0.2 does not allow changing the in-flight window of a connection from its default of 10
+    public static final int MAX_INFLIGHT_MESSAGES_PER_CONNECTION = 10;
+    public static final String ADAPTER_CONF_CONNECTION_POOL_SIZE = "connectionPoolSize";
+    public static final int DEFAULT_CONNECTION_POOL_SIZE = 1;
+    public static final String ADAPTER_CONF_PUBLISH_TIMEOUT = "publishTimeoutInMillis";
+    public static final long DEFAULT_PUBLISH_TIMEOUT_IN_MILLIS = 30000;
+    public static final String ADAPTER_CONF_PERSISTENCE = "persistence";
+    public static final String PERSISTENCE_FILE = "file";
+    public static final String PERSISTENCE_MEMORY = "memory";
+    public static final String PERSISTENCE_MAPPED_FILE = "mappedFile";
+    public static final String ADAPTER_CONF_PERSISTENCE_DIRECTORY = "persistenceDirectory";
+    public static final String ADAPTER_CONF_PERSISTENCE_FILE_SIZE = "persistenceFileSize";
+    public static final int ADAPTER_CONF_DEFAULT_PERSISTENCE_FILE_SIZE = 1024 * 1024;
 
     public static final int DEFAULT_MIN_THREAD_POOL_SIZE = 8;
     public static final int DEFAULT_MAX_THREAD_POOL_SIZE = 100;
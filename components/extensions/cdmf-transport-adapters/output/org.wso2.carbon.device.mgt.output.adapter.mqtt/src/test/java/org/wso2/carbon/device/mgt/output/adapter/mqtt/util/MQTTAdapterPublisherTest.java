@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.device.mgt.output.adapter.mqtt.util;
+
+import io.moquette.BrokerConstants;
+import io.moquette.broker.Server;
+import io.moquette.broker.config.MemoryConfig;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.event.output.adapter.core.OutputEventAdapterConfiguration;
+import org.wso2.carbon.event.output.adapter.core.exception.ConnectionUnavailableException;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Checks that a closed publisher rejects messages instead of reconnecting to the broker, against an embedded broker.
+ */
+public class MQTTAdapterPublisherTest {
+
+    private static final String TOPIC = "carbon.super/test_device/device-1/command";
+    private static final long PUBLISH_TIMEOUT = 10000;
+
+    private Server broker;
+    private MQTTAdapterPublisher publisher;
+
+    @BeforeClass
+    public void init() throws Exception {
+        Properties brokerProperties = new Properties();
+        brokerProperties.setProperty(BrokerConstants.HOST_PROPERTY_NAME, "127.0.0.1");
+        brokerProperties.setProperty(BrokerConstants.PORT_PROPERTY_NAME, String.valueOf(getFreePort()));
+        brokerProperties.setProperty(BrokerConstants.WEB_SOCKET_PORT_PROPERTY_NAME, BrokerConstants.DISABLED_PORT_BIND);
+        brokerProperties.setProperty(BrokerConstants.ALLOW_ANONYMOUS_PROPERTY_NAME, "true");
+        brokerProperties.setProperty(BrokerConstants.PERSISTENT_STORE_PROPERTY_NAME, "");
+        broker = new Server();
+        broker.startServer(new MemoryConfig(brokerProperties));
+
+        Map<String, String> staticProperties = new HashMap<>();
+        staticProperties.put(MQTTEventAdapterConstants.ADAPTER_CONF_URL,
+                             "tcp://127.0.0.1:" + brokerProperties.getProperty(BrokerConstants.PORT_PROPERTY_NAME));
+        staticProperties.put(MQTTEventAdapterConstants.ADAPTER_MESSAGE_QOS, "1");
+        OutputEventAdapterConfiguration adapterConfiguration = new OutputEventAdapterConfiguration();
+        adapterConfiguration.setName("publisher-test-adapter");
+        adapterConfiguration.setStaticProperties(staticProperties);
+        Map<String, String> globalProperties = new HashMap<>();
+        globalProperties.put(MQTTEventAdapterConstants.ADAPTER_CONF_DCR_URL, "https://localhost/dynamic-client");
+        globalProperties.put(MQTTEventAdapterConstants.ADAPTER_CONF_TOKEN_URL, "https://localhost/token");
+        globalProperties.put(MQTTEventAdapterConstants.ADAPTER_CONF_PERSISTENCE,
+                             MQTTEventAdapterConstants.PERSISTENCE_MEMORY);
+        globalProperties.put(MQTTEventAdapterConstants.ADAPTER_CONF_CONNECTION_POOL_SIZE, "2");
+        publisher = new MQTTAdapterPublisher(new MQTTBrokerConnectionConfiguration(adapterConfiguration,
+                                                                                   globalProperties),
+                                             "publisher-test", -1234);
+    }
+
+    @AfterClass
+    public void cleanup() {
+        if (broker != null) {
+            broker.stopServer();
+        }
+    }
+
+    @Test
+    public void testPublish() throws InterruptedException {
+        Assert.assertTrue(publisher.isConnected(), "Publisher is not connected to the broker.");
+        publisher.publish(1, "{\"command\":\"on\"}", TOPIC);
+        long deadline = System.currentTimeMillis() + PUBLISH_TIMEOUT;
+        while (publisher.getPublishedCount() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+        }
+        Assert.assertEquals(publisher.getPublishedCount(), 1);
+        Assert.assertEquals(publisher.getDroppedCount(), 0);
+    }
+
+    @Test(dependsOnMethods = "testPublish")
+    public void testPublishAfterClose() throws Exception {
+        publisher.close();
+        Assert.assertFalse(publisher.isConnected());
+        try {
+            publisher.publish(1, "{\"command\":\"off\"}", TOPIC);
+            Assert.fail("Message is published through a closed publisher.");
+        } catch (ConnectionUnavailableException e) {
+            // expected, a closed publisher does not reconnect
+        }
+        Assert.assertFalse(publisher.isConnected(), "Closed publisher is reconnected.");
+        Assert.assertEquals(publisher.getDroppedCount(), 1);
+        Assert.assertEquals(publisher.getPublishedCount(), 1);
+    }
+
+    @Test(dependsOnMethods = "testPublishAfterClose", expectedExceptions = ConnectionUnavailableException.class)
+    public void testConnectAfterClose() {
+        publisher.connect();
+    }
+
+    private static int getFreePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
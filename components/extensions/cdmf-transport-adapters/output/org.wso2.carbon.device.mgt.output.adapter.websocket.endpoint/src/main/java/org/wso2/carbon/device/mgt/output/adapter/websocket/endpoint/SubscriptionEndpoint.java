@@ -21,10 +21,14 @@ package org.wso2.carbon.device.mgt.output.adapter.websocket.endpoint;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.device.mgt.output.adapter.websocket.authentication.AuthenticationInfo;
+import org.wso2.carbon.device.mgt.output.adapter.websocket.authorization.Authorizer;
 import org.wso2.carbon.device.mgt.output.adapter.websocket.endpoint.util.ServiceHolder;
 
 import javax.websocket.CloseReason;
 import javax.websocket.Session;
+import java.io.IOException;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Interface for subscription and un-subscription for web socket
@@ -38,6 +42,71 @@ public class SubscriptionEndpoint {
 
 	}
 
+	/**
+	 * Authorizes the session asynchronously on the executor of the websocket adapter service, so that the container
+	 * thread handling the handshake is not held while the authorizer calls the remote server.
+	 *
+	 * @param authorizer         authorizer configured for the websocket adapter.
+	 * @param authenticationInfo authenticated client information.
+	 * @param session            Users registered session.
+	 * @param streamName         StreamName extracted from the ws url.
+	 * @param callback           invoked with the authorization decision.
+	 */
+	protected void authorize(final Authorizer authorizer, final AuthenticationInfo authenticationInfo,
+							 final Session session, final String streamName, final AuthorizationCallback callback) {
+		Runnable authorization = new Runnable() {
+			@Override
+			public void run() {
+				boolean isAuthorized = false;
+				try {
+					isAuthorized = authorizer.isAuthorized(authenticationInfo, session, streamName);
+				} catch (RuntimeException e) {
+					log.error("Failed to authorize session ID: " + session.getId() + ", for the Stream:" + streamName,
+							  e);
+				}
+				if (!session.isOpen()) {
+					if (log.isDebugEnabled()) {
+						log.debug("Session ID: " + session.getId() + " closed before it was authorized.");
+					}
+					return;
+				}
+				if (isAuthorized) {
+					callback.onAuthorized();
+					if (!session.isOpen()) {
+						// closed while subscribing, onClose may have run before the subscription was added
+						callback.onClosed();
+					}
+				} else {
+					callback.onUnauthorized();
+				}
+			}
+		};
+		try {
+			ServiceHolder.getInstance().getWebsocketOutputCallbackControllerService().getAuthorizationExecutor()
+					.execute(authorization);
+		} catch (RejectedExecutionException e) {
+			log.error("Unable to authorize session ID: " + session.getId() + ", for the Stream:" + streamName
+							  + " since the websocket adapter service is stopped.", e);
+			try {
+				session.close(new CloseReason(CloseReason.CloseCodes.TRY_AGAIN_LATER, "Service unavailable"));
+			} catch (IOException ioException) {
+				log.error("Failed to disconnect the client.", ioException);
+			}
+		}
+	}
+
+	/**
+	 * Receives the result of an asynchronous authorization.
+	 */
+	protected interface AuthorizationCallback {
+
+		void onAuthorized();
+
+		void onUnauthorized();
+
+		void onClosed();
+	}
+
 	/**
 	 * Web socket onClose - Remove the registered sessions
 	 *
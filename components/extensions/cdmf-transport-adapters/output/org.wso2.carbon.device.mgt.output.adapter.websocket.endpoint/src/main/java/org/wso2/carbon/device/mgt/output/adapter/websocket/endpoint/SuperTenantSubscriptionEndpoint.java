@@ -60,8 +60,8 @@ public class SuperTenantSubscriptionEndpoint extends SubscriptionEndpoint {
 	 * @param version    -  Version extracted from the ws url.
 	 */
 	@OnOpen
-	public void onOpen(Session session, EndpointConfig config, @PathParam("streamname") String streamName,
-					   @PathParam("version") String version) {
+	public void onOpen(final Session session, EndpointConfig config, @PathParam("streamname") final String streamName,
+					   @PathParam("version") final String version) {
 		if (log.isDebugEnabled()) {
 			log.debug("WebSocket opened, for Session id: " + session.getId() + ", for the Stream:" + streamName);
 		}
@@ -73,21 +73,39 @@ public class SuperTenantSubscriptionEndpoint extends SubscriptionEndpoint {
 		AuthenticationInfo authenticationInfo = authenticator.isAuthenticated(sessionQueryParam);
 		if (authenticationInfo != null && authenticationInfo.isAuthenticated()) {
 			Authorizer authorizer = ServiceHolder.getWebsocketValidationService().getAuthorizer();
-			boolean isAuthorized = authorizer.isAuthorized(authenticationInfo, session, streamName);
-			if (isAuthorized) {
-				try {
-					PrivilegedCarbonContext.startTenantFlow();
-					PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantId(
-							MultitenantConstants.SUPER_TENANT_ID);
-					ServiceHolder.getInstance().getWebsocketOutputCallbackControllerService().subscribeWebsocket(streamName,
-																										  version,
-																										  session);
-				} finally {
-					PrivilegedCarbonContext.endTenantFlow();
+			authorize(authorizer, authenticationInfo, session, streamName, new AuthorizationCallback() {
+				@Override
+				public void onAuthorized() {
+					try {
+						PrivilegedCarbonContext.startTenantFlow();
+						PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantId(
+								MultitenantConstants.SUPER_TENANT_ID);
+						ServiceHolder.getInstance().getWebsocketOutputCallbackControllerService().subscribeWebsocket(
+								streamName, version, session);
+					} finally {
+						PrivilegedCarbonContext.endTenantFlow();
+					}
 				}
-			} else {
-				log.info("Failed to authorize the connection for the stream : "+ streamName+" , version : "+ version);
-			}
+
+				@Override
+				public void onUnauthorized() {
+					log.info("Failed to authorize the connection for the stream : " + streamName + " , version : " +
+									 version);
+				}
+
+				@Override
+				public void onClosed() {
+					try {
+						PrivilegedCarbonContext.startTenantFlow();
+						PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantId(
+								MultitenantConstants.SUPER_TENANT_ID);
+						ServiceHolder.getInstance().getWebsocketOutputCallbackControllerService().unsubscribeWebsocket(
+								streamName, version, session);
+					} finally {
+						PrivilegedCarbonContext.endTenantFlow();
+					}
+				}
+			});
 		} else {
 			try {
 				session.close(new CloseReason(CloseReason.CloseCodes.CANNOT_ACCEPT, "Unauthorized Access"));
@@ -52,7 +52,8 @@ public class TenantSubscriptionEndpoint extends SubscriptionEndpoint {
     private static final Log log = LogFactory.getLog(TenantSubscriptionEndpoint.class);
 
     /**
-     * Web socket onOpen - When client sends a message
+     * Web socket onOpen - When client sends a message. Besides the filters, the query string may contain
+     * lastEvents=N and/or since=[time in milliseconds] to receive recent events of the stream before the live ones.
      *
      * @param session - Users registered session.
      * @param streamName - StreamName extracted from the ws url.
@@ -60,8 +61,8 @@ public class TenantSubscriptionEndpoint extends SubscriptionEndpoint {
      * @param tdomain - Tenant domain extracted from ws url.
      */
     @OnOpen
-    public void onOpen (Session session, EndpointConfig config, @PathParam("streamname") String streamName ,
-                        @PathParam("version") String version, @PathParam("tdomain") String tdomain) {
+    public void onOpen (final Session session, EndpointConfig config, @PathParam("streamname") final String streamName ,
+                        @PathParam("version") final String version, @PathParam("tdomain") String tdomain) {
         if (log.isDebugEnabled()) {
             log.debug("WebSocket opened, for Session id: "+session.getId()+", for the Stream:"+streamName);
         }
@@ -70,27 +71,45 @@ public class TenantSubscriptionEndpoint extends SubscriptionEndpoint {
         sessionQueryParamList.add(session.getQueryString());
         sessionQueryParam.put(Constants.QUERY_STRING, sessionQueryParamList);
         Authenticator authenticator = ServiceHolder.getWebsocketValidationService().getAuthenticator();
-        AuthenticationInfo authenticationInfo = authenticator.isAuthenticated(sessionQueryParam);
+        final AuthenticationInfo authenticationInfo = authenticator.isAuthenticated(sessionQueryParam);
         if (authenticationInfo != null && authenticationInfo.isAuthenticated()) {
             Authorizer authorizer = ServiceHolder.getWebsocketValidationService().getAuthorizer();
-            boolean isAuthorized = authorizer.isAuthorized(authenticationInfo, session, streamName);
-            if (isAuthorized) {
-                try {
-                    PrivilegedCarbonContext.startTenantFlow();
-                    PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantDomain(authenticationInfo.getTenantDomain()
-                            , true);
-                    ServiceHolder.getInstance().getWebsocketOutputCallbackControllerService().subscribeWebsocket(streamName
-                            , version, session);
-                } finally {
-                    PrivilegedCarbonContext.endTenantFlow();
+            authorize(authorizer, authenticationInfo, session, streamName, new AuthorizationCallback() {
+                @Override
+                public void onAuthorized() {
+                    try {
+                        PrivilegedCarbonContext.startTenantFlow();
+                        PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantDomain(
+                                authenticationInfo.getTenantDomain(), true);
+                        ServiceHolder.getInstance().getWebsocketOutputCallbackControllerService().subscribeWebsocket(
+                                streamName, version, session);
+                    } finally {
+                        PrivilegedCarbonContext.endTenantFlow();
+                    }
                 }
-            } else {
-                try {
-                    session.close(new CloseReason(CloseReason.CloseCodes.CANNOT_ACCEPT, "Unauthorized Access"));
-                } catch (IOException e) {
-                    log.error("Failed to disconnect the unauthorized client.", e);
+
+                @Override
+                public void onUnauthorized() {
+                    try {
+                        session.close(new CloseReason(CloseReason.CloseCodes.CANNOT_ACCEPT, "Unauthorized Access"));
+                    } catch (IOException e) {
+                        log.error("Failed to disconnect the unauthorized client.", e);
+                    }
                 }
-            }
+
+                @Override
+                public void onClosed() {
+                    try {
+                        PrivilegedCarbonContext.startTenantFlow();
+                        PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantDomain(
+                                authenticationInfo.getTenantDomain(), true);
+                        ServiceHolder.getInstance().getWebsocketOutputCallbackControllerService().unsubscribeWebsocket(
+                                streamName, version, session);
+                    } finally {
+                        PrivilegedCarbonContext.endTenantFlow();
+                    }
+                }
+            });
         } else {
             try {
                 session.close(new CloseReason(CloseReason.CloseCodes.CANNOT_ACCEPT, "Unauthorized Access"));
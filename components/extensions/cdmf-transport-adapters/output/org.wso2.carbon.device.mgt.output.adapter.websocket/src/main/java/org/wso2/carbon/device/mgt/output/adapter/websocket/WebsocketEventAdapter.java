@@ -20,17 +20,19 @@ package org.wso2.carbon.device.mgt.output.adapter.websocket;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.json.JSONException;
 import org.json.JSONObject;
 import org.wso2.carbon.context.CarbonContext;
 import org.wso2.carbon.context.PrivilegedCarbonContext;
 import org.wso2.carbon.databridge.commons.Attribute;
 import org.wso2.carbon.databridge.commons.Event;
 import org.wso2.carbon.databridge.commons.StreamDefinition;
-import org.wso2.carbon.device.mgt.output.adapter.websocket.constants.WebsocketConstants;
 import org.wso2.carbon.device.mgt.output.adapter.websocket.internal.WebsocketEventAdaptorServiceDataHolder;
+import org.wso2.carbon.device.mgt.output.adapter.websocket.util.EventMatcher;
+import org.wso2.carbon.device.mgt.output.adapter.websocket.util.EventRingBuffer;
+import org.wso2.carbon.device.mgt.output.adapter.websocket.util.JsonEventMatcher;
 import org.wso2.carbon.device.mgt.output.adapter.websocket.util.WebsocketEventAdapterConstants;
 import org.wso2.carbon.device.mgt.output.adapter.websocket.util.WebSocketSessionRequest;
+import org.wso2.carbon.device.mgt.output.adapter.websocket.util.WebSocketSubscriptionIndex;
 import org.wso2.carbon.event.output.adapter.core.EventAdapterUtil;
 import org.wso2.carbon.event.output.adapter.core.OutputEventAdapter;
 import org.wso2.carbon.event.output.adapter.core.OutputEventAdapterConfiguration;
@@ -40,13 +42,11 @@ import org.wso2.carbon.event.output.adapter.core.exception.TestConnectionNotSupp
 import org.wso2.carbon.event.stream.core.EventStreamService;
 import org.wso2.carbon.event.stream.core.exception.EventStreamConfigurationException;
 
-import java.io.IOException;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadPoolExecutor;
@@ -62,15 +62,18 @@ public class WebsocketEventAdapter implements OutputEventAdapter {
     private OutputEventAdapterConfiguration eventAdapterConfiguration;
     private Map<String, String> globalProperties;
     private int queueSize;
-    private LinkedBlockingDeque<Object> streamSpecificEvents;
+    private EventRingBuffer streamSpecificEvents;
     private static ThreadPoolExecutor executorService;
     private int tenantId;
     private boolean doLogDroppedMessage;
+    private int sessionBufferSize;
+    private boolean disconnectSlowConsumers;
 
     private String streamId;
     private List<Attribute> streamMetaAttributes;
     private List<Attribute> streamCorrelationAttributes;
     private List<Attribute> streamPayloadAttributes;
+    private Map<String, int[]> streamAttributePositions;
 
     public WebsocketEventAdapter(OutputEventAdapterConfiguration eventAdapterConfiguration, Map<String,
             String> globalProperties) {
@@ -135,6 +138,22 @@ public class WebsocketEventAdapter implements OutputEventAdapter {
         streamMetaAttributes = streamDefinition.getMetaData();
         streamCorrelationAttributes = streamDefinition.getCorrelationData();
         streamPayloadAttributes = streamDefinition.getPayloadData();
+        streamAttributePositions = new HashMap<>();
+        addAttributePositions(streamPayloadAttributes, WebsocketEventAdapterConstants.INDEX_TWO);
+        addAttributePositions(streamCorrelationAttributes, WebsocketEventAdapterConstants.INDEX_ONE);
+        addAttributePositions(streamMetaAttributes, WebsocketEventAdapterConstants.INDEX_ZERO);
+
+        if (globalProperties.get(WebsocketEventAdapterConstants.ADAPTER_EVENT_QUEUE_SIZE_NAME) != null) {
+            try {
+                queueSize = Integer.parseInt(
+                        globalProperties.get(WebsocketEventAdapterConstants.ADAPTER_EVENT_QUEUE_SIZE_NAME));
+            } catch (NumberFormatException e) {
+                log.error("String does not have the appropriate format for conversion." + e.getMessage());
+                queueSize = WebsocketEventAdapterConstants.EVENTS_QUEUE_SIZE;
+            }
+        } else {
+            queueSize = WebsocketEventAdapterConstants.EVENTS_QUEUE_SIZE;
+        }
 
         ConcurrentHashMap<Integer, ConcurrentHashMap<String, String>> tenantSpecifcEventOutputAdapterMap =
                 WebsocketEventAdaptorServiceDataHolder.getTenantSpecificOutputEventStreamAdapterMap();
@@ -156,9 +175,9 @@ public class WebsocketEventAdapter implements OutputEventAdapter {
         } else {
             streamSpecifAdapterMap.put(streamId, eventAdapterConfiguration.getName());
 
-            ConcurrentHashMap<Integer, ConcurrentHashMap<String, LinkedBlockingDeque<Object>>> tenantSpecificStreamMap =
+            ConcurrentHashMap<Integer, ConcurrentHashMap<String, EventRingBuffer>> tenantSpecificStreamMap =
                     WebsocketEventAdaptorServiceDataHolder.getTenantSpecificStreamEventMap();
-            ConcurrentHashMap<String, LinkedBlockingDeque<Object>> streamSpecificEventsMap =
+            ConcurrentHashMap<String, EventRingBuffer> streamSpecificEventsMap =
                     tenantSpecificStreamMap.get(tenantId);
             if (streamSpecificEventsMap == null) {
                 streamSpecificEventsMap = new ConcurrentHashMap<>();
@@ -168,24 +187,29 @@ public class WebsocketEventAdapter implements OutputEventAdapter {
             }
             streamSpecificEvents = streamSpecificEventsMap.get(streamId);
             if (streamSpecificEvents == null) {
-                streamSpecificEvents = new LinkedBlockingDeque<>();
+                streamSpecificEvents = new EventRingBuffer(queueSize);
                 if (null != streamSpecificEventsMap.putIfAbsent(streamId, streamSpecificEvents)) {
                     streamSpecificEvents = streamSpecificEventsMap.get(streamId);
                 }
             }
         }
 
-        if (globalProperties.get(WebsocketEventAdapterConstants.ADAPTER_EVENT_QUEUE_SIZE_NAME) != null) {
+        sessionBufferSize = WebsocketEventAdapterConstants.SESSION_BUFFER_SIZE;
+        if (globalProperties.get(WebsocketEventAdapterConstants.ADAPTER_SESSION_BUFFER_SIZE_NAME) != null) {
             try {
-                queueSize = Integer.parseInt(
-                        globalProperties.get(WebsocketEventAdapterConstants.ADAPTER_EVENT_QUEUE_SIZE_NAME));
+                sessionBufferSize = Integer.parseInt(
+                        globalProperties.get(WebsocketEventAdapterConstants.ADAPTER_SESSION_BUFFER_SIZE_NAME));
             } catch (NumberFormatException e) {
                 log.error("String does not have the appropriate format for conversion." + e.getMessage());
-                queueSize = WebsocketEventAdapterConstants.EVENTS_QUEUE_SIZE;
             }
-        } else {
-            queueSize = WebsocketEventAdapterConstants.EVENTS_QUEUE_SIZE;
         }
+        String slowConsumerPolicy =
+                globalProperties.get(WebsocketEventAdapterConstants.ADAPTER_SLOW_CONSUMER_POLICY_NAME);
+        disconnectSlowConsumers =
+                WebsocketEventAdapterConstants.SLOW_CONSUMER_POLICY_DISCONNECT.equalsIgnoreCase(slowConsumerPolicy);
+        // the history replayed to new sessions is queued with the same limits
+        WebsocketEventAdaptorServiceDataHolder.setSessionBufferSize(sessionBufferSize);
+        WebsocketEventAdaptorServiceDataHolder.setDisconnectSlowConsumers(disconnectSlowConsumers);
     }
 
     @Override
@@ -201,71 +225,22 @@ public class WebsocketEventAdapter implements OutputEventAdapter {
     @Override
     public void publish(Object message, Map<String, String> dynamicProperties) {
         String eventString;
-        if (streamSpecificEvents.size() == queueSize) {
-            streamSpecificEvents.removeFirst();
-        }
+        EventMatcher eventMatcher;
         if (message instanceof Event) {
-            Event event = (Event) message;
-            StringBuilder eventBuilder = new StringBuilder("[");
-            eventBuilder.append(event.getTimeStamp());
-
-            if (event.getMetaData() != null) {
-                eventBuilder.append(",");
-                Object[] metaData = event.getMetaData();
-                for (int i = 0; i < metaData.length; i++) {
-                    eventBuilder.append("\"");
-                    eventBuilder.append(metaData[i]);
-                    eventBuilder.append("\"");
-                    if (i != (metaData.length - 1)) {
-                        eventBuilder.append(",");
-                    }
-                }
-            }
-
-            if (event.getCorrelationData() != null) {
-                Object[] correlationData = event.getCorrelationData();
-
-                eventBuilder.append(",");
-
-                for (int i = 0; i < correlationData.length; i++) {
-                    eventBuilder.append("\"");
-                    eventBuilder.append(correlationData[i]);
-                    eventBuilder.append("\"");
-                    if (i != (correlationData.length - 1)) {
-                        eventBuilder.append(",");
-                    }
-                }
-            }
-
-            if (event.getPayloadData() != null) {
-                Object[] payloadData = event.getPayloadData();
-                eventBuilder.append(",");
-                for (int i = 0; i < payloadData.length; i++) {
-                    eventBuilder.append("\"");
-                    eventBuilder.append(payloadData[i]);
-                    eventBuilder.append("\"");
-                    if (i != (payloadData.length - 1)) {
-                        eventBuilder.append(",");
-                    }
-                }
-            }
-
-            eventBuilder.append("]");
-            eventString = eventBuilder.toString();
+            eventString = toJsonArray((Event) message);
+            eventMatcher = new WSO2EventMatcher((Event) message);
         } else {
             eventString = message.toString();
+            eventMatcher = new JsonEventMatcher(eventString);
         }
 
-        Object[] eventValues = new Object[WebsocketEventAdapterConstants.INDEX_TWO];
-        eventValues[WebsocketEventAdapterConstants.INDEX_ZERO] = eventString;
-        eventValues[WebsocketEventAdapterConstants.INDEX_ONE] = System.currentTimeMillis();
-        streamSpecificEvents.add(eventValues);
+        long sequence = streamSpecificEvents.add(eventString, eventMatcher);
 
         // fetch all valid sessions checked against any queryParameters provided when subscribing.
-        CopyOnWriteArrayList<WebSocketSessionRequest> validSessions = getValidSessions(message);
+        CopyOnWriteArrayList<WebSocketSessionRequest> validSessions = getValidSessions(eventMatcher);
 
         try {
-            executorService.execute(new WebSocketSender(validSessions, eventString));
+            executorService.execute(new WebSocketSender(validSessions, eventString, sequence));
         } catch (RejectedExecutionException e) {
             EventAdapterUtil.logAndDrop(eventAdapterConfiguration.getName(), message, "Job queue is full", e, log,
                     tenantId);
@@ -288,7 +263,7 @@ public class WebsocketEventAdapter implements OutputEventAdapter {
             tenantSpecificAdapterMap.remove(streamId);      //Removing outputadapter and streamId
         }
 
-        ConcurrentHashMap<String, LinkedBlockingDeque<Object>> tenantSpecificStreamEventMap =
+        ConcurrentHashMap<String, EventRingBuffer> tenantSpecificStreamEventMap =
                 WebsocketEventAdaptorServiceDataHolder.getTenantSpecificStreamEventMap().get(tenantId);
         if (tenantSpecificStreamEventMap != null && streamId != null) {
             //Removing the streamId and events registered for the output adapter
@@ -328,36 +303,89 @@ public class WebsocketEventAdapter implements OutputEventAdapter {
                         "with Id [" + streamId + "].");
     }
 
+    /**
+     * Serializes a wso2 event as a json array of its timestamp followed by the meta, correlation and payload values
+     * as json strings. The values are escaped so that the array stays valid json whatever the values contain.
+     */
+    private static String toJsonArray(Event event) {
+        Object[] metaData = event.getMetaData();
+        Object[] correlationData = event.getCorrelationData();
+        Object[] payloadData = event.getPayloadData();
+        int valueCount = (metaData == null ? 0 : metaData.length) + (correlationData == null ? 0 : correlationData.length)
+                + (payloadData == null ? 0 : payloadData.length);
+        StringBuilder eventBuilder = new StringBuilder(32 + valueCount * 16);
+        eventBuilder.append('[').append(event.getTimeStamp());
+        appendJsonStrings(eventBuilder, metaData);
+        appendJsonStrings(eventBuilder, correlationData);
+        appendJsonStrings(eventBuilder, payloadData);
+        return eventBuilder.append(']').toString();
+    }
+
+    private static void appendJsonStrings(StringBuilder eventBuilder, Object[] values) {
+        if (values == null) {
+            return;
+        }
+        for (Object value : values) {
+            eventBuilder.append(',').append(JSONObject.quote(String.valueOf(value)));
+        }
+    }
+
+    /**
+     * Records where the value of each attribute is found in a wso2 event, i.e. the data array and the index within
+     * it, so that the value of a filtered attribute can be looked up by name.
+     */
+    private void addAttributePositions(List<Attribute> attributes, int dataType) {
+        if (attributes != null) {
+            for (int i = 0; i < attributes.size(); i++) {
+                streamAttributePositions.put(attributes.get(i).getName(), new int[]{dataType, i});
+            }
+        }
+    }
+
     /**
      * Fetches all valid web-socket sessions from the entire pool of subscribed sessions. The validity is checked
-     * against any queryString provided when subscribing to the web-socket endpoint.
+     * against any queryString provided when subscribing to the web-socket endpoint. Only the sessions returned by
+     * the subscription index are checked.
      *
-     * @param event the current event received and that which needs to be published to subscribed sessions.
+     * @param eventMatcher matches the current event against the filters of the subscribed sessions.
      * @return a list of all validated web-socket sessions against the queryString values.
      */
-    private CopyOnWriteArrayList<WebSocketSessionRequest> getValidSessions(Object event) {
+    private CopyOnWriteArrayList<WebSocketSessionRequest> getValidSessions(EventMatcher eventMatcher) {
         CopyOnWriteArrayList<WebSocketSessionRequest> validSessions = new CopyOnWriteArrayList<>();
         WebsocketOutputCallbackControllerServiceImpl websocketOutputCallbackControllerServiceImpl =
                 WebsocketEventAdaptorServiceDataHolder.getUIOutputCallbackRegisterServiceImpl();
-        // get all subscribed web-socket sessions.
-        CopyOnWriteArrayList<WebSocketSessionRequest> webSocketSessionUtils =
-                websocketOutputCallbackControllerServiceImpl.getSessions(tenantId, streamId);
-        if (webSocketSessionUtils != null) {
-            for (WebSocketSessionRequest webSocketSessionUtil : webSocketSessionUtils) {
-                boolean isValidSession;
-                if (event instanceof Event) {
-                    isValidSession = validateEventAgainstSessionFilters((Event) event, webSocketSessionUtil);
-                } else {
-                    isValidSession = validateJsonMessageAgainstEventFilters(event.toString(), webSocketSessionUtil);
-                }
-                if (isValidSession) {
-                    validSessions.add(webSocketSessionUtil);
-                }
+        WebSocketSubscriptionIndex subscriptionIndex =
+                websocketOutputCallbackControllerServiceImpl.getSubscriptionIndex(tenantId, streamId);
+        if (subscriptionIndex == null) {
+            return validSessions;
+        }
+        for (WebSocketSessionRequest webSocketSessionUtil : subscriptionIndex.getCandidateSessions(eventMatcher)) {
+            if (eventMatcher.accepts(webSocketSessionUtil)) {
+                validSessions.add(webSocketSessionUtil);
             }
         }
         return validSessions;
     }
 
+    private String getEventAttributeValue(Event event, String attributeName) {
+        int[] position = streamAttributePositions.get(attributeName);
+        if (position == null) {
+            return null;
+        }
+        Object[] data;
+        if (position[0] == WebsocketEventAdapterConstants.INDEX_ZERO) {
+            data = event.getMetaData();
+        } else if (position[0] == WebsocketEventAdapterConstants.INDEX_ONE) {
+            data = event.getCorrelationData();
+        } else {
+            data = event.getPayloadData();
+        }
+        if (data == null || data[position[1]] == null) {
+            return null;
+        }
+        return data[position[1]].toString();
+    }
+
 
     /**
      * Processes the given session's validity to receive the current "event" against any queryParams that was used at
@@ -419,56 +447,36 @@ public class WebsocketEventAdapter implements OutputEventAdapter {
     }
 
 
-    private boolean validateJsonMessageAgainstEventFilters(String jsonMessage, WebSocketSessionRequest webSocketSessionRequest) {
-        Map<String, String> queryParamValuePairs = webSocketSessionRequest.getQueryParamValuePairs();
-        if (queryParamValuePairs != null && !queryParamValuePairs.isEmpty()) {
-            // fetch the different attribute values received as part of the current event.
-            Set<String> queryParams = queryParamValuePairs.keySet();
-            for (String aQueryParam : queryParams) {
-                try {
-
-                    String queryValue = queryParamValuePairs.get(aQueryParam);
-                    if (queryValue != null && !queryValue.trim().isEmpty()) {
-                        JSONObject jsonObject = new JSONObject(jsonMessage);
-                        JSONObject event = jsonObject.getJSONObject(WebsocketConstants.EVENT);
-                        JSONObject data;
-                        if (!event.isNull(WebsocketConstants.META_DATA)) {
-                            data = event.getJSONObject(WebsocketConstants.META_DATA);
-                            if (!data.isNull(aQueryParam)) {
-                                String eventValue = data.get(aQueryParam).toString();
-                                if (eventValue == null || !eventValue.equalsIgnoreCase(queryValue)) {
-                                    return false;
-                                }
-                            }
-
-                        }
-
-                        if (!event.isNull(WebsocketConstants.PAYLOAD_DATA)) {
-                            data = event.getJSONObject(WebsocketConstants.PAYLOAD_DATA);
-                            if (!data.isNull(aQueryParam)) {
-                                String eventValue = data.get(aQueryParam).toString();
-                                if (eventValue == null || !eventValue.equalsIgnoreCase(queryValue)) {
-                                    return false;
-                                }
-                            }
-                        }
-                    }
-                } catch (JSONException e) {
-                    //do nothing - This exception is thrown when the event does not have query parameter.
-                }
-            }
+    private class WSO2EventMatcher implements EventMatcher {
+
+        private final Event event;
+
+        WSO2EventMatcher(Event event) {
+            this.event = event;
+        }
+
+        @Override
+        public String getValue(String attributeName) {
+            return getEventAttributeValue(event, attributeName);
+        }
+
+        @Override
+        public boolean accepts(WebSocketSessionRequest sessionRequest) {
+            return validateEventAgainstSessionFilters(event, sessionRequest);
         }
-        return true;
     }
 
     private class WebSocketSender implements Runnable {
 
         private String message;
+        private long sequence;
         private CopyOnWriteArrayList<WebSocketSessionRequest> webSocketSessionUtils;
 
-        public WebSocketSender(CopyOnWriteArrayList<WebSocketSessionRequest> webSocketSessionUtils, String message) {
+        public WebSocketSender(CopyOnWriteArrayList<WebSocketSessionRequest> webSocketSessionUtils, String message,
+                               long sequence) {
             this.webSocketSessionUtils = webSocketSessionUtils;
             this.message = message;
+            this.sequence = sequence;
         }
 
         /**
@@ -487,14 +495,7 @@ public class WebsocketEventAdapter implements OutputEventAdapter {
             if (webSocketSessionUtils != null) {
                 doLogDroppedMessage = true;
                 for (WebSocketSessionRequest webSocketSessionUtil : webSocketSessionUtils) {
-                    synchronized (WebSocketSessionRequest.class) {
-                        try {
-                            webSocketSessionUtil.getSession().getBasicRemote().sendText(message);
-                        } catch (IOException e) {
-                            EventAdapterUtil.logAndDrop(eventAdapterConfiguration.getName(), message,
-                                    "Cannot send to endpoint", e, log, tenantId);
-                        }
-                    }
+                    webSocketSessionUtil.sendMessage(message, sequence, sessionBufferSize, disconnectSlowConsumers);
                 }
             } else if (doLogDroppedMessage) {
                 EventAdapterUtil.logAndDrop(eventAdapterConfiguration.getName(), message, "No clients registered", log,
@@ -20,6 +20,7 @@
 package org.wso2.carbon.device.mgt.output.adapter.websocket;
 
 import javax.websocket.Session;
+import java.util.concurrent.Executor;
 
 /**
  * This interface is exposed as an OSGI service, which will be invoked by the local websocket endpoint to inform new subscriptions; and do un-subscriptions..
@@ -46,4 +47,12 @@ public interface WebsocketOutputCallbackControllerService {
      */
     void unsubscribeWebsocket(String streamName, String version, Session session);
 
+    /**
+     * Used to return the executor which authorizes new connections off the container threads. The executor is shut
+     * down when the service is deactivated, after that it rejects the tasks with a RejectedExecutionException.
+     *
+     * @return the executor for authorizing new connections.
+     */
+    Executor getAuthorizationExecutor();
+
 }
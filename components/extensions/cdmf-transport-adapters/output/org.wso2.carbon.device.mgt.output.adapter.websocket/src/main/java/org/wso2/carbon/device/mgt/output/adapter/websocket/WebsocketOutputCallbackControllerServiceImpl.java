@@ -18,31 +18,80 @@
  */
 package org.wso2.carbon.device.mgt.output.adapter.websocket;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.device.mgt.output.adapter.websocket.constants.WebsocketConstants;
 import org.wso2.carbon.device.mgt.output.adapter.websocket.internal.WebsocketEventAdaptorServiceDataHolder;
+import org.wso2.carbon.device.mgt.output.adapter.websocket.util.EventRingBuffer;
 import org.wso2.carbon.device.mgt.output.adapter.websocket.util.WebSocketSessionRequest;
+import org.wso2.carbon.device.mgt.output.adapter.websocket.util.WebSocketSubscriptionIndex;
 import org.wso2.carbon.device.mgt.output.adapter.websocket.util.WebsocketEventAdapterConstants;
 
 import javax.websocket.Session;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Service implementation class which exposes to front end
  */
 public class WebsocketOutputCallbackControllerServiceImpl implements WebsocketOutputCallbackControllerService {
 
+    private static final Log log = LogFactory.getLog(WebsocketOutputCallbackControllerServiceImpl.class);
+
     private ConcurrentHashMap<Integer, ConcurrentHashMap<String, CopyOnWriteArrayList<WebSocketSessionRequest>>>
             outputEventAdaptorSessionMap;
+    private ConcurrentHashMap<Integer, ConcurrentHashMap<String, WebSocketSubscriptionIndex>> subscriptionIndexMap;
+    private ThreadPoolExecutor authorizationExecutor;
 
     public WebsocketOutputCallbackControllerServiceImpl() {
         outputEventAdaptorSessionMap = new ConcurrentHashMap<>();
+        subscriptionIndexMap = new ConcurrentHashMap<>();
+        // when the queue is full the authorization runs on the container thread itself, which slows down accepting
+        // further connections
+        authorizationExecutor = new ThreadPoolExecutor(WebsocketEventAdapterConstants.AUTHORIZATION_THREAD_POOL_SIZE,
+                WebsocketEventAdapterConstants.AUTHORIZATION_THREAD_POOL_SIZE,
+                WebsocketEventAdapterConstants.AUTHORIZATION_KEEP_ALIVE_TIME_IN_MILLIS, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<Runnable>(WebsocketEventAdapterConstants.AUTHORIZATION_JOB_QUEUE_SIZE),
+                new RejectedExecutionHandler() {
+                    @Override
+                    public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+                        if (executor.isShutdown()) {
+                            throw new RejectedExecutionException("Websocket authorization executor is shut down");
+                        }
+                        task.run();
+                    }
+                });
+        authorizationExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    public Executor getAuthorizationExecutor() {
+        return authorizationExecutor;
+    }
+
+    /**
+     * Stops the authorization executor, the authorizations in progress are allowed to complete.
+     */
+    public void shutdown() {
+        authorizationExecutor.shutdown();
     }
 
     /**
-     * Used to subscribe the session id and stream id for later web socket connectivity
+     * Used to subscribe the session id and stream id for later web socket connectivity. When the query string of the
+     * session has the lastEvents=N or since=[time in milliseconds] parameters, the matching events from the history
+     * of the stream are sent before the live events.
      *
      * @param streamName - Stream name which user register to.
      * @param version    - Stream version which user uses.
@@ -72,8 +121,77 @@ public class WebsocketOutputCallbackControllerServiceImpl implements WebsocketOu
             }
         }
 
+        ConcurrentHashMap<String, WebSocketSubscriptionIndex> tenantSpecificIndexMap = subscriptionIndexMap.get(tenantId);
+        if (tenantSpecificIndexMap == null) {
+            tenantSpecificIndexMap = new ConcurrentHashMap<>();
+            if (null != subscriptionIndexMap.putIfAbsent(tenantId, tenantSpecificIndexMap)) {
+                tenantSpecificIndexMap = subscriptionIndexMap.get(tenantId);
+            }
+        }
+        WebSocketSubscriptionIndex subscriptionIndex = tenantSpecificIndexMap.get(streamId);
+        if (subscriptionIndex == null) {
+            subscriptionIndex = new WebSocketSubscriptionIndex();
+            if (null != tenantSpecificIndexMap.putIfAbsent(streamId, subscriptionIndex)) {
+                subscriptionIndex = tenantSpecificIndexMap.get(streamId);
+            }
+        }
+
         WebSocketSessionRequest webSocketSessionUtil = new WebSocketSessionRequest(session);
+        Map<String, String> queryParamValuePairs = webSocketSessionUtil.getQueryParamValuePairs();
+        int lastEvents = -1;
+        long since = -1;
+        try {
+            if (queryParamValuePairs.get(WebsocketConstants.REPLAY_LAST_EVENTS_PARAM) != null) {
+                lastEvents = Integer.parseInt(queryParamValuePairs.get(WebsocketConstants.REPLAY_LAST_EVENTS_PARAM));
+            }
+            if (queryParamValuePairs.get(WebsocketConstants.REPLAY_SINCE_PARAM) != null) {
+                since = Long.parseLong(queryParamValuePairs.get(WebsocketConstants.REPLAY_SINCE_PARAM));
+            }
+        } catch (NumberFormatException e) {
+            log.warn("Invalid history parameters in the query string of session " + session.getId()
+                             + ", history is not sent.");
+            lastEvents = -1;
+            since = -1;
+        }
+        EventRingBuffer streamEvents = getEvents(tenantId, streamName, version);
+        boolean replay = streamEvents != null && (lastEvents > 0 || since >= 0);
+
+        if (replay) {
+            webSocketSessionUtil.beginReplay();
+        }
         adapterSpecificSessions.add(webSocketSessionUtil);
+        subscriptionIndex.addSession(webSocketSessionUtil);
+        if (replay) {
+            webSocketSessionUtil.completeReplay(getReplayedEvents(streamEvents, webSocketSessionUtil, lastEvents,
+                                                                  since),
+                                                WebsocketEventAdaptorServiceDataHolder.getSessionBufferSize(),
+                                                WebsocketEventAdaptorServiceDataHolder.isDisconnectSlowConsumers());
+        }
+    }
+
+    /**
+     * Selects the events from the history which match the filters of the session.
+     *
+     * @param lastEvents maximum number of events to select, ignored when not positive.
+     * @param since      time in milliseconds from which the events are selected, ignored when negative.
+     * @return the selected events, oldest first.
+     */
+    private List<EventRingBuffer.BufferedEvent> getReplayedEvents(EventRingBuffer streamEvents,
+                                                                  WebSocketSessionRequest webSocketSessionUtil,
+                                                                  int lastEvents, long since) {
+        List<EventRingBuffer.BufferedEvent> bufferedEvents = streamEvents.getEvents();
+        List<EventRingBuffer.BufferedEvent> replayedEvents = new ArrayList<>();
+        for (int i = bufferedEvents.size() - 1; i >= 0; i--) {
+            EventRingBuffer.BufferedEvent event = bufferedEvents.get(i);
+            if ((lastEvents > 0 && replayedEvents.size() >= lastEvents) || (since >= 0 && event.getTimestamp() < since)) {
+                break;
+            }
+            if (event.isAccepted(webSocketSessionUtil)) {
+                replayedEvents.add(event);
+            }
+        }
+        Collections.reverse(replayedEvents);
+        return replayedEvents;
     }
 
     /**
@@ -92,6 +210,21 @@ public class WebsocketOutputCallbackControllerServiceImpl implements WebsocketOu
         return null;
     }
 
+    /**
+     * Used to return the index of the sessions registered per streamId
+     *
+     * @param tenantId - Tenant id of the user.
+     * @param streamId - Stream name and version which user register to.
+     * @return the subscription index.
+     */
+    public WebSocketSubscriptionIndex getSubscriptionIndex(int tenantId, String streamId) {
+        ConcurrentHashMap<String, WebSocketSubscriptionIndex> tenantSpecificIndexMap = subscriptionIndexMap.get(tenantId);
+        if (tenantSpecificIndexMap != null) {
+            return tenantSpecificIndexMap.get(streamId);
+        }
+        return null;
+    }
+
     /**
      * Used to return events per streamId
      *
@@ -100,8 +233,8 @@ public class WebsocketOutputCallbackControllerServiceImpl implements WebsocketOu
      * @param version    - Stream version which user uses.
      * @return the events list.
      */
-    public LinkedBlockingDeque<Object> getEvents(int tenanId, String streamName, String version) {
-        ConcurrentHashMap<String, LinkedBlockingDeque<Object>> tenantSpecificStreamMap =
+    public EventRingBuffer getEvents(int tenanId, String streamName, String version) {
+        ConcurrentHashMap<String, EventRingBuffer> tenantSpecificStreamMap =
                 WebsocketEventAdaptorServiceDataHolder.getTenantSpecificStreamEventMap().get(tenanId);
         if (tenantSpecificStreamMap != null) {
             String streamId = streamName + WebsocketEventAdapterConstants.ADAPTER_UI_COLON + version;
@@ -139,6 +272,10 @@ public class WebsocketOutputCallbackControllerServiceImpl implements WebsocketOu
                 }
                 if (sessionToRemove != null) {
                     adapterSpecificSessions.remove(sessionToRemove);
+                    WebSocketSubscriptionIndex subscriptionIndex = getSubscriptionIndex(tenantId, id);
+                    if (subscriptionIndex != null) {
+                        subscriptionIndex.removeSession(sessionToRemove);
+                    }
                 }
             }
         }
@@ -30,6 +30,8 @@ import feign.slf4j.Slf4jLogger;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.base.ServerConfiguration;
+import org.wso2.carbon.device.mgt.input.adapter.extension.util.AuthorizationCacheKey;
+import org.wso2.carbon.device.mgt.input.adapter.extension.util.ExpiringCache;
 import org.wso2.carbon.device.mgt.output.adapter.websocket.authentication.AuthenticationInfo;
 import org.wso2.carbon.device.mgt.output.adapter.websocket.authorization.client.OAuthRequestInterceptor;
 import org.wso2.carbon.device.mgt.output.adapter.websocket.authorization.client.dto.AuthorizationRequest;
@@ -52,9 +54,14 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
 /**
- * This authorizer crossvalidates the request with device id and device type.
+ * This authorizer crossvalidates the request with device id and device type. Decisions are cached per user and
+ * device, and concurrent connections waiting for the same decision share a single call to the server.
  */
 public class DeviceAuthorizer implements Authorizer {
 
@@ -63,12 +70,31 @@ public class DeviceAuthorizer implements Authorizer {
     private static final String DEVICE_MGT_SERVER_URL = "deviceMgtServerUrl";
     private static final String DEVICE_ID = "deviceId";
     private static final String DEVICE_TYPE = "deviceType";
+    private static final String AUTHORIZATION_CACHE_SIZE = "authorizationCacheSize";
+    private static final String AUTHORIZATION_CACHE_TIMEOUT = "authorizationCacheTimeoutInSeconds";
+    private static final String AUTHORIZATION_CACHE_NEGATIVE_TIMEOUT = "authorizationCacheNegativeTimeoutInSeconds";
+    private static final int DEFAULT_AUTHORIZATION_CACHE_SIZE = 10000;
+    private static final int DEFAULT_AUTHORIZATION_CACHE_TIMEOUT = 300;
+    private static final int DEFAULT_AUTHORIZATION_CACHE_NEGATIVE_TIMEOUT = 30;
     private static Log log = LogFactory.getLog(DeviceAuthorizer.class);
+
+    private ExpiringCache<AuthorizationCacheKey, Boolean> authorizationCache;
+    private final ConcurrentHashMap<AuthorizationCacheKey, FutureTask<Boolean>> pendingAuthorizations =
+            new ConcurrentHashMap<>();
+    private long cacheTimeoutInMillis;
+    private long negativeCacheTimeoutInMillis;
+
     public DeviceAuthorizer() {
     }
 
     @Override
     public void init(Map<String, String> globalProperties) {
+        authorizationCache = new ExpiringCache<>(getIntProperty(globalProperties, AUTHORIZATION_CACHE_SIZE,
+                                                                DEFAULT_AUTHORIZATION_CACHE_SIZE));
+        cacheTimeoutInMillis = getIntProperty(globalProperties, AUTHORIZATION_CACHE_TIMEOUT,
+                                              DEFAULT_AUTHORIZATION_CACHE_TIMEOUT) * 1000L;
+        negativeCacheTimeoutInMillis = getIntProperty(globalProperties, AUTHORIZATION_CACHE_NEGATIVE_TIMEOUT,
+                                                      DEFAULT_AUTHORIZATION_CACHE_NEGATIVE_TIMEOUT) * 1000L;
         try {
             deviceAccessAuthorizationAdminService = Feign.builder().client(getSSLClient()).logger(new Slf4jLogger())
                     .logLevel(Logger.Level.FULL).requestInterceptor(new OAuthRequestInterceptor(globalProperties))
@@ -81,40 +107,93 @@ public class DeviceAuthorizer implements Authorizer {
     }
 
     @Override
-    public  synchronized boolean isAuthorized(AuthenticationInfo authenticationInfo, Session session, String stream) {
+    public boolean isAuthorized(AuthenticationInfo authenticationInfo, Session session, String stream) {
         WebSocketSessionRequest webSocketSessionRequest = new WebSocketSessionRequest(session);
         Map<String, String> queryParams = webSocketSessionRequest.getQueryParamValuePairs();
-        String deviceId = queryParams.get(DEVICE_ID);
-        String deviceType = queryParams.get(DEVICE_TYPE);
+        final String deviceId = queryParams.get(DEVICE_ID);
+        final String deviceType = queryParams.get(DEVICE_TYPE);
 
         if (deviceId != null && !deviceId.isEmpty() && deviceType != null && !deviceType.isEmpty()) {
+            final String tenantDomain = authenticationInfo.getTenantDomain();
+            final String username = authenticationInfo.getUsername();
+            final AuthorizationCacheKey cacheKey =
+                    new AuthorizationCacheKey(tenantDomain, username, deviceId, deviceType);
+            Boolean cachedDecision = authorizationCache.get(cacheKey);
+            if (cachedDecision != null) {
+                return cachedDecision;
+            }
 
-            AuthorizationRequest authorizationRequest = new AuthorizationRequest();
-            authorizationRequest.setTenantDomain(authenticationInfo.getTenantDomain());
-            authorizationRequest.setUsername(authenticationInfo.getUsername());
-            DeviceIdentifier deviceIdentifier = new DeviceIdentifier();
-            deviceIdentifier.setId(deviceId);
-            deviceIdentifier.setType(deviceType);
-            List<DeviceIdentifier> deviceIdentifiers = new ArrayList<>();
-            deviceIdentifiers.add(deviceIdentifier);
-            authorizationRequest.setDeviceIdentifiers(deviceIdentifiers);
+            FutureTask<Boolean> authorization = new FutureTask<>(new Callable<Boolean>() {
+                @Override
+                public Boolean call() {
+                    return authorize(tenantDomain, username, deviceId, deviceType, cacheKey);
+                }
+            });
+            FutureTask<Boolean> pendingAuthorization = pendingAuthorizations.putIfAbsent(cacheKey, authorization);
+            if (pendingAuthorization == null) {
+                pendingAuthorization = authorization;
+                try {
+                    authorization.run();
+                } finally {
+                    pendingAuthorizations.remove(cacheKey, authorization);
+                }
+            }
             try {
-                DeviceAuthorizationResult deviceAuthorizationResult =
-                        deviceAccessAuthorizationAdminService.isAuthorized(authorizationRequest);
-                List<DeviceIdentifier> devices = deviceAuthorizationResult.getAuthorizedDevices();
-                if (devices != null && devices.size() > 0) {
-                    DeviceIdentifier authorizedDevice = devices.get(0);
-                    if (authorizedDevice.getId().equals(deviceId) && authorizedDevice.getType().equalsIgnoreCase(deviceType)) {
-                        return true;
-                    }
+                return pendingAuthorization.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.error("Interrupted while waiting for the authorization of device " + deviceId, e);
+            } catch (ExecutionException e) {
+                log.error("Failed to authorize the device " + deviceId, e.getCause());
+            }
+        }
+        return false;
+    }
+
+    private boolean authorize(String tenantDomain, String username, String deviceId, String deviceType,
+                              AuthorizationCacheKey cacheKey) {
+        AuthorizationRequest authorizationRequest = new AuthorizationRequest();
+        authorizationRequest.setTenantDomain(tenantDomain);
+        authorizationRequest.setUsername(username);
+        DeviceIdentifier deviceIdentifier = new DeviceIdentifier();
+        deviceIdentifier.setId(deviceId);
+        deviceIdentifier.setType(deviceType);
+        List<DeviceIdentifier> deviceIdentifiers = new ArrayList<>();
+        deviceIdentifiers.add(deviceIdentifier);
+        authorizationRequest.setDeviceIdentifiers(deviceIdentifiers);
+        try {
+            DeviceAuthorizationResult deviceAuthorizationResult =
+                    deviceAccessAuthorizationAdminService.isAuthorized(authorizationRequest);
+            boolean authorized = false;
+            List<DeviceIdentifier> devices = deviceAuthorizationResult.getAuthorizedDevices();
+            if (devices != null && devices.size() > 0) {
+                DeviceIdentifier authorizedDevice = devices.get(0);
+                if (authorizedDevice.getId().equals(deviceId) && authorizedDevice.getType().equalsIgnoreCase(deviceType)) {
+                    authorized = true;
                 }
-            } catch (FeignException e) {
-                log.error(e.getMessage(), e);
             }
+            // failures to reach the server are not cached, only the decisions of the server
+            authorizationCache.put(cacheKey, authorized,
+                                   authorized ? cacheTimeoutInMillis : negativeCacheTimeoutInMillis);
+            return authorized;
+        } catch (FeignException e) {
+            log.error(e.getMessage(), e);
         }
         return false;
     }
 
+    private int getIntProperty(Map<String, String> properties, String key, int defaultValue) {
+        String value = properties.get(key);
+        if (value != null && !value.isEmpty()) {
+            try {
+                return Integer.parseInt(value);
+            } catch (NumberFormatException e) {
+                log.error("Invalid value for " + key + " in globalProperties, using " + defaultValue);
+            }
+        }
+        return defaultValue;
+    }
+
     private String getDeviceMgtServerUrl(Map<String, String> properties) throws OutputEventAdapterException {
         String deviceMgtServerUrl = PropertyUtils.replaceProperty(properties.get(DEVICE_MGT_SERVER_URL));
         if (deviceMgtServerUrl == null || deviceMgtServerUrl.isEmpty()) {
@@ -52,7 +52,7 @@ import java.util.Map;
  */
 public class OAuthRequestInterceptor implements RequestInterceptor {
 
-    private AccessTokenInfo tokenInfo;
+    private volatile AccessTokenInfo tokenInfo;
     private long refreshTimeOffset;
     private static final String API_APPLICATION_REGISTRATION_CONTEXT = "/api-application-registration";
     private static final String DEVICE_MANAGEMENT_SERVICE_TAG[] = {"device_management"};
@@ -103,9 +103,40 @@ public class OAuthRequestInterceptor implements RequestInterceptor {
         }
     }
 
+    /**
+     * Adds the cached token to the request. Only the token refresh is serialized, requests with a valid token do not
+     * wait for each other.
+     */
     @Override
     public void apply(RequestTemplate template) {
-        if (tokenInfo == null) {
+        AccessTokenInfo currentTokenInfo = tokenInfo;
+        if (currentTokenInfo == null
+                || System.currentTimeMillis() + refreshTimeOffset > currentTokenInfo.getExpires_in()) {
+            currentTokenInfo = refreshToken(currentTokenInfo);
+        }
+        String headerValue = "Bearer " + currentTokenInfo.getAccess_token();
+        template.header("Authorization", headerValue);
+    }
+
+    /**
+     * Replaces the stale token unless another thread already did. The refresh token grant is tried first, the
+     * password grant is used when there is no token yet or the refresh fails.
+     */
+    private synchronized AccessTokenInfo refreshToken(AccessTokenInfo staleTokenInfo) {
+        if (tokenInfo != staleTokenInfo) {
+            return tokenInfo;
+        }
+        AccessTokenInfo newTokenInfo = null;
+        if (staleTokenInfo != null) {
+            try {
+                newTokenInfo = tokenIssuerService.getToken(REFRESH_GRANT_TYPE, staleTokenInfo.getRefresh_token());
+                newTokenInfo.setExpires_in(System.currentTimeMillis() + (newTokenInfo.getExpires_in() * 1000));
+            } catch (FeignException e) {
+                log.warn("Failed to refresh the access token, requesting a new token.", e);
+                newTokenInfo = null;
+            }
+        }
+        if (newTokenInfo == null) {
             if (apiApplicationKey == null) {
                 ApiRegistrationProfile apiRegistrationProfile = new ApiRegistrationProfile();
                 apiRegistrationProfile.setApplicationName(APPLICATION_NAME);
@@ -124,22 +155,11 @@ public class OAuthRequestInterceptor implements RequestInterceptor {
                         .contract(new JAXRSContract()).encoder(new GsonEncoder()).decoder(new GsonDecoder())
                         .target(TokenIssuerService.class, tokenEndpoint);
             }
-            tokenInfo = tokenIssuerService.getToken(PASSWORD_GRANT_TYPE, username, password, REQUIRED_SCOPE);
-            tokenInfo.setExpires_in(System.currentTimeMillis() + (tokenInfo.getExpires_in() * 1000));
+            newTokenInfo = tokenIssuerService.getToken(PASSWORD_GRANT_TYPE, username, password, REQUIRED_SCOPE);
+            newTokenInfo.setExpires_in(System.currentTimeMillis() + (newTokenInfo.getExpires_in() * 1000));
         }
-        synchronized(this) {
-            if (System.currentTimeMillis() + refreshTimeOffset > tokenInfo.getExpires_in()) {
-                try {
-                    tokenInfo = tokenIssuerService.getToken(REFRESH_GRANT_TYPE, tokenInfo.getRefresh_token());
-                    tokenInfo.setExpires_in(System.currentTimeMillis() + tokenInfo.getExpires_in());
-                } catch (FeignException e) {
-                    tokenInfo = null;
-                    apply(template);
-                }
-            }
-        }
-        String headerValue = "Bearer " + tokenInfo.getAccess_token();
-        template.header("Authorization", headerValue);
+        tokenInfo = newTokenInfo;
+        return newTokenInfo;
     }
 
     private String getUsername(Map<String, String> globalProperties) {
@@ -19,11 +19,12 @@
 package org.wso2.carbon.device.mgt.output.adapter.websocket.internal;
 
 import org.wso2.carbon.device.mgt.output.adapter.websocket.WebsocketOutputCallbackControllerServiceImpl;
+import org.wso2.carbon.device.mgt.output.adapter.websocket.util.EventRingBuffer;
+import org.wso2.carbon.device.mgt.output.adapter.websocket.util.WebsocketEventAdapterConstants;
 import org.wso2.carbon.event.stream.core.EventStreamService;
 import org.wso2.carbon.registry.core.service.RegistryService;
 
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.LinkedBlockingDeque;
 
 /**
  * Creates a holder of type UIOutputCallbackRegisterServiceImpl.
@@ -33,10 +34,12 @@ public final class WebsocketEventAdaptorServiceDataHolder {
     private static WebsocketOutputCallbackControllerServiceImpl UIOutputCallbackRegisterServiceImpl;
     private static ConcurrentHashMap<Integer, ConcurrentHashMap<String, String>>
             tenantSpecificOutputEventStreamAdapterMap = new ConcurrentHashMap<>();
-    private static ConcurrentHashMap<Integer, ConcurrentHashMap<String, LinkedBlockingDeque<Object>>>
+    private static ConcurrentHashMap<Integer, ConcurrentHashMap<String, EventRingBuffer>>
             tenantSpecificStreamEventMap = new ConcurrentHashMap<>();
     private static EventStreamService eventStreamService;
     private static RegistryService registryService;
+    private static volatile int sessionBufferSize = WebsocketEventAdapterConstants.SESSION_BUFFER_SIZE;
+    private static volatile boolean disconnectSlowConsumers;
 
     public static void registerEventStreamService(EventStreamService eventBuilderService) {
         WebsocketEventAdaptorServiceDataHolder.eventStreamService = eventBuilderService;
@@ -61,7 +64,7 @@ public final class WebsocketEventAdaptorServiceDataHolder {
         return tenantSpecificOutputEventStreamAdapterMap;
     }
 
-    public static ConcurrentHashMap<Integer, ConcurrentHashMap<String, LinkedBlockingDeque<Object>>>
+    public static ConcurrentHashMap<Integer, ConcurrentHashMap<String, EventRingBuffer>>
     getTenantSpecificStreamEventMap() {
         return tenantSpecificStreamEventMap;
     }
@@ -76,4 +79,27 @@ public final class WebsocketEventAdaptorServiceDataHolder {
     public static void setRegistryService(RegistryService registryService) {
         WebsocketEventAdaptorServiceDataHolder.registryService = registryService;
     }
+
+    /**
+     * @return the maximum number of messages waiting to be sent to a session, taken from the global properties of
+     * the adapter.
+     */
+    public static int getSessionBufferSize() {
+        return sessionBufferSize;
+    }
+
+    public static void setSessionBufferSize(int sessionBufferSize) {
+        WebsocketEventAdaptorServiceDataHolder.sessionBufferSize = sessionBufferSize;
+    }
+
+    /**
+     * @return whether sessions which can not keep up are closed instead of dropping their oldest messages.
+     */
+    public static boolean isDisconnectSlowConsumers() {
+        return disconnectSlowConsumers;
+    }
+
+    public static void setDisconnectSlowConsumers(boolean disconnectSlowConsumers) {
+        WebsocketEventAdaptorServiceDataHolder.disconnectSlowConsumers = disconnectSlowConsumers;
+    }
 }
@@ -43,6 +43,7 @@ import org.wso2.carbon.registry.core.service.RegistryService;
 public class WebsocketLocalEventAdapterServiceComponent {
 
     private static final Log log = LogFactory.getLog(WebsocketLocalEventAdapterServiceComponent.class);
+    private WebsocketOutputCallbackControllerServiceImpl UIOutputCallbackRegisterServiceImpl;
 
     /**
      * initialize the websocket adapter service here service here.
@@ -55,8 +56,7 @@ public class WebsocketLocalEventAdapterServiceComponent {
             WebsocketEventAdapterFactory websocketEventAdapterFactory = new WebsocketEventAdapterFactory();
             context.getBundleContext().registerService(OutputEventAdapterFactory.class.getName()
                     , websocketEventAdapterFactory, null);
-            WebsocketOutputCallbackControllerServiceImpl UIOutputCallbackRegisterServiceImpl =
-                    new WebsocketOutputCallbackControllerServiceImpl();
+            UIOutputCallbackRegisterServiceImpl = new WebsocketOutputCallbackControllerServiceImpl();
             context.getBundleContext().registerService(WebsocketOutputCallbackControllerService.class.getName(),
                     UIOutputCallbackRegisterServiceImpl, null);
 
@@ -74,6 +74,16 @@ public class WebsocketLocalEventAdapterServiceComponent {
         }
     }
 
+    protected void deactivate(ComponentContext context) {
+        if (UIOutputCallbackRegisterServiceImpl != null) {
+            UIOutputCallbackRegisterServiceImpl.shutdown();
+            UIOutputCallbackRegisterServiceImpl = null;
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Successfully undeployed the output websocket adapter service");
+        }
+    }
+
     protected void setEventStreamService(EventStreamService eventStreamService) {
         if (log.isDebugEnabled()) {
             log.debug("Setting the EventStreamService reference for the UILocalEventAdaptor Service");
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.device.mgt.output.adapter.websocket.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Fixed capacity history of the events published to a stream. Each event gets an increasing sequence number and
+ * is stored in the slot sequence % capacity, overwriting the oldest event once the buffer is full. Publishers and
+ * readers do not lock, a reader skips slots which are being overwritten while it reads.
+ */
+public class EventRingBuffer {
+
+    private final int capacity;
+    private final AtomicReferenceArray<BufferedEvent> slots;
+    private final AtomicLong nextSequence = new AtomicLong();
+
+    public EventRingBuffer(int capacity) {
+        this.capacity = Math.max(capacity, 0);
+        this.slots = new AtomicReferenceArray<>(this.capacity);
+    }
+
+    /**
+     * Adds an event to the history. The sequence is reserved before the slot is written, so a concurrent reader
+     * may not see the event yet even though later events are visible.
+     *
+     * @param message serialized event as sent to the sessions.
+     * @param filter  decides which sessions the event is delivered to when it is replayed.
+     * @return the sequence number of the event.
+     */
+    public long add(String message, SessionFilter filter) {
+        long sequence = nextSequence.getAndIncrement();
+        if (capacity == 0) {
+            return sequence;
+        }
+        BufferedEvent event = new BufferedEvent(sequence, message, System.currentTimeMillis(), filter);
+        int slot = (int) (sequence % capacity);
+        while (true) {
+            BufferedEvent current = slots.get(slot);
+            // a slower publisher must not overwrite a newer event
+            if ((current != null && current.sequence > sequence) || slots.compareAndSet(slot, current, event)) {
+                return sequence;
+            }
+        }
+    }
+
+    /**
+     * @return the events in the history, oldest first. Slots which are reserved but not yet written are skipped.
+     */
+    public List<BufferedEvent> getEvents() {
+        long end = nextSequence.get();
+        long start = Math.max(0, end - capacity);
+        List<BufferedEvent> events = new ArrayList<>((int) (end - start));
+        for (long sequence = start; sequence < end; sequence++) {
+            BufferedEvent event = slots.get((int) (sequence % capacity));
+            if (event != null && event.sequence == sequence) {
+                events.add(event);
+            }
+        }
+        return events;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * An event kept in the history.
+     */
+    public static class BufferedEvent {
+        private final long sequence;
+        private final String message;
+        private final long timestamp;
+        private final SessionFilter filter;
+
+        BufferedEvent(long sequence, String message, long timestamp, SessionFilter filter) {
+            this.sequence = sequence;
+            this.message = message;
+            this.timestamp = timestamp;
+            this.filter = filter;
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        /**
+         * @return the time the event was published at.
+         */
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public boolean isAccepted(WebSocketSessionRequest sessionRequest) {
+            return filter == null || filter.accepts(sessionRequest);
+        }
+    }
+
+    /**
+     * Checks an event against the query parameters of a session.
+     */
+    public interface SessionFilter {
+
+        boolean accepts(WebSocketSessionRequest sessionRequest);
+    }
+}
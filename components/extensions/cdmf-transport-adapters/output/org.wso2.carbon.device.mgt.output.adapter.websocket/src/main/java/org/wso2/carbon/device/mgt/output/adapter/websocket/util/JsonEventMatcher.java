@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.device.mgt.output.adapter.websocket.util;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.wso2.carbon.device.mgt.output.adapter.websocket.constants.WebsocketConstants;
+
+import java.util.Map;
+
+/**
+ * Parses the json event once for all the sessions. When the event can not be parsed it can not be filtered,
+ * hence it is delivered to every session.
+ */
+public class JsonEventMatcher implements EventMatcher {
+
+    private JSONObject metaData;
+    private JSONObject payloadData;
+
+    public JsonEventMatcher(String jsonMessage) {
+        try {
+            JSONObject jsonEvent = new JSONObject(jsonMessage).getJSONObject(WebsocketConstants.EVENT);
+            metaData = jsonEvent.optJSONObject(WebsocketConstants.META_DATA);
+            payloadData = jsonEvent.optJSONObject(WebsocketConstants.PAYLOAD_DATA);
+        } catch (JSONException e) {
+            //do nothing - This exception is thrown when the event is not in the expected format.
+        }
+    }
+
+    @Override
+    public String getValue(String attributeName) {
+        if (metaData != null && !metaData.isNull(attributeName)) {
+            return metaData.get(attributeName).toString();
+        }
+        if (payloadData != null && !payloadData.isNull(attributeName)) {
+            return payloadData.get(attributeName).toString();
+        }
+        return null;
+    }
+
+    @Override
+    public boolean accepts(WebSocketSessionRequest sessionRequest) {
+        Map<String, String> queryParamValuePairs = sessionRequest.getQueryParamValuePairs();
+        if (queryParamValuePairs != null && !queryParamValuePairs.isEmpty()) {
+            for (Map.Entry<String, String> queryParam : queryParamValuePairs.entrySet()) {
+                String aQueryParam = queryParam.getKey();
+                String queryValue = queryParam.getValue();
+                if (queryValue != null && !queryValue.trim().isEmpty()) {
+                    if (metaData != null && !metaData.isNull(aQueryParam)) {
+                        String eventValue = metaData.get(aQueryParam).toString();
+                        if (!eventValue.equalsIgnoreCase(queryValue)) {
+                            return false;
+                        }
+                    }
+                    if (payloadData != null && !payloadData.isNull(aQueryParam)) {
+                        String eventValue = payloadData.get(aQueryParam).toString();
+                        if (!eventValue.equalsIgnoreCase(queryValue)) {
+                            return false;
+                        }
+                    }
+                }
+            }
+        }
+        return true;
+    }
+}
@@ -21,14 +21,29 @@ package org.wso2.carbon.device.mgt.output.adapter.websocket.util;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import javax.websocket.CloseReason;
+import javax.websocket.SendHandler;
+import javax.websocket.SendResult;
 import javax.websocket.Session;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * This is wrapper class over the javax.websocket.Session implementation. This class contains additional attributes
  * of the Session object derived from processing some of the (default) existing attributes.
  * Ex: Query-String's [Key:Value] Map derived from the queryString attribute of the original class.
+ * Messages to the session are queued and written with the async remote endpoint one at a time, so a slow client
+ * only fills its own queue instead of blocking the publishers of other sessions.
  */
 public class WebSocketSessionRequest {
     private static final Log log = LogFactory.getLog(WebSocketSessionRequest.class);
@@ -38,6 +53,18 @@ public class WebSocketSessionRequest {
     private Map<String, String> queryParamValuePairs = new HashMap<>();
     private Session session;
 
+    private final Queue<String> outboundQueue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final AtomicBoolean sending = new AtomicBoolean(false);
+    private final AtomicLong sentCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final SendHandler sendHandler = new OutboundSendHandler();
+    private volatile Thread drainingThread;
+    private volatile boolean closing;
+    private final Object replayLock = new Object();
+    private volatile boolean replaying;
+    private List<PendingMessage> pendingMessages;
+
     public WebSocketSessionRequest(Session session) {
         this.session = session;
         setQueryParamValuePairs();
@@ -51,6 +78,205 @@ public class WebSocketSessionRequest {
         return session;
     }
 
+    /**
+     * Queues the message to be sent to the session. When the session already has the given number of messages
+     * waiting, the oldest message is dropped or the session is closed depending on the slow consumer policy.
+     *
+     * @param message               message to be sent.
+     * @param sequence              sequence number of the message in the stream history.
+     * @param bufferSize            maximum number of messages waiting to be sent to the session.
+     * @param disconnectOnOverflow  whether to close the session instead of dropping messages when it is full.
+     */
+    public void sendMessage(String message, long sequence, int bufferSize, boolean disconnectOnOverflow) {
+        if (replaying) {
+            synchronized (replayLock) {
+                if (replaying) {
+                    pendingMessages.add(new PendingMessage(message, sequence));
+                    return;
+                }
+            }
+        }
+        if (offer(message, bufferSize, disconnectOnOverflow)) {
+            drain();
+        }
+    }
+
+    /**
+     * Holds back the live messages of the session until {@link #completeReplay(List, int, boolean)} is called, so
+     * that the replayed history is sent before them.
+     */
+    public void beginReplay() {
+        synchronized (replayLock) {
+            pendingMessages = new ArrayList<>();
+            replaying = true;
+        }
+    }
+
+    /**
+     * Queues the replayed history followed by the live messages held back while it was collected, with the same
+     * bound and slow consumer policy as {@link #sendMessage(String, long, int, boolean)}. Live messages which are
+     * part of the replayed history are not sent twice. They are matched by sequence number since the history may
+     * miss an event whose slot was not yet written when it was read.
+     *
+     * @param replayedEvents        events from the stream history, oldest first.
+     * @param bufferSize            maximum number of messages waiting to be sent to the session.
+     * @param disconnectOnOverflow  whether to close the session instead of dropping messages when it is full.
+     */
+    public void completeReplay(List<EventRingBuffer.BufferedEvent> replayedEvents, int bufferSize,
+                               boolean disconnectOnOverflow) {
+        synchronized (replayLock) {
+            try {
+                Set<Long> replayedSequences = new HashSet<>();
+                for (EventRingBuffer.BufferedEvent event : replayedEvents) {
+                    replayedSequences.add(event.getSequence());
+                    if (!offer(event.getMessage(), bufferSize, disconnectOnOverflow)) {
+                        return;
+                    }
+                    drain();
+                }
+                for (PendingMessage pendingMessage : pendingMessages) {
+                    if (!replayedSequences.contains(pendingMessage.sequence)) {
+                        if (!offer(pendingMessage.message, bufferSize, disconnectOnOverflow)) {
+                            return;
+                        }
+                        drain();
+                    }
+                }
+            } finally {
+                pendingMessages = null;
+                replaying = false;
+            }
+        }
+    }
+
+    /**
+     * Queues the message unless the session is closed. When the session already has the given number of messages
+     * waiting, the oldest message is dropped or the session is closed depending on the slow consumer policy.
+     *
+     * @return whether the message was queued.
+     */
+    private boolean offer(String message, int bufferSize, boolean disconnectOnOverflow) {
+        if (closing || !session.isOpen()) {
+            droppedCount.incrementAndGet();
+            return false;
+        }
+        if (queueDepth.get() >= bufferSize) {
+            if (disconnectOnOverflow) {
+                disconnectSlowConsumer(bufferSize);
+                droppedCount.incrementAndGet();
+                return false;
+            }
+            if (outboundQueue.poll() != null) {
+                queueDepth.decrementAndGet();
+                droppedCount.incrementAndGet();
+            }
+        }
+        enqueue(message);
+        return true;
+    }
+
+    private void enqueue(String message) {
+        outboundQueue.offer(message);
+        queueDepth.incrementAndGet();
+    }
+
+    /**
+     * @return the number of messages waiting to be sent to the session.
+     */
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    public long getSentCount() {
+        return sentCount.get();
+    }
+
+    /**
+     * @return the number of messages dropped since the session could not keep up or was closed.
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * Writes the next queued message unless a write is already in progress. The async remote endpoint allows only
+     * one outstanding write, the next message is written from the completion callback of the previous one.
+     */
+    private void drain() {
+        Thread currentThread = Thread.currentThread();
+        drainingThread = currentThread;
+        try {
+            while (!outboundQueue.isEmpty() && sending.compareAndSet(false, true)) {
+                String message = outboundQueue.poll();
+                if (message == null) {
+                    sending.set(false);
+                    continue;
+                }
+                queueDepth.decrementAndGet();
+                try {
+                    session.getAsyncRemote().sendText(message, sendHandler);
+                } catch (IllegalStateException | IllegalArgumentException e) {
+                    sending.set(false);
+                    droppedCount.incrementAndGet();
+                    if (log.isDebugEnabled()) {
+                        log.debug("Failed to send message to session " + session.getId(), e);
+                    }
+                }
+            }
+        } finally {
+            if (drainingThread == currentThread) {
+                drainingThread = null;
+            }
+        }
+    }
+
+    private void disconnectSlowConsumer(int bufferSize) {
+        if (closing) {
+            return;
+        }
+        closing = true;
+        log.warn("Closing websocket session " + session.getId() + " since it has more than " + bufferSize
+                         + " messages waiting to be sent.");
+        droppedCount.addAndGet(queueDepth.getAndSet(0));
+        outboundQueue.clear();
+        try {
+            session.close(new CloseReason(CloseReason.CloseCodes.VIOLATED_POLICY, "Slow consumer"));
+        } catch (IOException e) {
+            log.error("Failed to close the slow websocket session " + session.getId(), e);
+        }
+    }
+
+    private static class PendingMessage {
+        private final String message;
+        private final long sequence;
+
+        PendingMessage(String message, long sequence) {
+            this.message = message;
+            this.sequence = sequence;
+        }
+    }
+
+    private class OutboundSendHandler implements SendHandler {
+
+        @Override
+        public void onResult(SendResult result) {
+            if (result.isOK()) {
+                sentCount.incrementAndGet();
+            } else {
+                droppedCount.incrementAndGet();
+                if (log.isDebugEnabled()) {
+                    log.debug("Failed to send message to session " + session.getId(), result.getException());
+                }
+            }
+            sending.set(false);
+            // when the write completed within drain() on the same thread its loop sends the next message, calling
+            // drain() here would recurse once per queued message.
+            if (drainingThread != Thread.currentThread()) {
+                drain();
+            }
+        }
+    }
+
     /**
      * Processes the queryString from the current instance's Session attribute and constructs a map of Query
      * Key:Value pair.
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.device.mgt.output.adapter.websocket.util;
+
+import org.wso2.carbon.device.mgt.output.adapter.websocket.constants.WebsocketConstants;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Index of the sessions subscribed to a stream, used to find the sessions an event may be delivered to without
+ * checking the filters of every session.
+ * A session which filters on query parameters is indexed by one of them (attribute -> value -> sessions), the
+ * others are not indexed. Sessions without filters are kept in a separate list. The index returns candidate
+ * sessions, the caller still has to check all the filters of each candidate.
+ */
+public class WebSocketSubscriptionIndex {
+
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, CopyOnWriteArrayList<WebSocketSessionRequest>>>
+            filteredSessions = new ConcurrentHashMap<>();
+    private final CopyOnWriteArrayList<WebSocketSessionRequest> unfilteredSessions = new CopyOnWriteArrayList<>();
+
+    public synchronized void addSession(WebSocketSessionRequest sessionRequest) {
+        String attribute = getIndexedAttribute(sessionRequest);
+        if (attribute == null) {
+            unfilteredSessions.add(sessionRequest);
+            return;
+        }
+        String value = normalize(sessionRequest.getQueryParamValuePairs().get(attribute));
+        ConcurrentHashMap<String, CopyOnWriteArrayList<WebSocketSessionRequest>> valueSpecificSessions =
+                filteredSessions.get(attribute);
+        if (valueSpecificSessions == null) {
+            valueSpecificSessions = new ConcurrentHashMap<>();
+            filteredSessions.put(attribute, valueSpecificSessions);
+        }
+        CopyOnWriteArrayList<WebSocketSessionRequest> sessions = valueSpecificSessions.get(value);
+        if (sessions == null) {
+            sessions = new CopyOnWriteArrayList<>();
+            valueSpecificSessions.put(value, sessions);
+        }
+        sessions.add(sessionRequest);
+    }
+
+    public synchronized void removeSession(WebSocketSessionRequest sessionRequest) {
+        String attribute = getIndexedAttribute(sessionRequest);
+        if (attribute == null) {
+            unfilteredSessions.remove(sessionRequest);
+            return;
+        }
+        String value = normalize(sessionRequest.getQueryParamValuePairs().get(attribute));
+        ConcurrentHashMap<String, CopyOnWriteArrayList<WebSocketSessionRequest>> valueSpecificSessions =
+                filteredSessions.get(attribute);
+        if (valueSpecificSessions == null) {
+            return;
+        }
+        CopyOnWriteArrayList<WebSocketSessionRequest> sessions = valueSpecificSessions.get(value);
+        if (sessions != null) {
+            sessions.remove(sessionRequest);
+            if (sessions.isEmpty()) {
+                valueSpecificSessions.remove(value);
+            }
+        }
+        if (valueSpecificSessions.isEmpty()) {
+            filteredSessions.remove(attribute);
+        }
+    }
+
+    /**
+     * Fetches the sessions which may accept an event. A session indexed by an attribute is a candidate when the
+     * event has the same value for that attribute, or when the event does not have the attribute at all since
+     * such filters are ignored.
+     *
+     * @param resolver provides the values of the attributes of the event.
+     * @return sessions whose filters need to be checked against the event.
+     */
+    public List<WebSocketSessionRequest> getCandidateSessions(AttributeValueResolver resolver) {
+        List<WebSocketSessionRequest> candidates = new ArrayList<>(unfilteredSessions);
+        for (Map.Entry<String, ConcurrentHashMap<String, CopyOnWriteArrayList<WebSocketSessionRequest>>> entry :
+                filteredSessions.entrySet()) {
+            String value = resolver.getValue(entry.getKey());
+            if (value == null) {
+                for (CopyOnWriteArrayList<WebSocketSessionRequest> sessions : entry.getValue().values()) {
+                    candidates.addAll(sessions);
+                }
+            } else {
+                CopyOnWriteArrayList<WebSocketSessionRequest> sessions = entry.getValue().get(normalize(value));
+                if (sessions != null) {
+                    candidates.addAll(sessions);
+                }
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * The attribute a session is indexed by is the first of its filters in alphabetical order, so that sessions
+     * using the same set of filters share the same index. The token used to authenticate the session and the
+     * parameters requesting the history are not filters.
+     */
+    private static String getIndexedAttribute(WebSocketSessionRequest sessionRequest) {
+        String indexedAttribute = null;
+        for (Map.Entry<String, String> queryParam : sessionRequest.getQueryParamValuePairs().entrySet()) {
+            String attribute = queryParam.getKey();
+            if (WebsocketConstants.TOKEN_PARAM.equals(attribute)
+                    || WebsocketConstants.REPLAY_LAST_EVENTS_PARAM.equals(attribute)
+                    || WebsocketConstants.REPLAY_SINCE_PARAM.equals(attribute) || queryParam.getValue() == null
+                    || queryParam.getValue().trim().isEmpty()) {
+                continue;
+            }
+            if (indexedAttribute == null || attribute.compareTo(indexedAttribute) < 0) {
+                indexedAttribute = attribute;
+            }
+        }
+        return indexedAttribute;
+    }
+
+    /**
+     * Values are indexed case insensitively since json events are filtered ignoring the case, the exact match
+     * required for wso2 events is checked on the candidates.
+     */
+    private static String normalize(String value) {
+        return value.toLowerCase(Locale.ENGLISH);
+    }
+
+    /**
+     * Provides the value of an attribute of the event being published.
+     */
+    public interface AttributeValueResolver {
+
+        /**
+         * @param attributeName name of the attribute.
+         * @return the value of the attribute as a string or null if the event does not have the attribute.
+         */
+        String getValue(String attributeName);
+    }
+}
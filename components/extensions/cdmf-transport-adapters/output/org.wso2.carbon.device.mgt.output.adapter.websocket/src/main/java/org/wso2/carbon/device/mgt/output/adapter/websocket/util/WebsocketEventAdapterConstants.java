@@ -46,6 +46,14 @@ public class WebsocketEventAdapterConstants {
 
     public static final String ADAPTER_EVENT_QUEUE_SIZE_NAME = "eventQueueSize";
     public static final int EVENTS_QUEUE_SIZE = 30;
+    public static final String ADAPTER_SESSION_BUFFER_SIZE_NAME = "sessionBufferSize";
+    public static final int SESSION_BUFFER_SIZE = 500;
+    public static final String ADAPTER_SLOW_CONSUMER_POLICY_NAME = "slowConsumerPolicy";
+    public static final String SLOW_CONSUMER_POLICY_DROP_OLDEST = "dropOldest";
+    public static final String SLOW_CONSUMER_POLICY_DISCONNECT = "disconnect";
+    public static final int AUTHORIZATION_THREAD_POOL_SIZE = 20;
+    public static final int AUTHORIZATION_JOB_QUEUE_SIZE = 1000;
+    public static final long AUTHORIZATION_KEEP_ALIVE_TIME_IN_MILLIS = 20000;
     public static final String AUTHENTICATOR_CLASS = "authenticator";
     public static final String AUTHORIZER_CLASS = "authorizer";
 
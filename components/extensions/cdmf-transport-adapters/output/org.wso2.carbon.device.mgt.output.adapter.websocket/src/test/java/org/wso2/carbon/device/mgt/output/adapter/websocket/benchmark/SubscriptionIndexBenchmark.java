@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.device.mgt.output.adapter.websocket.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wso2.carbon.device.mgt.output.adapter.websocket.util.EventMatcher;
+import org.wso2.carbon.device.mgt.output.adapter.websocket.util.JsonEventMatcher;
+import org.wso2.carbon.device.mgt.output.adapter.websocket.util.WebSocketSessionRequest;
+import org.wso2.carbon.device.mgt.output.adapter.websocket.util.WebSocketSubscriptionIndex;
+
+import javax.websocket.Session;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares finding the sessions of an event through the subscription index with checking the filters of every
+ * session subscribed to the stream, both matching with the json event matcher the adapter uses. Each session
+ * filters on the device id and a tenth of the sessions have no filter.
+ * Run with: java -cp target/test-classes:target/classes:&lt;test classpath&gt; org.openjdk.jmh.Main
+ * SubscriptionIndexBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SubscriptionIndexBenchmark {
+
+    private static final String DEVICE_ID = "deviceId";
+
+    @Param({"10", "1000", "10000"})
+    private int sessionCount;
+
+    private WebSocketSubscriptionIndex subscriptionIndex;
+    private List<WebSocketSessionRequest> sessions;
+    private String[] events;
+    private int next;
+
+    @Setup
+    public void setup() {
+        subscriptionIndex = new WebSocketSubscriptionIndex();
+        sessions = new ArrayList<>(sessionCount);
+        events = new String[sessionCount];
+        for (int i = 0; i < sessionCount; i++) {
+            String deviceId = "device-" + i;
+            events[i] = "{\"event\":{\"metaData\":{\"" + DEVICE_ID + "\":\"" + deviceId + "\"},"
+                    + "\"payloadData\":{\"temperature\":" + i % 100 + "}}}";
+            String queryString = i % 10 == 0 ? "token=secret" : DEVICE_ID + "=" + deviceId + "&token=secret";
+            WebSocketSessionRequest sessionRequest = new WebSocketSessionRequest(createSession(i, queryString));
+            sessions.add(sessionRequest);
+            subscriptionIndex.addSession(sessionRequest);
+        }
+    }
+
+    @Benchmark
+    public int indexedLookup() {
+        EventMatcher eventMatcher = new JsonEventMatcher(nextEvent());
+        int matched = 0;
+        for (WebSocketSessionRequest sessionRequest : subscriptionIndex.getCandidateSessions(eventMatcher)) {
+            if (eventMatcher.accepts(sessionRequest)) {
+                matched++;
+            }
+        }
+        return matched;
+    }
+
+    @Benchmark
+    public int fullScan() {
+        EventMatcher eventMatcher = new JsonEventMatcher(nextEvent());
+        int matched = 0;
+        for (WebSocketSessionRequest sessionRequest : sessions) {
+            if (eventMatcher.accepts(sessionRequest)) {
+                matched++;
+            }
+        }
+        return matched;
+    }
+
+    private String nextEvent() {
+        String event = events[next];
+        next = (next + 1) % events.length;
+        return event;
+    }
+
+    private static Session createSession(final int id, final String queryString) {
+        return (Session) Proxy.newProxyInstance(Session.class.getClassLoader(), new Class<?>[]{Session.class},
+                new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        switch (method.getName()) {
+                            case "getQueryString":
+                                return queryString;
+                            case "getId":
+                                return String.valueOf(id);
+                            case "isOpen":
+                                return true;
+                            case "hashCode":
+                                return id;
+                            case "equals":
+                                return proxy == args[0];
+                            default:
+                                return null;
+                        }
+                    }
+                });
+    }
+}
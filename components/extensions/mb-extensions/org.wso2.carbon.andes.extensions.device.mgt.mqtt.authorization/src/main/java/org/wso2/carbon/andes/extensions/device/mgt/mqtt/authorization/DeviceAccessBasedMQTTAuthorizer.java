@@ -37,13 +37,17 @@ import org.wso2.carbon.andes.extensions.device.mgt.mqtt.authorization.client.OAu
 import org.wso2.carbon.andes.extensions.device.mgt.mqtt.authorization.client.dto.AuthorizationRequest;
 import org.wso2.carbon.andes.extensions.device.mgt.mqtt.authorization.client.dto.DeviceAccessAuthorizationAdminService;
 import org.wso2.carbon.andes.extensions.device.mgt.mqtt.authorization.client.dto.DeviceAuthorizationResult;
+import org.wso2.carbon.andes.extensions.device.mgt.mqtt.authorization.client.dto.Device;
 import org.wso2.carbon.andes.extensions.device.mgt.mqtt.authorization.client.dto.DeviceIdentifier;
+import org.wso2.carbon.andes.extensions.device.mgt.mqtt.authorization.client.dto.DeviceList;
+import org.wso2.carbon.andes.extensions.device.mgt.mqtt.authorization.client.dto.DeviceManagementService;
 import org.wso2.carbon.andes.extensions.device.mgt.mqtt.authorization.config.AuthorizationConfigurationManager;
 import org.wso2.carbon.andes.extensions.device.mgt.mqtt.authorization.internal.AuthorizationDataHolder;
 import org.wso2.carbon.andes.extensions.device.mgt.mqtt.authorization.util.AuthorizationCacheKey;
 import org.wso2.carbon.base.MultitenantConstants;
 import org.wso2.carbon.base.ServerConfiguration;
 import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.device.mgt.input.adapter.extension.DeviceTopic;
 import org.wso2.carbon.user.api.UserRealm;
 import org.wso2.carbon.user.api.UserStoreException;
 
@@ -58,6 +62,10 @@ import java.security.*;
 import java.security.cert.CertificateException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -75,8 +83,18 @@ public class DeviceAccessBasedMQTTAuthorizer implements IAuthorizer {
     private static final String DEFAULT_ADMIN_PERMISSION = "permission/admin/device-mgt";
     private static final String CACHE_MANAGER_NAME = "mqttAuthorizationCacheManager";
     private static final String CACHE_NAME = "mqttAuthorizationCache";
+    private static final String NEGATIVE_CACHE_NAME = "mqttAuthorizationNegativeCache";
+    private static final String PREFETCH_MARKER = "prefetched";
+    private static final int PREFETCH_THREAD_COUNT = 2;
+    private static final int PREFETCH_QUEUE_SIZE = 1000;
+    private static final int PREFETCH_PAGE_SIZE = 100;
+    private static final int MAX_PREFETCHED_DEVICES = 1000;
     private static DeviceAccessAuthorizationAdminService deviceAccessAuthorizationAdminService;
     private static OAuthRequestInterceptor oAuthRequestInterceptor;
+    private static DeviceManagementService deviceManagementService;
+    private volatile Cache<AuthorizationCacheKey, Boolean> cache;
+    private volatile Cache<AuthorizationCacheKey, Boolean> negativeCache;
+    private ExecutorService prefetchExecutor;
     private static final String GATEWAY_ERROR_CODE = "<am:code>404</am:code>";
     private static final String ALL_TENANT_DOMAIN = "+";
 
@@ -88,6 +106,25 @@ public class DeviceAccessBasedMQTTAuthorizer implements IAuthorizer {
                 .contract(new JAXRSContract()).encoder(new GsonEncoder()).decoder(new GsonDecoder())
                 .target(DeviceAccessAuthorizationAdminService.class,
                         MQTTAuthorizationConfiguration.getDeviceMgtServerUrl() + CDMF_SERVER_BASE_CONTEXT);
+        if (MQTTAuthorizationConfiguration.isPrefetchDeviceAuthorization()) {
+            deviceManagementService = Feign.builder().client(getSSLClient()).logger(new Slf4jLogger())
+                    .logLevel(Logger.Level.FULL).requestInterceptor(oAuthRequestInterceptor)
+                    .contract(new JAXRSContract()).encoder(new GsonEncoder()).decoder(new GsonDecoder())
+                    .target(DeviceManagementService.class,
+                            MQTTAuthorizationConfiguration.getDeviceMgtServerUrl() + CDMF_SERVER_BASE_CONTEXT);
+            prefetchExecutor = new ThreadPoolExecutor(PREFETCH_THREAD_COUNT, PREFETCH_THREAD_COUNT, 0L,
+                                                      TimeUnit.MILLISECONDS,
+                                                      new LinkedBlockingQueue<Runnable>(PREFETCH_QUEUE_SIZE),
+                                                      new ThreadFactory() {
+                                                          @Override
+                                                          public Thread newThread(Runnable runnable) {
+                                                              Thread thread = new Thread(runnable,
+                                                                      "MQTTAuthorizationPrefetcher");
+                                                              thread.setDaemon(true);
+                                                              return thread;
+                                                          }
+                                                      }, new ThreadPoolExecutor.DiscardPolicy());
+        }
     }
 
     /**
@@ -100,8 +137,8 @@ public class DeviceAccessBasedMQTTAuthorizer implements IAuthorizer {
         PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantDomain(
                 MultitenantConstants.SUPER_TENANT_DOMAIN_NAME, true);
         try {
-            String topics[] = topic.split("/");
-            String tenantDomainFromTopic = topics[0];
+            DeviceTopic deviceTopic = DeviceTopic.parse(topic);
+            String tenantDomainFromTopic = deviceTopic.getTenantDomain();
             if (ALL_TENANT_DOMAIN.equals(tenantDomainFromTopic)) {
                 if (MultitenantConstants.SUPER_TENANT_DOMAIN_NAME.equals(authorizationSubject.getTenantDomain())
                         && isUserAuthorized(authorizationSubject, DEFAULT_ADMIN_PERMISSION, UI_EXECUTE)) {
@@ -112,12 +149,12 @@ public class DeviceAccessBasedMQTTAuthorizer implements IAuthorizer {
             if (!tenantDomainFromTopic.equals(authorizationSubject.getTenantDomain())) {
                 return false;
             }
-            Cache<AuthorizationCacheKey, Boolean> cache = getCache();
-            if (topics.length < 3) {
+            if (!deviceTopic.isDeviceTopic()) {
                 AuthorizationCacheKey authorizationCacheKey = new AuthorizationCacheKey(tenantDomainFromTopic
-                        , authorizationSubject.getUsername(), "", "");
-                if (cache.get(authorizationCacheKey) != null && cache.get(authorizationCacheKey)) {
-                    return true;
+                        , authorizationSubject.getUsername(), "", "", "");
+                Boolean cachedResult = getCachedResult(authorizationCacheKey);
+                if (cachedResult != null) {
+                    return cachedResult;
                 }
                 AuthorizationRequest authorizationRequest = new AuthorizationRequest();
                 authorizationRequest.setTenantDomain(tenantDomainFromTopic);
@@ -125,47 +162,32 @@ public class DeviceAccessBasedMQTTAuthorizer implements IAuthorizer {
                     DeviceAuthorizationResult deviceAuthorizationResult =
                             deviceAccessAuthorizationAdminService.isAuthorized(authorizationRequest);
                     if (deviceAuthorizationResult != null) {
-                        cache.put(authorizationCacheKey, true);
+                        getCache().put(authorizationCacheKey, true);
                         return true;
                     }
+                    cacheFailure(authorizationCacheKey);
                     return false;
                 } catch (FeignException e) {
-                    oAuthRequestInterceptor.resetApiApplicationKey();
-                    if (e.getMessage().contains(GATEWAY_ERROR_CODE) || e.status() == 404 || e.status() == 403) {
-                        log.error("Failed to connect to the device authorization service, Retrying....");
-                    } else {
-                        log.error(e.getMessage(), e);
-                    }
+                    handleFeignException(e);
                     return false;
                 }
             }
-            String deviceType = topics[1];
-            String deviceId = topics[2];
+            String deviceType = deviceTopic.getDeviceType();
+            String deviceId = deviceTopic.getDeviceId();
             AuthorizationCacheKey authorizationCacheKey = new AuthorizationCacheKey(tenantDomainFromTopic
-                    , authorizationSubject.getUsername(), deviceId, deviceType);
-            if (cache.get(authorizationCacheKey) != null && cache.get(authorizationCacheKey)) {
-                return true;
-            }
-
-            List<String> requiredPermission;
-            if (permissionLevel == MQTTAuthoriztionPermissionLevel.SUBSCRIBE) {
-                requiredPermission = MQTTAuthorizationConfiguration.getSubscriberPermissions();
-            } else {
-                requiredPermission = MQTTAuthorizationConfiguration.getPublisherPermissions();
+                    , authorizationSubject.getUsername(), deviceId, deviceType, permissionLevel.toString());
+            Boolean cachedResult = getCachedResult(authorizationCacheKey);
+            if (cachedResult != null) {
+                return cachedResult;
             }
 
-            AuthorizationRequest authorizationRequest = new AuthorizationRequest();
-            authorizationRequest.setTenantDomain(tenantDomainFromTopic);
-            if (requiredPermission != null) {
-                authorizationRequest.setPermissions(requiredPermission);
-            }
-            authorizationRequest.setUsername(authorizationSubject.getUsername());
             DeviceIdentifier deviceIdentifier = new DeviceIdentifier();
             deviceIdentifier.setId(deviceId);
             deviceIdentifier.setType(deviceType);
             List<DeviceIdentifier> deviceIdentifiers = new ArrayList<>();
             deviceIdentifiers.add(deviceIdentifier);
-            authorizationRequest.setDeviceIdentifiers(deviceIdentifiers);
+            AuthorizationRequest authorizationRequest = createAuthorizationRequest(tenantDomainFromTopic,
+                    authorizationSubject.getUsername(), deviceIdentifiers, permissionLevel);
             try {
                 DeviceAuthorizationResult deviceAuthorizationResult =
                         deviceAccessAuthorizationAdminService.isAuthorized(authorizationRequest);
@@ -173,18 +195,13 @@ public class DeviceAccessBasedMQTTAuthorizer implements IAuthorizer {
                 if (devices != null && devices.size() > 0) {
                     DeviceIdentifier authorizedDevice = devices.get(0);
                     if (authorizedDevice.getId().equals(deviceId) && authorizedDevice.getType().equals(deviceType)) {
-                        cache.put(authorizationCacheKey, true);
+                        getCache().put(authorizationCacheKey, true);
                         return true;
                     }
                 }
+                cacheFailure(authorizationCacheKey);
             } catch (FeignException e) {
-                oAuthRequestInterceptor.resetApiApplicationKey();
-                //This is to avoid failure where it tries to call authorization service before the api is published
-                if (e.getMessage().contains(GATEWAY_ERROR_CODE) || e.status() == 404 || e.status() == 403) {
-                    log.error("Failed to connect to the device authorization service, Retrying....");
-                } else {
-                    log.error(e.getMessage(), e);
-                }
+                handleFeignException(e);
             }
             return false;
         } finally {
@@ -197,13 +214,20 @@ public class DeviceAccessBasedMQTTAuthorizer implements IAuthorizer {
      */
     @Override
     public boolean isAuthorizedToConnect(MQTTAuthorizationSubject authorizationSubject) {
+        boolean authorized;
         if (MQTTAuthorizationConfiguration.getConnectionPermission() == null ||
                 MQTTAuthorizationConfiguration.getConnectionPermission().isEmpty()) {
             //allow authenticated client to connect.
-            return true;
+            authorized = true;
+        } else {
+            authorized = isUserAuthorized(authorizationSubject, MQTTAuthorizationConfiguration
+                    .getConnectionPermission(), UI_EXECUTE);
+        }
+        if (authorized && prefetchExecutor != null) {
+            prefetchExecutor.execute(new DeviceAuthorizationPrefetcher(authorizationSubject.getTenantDomain(),
+                                                                        authorizationSubject.getUsername()));
         }
-        return isUserAuthorized(authorizationSubject, MQTTAuthorizationConfiguration.getConnectionPermission()
-                , UI_EXECUTE);
+        return authorized;
     }
 
     /**
@@ -234,21 +258,109 @@ public class DeviceAccessBasedMQTTAuthorizer implements IAuthorizer {
         }
     }
 
+    private AuthorizationRequest createAuthorizationRequest(String tenantDomain, String username,
+                                                            List<DeviceIdentifier> deviceIdentifiers,
+                                                            MQTTAuthoriztionPermissionLevel permissionLevel) {
+        List<String> requiredPermission;
+        if (permissionLevel == MQTTAuthoriztionPermissionLevel.SUBSCRIBE) {
+            requiredPermission = MQTTAuthorizationConfiguration.getSubscriberPermissions();
+        } else {
+            requiredPermission = MQTTAuthorizationConfiguration.getPublisherPermissions();
+        }
+        AuthorizationRequest authorizationRequest = new AuthorizationRequest();
+        authorizationRequest.setTenantDomain(tenantDomain);
+        if (requiredPermission != null) {
+            authorizationRequest.setPermissions(requiredPermission);
+        }
+        authorizationRequest.setUsername(username);
+        authorizationRequest.setDeviceIdentifiers(deviceIdentifiers);
+        return authorizationRequest;
+    }
+
+    private void handleFeignException(FeignException e) {
+        oAuthRequestInterceptor.resetApiApplicationKey();
+        //This is to avoid failure where it tries to call authorization service before the api is published
+        if (e.getMessage().contains(GATEWAY_ERROR_CODE) || e.status() == 404 || e.status() == 403) {
+            log.error("Failed to connect to the device authorization service, Retrying....");
+        } else {
+            log.error(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return true or false if the result of the authorization is cached, null if it has to be checked.
+     */
+    private Boolean getCachedResult(AuthorizationCacheKey authorizationCacheKey) {
+        Boolean authorized = getCache().get(authorizationCacheKey);
+        if (authorized != null && authorized) {
+            return true;
+        }
+        Cache<AuthorizationCacheKey, Boolean> negativeCache = getNegativeCache();
+        if (negativeCache != null && negativeCache.get(authorizationCacheKey) != null) {
+            return false;
+        }
+        return null;
+    }
+
     /**
-     * This method is used to create the Caches.
-     * @return          Cachemanager
+     * Failures are cached for a short time so that a client retrying an unauthorized subscription or publish does
+     * not call the authorization service on every attempt. Errors of the service itself are not cached.
      */
-    private synchronized Cache<AuthorizationCacheKey, Boolean> getCache() {
+    private void cacheFailure(AuthorizationCacheKey authorizationCacheKey) {
+        Cache<AuthorizationCacheKey, Boolean> negativeCache = getNegativeCache();
+        if (negativeCache != null) {
+            negativeCache.put(authorizationCacheKey, false);
+        }
+    }
+
+    /**
+     * This method is used to get the cache of the successful authorizations, it is created on the first call.
+     * @return          Cache
+     */
+    private Cache<AuthorizationCacheKey, Boolean> getCache() {
+        Cache<AuthorizationCacheKey, Boolean> authorizationCache = cache;
+        if (authorizationCache == null) {
+            synchronized (this) {
+                if (cache == null) {
+                    cache = createCache(CACHE_NAME, MQTTAuthorizationConfiguration.getCacheDuration());
+                }
+                authorizationCache = cache;
+            }
+        }
+        return authorizationCache;
+    }
+
+    /**
+     * @return the cache of the failed authorizations, null if failures are not cached.
+     */
+    private Cache<AuthorizationCacheKey, Boolean> getNegativeCache() {
+        if (MQTTAuthorizationConfiguration.getNegativeCacheDuration() <= 0) {
+            return null;
+        }
+        Cache<AuthorizationCacheKey, Boolean> authorizationCache = negativeCache;
+        if (authorizationCache == null) {
+            synchronized (this) {
+                if (negativeCache == null) {
+                    negativeCache = createCache(NEGATIVE_CACHE_NAME,
+                                                MQTTAuthorizationConfiguration.getNegativeCacheDuration());
+                }
+                authorizationCache = negativeCache;
+            }
+        }
+        return authorizationCache;
+    }
+
+    private Cache<AuthorizationCacheKey, Boolean> createCache(String cacheName, long cacheDuration) {
         PrivilegedCarbonContext.startTenantFlow();
         PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantDomain(
                 MultitenantConstants.SUPER_TENANT_DOMAIN_NAME, true);
         try {
-            if (MQTTAuthorizationConfiguration.getCacheDuration() == 0) {
-                return Caching.getCacheManagerFactory().getCacheManager(CACHE_MANAGER_NAME).getCache(CACHE_NAME);
+            if (cacheDuration == 0) {
+                return Caching.getCacheManagerFactory().getCacheManager(CACHE_MANAGER_NAME).getCache(cacheName);
             } else {
-                return Caching.getCacheManagerFactory().getCacheManager(CACHE_MANAGER_NAME).<AuthorizationCacheKey, Boolean>createCacheBuilder(CACHE_NAME).
+                return Caching.getCacheManagerFactory().getCacheManager(CACHE_MANAGER_NAME).<AuthorizationCacheKey, Boolean>createCacheBuilder(cacheName).
                         setExpiry(CacheConfiguration.ExpiryType.MODIFIED, new CacheConfiguration.Duration(
-                                TimeUnit.SECONDS, MQTTAuthorizationConfiguration.getCacheDuration())).
+                                TimeUnit.SECONDS, cacheDuration)).
                         setStoreByValue(false).build();
             }
         } finally {
@@ -256,6 +368,107 @@ public class DeviceAccessBasedMQTTAuthorizer implements IAuthorizer {
         }
     }
 
+    /**
+     * The tenant domain of the user the broker calls the device management apis as. Devices can only be listed
+     * for the users of that tenant.
+     */
+    private static String getBrokerTenantDomain() {
+        String username = AuthorizationConfigurationManager.getInstance().getUsername();
+        if (username == null || !username.contains("@")) {
+            return MultitenantConstants.SUPER_TENANT_DOMAIN_NAME;
+        }
+        return username.substring(username.lastIndexOf('@') + 1);
+    }
+
+    /**
+     * Fetches the authorization of all the devices of a user who connected, so that the topics of those devices
+     * are authorized from the cache. The devices are authorized with one request per permission level.
+     */
+    private class DeviceAuthorizationPrefetcher implements Runnable {
+
+        private final String tenantDomain;
+        private final String username;
+
+        DeviceAuthorizationPrefetcher(String tenantDomain, String username) {
+            this.tenantDomain = tenantDomain;
+            this.username = username;
+        }
+
+        @Override
+        public void run() {
+            if (!getBrokerTenantDomain().equals(tenantDomain)) {
+                return;
+            }
+            PrivilegedCarbonContext.startTenantFlow();
+            PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantDomain(
+                    MultitenantConstants.SUPER_TENANT_DOMAIN_NAME, true);
+            try {
+                // the marker avoids fetching the devices of the user again on each connection, it is only set once
+                // the devices are fetched so that a failed prefetch is retried on the next connection
+                AuthorizationCacheKey prefetchMarker = new AuthorizationCacheKey(tenantDomain, username, "", "",
+                                                                                 PREFETCH_MARKER);
+                if (getCache().get(prefetchMarker) != null) {
+                    return;
+                }
+                List<DeviceIdentifier> deviceIdentifiers = getDevices();
+                if (!deviceIdentifiers.isEmpty()) {
+                    for (MQTTAuthoriztionPermissionLevel permissionLevel : MQTTAuthoriztionPermissionLevel.values()) {
+                        prefetch(deviceIdentifiers, permissionLevel);
+                    }
+                }
+                getCache().put(prefetchMarker, true);
+            } catch (FeignException e) {
+                if (e.status() == 404) {
+                    // the user has no devices
+                    getCache().put(new AuthorizationCacheKey(tenantDomain, username, "", "", PREFETCH_MARKER), true);
+                } else {
+                    log.warn("Failed to prefetch the device authorization of user " + username + " : "
+                                     + e.getMessage());
+                }
+            } finally {
+                PrivilegedCarbonContext.endTenantFlow();
+            }
+        }
+
+        private List<DeviceIdentifier> getDevices() {
+            List<DeviceIdentifier> deviceIdentifiers = new ArrayList<>();
+            for (int offset = 0; offset < MAX_PREFETCHED_DEVICES; offset += PREFETCH_PAGE_SIZE) {
+                DeviceList deviceList = deviceManagementService.getDevices(username, offset, PREFETCH_PAGE_SIZE);
+                if (deviceList == null || deviceList.getDevices() == null) {
+                    break;
+                }
+                for (Device device : deviceList.getDevices()) {
+                    deviceIdentifiers.add(new DeviceIdentifier(device.getDeviceIdentifier(), device.getType()));
+                }
+                if (deviceList.getDevices().size() < PREFETCH_PAGE_SIZE) {
+                    break;
+                }
+            }
+            return deviceIdentifiers;
+        }
+
+        private void prefetch(List<DeviceIdentifier> deviceIdentifiers,
+                              MQTTAuthoriztionPermissionLevel permissionLevel) {
+            DeviceAuthorizationResult deviceAuthorizationResult = deviceAccessAuthorizationAdminService.isAuthorized(
+                    createAuthorizationRequest(tenantDomain, username, deviceIdentifiers, permissionLevel));
+            if (deviceAuthorizationResult == null) {
+                return;
+            }
+            if (deviceAuthorizationResult.getAuthorizedDevices() != null) {
+                for (DeviceIdentifier device : deviceAuthorizationResult.getAuthorizedDevices()) {
+                    getCache().put(new AuthorizationCacheKey(tenantDomain, username, device.getId(),
+                                                             device.getType(), permissionLevel.toString()), true);
+                }
+            }
+            if (deviceAuthorizationResult.getUnauthorizedDevices() != null) {
+                for (DeviceIdentifier device : deviceAuthorizationResult.getUnauthorizedDevices()) {
+                    cacheFailure(new AuthorizationCacheKey(tenantDomain, username, device.getId(),
+                                                           device.getType(), permissionLevel.toString()));
+                }
+            }
+        }
+    }
+
     public static Client getSSLClient() {
         boolean isIgnoreHostnameVerification = Boolean.parseBoolean(System.getProperty("org.wso2.ignoreHostnameVerification"));
         if(isIgnoreHostnameVerification) {
@@ -59,16 +59,21 @@ public class OAuthRequestInterceptor implements RequestInterceptor {
     private static final String PASSWORD_GRANT_TYPE = "password";
     private static final String REFRESH_GRANT_TYPE = "refresh_token";
     private static final String REQUIRED_SCOPE = "perm:authorization:verify";
+    private static final String DEVICE_VIEW_SCOPE = "perm:devices:view";
     private ApiApplicationRegistrationService apiApplicationRegistrationService;
     private TokenIssuerService tokenIssuerService;
     private static Log log = LogFactory.getLog(OAuthRequestInterceptor.class);
     private volatile ApiApplicationKey apiApplicationKey;
+    private String requiredScopes;
 
     /**
      * Creates an interceptor that authenticates all requests.
      */
     public OAuthRequestInterceptor() {
         refreshTimeOffset = AuthorizationConfigurationManager.getInstance().getTokenRefreshTimeOffset() * 1000;
+        // listing the devices of a user is only required when their authorization is prefetched
+        requiredScopes = AuthorizationConfigurationManager.getInstance().isPrefetchDeviceAuthorization()
+                ? REQUIRED_SCOPE + " " + DEVICE_VIEW_SCOPE : REQUIRED_SCOPE;
         String username = AuthorizationConfigurationManager.getInstance().getUsername();
         String password = AuthorizationConfigurationManager.getInstance().getPassword();
         apiApplicationRegistrationService = Feign.builder().client(getSSLClient()).logger(new Slf4jLogger()).logLevel(
@@ -102,7 +107,7 @@ public class OAuthRequestInterceptor implements RequestInterceptor {
                         .target(TokenIssuerService.class,
                                 AuthorizationConfigurationManager.getInstance().getTokenEndpoint());
             }
-            tokenInfo = tokenIssuerService.getToken(PASSWORD_GRANT_TYPE, username, password, REQUIRED_SCOPE);
+            tokenInfo = tokenIssuerService.getToken(PASSWORD_GRANT_TYPE, username, password, requiredScopes);
             tokenInfo.setExpires_in(System.currentTimeMillis() + (tokenInfo.getExpires_in() * 1000));
         } else {
             synchronized (this) {
@@ -0,0 +1,45 @@
+/*
+ *   Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.wso2.carbon.andes.extensions.device.mgt.mqtt.authorization.client.dto;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.MediaType;
+
+@Produces(MediaType.APPLICATION_JSON)
+@Consumes(MediaType.APPLICATION_JSON)
+@Path("/devices")
+public interface DeviceManagementService {
+
+    /**
+     * Get the devices owned by a user.
+     *
+     * @param user   Username of the owner
+     * @param offset Index of the first device to return
+     * @param limit  Maximum number of devices to return
+     * @return {@link DeviceList} object
+     */
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    DeviceList getDevices(@QueryParam("user") String user, @QueryParam("offset") int offset,
+                          @QueryParam("limit") int limit);
+}
@@ -35,6 +35,9 @@ public class AuthorizationConfigurationManager {
     private static final String TOKEN_REFRESH_TIME_OFFSET = "tokenRefreshTimeOffset";
     private static final String DEVICE_MGT_SERVER_URL = "deviceMgtServerUrl";
     private static final String MQTT_CACHE_DURATION = "cacheDurationSeconds";
+    private static final String MQTT_NEGATIVE_CACHE_DURATION = "negativeCacheDurationSeconds";
+    private static final String PREFETCH_DEVICE_AUTHORIZATION = "prefetchDeviceAuthorization";
+    private static final long DEFAULT_NEGATIVE_CACHE_DURATION = 30;
 
     private static final AuthorizationConfigurationManager oAuthConfigurationManager
             = new AuthorizationConfigurationManager();
@@ -46,6 +49,8 @@ public class AuthorizationConfigurationManager {
     private long tokenRefreshTimeOffset;
     private String deviceMgtServerUrl;
     private long cacheDuration;
+    private long negativeCacheDuration = DEFAULT_NEGATIVE_CACHE_DURATION;
+    private boolean prefetchDeviceAuthorization;
 
     private List<String> publisherPermissions = new ArrayList<>();
     private List<String> subscriberPermissions = new ArrayList<>();
@@ -171,6 +176,34 @@ public class AuthorizationConfigurationManager {
         }
     }
 
+    /**
+     * @return the duration in seconds a failed authorization is cached for, 0 if failures are not cached.
+     */
+    public long getNegativeCacheDuration() {
+        return negativeCacheDuration;
+    }
+
+    public void setNegativeCacheDuration(String negativeCacheDuration) {
+        try {
+            if (negativeCacheDuration != null && !negativeCacheDuration.isEmpty()) {
+                this.negativeCacheDuration = Long.parseLong(negativeCacheDuration);
+            }
+        } catch (NumberFormatException e) {
+            logger.error("negativeCacheDurationSeconds is not a number(long)");
+        }
+    }
+
+    /**
+     * @return true if the authorization of the devices of a user is fetched when the user connects.
+     */
+    public boolean isPrefetchDeviceAuthorization() {
+        return prefetchDeviceAuthorization;
+    }
+
+    public void setPrefetchDeviceAuthorization(String prefetchDeviceAuthorization) {
+        this.prefetchDeviceAuthorization = Boolean.parseBoolean(prefetchDeviceAuthorization);
+    }
+
     /**
      * Initialize the configuration properties that required for MQTT Authorization
      */
@@ -208,6 +241,12 @@ public class AuthorizationConfigurationManager {
                 case MQTT_CACHE_DURATION:
                     setCacheDuration(propertyValue);
                     break;
+                case MQTT_NEGATIVE_CACHE_DURATION:
+                    setNegativeCacheDuration(propertyValue);
+                    break;
+                case PREFETCH_DEVICE_AUTHORIZATION:
+                    setPrefetchDeviceAuthorization(propertyValue);
+                    break;
 
 
                 default:
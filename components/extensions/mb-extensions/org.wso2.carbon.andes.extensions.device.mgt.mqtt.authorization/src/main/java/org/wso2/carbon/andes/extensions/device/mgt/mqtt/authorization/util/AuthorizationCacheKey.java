@@ -5,18 +5,22 @@ public class AuthorizationCacheKey {
     String deviceId;
     String deviceType;
     String username;
+    String permissionLevel;
 
-    public AuthorizationCacheKey(String tenantDomain, String username, String deviceId, String deviceType) {
+    public AuthorizationCacheKey(String tenantDomain, String username, String deviceId, String deviceType,
+                                 String permissionLevel) {
         this.username = username;
         this.tenantDomain = tenantDomain;
         this.deviceId = deviceId;
         this.deviceType = deviceType;
+        this.permissionLevel = permissionLevel;
     }
 
     @Override
     public int hashCode() {
         int result = this.deviceType.hashCode();
-        result = 31 * result + ("@" + this.deviceId + "@" + this.tenantDomain + "@" + this.username).hashCode();
+        result = 31 * result + ("@" + this.deviceId + "@" + this.tenantDomain + "@" + this.username + "@"
+                + this.permissionLevel).hashCode();
 
         return result;
     }
@@ -27,7 +31,8 @@ public class AuthorizationCacheKey {
                 ((AuthorizationCacheKey) obj).deviceType) && tenantDomain.equals(
                 ((AuthorizationCacheKey) obj).tenantDomain ) && deviceId.equals(
                 ((AuthorizationCacheKey) obj).deviceId) && username.equals(
-                ((AuthorizationCacheKey) obj).username);
+                ((AuthorizationCacheKey) obj).username) && permissionLevel.equals(
+                ((AuthorizationCacheKey) obj).permissionLevel);
     }
 
 }
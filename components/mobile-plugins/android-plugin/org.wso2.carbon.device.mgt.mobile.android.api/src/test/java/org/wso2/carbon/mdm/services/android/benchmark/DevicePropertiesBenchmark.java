@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.mdm.services.android.benchmark;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.wso2.carbon.mdm.services.android.util.AndroidDeviceUtils;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares reading the DEVICE_INFO property list of a device info response in a single streaming pass with parsing
+ * the list into a tree once per property read, which is how the properties were read before.
+ * Run with: java -cp target/test-classes:target/classes:&lt;test classpath&gt; org.openjdk.jmh.Main
+ * DevicePropertiesBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DevicePropertiesBenchmark {
+
+    private static final String DEVICE_INFO = "[{\"name\":\"ENCRYPTION_ENABLED\",\"value\":\"false\"}," +
+            "{\"name\":\"PASSCODE_ENABLED\",\"value\":\"true\"},{\"name\":\"BATTERY_LEVEL\",\"value\":\"100\"}," +
+            "{\"name\":\"INTERNAL_TOTAL_MEMORY\",\"value\":\"0.76\"}," +
+            "{\"name\":\"INTERNAL_AVAILABLE_MEMORY\",\"value\":\"0.67\"}," +
+            "{\"name\":\"EXTERNAL_TOTAL_MEMORY\",\"value\":\"0.1\"}," +
+            "{\"name\":\"EXTERNAL_AVAILABLE_MEMORY\",\"value\":\"0.1\"}," +
+            "{\"name\":\"OPERATOR\",\"value\":\"Android\"},{\"name\":\"PHONE_NUMBER\",\"value\":\"15555215554\"}]";
+    private static final String[] NAMES = {"BATTERY_LEVEL", "INTERNAL_TOTAL_MEMORY", "INTERNAL_AVAILABLE_MEMORY",
+            "EXTERNAL_TOTAL_MEMORY", "EXTERNAL_AVAILABLE_MEMORY", "ENCRYPTION_ENABLED", "PASSCODE_ENABLED",
+            "OPERATOR", "PHONE_NUMBER"};
+
+    @Benchmark
+    public void singlePass(Blackhole blackhole) {
+        Map<String, String> properties = AndroidDeviceUtils.getProperties(DEVICE_INFO);
+        for (String name : NAMES) {
+            blackhole.consume(AndroidDeviceUtils.getProperty(properties, name));
+        }
+    }
+
+    @Benchmark
+    public void parsePerProperty(Blackhole blackhole) {
+        for (String name : NAMES) {
+            blackhole.consume(getProperty(DEVICE_INFO, name));
+        }
+    }
+
+    private static String getProperty(String properties, String needed) {
+        JsonElement jsonElement = new JsonParser().parse(properties);
+        JsonArray jsonArray = jsonElement.getAsJsonArray();
+        for (JsonElement element : jsonArray) {
+            if (element.isJsonObject()) {
+                JsonObject jsonObject = element.getAsJsonObject();
+                if (jsonObject.has("name") && jsonObject.get("name").getAsString().equalsIgnoreCase(needed)) {
+                    if (jsonObject.has("value") && jsonObject.get("value") != JsonNull.INSTANCE) {
+                        return jsonObject.get("value").getAsString().replace("%", "");
+                    } else {
+                        return "";
+                    }
+                }
+            }
+        }
+        return "";
+    }
+}
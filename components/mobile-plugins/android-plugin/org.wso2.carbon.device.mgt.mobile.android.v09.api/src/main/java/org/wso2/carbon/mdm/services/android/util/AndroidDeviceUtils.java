@@ -21,9 +21,10 @@ package org.wso2.carbon.mdm.services.android.util;
 import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
-import com.google.gson.JsonNull;
-import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.analytics.api.AnalyticsDataAPI;
@@ -58,9 +59,12 @@ import org.wso2.carbon.mdm.services.android.bean.ErrorResponse;
 import org.wso2.carbon.mdm.services.android.exception.BadRequestException;
 
 import javax.validation.ConstraintViolation;
+import java.io.IOException;
+import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 
@@ -276,9 +280,10 @@ public class AndroidDeviceUtils {
             deviceInfo.setDeviceDetailsMap(new HashMap<>());
         }
         List<Device.Property> props = device.getProperties();
+        Map<String, String> columnNames = Utils.getDeviceDetailsColumnNames();
 
         for (Device.Property prop : props) {
-            if (Utils.getDeviceDetailsColumnNames().containsValue(prop.getName())) {
+            if (columnNames.containsValue(prop.getName())) {
                 extractDefinedProperties(deviceInfo, prop);
             } else {
                 extractMapProperties(deviceInfo, prop);
@@ -288,68 +293,60 @@ public class AndroidDeviceUtils {
     }
 
     private static void extractMapProperties(DeviceInfo deviceInfo, Device.Property prop) {
+        Map<String, String> detailsMap = deviceInfo.getDeviceDetailsMap();
         if (prop.getName().equalsIgnoreCase("CPU_INFO")) {
-            deviceInfo.getDeviceDetailsMap().put("cpuUser", getProperty(prop.getValue(), "User"));
-            deviceInfo.getDeviceDetailsMap().put("cpuSystem", getProperty(prop.getValue(), "System"));
-            deviceInfo.getDeviceDetailsMap().put("IOW", getProperty(prop.getValue(), "IOW"));
-            deviceInfo.getDeviceDetailsMap().put("IRQ", getProperty(prop.getValue(), "IRQ"));
+            Map<String, String> cpuInfo = getProperties(prop.getValue());
+            detailsMap.put("cpuUser", getProperty(cpuInfo, "USER"));
+            detailsMap.put("cpuSystem", getProperty(cpuInfo, "SYSTEM"));
+            detailsMap.put("IOW", getProperty(cpuInfo, "IOW"));
+            detailsMap.put("IRQ", getProperty(cpuInfo, "IRQ"));
         } else if (prop.getName().equalsIgnoreCase("RAM_INFO")) {
-            deviceInfo.setTotalRAMMemory(Double.parseDouble(getProperty(prop.getValue(), "TOTAL_MEMORY")));
-            deviceInfo.setAvailableRAMMemory(Double.parseDouble(
-                    getProperty(prop.getValue(), "AVAILABLE_MEMORY")));
-            deviceInfo.getDeviceDetailsMap().put("ramThreshold", getProperty(prop.getValue(), "THRESHOLD"));
-            deviceInfo.getDeviceDetailsMap().put("ramLowMemory", getProperty(prop.getValue(), "LOW_MEMORY"));
+            Map<String, String> ramInfo = getProperties(prop.getValue());
+            deviceInfo.setTotalRAMMemory(Double.parseDouble(getProperty(ramInfo, "TOTAL_MEMORY")));
+            deviceInfo.setAvailableRAMMemory(Double.parseDouble(getProperty(ramInfo, "AVAILABLE_MEMORY")));
+            detailsMap.put("ramThreshold", getProperty(ramInfo, "THRESHOLD"));
+            detailsMap.put("ramLowMemory", getProperty(ramInfo, "LOW_MEMORY"));
         } else if (prop.getName().equalsIgnoreCase("BATTERY_INFO")) {
-            deviceInfo.setPluggedIn(Boolean.parseBoolean(getProperty(prop.getValue(), "PLUGGED")));
-
-            deviceInfo.getDeviceDetailsMap().put("batteryLevel", getProperty(prop.getValue(), "BATTERY_LEVEL"));
-            deviceInfo.getDeviceDetailsMap().put("batteryScale", getProperty(prop.getValue(), "SCALE"));
-            deviceInfo.getDeviceDetailsMap().put("batteryVoltage",
-                                                 getProperty(prop.getValue(), "BATTERY_VOLTAGE"));
-            deviceInfo.getDeviceDetailsMap().put("batteryTemperature",
-                                                 getProperty(prop.getValue(), "TEMPERATURE"));
-            deviceInfo.getDeviceDetailsMap().put("batteryCurrentTemperature",
-                                                 getProperty(prop.getValue(), "CURRENT_AVERAGE"));
-            deviceInfo.getDeviceDetailsMap().put("batteryTechnology",
-                                                 getProperty(prop.getValue(), "TECHNOLOGY"));
-            deviceInfo.getDeviceDetailsMap().put("batteryHealth", getProperty(prop.getValue(), "HEALTH"));
-            deviceInfo.getDeviceDetailsMap().put("batteryStatus", getProperty(prop.getValue(), "STATUS"));
+            Map<String, String> batteryInfo = getProperties(prop.getValue());
+            deviceInfo.setPluggedIn(Boolean.parseBoolean(getProperty(batteryInfo, "PLUGGED")));
+
+            detailsMap.put("batteryLevel", getProperty(batteryInfo, "BATTERY_LEVEL"));
+            detailsMap.put("batteryScale", getProperty(batteryInfo, "SCALE"));
+            detailsMap.put("batteryVoltage", getProperty(batteryInfo, "BATTERY_VOLTAGE"));
+            detailsMap.put("batteryTemperature", getProperty(batteryInfo, "TEMPERATURE"));
+            detailsMap.put("batteryCurrentTemperature", getProperty(batteryInfo, "CURRENT_AVERAGE"));
+            detailsMap.put("batteryTechnology", getProperty(batteryInfo, "TECHNOLOGY"));
+            detailsMap.put("batteryHealth", getProperty(batteryInfo, "HEALTH"));
+            detailsMap.put("batteryStatus", getProperty(batteryInfo, "STATUS"));
         } else if (prop.getName().equalsIgnoreCase("NETWORK_INFO")) {
-            deviceInfo.setSsid(getProperty(prop.getValue(), "WIFI_SSID"));
-            deviceInfo.setConnectionType(getProperty(prop.getValue(), "CONNECTION_TYPE"));
+            Map<String, String> networkInfo = getProperties(prop.getValue());
+            deviceInfo.setSsid(getProperty(networkInfo, "WIFI_SSID"));
+            deviceInfo.setConnectionType(getProperty(networkInfo, "CONNECTION_TYPE"));
 
-            deviceInfo.getDeviceDetailsMap().put("mobileSignalStrength",
-                                                 getProperty(prop.getValue(), "MOBILE_SIGNAL_STRENGTH"));
-            deviceInfo.getDeviceDetailsMap().put("wifiSignalStrength",
-                                                 getProperty(prop.getValue(), "WIFI_SIGNAL_STRENGTH"));
+            detailsMap.put("mobileSignalStrength", getProperty(networkInfo, "MOBILE_SIGNAL_STRENGTH"));
+            detailsMap.put("wifiSignalStrength", getProperty(networkInfo, "WIFI_SIGNAL_STRENGTH"));
         } else if (prop.getName().equalsIgnoreCase("DEVICE_INFO")) {
-            deviceInfo.setBatteryLevel(Double.parseDouble(
-                    getProperty(prop.getValue(), "BATTERY_LEVEL")));
-            deviceInfo.setInternalTotalMemory(Double.parseDouble(
-                    getProperty(prop.getValue(), "INTERNAL_TOTAL_MEMORY")));
+            Map<String, String> info = getProperties(prop.getValue());
+            deviceInfo.setBatteryLevel(Double.parseDouble(getProperty(info, "BATTERY_LEVEL")));
+            deviceInfo.setInternalTotalMemory(Double.parseDouble(getProperty(info, "INTERNAL_TOTAL_MEMORY")));
             deviceInfo.setInternalAvailableMemory(Double.parseDouble(
-                    getProperty(prop.getValue(), "INTERNAL_AVAILABLE_MEMORY")));
-            deviceInfo.setExternalTotalMemory(Double.parseDouble(
-                    getProperty(prop.getValue(), "EXTERNAL_TOTAL_MEMORY")));
+                    getProperty(info, "INTERNAL_AVAILABLE_MEMORY")));
+            deviceInfo.setExternalTotalMemory(Double.parseDouble(getProperty(info, "EXTERNAL_TOTAL_MEMORY")));
             deviceInfo.setExternalAvailableMemory(Double.parseDouble(
-                    getProperty(prop.getValue(), "EXTERNAL_AVAILABLE_MEMORY")));
-
-            deviceInfo.getDeviceDetailsMap().put("encryptionEnabled",
-                                                 getProperty(prop.getValue(), "ENCRYPTION_ENABLED"));
-            deviceInfo.getDeviceDetailsMap().put("passcodeEnabled",
-                                                 getProperty(prop.getValue(), "PASSCODE_ENABLED"));
-            deviceInfo.getDeviceDetailsMap().put("operator",
-                                                 getProperty(prop.getValue(), "OPERATOR"));
-            deviceInfo.getDeviceDetailsMap().put("PhoneNumber",
-                                                 getProperty(prop.getValue(), "PHONE_NUMBER"));
+                    getProperty(info, "EXTERNAL_AVAILABLE_MEMORY")));
+
+            detailsMap.put("encryptionEnabled", getProperty(info, "ENCRYPTION_ENABLED"));
+            detailsMap.put("passcodeEnabled", getProperty(info, "PASSCODE_ENABLED"));
+            detailsMap.put("operator", getProperty(info, "OPERATOR"));
+            detailsMap.put("PhoneNumber", getProperty(info, "PHONE_NUMBER"));
         } else if (prop.getName().equalsIgnoreCase("IMEI")) {
-            deviceInfo.getDeviceDetailsMap().put("IMEI", prop.getValue());
+            detailsMap.put("IMEI", prop.getValue());
         } else if (prop.getName().equalsIgnoreCase("IMSI")) {
-            deviceInfo.getDeviceDetailsMap().put("IMSI", prop.getValue());
+            detailsMap.put("IMSI", prop.getValue());
         } else if (prop.getName().equalsIgnoreCase("MAC")) {
-            deviceInfo.getDeviceDetailsMap().put("mac", prop.getValue());
+            detailsMap.put("mac", prop.getValue());
         } else if (prop.getName().equalsIgnoreCase("SERIAL")) {
-            deviceInfo.getDeviceDetailsMap().put("serial", prop.getValue());
+            detailsMap.put("serial", prop.getValue());
         }
     }
 
@@ -365,27 +362,88 @@ public class AndroidDeviceUtils {
         }
     }
 
-    private static String getProperty(String properties, String needed) {
-        // This is not a key value pair. value is the immediate element to its filed name.
-        // Ex:
-        // [{"name":"ENCRYPTION_ENABLED","value":"false"},{"name":"PASSCODE_ENABLED","value":"true"},
-        // {"name":"BATTERY_LEVEL","value":"100"},{"name":"INTERNAL_TOTAL_MEMORY","value":"0.76"}]
-        JsonElement jsonElement = new JsonParser().parse(properties);
-        JsonArray jsonArray = jsonElement.getAsJsonArray();
-        for (JsonElement element : jsonArray) {
-            if (element.isJsonObject()) {
-                JsonObject jsonObject = element.getAsJsonObject();
-                if (jsonObject.has("name")
-                    && jsonObject.get("name").getAsString().equalsIgnoreCase(needed)) {
-                    if (jsonObject.has("value") && jsonObject.get("value") != JsonNull.INSTANCE) {
-                        return jsonObject.get("value").getAsString().replace("%", "");
+    /**
+     * @param properties parsed properties.
+     * @param needed     name of the property in upper case.
+     * @return the value of the property or an empty string if the device did not send it.
+     */
+    public static String getProperty(Map<String, String> properties, String needed) {
+        String value = properties.get(needed);
+        return value == null ? "" : value;
+    }
+
+    /**
+     * Reads all the properties of a nested property list in a single pass.
+     * This is not a key value pair. value is the immediate element to its filed name.
+     * Ex:
+     * [{"name":"ENCRYPTION_ENABLED","value":"false"},{"name":"PASSCODE_ENABLED","value":"true"},
+     * {"name":"BATTERY_LEVEL","value":"100"},{"name":"INTERNAL_TOTAL_MEMORY","value":"0.76"}]
+     *
+     * @param properties json array of the properties.
+     * @return property values keyed by the upper cased property name. Names are matched ignoring the case, hence
+     * when a name is repeated only the first value is kept. Null values are read as empty strings and '%' signs
+     * are removed from the values.
+     * @throws JsonSyntaxException if the properties are not a json array.
+     */
+    public static Map<String, String> getProperties(String properties) {
+        Map<String, String> values = new HashMap<>();
+        if (properties == null) {
+            return values;
+        }
+        JsonReader reader = new JsonReader(new StringReader(properties));
+        reader.setLenient(true);
+        try {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                    reader.skipValue();
+                    continue;
+                }
+                String name = null;
+                String value = "";
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String field = reader.nextName();
+                    if ("name".equals(field)) {
+                        name = readValue(reader);
+                    } else if ("value".equals(field)) {
+                        value = readValue(reader);
                     } else {
-                        return "";
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+                if (name != null) {
+                    String key = name.toUpperCase(Locale.ENGLISH);
+                    if (!values.containsKey(key)) {
+                        values.put(key, value == null ? "" : value.replace("%", ""));
                     }
                 }
             }
+            reader.endArray();
+        } catch (IOException | IllegalStateException e) {
+            throw new JsonSyntaxException("Invalid device property list : " + properties, e);
+        }
+        return values;
+    }
+
+    /**
+     * @return the value as a string, or null if it is null or not a primitive.
+     */
+    private static String readValue(JsonReader reader) throws IOException {
+        switch (reader.peek()) {
+            case STRING:
+            case NUMBER:
+                return reader.nextString();
+            case BOOLEAN:
+                return Boolean.toString(reader.nextBoolean());
+            case NULL:
+                reader.nextNull();
+                return null;
+            default:
+                reader.skipValue();
+                return null;
         }
-        return "";
     }
 
     private static List<ComplianceFeature> getComplianceFeatures(Object compliancePayload)
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.mdm.services.android.util;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.device.mgt.common.Device;
+import org.wso2.carbon.mdm.services.android.utils.TestUtils;
+
+import java.util.Map;
+
+public class AndroidDeviceUtilsTest {
+
+    @Test
+    public void testGetPropertiesOfDeviceInfo() {
+        Map<String, String> properties = AndroidDeviceUtils.getProperties(getPropertyValue("DEVICE_INFO"));
+        Assert.assertEquals(properties.size(), 9);
+        Assert.assertEquals(AndroidDeviceUtils.getProperty(properties, "ENCRYPTION_ENABLED"), "false");
+        Assert.assertEquals(AndroidDeviceUtils.getProperty(properties, "INTERNAL_TOTAL_MEMORY"), "0.76");
+        Assert.assertEquals(AndroidDeviceUtils.getProperty(properties, "PHONE_NUMBER"), "15555215554");
+    }
+
+    @Test
+    public void testGetPropertiesWithMissingNameOrValue() {
+        Map<String, String> properties = AndroidDeviceUtils.getProperties(getPropertyValue("BATTERY_INFO"));
+        Assert.assertFalse(properties.containsKey("BATTERY_VOLTAGE"), "Property without a name is read.");
+        Assert.assertEquals(AndroidDeviceUtils.getProperty(properties, "STATUS"), "");
+        Assert.assertEquals(AndroidDeviceUtils.getProperty(properties, "PLUGGED"), "AC");
+    }
+
+    @Test
+    public void testGetPropertiesUpperCasesNames() {
+        Map<String, String> properties = AndroidDeviceUtils.getProperties(
+                "[{\"name\":\"User\",\"value\":\"12%\"},{\"name\":\"USER\",\"value\":\"20%\"}," +
+                "{\"name\":\"iow\",\"value\":null}]");
+        Assert.assertEquals(AndroidDeviceUtils.getProperty(properties, "USER"), "12");
+        Assert.assertEquals(AndroidDeviceUtils.getProperty(properties, "IOW"), "");
+        Assert.assertFalse(properties.containsKey("User"), "Property name is not upper cased.");
+    }
+
+    @Test
+    public void testGetPropertyOfMissingKey() {
+        Map<String, String> properties = AndroidDeviceUtils.getProperties(getPropertyValue("CPU_INFO"));
+        Assert.assertTrue(properties.isEmpty());
+        Assert.assertEquals(AndroidDeviceUtils.getProperty(properties, "USER"), "");
+        Assert.assertTrue(AndroidDeviceUtils.getProperties(null).isEmpty());
+    }
+
+    @Test(expectedExceptions = JsonSyntaxException.class)
+    public void testGetPropertiesOfTruncatedJson() {
+        AndroidDeviceUtils.getProperties("[{\"name\":\"BATTERY_LEVEL\",\"value\":");
+    }
+
+    @Test(expectedExceptions = JsonSyntaxException.class)
+    public void testGetPropertiesOfJsonObject() {
+        AndroidDeviceUtils.getProperties("{\"name\":\"BATTERY_LEVEL\",\"value\":\"100\"}");
+    }
+
+    /**
+     * @return the value of the property in the device info operation response of {@link TestUtils}.
+     */
+    private static String getPropertyValue(String name) {
+        Device device = new Gson().fromJson(TestUtils.getSuccessInfoOperationResponse().get(0)
+                                                    .getOperationResponse(), Device.class);
+        for (Device.Property property : device.getProperties()) {
+            if (name.equals(property.getName())) {
+                return property.getValue();
+            }
+        }
+        return null;
+    }
+}
@@ -20,6 +20,7 @@ package org.wso2.carbon.device.mgt.mobile.android.impl;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
 import org.wso2.carbon.device.mgt.common.Device;
 import org.wso2.carbon.device.mgt.common.DeviceIdentifier;
 import org.wso2.carbon.device.mgt.common.DeviceManagementConstants;
@@ -27,6 +28,7 @@ import org.wso2.carbon.device.mgt.common.DeviceManagementException;
 import org.wso2.carbon.device.mgt.common.DeviceManager;
 import org.wso2.carbon.device.mgt.common.EnrolmentInfo;
 import org.wso2.carbon.device.mgt.common.FeatureManager;
+import org.wso2.carbon.device.mgt.common.configuration.mgt.ConfigurationEntry;
 import org.wso2.carbon.device.mgt.common.configuration.mgt.PlatformConfiguration;
 import org.wso2.carbon.device.mgt.common.license.mgt.License;
 import org.wso2.carbon.device.mgt.common.license.mgt.LicenseManagementException;
@@ -55,6 +57,7 @@ import java.io.StringWriter;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class AndroidDeviceManager implements DeviceManager {
 
@@ -63,6 +66,12 @@ public class AndroidDeviceManager implements DeviceManager {
     private FeatureManager featureManager = new AndroidFeatureManager();
     private LicenseManager licenseManager;
 
+    private static final long CONFIGURATION_REVALIDATION_INTERVAL_IN_MILLIS = 30000;
+    private static final XMLInputFactory XML_INPUT_FACTORY = createXMLInputFactory();
+    private static final ConcurrentHashMap<Integer, CachedConfiguration> configurationCache =
+            new ConcurrentHashMap<>();
+    private static volatile JAXBContext platformConfigurationContext;
+
     public AndroidDeviceManager() {
         this.daoFactory = new AndroidDAOFactory();
         this.licenseManager = new RegistryBasedLicenseManager();
@@ -100,14 +109,14 @@ public class AndroidDeviceManager implements DeviceManager {
                     DeviceManagementConstants.
                             MobileDeviceTypes.MOBILE_DEVICE_TYPE_ANDROID);
             StringWriter writer = new StringWriter();
-            JAXBContext context = JAXBContext.newInstance(PlatformConfiguration.class);
-            Marshaller marshaller = context.createMarshaller();
+            Marshaller marshaller = getPlatformConfigurationContext().createMarshaller();
             marshaller.marshal(tenantConfiguration, writer);
 
             Resource resource = MobileDeviceManagementUtil.getConfigurationRegistry().newResource();
             resource.setContent(writer.toString());
             resource.setMediaType(AndroidPluginConstants.MobilePluginConstants.MEDIA_TYPE_XML);
             MobileDeviceManagementUtil.putRegistryResource(resourcePath, resource);
+            configurationCache.remove(getTenantId());
             status = true;
         } catch (AndroidDeviceMgtPluginException e) {
             throw new DeviceManagementException(
@@ -122,26 +131,39 @@ public class AndroidDeviceManager implements DeviceManager {
         return status;
     }
 
+    /**
+     * Returns the android configuration of the current tenant. The unmarshalled configuration is cached per tenant
+     * and is revalidated against the last modified time of the registry resource once the revalidation interval has
+     * elapsed, so that a configuration saved through another node of the cluster is picked up as well.
+     * Callers get a copy of the cached configuration, hence they may modify it.
+     */
     @Override
     public PlatformConfiguration getConfiguration() throws DeviceManagementException {
-        Resource resource;
+        int tenantId = getTenantId();
+        CachedConfiguration cachedConfiguration = configurationCache.get(tenantId);
+        long now = System.currentTimeMillis();
         try {
+            if (cachedConfiguration != null && now < cachedConfiguration.revalidationTime) {
+                return copyConfiguration(cachedConfiguration.configuration);
+            }
             String androidRegPath =
                     MobileDeviceManagementUtil.getPlatformConfigPath(DeviceManagementConstants.
                             MobileDeviceTypes.MOBILE_DEVICE_TYPE_ANDROID);
-            resource = MobileDeviceManagementUtil.getRegistryResource(androidRegPath);
-            if (resource != null) {
-                XMLInputFactory factory = XMLInputFactory.newInstance();
-                factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
-                factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
-                XMLStreamReader reader = factory.createXMLStreamReader(
-                        new StringReader(new String((byte[]) resource.getContent(), Charset.
-                                forName(AndroidPluginConstants.MobilePluginConstants.CHARSET_UTF8))));
-                JAXBContext context = JAXBContext.newInstance(PlatformConfiguration.class);
-                Unmarshaller unmarshaller = context.createUnmarshaller();
-                return (PlatformConfiguration) unmarshaller.unmarshal(reader);
+            Resource resource = MobileDeviceManagementUtil.getRegistryResource(androidRegPath);
+            if (resource == null) {
+                configurationCache.remove(tenantId);
+                return null;
+            }
+            long lastModified = resource.getLastModified() == null ? 0 : resource.getLastModified().getTime();
+            if (cachedConfiguration != null && lastModified != 0 && cachedConfiguration.lastModified == lastModified) {
+                configurationCache.put(tenantId, new CachedConfiguration(cachedConfiguration.configuration,
+                        lastModified, now + CONFIGURATION_REVALIDATION_INTERVAL_IN_MILLIS));
+                return copyConfiguration(cachedConfiguration.configuration);
             }
-            return null;
+            PlatformConfiguration configuration = unmarshalConfiguration((byte[]) resource.getContent());
+            configurationCache.put(tenantId, new CachedConfiguration(configuration, lastModified,
+                    now + CONFIGURATION_REVALIDATION_INTERVAL_IN_MILLIS));
+            return copyConfiguration(configuration);
         } catch (AndroidDeviceMgtPluginException e) {
             throw new DeviceManagementException(
                     "Error occurred while retrieving the Registry instance : " + e.getMessage(), e);
@@ -368,4 +390,72 @@ public class AndroidDeviceManager implements DeviceManager {
         return devices;
     }
 
+    private static int getTenantId() {
+        return PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId();
+    }
+
+    /**
+     * JAXBContext is thread safe and expensive to create, hence a single instance is shared by all the tenants.
+     * Marshallers and unmarshallers are not thread safe and are created per call.
+     */
+    private static JAXBContext getPlatformConfigurationContext() throws JAXBException {
+        JAXBContext context = platformConfigurationContext;
+        if (context == null) {
+            synchronized (AndroidDeviceManager.class) {
+                context = platformConfigurationContext;
+                if (context == null) {
+                    context = JAXBContext.newInstance(PlatformConfiguration.class);
+                    platformConfigurationContext = context;
+                }
+            }
+        }
+        return context;
+    }
+
+    private static PlatformConfiguration unmarshalConfiguration(byte[] content)
+            throws JAXBException, XMLStreamException {
+        XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(new StringReader(new String(content,
+                Charset.forName(AndroidPluginConstants.MobilePluginConstants.CHARSET_UTF8))));
+        Unmarshaller unmarshaller = getPlatformConfigurationContext().createUnmarshaller();
+        return (PlatformConfiguration) unmarshaller.unmarshal(reader);
+    }
+
+    /**
+     * Copies the configuration and its entries, the values of the entries are unmarshalled as strings and are shared.
+     */
+    private static PlatformConfiguration copyConfiguration(PlatformConfiguration configuration) {
+        PlatformConfiguration copy = new PlatformConfiguration();
+        copy.setType(configuration.getType());
+        if (configuration.getConfiguration() != null) {
+            List<ConfigurationEntry> entries = new ArrayList<>(configuration.getConfiguration().size());
+            for (ConfigurationEntry entry : configuration.getConfiguration()) {
+                ConfigurationEntry entryCopy = new ConfigurationEntry();
+                entryCopy.setName(entry.getName());
+                entryCopy.setContentType(entry.getContentType());
+                entryCopy.setValue(entry.getValue());
+                entries.add(entryCopy);
+            }
+            copy.setConfiguration(entries);
+        }
+        return copy;
+    }
+
+    private static XMLInputFactory createXMLInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        return factory;
+    }
+
+    private static class CachedConfiguration {
+        private final PlatformConfiguration configuration;
+        private final long lastModified;
+        private final long revalidationTime;
+
+        CachedConfiguration(PlatformConfiguration configuration, long lastModified, long revalidationTime) {
+            this.configuration = configuration;
+            this.lastModified = lastModified;
+            this.revalidationTime = revalidationTime;
+        }
+    }
 }
@@ -59,7 +59,7 @@ public final class PluginConstants {
             "com.microsoft.schemas.windows.pki._2009._01.enrollmentpolicy.GetPoliciesResponse";
 
     //Servlet Context attributes names
-    public static final String CONTEXT_WAP_PROVISIONING_FILE = "WAP_PROVISIONING_FILE";
+    public static final String CONTEXT_WAP_PROVISIONING_TEMPLATE = "WAP_PROVISIONING_TEMPLATE";
 
     //Message handler constants
     public static final String CONTENT_LENGTH = "Content-Length";
@@ -168,7 +168,7 @@ public final class PluginConstants {
         public static final String SYNCML_SOURCE = "Source";
         public static final String SYNCML_DATA = "Data";
         public static final String SYNCML_CMD = "Cmd";
-        public static final String SYNCML_CHAL = "ChallengeTag";
+        public static final String SYNCML_CHAL = "Chal";
         public static final String SYNCML_CMD_ID = "CmdID";
         public static final String SYNCML_CMD_REF = "CmdRef";
         public static final String SYNCML_MESSAGE_REF = "MsgRef";
@@ -18,20 +18,26 @@
 
 package org.wso2.carbon.device.mgt.mobile.windows.api.common.util;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.device.mgt.mobile.windows.api.common.PluginConstants;
+import org.wso2.carbon.device.mgt.mobile.windows.api.common.exceptions.WAPProvisioningException;
 
 import javax.servlet.ServletContext;
 import javax.servlet.ServletContextEvent;
 import javax.servlet.ServletContextListener;
-import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 
 /**
  * This class performs one time operations.
  */
 public class ContextInitializer implements ServletContextListener {
 
+    private static final Log log = LogFactory.getLog(ContextInitializer.class);
+
     /**
-     * This method loads wap-provisioning file and sets wap-provisioning file as attribute in servlet context.
+     * This method loads wap-provisioning file and sets the wap-provisioning template as attribute in servlet context.
      *
      * @param servletContextEvent - Uses when servlet communicating with servlet container.
      */
@@ -39,9 +45,27 @@ public class ContextInitializer implements ServletContextListener {
     public void contextInitialized(ServletContextEvent servletContextEvent) {
         ServletContext servletContext = servletContextEvent.getServletContext();
 
-        File wapProvisioningFile = new File(getClass().getClassLoader().getResource(
-                PluginConstants.CertificateEnrolment.WAP_PROVISIONING_XML).getFile());
-        servletContext.setAttribute(PluginConstants.CONTEXT_WAP_PROVISIONING_FILE, wapProvisioningFile);
+        InputStream wapProvisioningStream = getClass().getClassLoader().getResourceAsStream(
+                PluginConstants.CertificateEnrolment.WAP_PROVISIONING_XML);
+        if (wapProvisioningStream == null) {
+            log.error("Cannot find " + PluginConstants.CertificateEnrolment.WAP_PROVISIONING_XML +
+                    " file, Windows certificate enrollment will not be available.");
+            return;
+        }
+        try {
+            servletContext.setAttribute(PluginConstants.CONTEXT_WAP_PROVISIONING_TEMPLATE,
+                    WapProvisioningTemplate.load(wapProvisioningStream));
+        } catch (WAPProvisioningException e) {
+            log.error("Error occurred while loading " + PluginConstants.CertificateEnrolment.WAP_PROVISIONING_XML +
+                    " file, Windows certificate enrollment will not be available.", e);
+        } finally {
+            try {
+                wapProvisioningStream.close();
+            } catch (IOException e) {
+                log.warn("Error occurred while closing " + PluginConstants.CertificateEnrolment.WAP_PROVISIONING_XML +
+                        " file.", e);
+            }
+        }
     }
 
     @Override
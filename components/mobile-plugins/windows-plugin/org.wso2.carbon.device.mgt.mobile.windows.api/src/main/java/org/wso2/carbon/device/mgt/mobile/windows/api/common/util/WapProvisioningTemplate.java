@@ -0,0 +1,230 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * you may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.device.mgt.mobile.windows.api.common.util;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.wso2.carbon.device.mgt.mobile.windows.api.common.PluginConstants;
+import org.wso2.carbon.device.mgt.mobile.windows.api.common.exceptions.WAPProvisioningException;
+import org.xml.sax.SAXException;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Pre-processed wap-provisioning document sent to the devices at the end of the certificate enrollment.
+ * The wap-provisioning file is parsed and serialized once, the result is split into the constant fragments around
+ * the per enrollment values so that rendering the document for a device is a plain concatenation. Instances are
+ * immutable and can be shared between requests.
+ */
+public class WapProvisioningTemplate {
+
+    private static final String PARAMETER_PREFIX = "${wap-provisioning:";
+    private static final String PARAMETER_SUFFIX = "}";
+
+    private final String[] fragments;
+    private final Parameter[] parameters;
+    private final int length;
+
+    /**
+     * Per enrollment values of the wap-provisioning document.
+     */
+    public enum Parameter {
+        CA_CERTIFICATE_FINGERPRINT, CA_CERTIFICATE, SIGNED_CERTIFICATE_FINGERPRINT, SIGNED_CERTIFICATE, DOMAIN,
+        SYNCML_PROVISIONING_ADDRESS, APPAUTH_USERNAME, APPAUTH_PASSWORD, POLLING_FREQUENCY
+    }
+
+    private WapProvisioningTemplate(String[] fragments, Parameter[] parameters) {
+        this.fragments = fragments;
+        this.parameters = parameters;
+        int fragmentsLength = 0;
+        for (String fragment : fragments) {
+            fragmentsLength += fragment.length();
+        }
+        this.length = fragmentsLength;
+    }
+
+    /**
+     * Loads the template from a wap-provisioning document.
+     *
+     * @param wapProvisioningStream - Stream of the wap-provisioning file, it is not closed by this method
+     * @return - Template of the wap-provisioning document
+     * @throws WAPProvisioningException
+     */
+    public static WapProvisioningTemplate load(InputStream wapProvisioningStream) throws WAPProvisioningException {
+        String document;
+        try {
+            DocumentBuilderFactory domFactory = DocumentBuilderFactory.newInstance();
+            domFactory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            domFactory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            Document wapProvisioningDocument = domFactory.newDocumentBuilder().parse(wapProvisioningStream);
+            NodeList wapParm = wapProvisioningDocument.getElementsByTagName(PluginConstants.CertificateEnrolment.PARM);
+
+            Node caCertificatePosition = wapParm.item(PluginConstants.CertificateEnrolment.CA_CERTIFICATE_POSITION);
+            setParameter(getParent(caCertificatePosition), PluginConstants.CertificateEnrolment.TYPE,
+                    Parameter.CA_CERTIFICATE_FINGERPRINT);
+            setParameter(caCertificatePosition, PluginConstants.CertificateEnrolment.VALUE,
+                    Parameter.CA_CERTIFICATE);
+            Node signedCertificatePosition = wapParm.item(PluginConstants.CertificateEnrolment.
+                    SIGNED_CERTIFICATE_POSITION);
+            setParameter(getParent(signedCertificatePosition), PluginConstants.CertificateEnrolment.TYPE,
+                    Parameter.SIGNED_CERTIFICATE_FINGERPRINT);
+            setParameter(signedCertificatePosition, PluginConstants.CertificateEnrolment.VALUE,
+                    Parameter.SIGNED_CERTIFICATE);
+            setParameter(wapParm.item(PluginConstants.CertificateEnrolment.DOMAIN_POSITION),
+                    PluginConstants.CertificateEnrolment.VALUE, Parameter.DOMAIN);
+            setParameter(wapParm.item(PluginConstants.CertificateEnrolment.SYNCML_PROVISIONING_ADDR_POSITION),
+                    PluginConstants.CertificateEnrolment.VALUE, Parameter.SYNCML_PROVISIONING_ADDRESS);
+            setParameter(wapParm.item(PluginConstants.CertificateEnrolment.APPAUTH_USERNAME_POSITION),
+                    PluginConstants.CertificateEnrolment.VALUE, Parameter.APPAUTH_USERNAME);
+            setParameter(wapParm.item(PluginConstants.CertificateEnrolment.APPAUTH_PASSWORD_POSITION),
+                    PluginConstants.CertificateEnrolment.VALUE, Parameter.APPAUTH_PASSWORD);
+            setParameter(wapParm.item(PluginConstants.CertificateEnrolment.POLLING_FREQUENCY_POSITION),
+                    PluginConstants.CertificateEnrolment.VALUE, Parameter.POLLING_FREQUENCY);
+
+            StringWriter stringWriter = new StringWriter();
+            Transformer transformer = TransformerFactory.newInstance().newTransformer();
+            transformer.transform(new DOMSource(wapProvisioningDocument), new StreamResult(stringWriter));
+            document = stringWriter.toString();
+        } catch (ParserConfigurationException e) {
+            throw new WAPProvisioningException("Problem occurred while creating configuration request", e);
+        } catch (SAXException e) {
+            throw new WAPProvisioningException("Error occurred while parsing wap-provisioning.xml file.", e);
+        } catch (TransformerException e) {
+            throw new WAPProvisioningException("Error occurred while transforming wap-provisioning.xml file.", e);
+        } catch (IOException e) {
+            throw new WAPProvisioningException("Error occurred while getting wap-provisioning.xml file.", e);
+        }
+        return tokenize(document);
+    }
+
+    /**
+     * @return - A new map to collect the parameter values of an enrollment
+     */
+    public static Map<Parameter, String> newParameterValues() {
+        return new EnumMap<>(Parameter.class);
+    }
+
+    /**
+     * Renders the wap-provisioning document of an enrollment.
+     *
+     * @param values - Values of the parameters of the template, parameters without a value are left empty
+     * @return - wap-provisioning document
+     */
+    public String render(Map<Parameter, String> values) {
+        StringBuilder document = new StringBuilder(length + 4096);
+        for (int i = 0; i < parameters.length; i++) {
+            document.append(fragments[i]);
+            String value = values.get(parameters[i]);
+            if (value != null) {
+                appendAttributeValue(document, value);
+            }
+        }
+        document.append(fragments[parameters.length]);
+        return document.toString();
+    }
+
+    private static Node getParent(Node node) {
+        return (node == null) ? null : node.getParentNode();
+    }
+
+    private static void setParameter(Node element, String attributeName, Parameter parameter)
+            throws WAPProvisioningException {
+        Node attribute = (element == null) ? null : element.getAttributes().getNamedItem(attributeName);
+        if (attribute == null) {
+            throw new WAPProvisioningException("wap-provisioning.xml file does not have the " + attributeName +
+                    " attribute of " + parameter + ".");
+        }
+        attribute.setTextContent(PARAMETER_PREFIX + parameter.name() + PARAMETER_SUFFIX);
+    }
+
+    private static WapProvisioningTemplate tokenize(String document) throws WAPProvisioningException {
+        Map<Integer, Parameter> parameterPositions = new TreeMap<>();
+        for (Parameter parameter : Parameter.values()) {
+            String placeholder = PARAMETER_PREFIX + parameter.name() + PARAMETER_SUFFIX;
+            int position = document.indexOf(placeholder);
+            if (position < 0 || document.indexOf(placeholder, position + 1) >= 0) {
+                throw new WAPProvisioningException("wap-provisioning.xml file does not have a unique position for " +
+                        parameter + ".");
+            }
+            parameterPositions.put(position, parameter);
+        }
+        List<String> fragments = new ArrayList<>();
+        List<Parameter> parameters = new ArrayList<>();
+        int fragmentStart = 0;
+        for (Map.Entry<Integer, Parameter> parameterPosition : parameterPositions.entrySet()) {
+            fragments.add(document.substring(fragmentStart, parameterPosition.getKey()));
+            parameters.add(parameterPosition.getValue());
+            fragmentStart = parameterPosition.getKey() + PARAMETER_PREFIX.length() +
+                    parameterPosition.getValue().name().length() + PARAMETER_SUFFIX.length();
+        }
+        fragments.add(document.substring(fragmentStart));
+        return new WapProvisioningTemplate(fragments.toArray(new String[fragments.size()]),
+                parameters.toArray(new Parameter[parameters.size()]));
+    }
+
+    /**
+     * Escapes the value the same way the transformer escapes attribute values.
+     */
+    private static void appendAttributeValue(StringBuilder document, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char character = value.charAt(i);
+            switch (character) {
+                case '&':
+                    document.append("&amp;");
+                    break;
+                case '<':
+                    document.append("&lt;");
+                    break;
+                case '>':
+                    document.append("&gt;");
+                    break;
+                case '"':
+                    document.append("&quot;");
+                    break;
+                case '\n':
+                    document.append("&#10;");
+                    break;
+                case '\r':
+                    document.append("&#13;");
+                    break;
+                case '\t':
+                    document.append("&#9;");
+                    break;
+                default:
+                    document.append(character);
+            }
+        }
+    }
+}
@@ -18,9 +18,11 @@
 
 package org.wso2.carbon.device.mgt.mobile.windows.api.operations;
 
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
 import org.wso2.carbon.device.mgt.mobile.windows.api.operations.util.Constants;
+import org.wso2.carbon.device.mgt.mobile.windows.api.operations.util.SyncmlGenerator;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 
 /**
  * Inform an event occurred from device to server.
@@ -46,18 +48,14 @@ public class AlertTag {
         this.data = data;
     }
 
-    public void buildAlertElement(Document doc, Element rootElement) {
-        Element alert = doc.createElement(Constants.ALERT);
-        rootElement.appendChild(alert);
+    public void writeAlertElement(XMLStreamWriter writer) throws XMLStreamException {
+        writer.writeStartElement(Constants.ALERT);
         if (getCommandId() != -1) {
-            Element commandId = doc.createElement(Constants.COMMAND_ID);
-            commandId.appendChild(doc.createTextNode(String.valueOf(getCommandId())));
-            alert.appendChild(commandId);
+            SyncmlGenerator.writeElement(writer, Constants.COMMAND_ID, String.valueOf(getCommandId()));
         }
         if (getData() != null) {
-            Element data = doc.createElement(Constants.DATA);
-            data.appendChild(doc.createTextNode(getData()));
-            alert.appendChild(data);
+            SyncmlGenerator.writeElement(writer, Constants.DATA, getData());
         }
+        writer.writeEndElement();
     }
 }
@@ -18,11 +18,11 @@
 
 package org.wso2.carbon.device.mgt.mobile.windows.api.operations;
 
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
 import org.wso2.carbon.device.mgt.mobile.windows.api.operations.util.Constants;
+import org.wso2.carbon.device.mgt.mobile.windows.api.operations.util.SyncmlGenerator;
 
-import java.util.Iterator;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 import java.util.List;
 
 /**
@@ -57,29 +57,26 @@ public class AtomicTag {
         this.commandId = commandId;
     }
 
-    public void buildAtomicElement(Document doc, Element rootElement) {
-        Element atomic = doc.createElement(Constants.ATOMIC);
+    public void writeAtomicElement(XMLStreamWriter writer) throws XMLStreamException {
+        // the replaces are only sent as a part of an atomic command which has adds
         if (getAdds() != null) {
-            rootElement.appendChild(atomic);
+            writer.writeStartElement(Constants.ATOMIC);
             if (getCommandId() != -1) {
-                Element commandId = doc.createElement(Constants.COMMAND_ID);
-                commandId.appendChild(doc.createTextNode(String.valueOf(getCommandId())));
-                atomic.appendChild(commandId);
+                SyncmlGenerator.writeElement(writer, Constants.COMMAND_ID, String.valueOf(getCommandId()));
             }
-            for (Iterator<AddTag> addIterator = getAdds().iterator(); addIterator.hasNext(); ) {
-                AddTag add = addIterator.next();
+            for (AddTag add : getAdds()) {
                 if (add != null) {
-                    add.buildAddElement(doc, atomic);
+                    add.writeAddElement(writer);
                 }
             }
-        }
-        if (getReplaces() != null) {
-            for (Iterator<ReplaceTag> replaceIterator = getReplaces().iterator(); replaceIterator.hasNext(); ) {
-                ReplaceTag add = replaceIterator.next();
-                if (add != null) {
-                    add.buildReplaceElement(doc, atomic);
+            if (getReplaces() != null) {
+                for (ReplaceTag replace : getReplaces()) {
+                    if (replace != null) {
+                        replace.writeReplaceElement(writer);
+                    }
                 }
             }
+            writer.writeEndElement();
         }
     }
 }
@@ -18,10 +18,11 @@
 
 package org.wso2.carbon.device.mgt.mobile.windows.api.operations;
 
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
 import org.wso2.carbon.device.mgt.mobile.windows.api.operations.util.Constants;
 
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
 /**
  * Challenge data pass through the device and Device Management server for the security purpose.
  */
@@ -36,11 +37,11 @@ public class ChallengeTag {
         this.meta = meta;
     }
 
-    public void buildChallengeElement(Document doc, Element rootElement) {
-        Element challenge = doc.createElement(Constants.CHALLENGE);
+    public void writeChallengeElement(XMLStreamWriter writer) throws XMLStreamException {
+        writer.writeStartElement(Constants.CHALLENGE);
         if (getMeta() != null) {
-            getMeta().buildMetaElement(doc, challenge);
+            getMeta().writeMetaElement(writer);
         }
-        rootElement.appendChild(challenge);
+        writer.writeEndElement();
     }
 }
@@ -18,9 +18,11 @@
 
 package org.wso2.carbon.device.mgt.mobile.windows.api.operations;
 
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
 import org.wso2.carbon.device.mgt.mobile.windows.api.operations.util.Constants;
+import org.wso2.carbon.device.mgt.mobile.windows.api.operations.util.SyncmlGenerator;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 
 /**
  * Credentials passed between the device and the server for security purposes.
@@ -45,16 +47,14 @@ public class CredentialTag {
         this.data = data;
     }
 
-    public void buildCredentialElement(Document doc, Element rootElement) {
-        Element credentials = doc.createElement(Constants.CREDENTIAL);
-        rootElement.appendChild(credentials);
+    public void writeCredentialElement(XMLStreamWriter writer) throws XMLStreamException {
+        writer.writeStartElement(Constants.CREDENTIAL);
         if (getMeta() != null) {
-            getMeta().buildMetaElement(doc, credentials);
+            getMeta().writeMetaElement(writer);
         }
         if (getData() != null) {
-            Element data = doc.createElement(Constants.DATA);
-            data.appendChild(doc.createTextNode(getData()));
-            credentials.appendChild(data);
+            SyncmlGenerator.writeElement(writer, Constants.DATA, getData());
         }
+        writer.writeEndElement();
     }
 }
@@ -18,11 +18,11 @@
 
 package org.wso2.carbon.device.mgt.mobile.windows.api.operations;
 
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
 import org.wso2.carbon.device.mgt.mobile.windows.api.operations.util.Constants;
+import org.wso2.carbon.device.mgt.mobile.windows.api.operations.util.SyncmlGenerator;
 
-import java.util.Iterator;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 import java.util.List;
 
 /**
@@ -48,21 +48,18 @@ public class DeleteTag {
         this.items = items;
     }
 
-    public void buildDeleteElement(Document doc, Element rootElement) {
+    public void writeDeleteElement(XMLStreamWriter writer) throws XMLStreamException {
         if (getItems() != null) {
-            Element delete = doc.createElement(Constants.DELETE);
-            rootElement.appendChild(delete);
+            writer.writeStartElement(Constants.DELETE);
             if (getCommandId() != -1) {
-                Element commandId = doc.createElement(Constants.COMMAND_ID);
-                commandId.appendChild(doc.createTextNode(String.valueOf(getCommandId())));
-                delete.appendChild(commandId);
+                SyncmlGenerator.writeElement(writer, Constants.COMMAND_ID, String.valueOf(getCommandId()));
             }
-            for (Iterator<ItemTag> itemIterator = getItems().iterator(); itemIterator.hasNext(); ) {
-                ItemTag item = itemIterator.next();
+            for (ItemTag item : getItems()) {
                 if (item != null) {
-                    item.buildItemElement(doc, delete);
+                    item.writeItemElement(writer);
                 }
             }
+            writer.writeEndElement();
         }
     }
 }
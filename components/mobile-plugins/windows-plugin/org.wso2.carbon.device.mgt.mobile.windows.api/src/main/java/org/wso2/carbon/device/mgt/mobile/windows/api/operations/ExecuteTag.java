@@ -18,11 +18,11 @@
 
 package org.wso2.carbon.device.mgt.mobile.windows.api.operations;
 
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
 import org.wso2.carbon.device.mgt.mobile.windows.api.operations.util.Constants;
+import org.wso2.carbon.device.mgt.mobile.windows.api.operations.util.SyncmlGenerator;
 
-import java.util.Iterator;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 import java.util.List;
 
 /**
@@ -48,22 +48,18 @@ public class ExecuteTag {
         this.items = items;
     }
 
-    public void buildExecElement(Document doc, Element rootElement) {
+    public void writeExecElement(XMLStreamWriter writer) throws XMLStreamException {
         if (getItems() != null) {
-            Element exec = doc.createElement(Constants.EXECUTE);
-            rootElement.appendChild(exec);
+            writer.writeStartElement(Constants.EXECUTE);
             if (getCommandId() != -1) {
-                Element commandId = doc.createElement(Constants.COMMAND_ID);
-                commandId.appendChild(doc.createTextNode(String.valueOf(getCommandId())));
-                exec.appendChild(commandId);
+                SyncmlGenerator.writeElement(writer, Constants.COMMAND_ID, String.valueOf(getCommandId()));
             }
-            for (Iterator<ItemTag> itemIterator = getItems().iterator(); itemIterator.hasNext(); ) {
-                ItemTag item = itemIterator.next();
+            for (ItemTag item : getItems()) {
                 if (item != null) {
-                    item.buildItemElement(doc, exec);
+                    item.writeItemElement(writer);
                 }
             }
+            writer.writeEndElement();
         }
     }
-
 }
@@ -18,9 +18,11 @@
 
 package org.wso2.carbon.device.mgt.mobile.windows.api.operations;
 
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
 import org.wso2.carbon.device.mgt.mobile.windows.api.operations.util.Constants;
+import org.wso2.carbon.device.mgt.mobile.windows.api.operations.util.SyncmlGenerator;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 
 /**
  * Represents an items that should be retrieved from the device or a command.
@@ -64,27 +66,20 @@ public class ItemTag {
         this.target = target;
     }
 
-    public void buildItemElement(Document doc, Element rootElement) {
-        Element item = doc.createElement(Constants.ITEM);
-        rootElement.appendChild(item);
-
-        if (getTarget() != null || getSource() != null) {
-
-            if (getTarget() != null) {
-                getTarget().buildTargetElement(doc, item);
-            }
-            if (getSource() != null) {
-                getSource().buildSourceElement(doc, item);
-            }
+    public void writeItemElement(XMLStreamWriter writer) throws XMLStreamException {
+        writer.writeStartElement(Constants.ITEM);
+        if (getTarget() != null) {
+            getTarget().writeTargetElement(writer);
+        }
+        if (getSource() != null) {
+            getSource().writeSourceElement(writer);
         }
         if (getData() != null) {
-            Element data = doc.createElement(Constants.DATA);
-            data.appendChild(doc.createTextNode(getData()));
-            item.appendChild(data);
+            SyncmlGenerator.writeElement(writer, Constants.DATA, getData());
         }
         if (getMeta() != null) {
-            getMeta().buildMetaElement(doc, item);
+            getMeta().writeMetaElement(writer);
         }
-
+        writer.writeEndElement();
     }
 }
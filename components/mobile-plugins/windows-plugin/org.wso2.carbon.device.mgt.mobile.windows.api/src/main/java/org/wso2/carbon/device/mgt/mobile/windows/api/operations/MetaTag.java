@@ -18,11 +18,11 @@
 
 package org.wso2.carbon.device.mgt.mobile.windows.api.operations;
 
-import org.w3c.dom.Attr;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
 import org.wso2.carbon.device.mgt.mobile.windows.api.operations.util.Constants;
 
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
 /**
  * MetaTag data related to credentials.
  */
@@ -56,33 +56,25 @@ public class MetaTag {
         this.type = type;
     }
 
-    public void buildMetaElement(Document doc, Element rootElement) {
-        Element meta = doc.createElement(Constants.META);
-        rootElement.appendChild(meta);
+    public void writeMetaElement(XMLStreamWriter writer) throws XMLStreamException {
+        writer.writeStartElement(Constants.META);
         if (getFormat() != null) {
-            Element format = doc.createElement(Constants.FORMAT);
-            format.appendChild(doc.createTextNode(getFormat()));
-            Attr attr = doc.createAttribute(Constants.XMLNS);
-            attr.setValue(Constants.META_NAMESPACE);
-            format.setAttributeNode(attr);
-            meta.appendChild(format);
+            writeMetInfElement(writer, Constants.FORMAT, getFormat());
         }
         if (getType() != null) {
-            Element type = doc.createElement(Constants.TYPE);
-            type.appendChild(doc.createTextNode(getType()));
-            Attr attr = doc.createAttribute(Constants.XMLNS);
-            attr.setValue(Constants.META_NAMESPACE);
-            type.setAttributeNode(attr);
-            meta.appendChild(type);
+            writeMetInfElement(writer, Constants.TYPE, getType());
         }
         if (getNextNonce() != null) {
-            Element nextNonce = doc.createElement(Constants.NEXTNONCE);
-            nextNonce.appendChild(doc.createTextNode(getNextNonce()));
-            Attr attr = doc.createAttribute(Constants.XMLNS);
-            attr.setValue(Constants.META_NAMESPACE);
-            nextNonce.setAttributeNode(attr);
-            meta.appendChild(nextNonce);
+            writeMetInfElement(writer, Constants.NEXTNONCE, getNextNonce());
         }
+        writer.writeEndElement();
+    }
 
+    private static void writeMetInfElement(XMLStreamWriter writer, String name, String value)
+            throws XMLStreamException {
+        writer.writeStartElement(name);
+        writer.writeDefaultNamespace(Constants.META_NAMESPACE);
+        writer.writeCharacters(value);
+        writer.writeEndElement();
     }
 }
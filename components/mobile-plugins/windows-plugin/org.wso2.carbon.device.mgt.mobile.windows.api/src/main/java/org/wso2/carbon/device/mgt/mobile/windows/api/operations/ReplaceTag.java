@@ -18,11 +18,11 @@
 
 package org.wso2.carbon.device.mgt.mobile.windows.api.operations;
 
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
 import org.wso2.carbon.device.mgt.mobile.windows.api.operations.util.Constants;
+import org.wso2.carbon.device.mgt.mobile.windows.api.operations.util.SyncmlGenerator;
 
-import java.util.Iterator;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 import java.util.List;
 
 /**
@@ -48,23 +48,18 @@ public class ReplaceTag {
         this.items = items;
     }
 
-    public void buildReplaceElement(Document doc, Element rootElement) {
+    public void writeReplaceElement(XMLStreamWriter writer) throws XMLStreamException {
         if (getItems() != null) {
-            Element replace = doc.createElement(Constants.REPLACE);
-            rootElement.appendChild(replace);
+            writer.writeStartElement(Constants.REPLACE);
             if (getCommandId() != -1) {
-                Element commandId = doc.createElement(Constants.COMMAND_ID);
-                commandId.appendChild(doc.createTextNode(String.valueOf(getCommandId())));
-                replace.appendChild(commandId);
+                SyncmlGenerator.writeElement(writer, Constants.COMMAND_ID, String.valueOf(getCommandId()));
             }
-            if (getItems() != null) {
-                for (Iterator<ItemTag> itemIterator = getItems().iterator(); itemIterator.hasNext(); ) {
-                    ItemTag item = itemIterator.next();
-                    if (item != null) {
-                        item.buildItemElement(doc, replace);
-                    }
+            for (ItemTag item : getItems()) {
+                if (item != null) {
+                    item.writeItemElement(writer);
                 }
             }
+            writer.writeEndElement();
         }
     }
 }
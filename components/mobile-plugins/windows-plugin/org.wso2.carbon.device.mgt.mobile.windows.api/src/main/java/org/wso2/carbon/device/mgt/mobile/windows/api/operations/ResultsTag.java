@@ -18,11 +18,11 @@
 
 package org.wso2.carbon.device.mgt.mobile.windows.api.operations;
 
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
 import org.wso2.carbon.device.mgt.mobile.windows.api.operations.util.Constants;
+import org.wso2.carbon.device.mgt.mobile.windows.api.operations.util.SyncmlGenerator;
 
-import java.util.Iterator;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 import java.util.List;
 
 /**
@@ -66,31 +66,24 @@ public class ResultsTag {
         this.item = item;
     }
 
-    public void buildResultElement(Document doc, Element rootElement) {
-        Element results = doc.createElement(Constants.RESULTS);
-        rootElement.appendChild(results);
+    public void writeResultElement(XMLStreamWriter writer) throws XMLStreamException {
+        writer.writeStartElement(Constants.RESULTS);
         if (getCommandId() != -1) {
-            Element commandId = doc.createElement(Constants.COMMAND_ID);
-            commandId.appendChild(doc.createTextNode(String.valueOf(getCommandId())));
-            results.appendChild(commandId);
+            SyncmlGenerator.writeElement(writer, Constants.COMMAND_ID, String.valueOf(getCommandId()));
         }
         if (getMessageReference() != -1) {
-            Element messageReference = doc.createElement(Constants.MESSAGE_REFERENCE);
-            messageReference.appendChild(doc.createTextNode(String.valueOf(getMessageReference())));
-            results.appendChild(messageReference);
+            SyncmlGenerator.writeElement(writer, Constants.MESSAGE_REFERENCE, String.valueOf(getMessageReference()));
         }
         if (getCommandReference() != -1) {
-            Element messageReference = doc.createElement(Constants.COMMAND_REFERENCE);
-            messageReference.appendChild(doc.createTextNode(String.valueOf(getCommandReference())));
-            results.appendChild(messageReference);
+            SyncmlGenerator.writeElement(writer, Constants.COMMAND_REFERENCE, String.valueOf(getCommandReference()));
         }
         if (getItem() != null) {
-            for (Iterator<ItemTag> itemIterator = getItem().iterator(); itemIterator.hasNext(); ) {
-                ItemTag item = itemIterator.next();
+            for (ItemTag item : getItem()) {
                 if (item != null) {
-                    item.buildItemElement(doc, results);
+                    item.writeItemElement(writer);
                 }
             }
         }
+        writer.writeEndElement();
     }
 }
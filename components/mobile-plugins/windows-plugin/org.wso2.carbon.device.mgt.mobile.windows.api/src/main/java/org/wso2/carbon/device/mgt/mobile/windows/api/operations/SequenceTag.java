@@ -18,11 +18,11 @@
 
 package org.wso2.carbon.device.mgt.mobile.windows.api.operations;
 
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
 import org.wso2.carbon.device.mgt.mobile.windows.api.operations.util.Constants;
+import org.wso2.carbon.device.mgt.mobile.windows.api.operations.util.SyncmlGenerator;
 
-import java.util.Iterator;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 import java.util.List;
 
 /**
@@ -85,34 +85,30 @@ public class SequenceTag {
         this.get = get;
     }
 
-    public void buildSequenceElement(Document doc, Element rootElement) {
-        Element sequence = doc.createElement(Constants.SEQUENCE);
-        rootElement.appendChild(sequence);
+    public void writeSequenceElement(XMLStreamWriter writer) throws XMLStreamException {
+        writer.writeStartElement(Constants.SEQUENCE);
         if (getCommandId() != -1) {
-            Element commandId = doc.createElement(Constants.COMMAND_ID);
-            commandId.appendChild(doc.createTextNode(String.valueOf(getCommandId())));
-            sequence.appendChild(commandId);
+            SyncmlGenerator.writeElement(writer, Constants.COMMAND_ID, String.valueOf(getCommandId()));
         }
         if (getExec() != null) {
-            getExec().buildExecElement(doc, sequence);
+            getExec().writeExecElement(writer);
         }
         if (getGet() != null) {
-            getGet().buildGetElement(doc, sequence);
+            getGet().writeGetElement(writer);
         }
         if (getReplaces() != null) {
-            for (Iterator<ReplaceTag> replaceIterator = getReplaces().iterator(); replaceIterator.hasNext(); ) {
-                ReplaceTag replace = replaceIterator.next();
+            for (ReplaceTag replace : getReplaces()) {
                 if (replace != null) {
-                    replace.buildReplaceElement(doc, sequence);
+                    replace.writeReplaceElement(writer);
                 }
             }
         }
         if (getDeleteTag() != null) {
-            getDeleteTag().buildDeleteElement(doc, sequence);
+            getDeleteTag().writeDeleteElement(writer);
         }
         if (getAtomicTag() != null) {
-            getAtomicTag().buildAtomicElement(doc, sequence);
+            getAtomicTag().writeAtomicElement(writer);
         }
-
+        writer.writeEndElement();
     }
 }
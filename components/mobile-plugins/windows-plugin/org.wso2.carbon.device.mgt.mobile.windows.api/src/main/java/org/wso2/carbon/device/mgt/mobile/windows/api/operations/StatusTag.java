@@ -18,9 +18,11 @@
 
 package org.wso2.carbon.device.mgt.mobile.windows.api.operations;
 
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
 import org.wso2.carbon.device.mgt.mobile.windows.api.operations.util.Constants;
+import org.wso2.carbon.device.mgt.mobile.windows.api.operations.util.SyncmlGenerator;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 
 /**
  * Status of a previously sent message to device;
@@ -114,41 +116,29 @@ public class StatusTag {
         this.data = data;
     }
 
-    public void buildStatusElement(Document doc, Element rootElement) {
-        Element status = doc.createElement(Constants.STATUS);
-        rootElement.appendChild(status);
+    public void writeStatusElement(XMLStreamWriter writer) throws XMLStreamException {
+        writer.writeStartElement(Constants.STATUS);
         if (getCommandId() != -1) {
-            Element commandId = doc.createElement(Constants.COMMAND_ID);
-            commandId.appendChild(doc.createTextNode(String.valueOf(getCommandId())));
-            status.appendChild(commandId);
+            SyncmlGenerator.writeElement(writer, Constants.COMMAND_ID, String.valueOf(getCommandId()));
         }
         if (getMessageReference() != -1) {
-            Element msgReference = doc.createElement(Constants.MESSAGE_REFERENCE);
-            msgReference.appendChild(doc.createTextNode(String.valueOf(getMessageReference())));
-            status.appendChild(msgReference);
+            SyncmlGenerator.writeElement(writer, Constants.MESSAGE_REFERENCE, String.valueOf(getMessageReference()));
         }
         if (getCommandReference() != -1) {
-            Element commandReference = doc.createElement(Constants.COMMAND_REFERENCE);
-            commandReference.appendChild(doc.createTextNode(String.valueOf(getCommandReference())));
-            status.appendChild(commandReference);
+            SyncmlGenerator.writeElement(writer, Constants.COMMAND_REFERENCE, String.valueOf(getCommandReference()));
         }
         if (getCommand() != null) {
-            Element command = doc.createElement(Constants.COMMAND);
-            command.appendChild(doc.createTextNode(getCommand()));
-            status.appendChild(command);
+            SyncmlGenerator.writeElement(writer, Constants.COMMAND, getCommand());
         }
         if (getTargetReference() != null) {
-            Element targetReference = doc.createElement(Constants.TARGET_REFERENCE);
-            targetReference.appendChild(doc.createTextNode(getTargetReference()));
-            status.appendChild(targetReference);
+            SyncmlGenerator.writeElement(writer, Constants.TARGET_REFERENCE, getTargetReference());
         }
         if (getChallenge() != null) {
-            getChallenge().buildChallengeElement(doc, status);
+            getChallenge().writeChallengeElement(writer);
         }
         if (getData() != null) {
-            Element data = doc.createElement(Constants.DATA);
-            data.appendChild(doc.createTextNode(getData()));
-            status.appendChild(data);
+            SyncmlGenerator.writeElement(writer, Constants.DATA, getData());
         }
+        writer.writeEndElement();
     }
 }
@@ -18,11 +18,13 @@
 
 package org.wso2.carbon.device.mgt.mobile.windows.api.operations;
 
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
 import org.wso2.carbon.device.mgt.mobile.windows.api.operations.util.Constants;
+import org.wso2.carbon.device.mgt.mobile.windows.api.operations.util.SyncmlFragment;
 
-import java.util.Iterator;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 
 /**
@@ -37,6 +39,9 @@ public class SyncmlBody {
     ResultsTag results;
     SequenceTag sequence;
     AtomicTag atomicTag;
+    SyncmlFragment getFragment;
+    List<SyncmlFragment> execFragments;
+    SyncmlFragment sequenceFragment;
 
     public AtomicTag getAtomicTag() {
         return atomicTag;
@@ -52,6 +57,30 @@ public class SyncmlBody {
 
     public void setSequence(SequenceTag sequence) {
         this.sequence = sequence;
+        this.sequenceFragment = null;
+    }
+
+    public SyncmlFragment getSequenceFragment() {
+        return sequenceFragment;
+    }
+
+    /**
+     * Sets a precompiled sequence, which is written in place of the sequence tag.
+     */
+    public void setSequenceFragment(SyncmlFragment sequenceFragment) {
+        this.sequenceFragment = sequenceFragment;
+        this.sequence = null;
+    }
+
+    public List<SyncmlFragment> getExecFragments() {
+        return execFragments;
+    }
+
+    /**
+     * Sets precompiled exec commands, which are written after the exec tags.
+     */
+    public void setExecFragments(List<SyncmlFragment> execFragments) {
+        this.execFragments = execFragments;
     }
 
     public List<ExecuteTag> getExec() {
@@ -100,45 +129,66 @@ public class SyncmlBody {
 
     public void setGet(GetTag get) {
         this.getCommands = get;
+        this.getFragment = null;
+    }
+
+    public SyncmlFragment getGetFragment() {
+        return getFragment;
     }
 
-    public void buildBodyElement(Document doc, Element rootElement) {
+    /**
+     * Sets a precompiled get command, which is written in place of the get tag.
+     */
+    public void setGetFragment(SyncmlFragment getFragment) {
+        this.getFragment = getFragment;
+        this.getCommands = null;
+    }
 
-        Element syncBody = doc.createElement(Constants.SYNC_BODY);
-        rootElement.appendChild(syncBody);
+    public void writeBodyElement(XMLStreamWriter writer, OutputStream outputStream)
+            throws XMLStreamException, IOException {
+        writer.writeStartElement(Constants.SYNC_BODY);
         if (getStatus() != null) {
-            for (int x = 0; x < getStatus().size(); x++) {
-                if (getStatus().get(x) != null) {
-                    getStatus().get(x).buildStatusElement(doc, syncBody);
+            for (StatusTag status : getStatus()) {
+                if (status != null) {
+                    status.writeStatusElement(writer);
                 }
             }
         }
         if (getAlert() != null) {
-            getAlert().buildAlertElement(doc, syncBody);
+            getAlert().writeAlertElement(writer);
         }
         if (getResults() != null) {
-            getResults().buildResultElement(doc, syncBody);
+            getResults().writeResultElement(writer);
         }
-        if (getGet() != null) {
-            getGet().buildGetElement(doc, syncBody);
+        if (getGetFragment() != null) {
+            getGetFragment().write(writer, outputStream);
+        } else if (getGet() != null) {
+            getGet().writeGetElement(writer);
         }
         if (getReplace() != null) {
-            getReplace().buildReplaceElement(doc, syncBody);
+            getReplace().writeReplaceElement(writer);
         }
         if (getExec() != null) {
-            for (Iterator<ExecuteTag> execIterator = getExec().iterator(); execIterator.hasNext(); ) {
-                ExecuteTag exec = execIterator.next();
+            for (ExecuteTag exec : getExec()) {
                 if (exec != null) {
-                    exec.buildExecElement(doc, syncBody);
+                    exec.writeExecElement(writer);
                 }
             }
         }
-        if (getSequence() != null) {
-            getSequence().buildSequenceElement(doc, syncBody);
+        if (getExecFragments() != null) {
+            for (SyncmlFragment execFragment : getExecFragments()) {
+                execFragment.write(writer, outputStream);
+            }
+        }
+        if (getSequenceFragment() != null) {
+            getSequenceFragment().write(writer, outputStream);
+        } else if (getSequence() != null) {
+            getSequence().writeSequenceElement(writer);
         }
         if (getAtomicTag() != null) {
-            getAtomicTag().buildAtomicElement(doc, syncBody);
+            getAtomicTag().writeAtomicElement(writer);
         }
-        syncBody.appendChild(doc.createElement(Constants.FINAL));
+        writer.writeEmptyElement(Constants.FINAL);
+        writer.writeEndElement();
     }
 }
@@ -18,8 +18,10 @@
 
 package org.wso2.carbon.device.mgt.mobile.windows.api.operations;
 
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.IOException;
+import java.io.OutputStream;
 
 /**
  * Represents a base format of a syncml document
@@ -44,12 +46,13 @@ public class SyncmlDocument {
         this.body = body;
     }
 
-    public void buildDocument(Document doc, Element rootElement) {
+    public void writeDocument(XMLStreamWriter writer, OutputStream outputStream)
+            throws XMLStreamException, IOException {
         if (getHeader() != null) {
-            getHeader().buildSyncmlHeaderElement(doc, rootElement);
+            getHeader().writeSyncmlHeaderElement(writer);
         }
         if (getBody() != null) {
-            getBody().buildBodyElement(doc, rootElement);
+            getBody().writeBodyElement(writer, outputStream);
         }
     }
 }
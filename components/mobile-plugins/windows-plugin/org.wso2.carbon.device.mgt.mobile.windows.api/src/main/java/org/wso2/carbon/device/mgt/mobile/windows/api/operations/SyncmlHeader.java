@@ -18,9 +18,11 @@
 
 package org.wso2.carbon.device.mgt.mobile.windows.api.operations;
 
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
 import org.wso2.carbon.device.mgt.mobile.windows.api.operations.util.Constants;
+import org.wso2.carbon.device.mgt.mobile.windows.api.operations.util.SyncmlGenerator;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 
 /**
  * Represents the header details of a syncml.
@@ -81,34 +83,25 @@ public class SyncmlHeader {
         this.source = source;
     }
 
-    public void buildSyncmlHeaderElement(Document doc, Element rootElement) {
-        Element syncHdr = doc.createElement(Constants.SYNC_HDR);
-        rootElement.appendChild(syncHdr);
-        Element verDTD = doc.createElement(Constants.VER_DTD);
-        verDTD.appendChild(doc.createTextNode(Constants.VER_DTD_VALUE));
-        syncHdr.appendChild(verDTD);
-
-        Element verProtocol = doc.createElement(Constants.VER_PROTOCOL);
-        verProtocol.appendChild(doc.createTextNode(Constants.VER_PROTOCOL_VALUE));
-        syncHdr.appendChild(verProtocol);
+    public void writeSyncmlHeaderElement(XMLStreamWriter writer) throws XMLStreamException {
+        writer.writeStartElement(Constants.SYNC_HDR);
+        SyncmlGenerator.writeElement(writer, Constants.VER_DTD, Constants.VER_DTD_VALUE);
+        SyncmlGenerator.writeElement(writer, Constants.VER_PROTOCOL, Constants.VER_PROTOCOL_VALUE);
         if (getHexadecimalSessionId() != null) {
-            Element sessionId = doc.createElement(Constants.SESSION_ID);
-            sessionId.appendChild(doc.createTextNode(getHexadecimalSessionId()));
-            syncHdr.appendChild(sessionId);
+            SyncmlGenerator.writeElement(writer, Constants.SESSION_ID, getHexadecimalSessionId());
         }
         if (getMsgID() != -1) {
-            Element msgId = doc.createElement(Constants.MESSAGE_ID);
-            msgId.appendChild(doc.createTextNode(String.valueOf(getMsgID())));
-            syncHdr.appendChild(msgId);
+            SyncmlGenerator.writeElement(writer, Constants.MESSAGE_ID, String.valueOf(getMsgID()));
         }
         if (getTarget() != null) {
-            getTarget().buildTargetElement(doc, syncHdr);
+            getTarget().writeTargetElement(writer);
         }
         if (getSource() != null) {
-            getSource().buildSourceElement(doc, syncHdr);
+            getSource().writeSourceElement(writer);
         }
         if (getCredential() != null) {
-            getCredential().buildCredentialElement(doc, syncHdr);
+            getCredential().writeCredentialElement(writer);
         }
+        writer.writeEndElement();
     }
 }
@@ -18,9 +18,11 @@
 
 package org.wso2.carbon.device.mgt.mobile.windows.api.operations;
 
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
 import org.wso2.carbon.device.mgt.mobile.windows.api.operations.util.Constants;
+import org.wso2.carbon.device.mgt.mobile.windows.api.operations.util.SyncmlGenerator;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 
 /**
  * Target details of syncml header's.
@@ -46,18 +48,14 @@ public class TargetTag {
         LocName = locName;
     }
 
-    public void buildTargetElement(Document doc, Element rootElement) {
-        Element target = doc.createElement(Constants.TARGET);
-        rootElement.appendChild(target);
+    public void writeTargetElement(XMLStreamWriter writer) throws XMLStreamException {
+        writer.writeStartElement(Constants.TARGET);
         if (getLocURI() != null) {
-            Element locURI = doc.createElement(Constants.LOC_URI);
-            locURI.appendChild(doc.createTextNode(getLocURI()));
-            target.appendChild(locURI);
+            SyncmlGenerator.writeElement(writer, Constants.LOC_URI, getLocURI());
         }
         if (getLocName() != null) {
-            Element locName = doc.createElement(Constants.LOC_NAME);
-            locName.appendChild(doc.createTextNode(getLocName()));
-            target.appendChild(locName);
+            SyncmlGenerator.writeElement(writer, Constants.LOC_NAME, getLocName());
         }
+        writer.writeEndElement();
     }
 }
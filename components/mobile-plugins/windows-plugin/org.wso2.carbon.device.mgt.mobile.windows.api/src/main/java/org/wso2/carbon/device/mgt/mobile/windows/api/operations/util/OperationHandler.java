@@ -48,7 +48,10 @@ import org.wso2.carbon.device.mgt.mobile.windows.api.services.syncml.beans.Profi
 import org.wso2.carbon.policy.mgt.common.PolicyManagementException;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.wso2.carbon.device.mgt.mobile.windows.api.common.util.WindowsAPIUtils.convertToDeviceIdentifierObject;
 
@@ -63,50 +66,27 @@ public class OperationHandler {
     /**
      * Update the operations using device status payload.
      *
-     * @param status           Client side status for the specific operations.
-     * @param syncmlDocument   syncml payload for operation status which parse through  the syncml engine.
-     * @param deviceIdentifier specific device identifier for each device.
+     * @param status            Client side status for the specific operations.
+     * @param deviceIdentifier  specific device identifier for each device.
+     * @param pendingOperations pending operations of the device, keyed by the operation id.
+     * @param updatedOperations operations whose status has been changed.
      * @throws OperationManagementException
      */
-    public void updateDeviceOperations(StatusTag status, SyncmlDocument syncmlDocument,
-                                       DeviceIdentifier deviceIdentifier) throws OperationManagementException {
-        List<? extends Operation> pendingDataOperations;
-        try {
-            pendingDataOperations = WindowsAPIUtils.getPendingOperations(deviceIdentifier);
-
-            if (Constants.SyncMLResponseCodes.ACCEPTED.equals(status.getData()) ||
-                    (Constants.SyncMLResponseCodes.ACCEPTED_FOR_PROCESSING.equals(status.getData()))) {
-                for (Operation operation : pendingDataOperations) {
-                    if (operation.getId() == status.getCommandReference()) {
-                        operation.setStatus(Operation.Status.COMPLETED);
-                    }
-                }
-                if (syncmlDocument.getHeader().getSource().getLocURI() != null) {
-                    updateStatus(syncmlDocument.getHeader().getSource().getLocURI(), pendingDataOperations);
-                }
-            } else if (Constants.SyncMLResponseCodes.PIN_NOTFOUND.equals(status.getData())) {
-                for (Operation operation : pendingDataOperations) {
-                    if (operation.getId() == status.getCommandReference() &&
-                            (PluginConstants.OperationCodes.DEVICE_LOCK.equals(operation.getCode()))) {
-                        operation.setStatus(Operation.Status.ERROR);
-                        if (syncmlDocument.getHeader().getSource().getLocURI() != null) {
-                            updateStatus(syncmlDocument.getHeader().getSource().getLocURI(), pendingDataOperations);
-                        }
-                        NotificationManagementService nmService = WindowsAPIUtils.getNotificationManagementService();
-                        Notification lockResetNotification = new Notification();
-                        lockResetNotification.setOperationId(status.getCommandReference());
-                        lockResetNotification.setStatus(String.valueOf(Notification.Status.NEW));
-
-                        lockResetNotification.setDescription(
-                                Constants.SyncMLResponseCodes.LOCK_RESET_NOTIFICATION);
-                        nmService.addNotification(deviceIdentifier, lockResetNotification);
-                    }
-                }
-            }
-        } catch (DeviceManagementException e) {
-            throw new OperationManagementException("Error occurred in getting pending operations.");
-        } catch (NotificationManagementException e) {
-            throw new OperationManagementException("Error occurred while adding notification", e);
+    private void updateDeviceOperations(StatusTag status, DeviceIdentifier deviceIdentifier,
+                                        Map<Integer, Operation> pendingOperations,
+                                        Map<Integer, Operation> updatedOperations)
+            throws OperationManagementException {
+        Operation operation = pendingOperations.get(status.getCommandReference());
+        if (operation == null) {
+            return;
+        }
+        if (Constants.SyncMLResponseCodes.ACCEPTED.equals(status.getData()) ||
+                (Constants.SyncMLResponseCodes.ACCEPTED_FOR_PROCESSING.equals(status.getData()))) {
+            setStatus(operation, Operation.Status.COMPLETED, updatedOperations);
+        } else if (Constants.SyncMLResponseCodes.PIN_NOTFOUND.equals(status.getData()) &&
+                (PluginConstants.OperationCodes.DEVICE_LOCK.equals(operation.getCode()))) {
+            setStatus(operation, Operation.Status.ERROR, updatedOperations);
+            addLockResetNotification(status, deviceIdentifier);
         }
     }
 
@@ -117,7 +97,7 @@ public class OperationHandler {
      * @param operations operation list to be update.
      * @throws OperationManagementException
      */
-    public static void updateStatus(String deviceId, List<? extends Operation> operations)
+    public static void updateStatus(String deviceId, Collection<? extends Operation> operations)
             throws OperationManagementException {
         for (Operation operation : operations) {
             WindowsAPIUtils.updateOperation(deviceId, operation);
@@ -130,147 +110,84 @@ public class OperationHandler {
     /**
      * Update Status of the lock operation.
      *
-     * @param status           Status of the operation.
-     * @param syncmlDocument   parsed syncml payload.
-     * @param deviceIdentifier Device Id.
+     * @param status            Status of the operation.
+     * @param deviceIdentifier  Device Id.
+     * @param pendingOperations pending operations of the device, keyed by the operation id.
+     * @param updatedOperations operations whose status has been changed.
      * @throws OperationManagementException
      */
-    public void updateLockOperation(StatusTag status, SyncmlDocument syncmlDocument, DeviceIdentifier deviceIdentifier)
+    private void updateLockOperation(StatusTag status, DeviceIdentifier deviceIdentifier,
+                                     Map<Integer, Operation> pendingOperations,
+                                     Map<Integer, Operation> updatedOperations)
             throws OperationManagementException {
-        List<? extends Operation> pendingDataOperations;
-        try {
-            pendingDataOperations = WindowsAPIUtils.getPendingOperations(deviceIdentifier);
-            if (Constants.SyncMLResponseCodes.ACCEPTED.equals(status.getData())) {
-                for (Operation operation : pendingDataOperations) {
-                    if ((OperationCode.Command.DEVICE_LOCK.getCode().equals(operation.getCode()))
-                            && operation.getId() == status.getCommandReference()) {
-                        operation.setStatus(Operation.Status.COMPLETED);
-                        updateStatus(syncmlDocument.getHeader().getSource().getLocURI(), pendingDataOperations);
-                    }
-                }
-            }
-            if (Constants.SyncMLResponseCodes.PIN_NOTFOUND.equals(status.getData())) {
-                for (Operation operation : pendingDataOperations) {
-
-                    if ((OperationCode.Command.DEVICE_LOCK.getCode().equals(operation.getCode()) &&
-                            operation.getId() == status.getCommandReference())) {
-                        operation.setStatus(Operation.Status.ERROR);
-                        updateStatus(syncmlDocument.getHeader().getSource().getLocURI(), pendingDataOperations);
-
-                        NotificationManagementService nmService = WindowsAPIUtils.getNotificationManagementService();
-                        Notification lockResetNotification = new Notification();
-                        lockResetNotification.setOperationId(status.getCommandReference());
-                        lockResetNotification.setStatus(String.valueOf(Notification.Status.NEW));
-                        lockResetNotification.setDescription(Constants.SyncMLResponseCodes.LOCK_RESET_NOTIFICATION);
-
-                        nmService.addNotification(deviceIdentifier, lockResetNotification);
-                    }
-                }
-            }
-        } catch (DeviceManagementException e) {
-            throw new OperationManagementException("Error occurred in getting pending operations.");
-        } catch (NotificationManagementException e) {
-            throw new OperationManagementException("Error occurred in adding notifications.");
+        Operation operation = pendingOperations.get(status.getCommandReference());
+        if (operation == null || !OperationCode.Command.DEVICE_LOCK.getCode().equals(operation.getCode())) {
+            return;
+        }
+        if (Constants.SyncMLResponseCodes.ACCEPTED.equals(status.getData())) {
+            setStatus(operation, Operation.Status.COMPLETED, updatedOperations);
+        }
+        if (Constants.SyncMLResponseCodes.PIN_NOTFOUND.equals(status.getData())) {
+            setStatus(operation, Operation.Status.ERROR, updatedOperations);
+            addLockResetNotification(status, deviceIdentifier);
         }
     }
 
-    /**
-     * Update status of the ring operation.
-     *
-     * @param status           Ring status of the device.
-     * @param syncmlDocument   Parsed syncml payload from the syncml engine.
-     * @param deviceIdentifier specific device id to be update.
-     * @throws OperationManagementException
-     */
-    public void ring(StatusTag status, SyncmlDocument syncmlDocument, DeviceIdentifier deviceIdentifier)
+    private void addLockResetNotification(StatusTag status, DeviceIdentifier deviceIdentifier)
             throws OperationManagementException {
-        List<? extends Operation> pendingDataOperations;
+        NotificationManagementService nmService = WindowsAPIUtils.getNotificationManagementService();
+        Notification lockResetNotification = new Notification();
+        lockResetNotification.setOperationId(status.getCommandReference());
+        lockResetNotification.setStatus(String.valueOf(Notification.Status.NEW));
+        lockResetNotification.setDescription(Constants.SyncMLResponseCodes.LOCK_RESET_NOTIFICATION);
         try {
-            if ((Constants.SyncMLResponseCodes.ACCEPTED.equals(status.getData()))) {
-                pendingDataOperations = WindowsAPIUtils.getPendingOperations(deviceIdentifier);
-                for (Operation operation : pendingDataOperations) {
-                    if ((OperationCode.Command.DEVICE_RING.getCode().equals(operation.getCode())) &&
-                            (operation.getId() == status.getCommandReference())) {
-                        operation.setStatus(Operation.Status.COMPLETED);
-                        updateStatus(syncmlDocument.getHeader().getSource().getLocURI(),
-                                pendingDataOperations);
-                    }
-                }
-            }
-        } catch (DeviceManagementException e) {
-            throw new OperationManagementException("Error occurred in getting pending operation.");
+            nmService.addNotification(deviceIdentifier, lockResetNotification);
+        } catch (NotificationManagementException e) {
+            throw new OperationManagementException("Error occurred while adding notification", e);
         }
     }
 
     /**
-     * Update the status of the DataWipe operation.
+     * Update status of the operation referred by the status, if it is a pending operation of the given code.
      *
-     * @param status           Status of the data wipe.
-     * @param syncmlDocument   Parsed syncml payload from the syncml engine.
-     * @param deviceIdentifier specific device id to be wiped.
-     * @throws OperationManagementException
+     * @param status            Status of the operation sent by the device.
+     * @param operationCode     code of the operation.
+     * @param pendingOperations pending operations of the device, keyed by the operation id.
+     * @param updatedOperations operations whose status has been changed.
      */
-    public void dataWipe(StatusTag status, SyncmlDocument syncmlDocument, DeviceIdentifier deviceIdentifier)
-            throws OperationManagementException {
-        List<? extends Operation> pendingDataOperations;
+    private void completeOperation(StatusTag status, String operationCode, Map<Integer, Operation> pendingOperations,
+                                   Map<Integer, Operation> updatedOperations) {
         if ((Constants.SyncMLResponseCodes.ACCEPTED.equals(status.getData()))) {
-            try {
-                pendingDataOperations = WindowsAPIUtils.getPendingOperations(deviceIdentifier);
-            } catch (DeviceManagementException e) {
-                throw new OperationManagementException("Error occurred in getting pending operation.");
-            }
-            for (Operation operation : pendingDataOperations) {
-
-                if ((OperationCode.Command.WIPE_DATA.getCode().equals(operation.getCode())) &&
-                        (operation.getId() == status.getCommandReference())) {
-                    operation.setStatus(Operation.Status.COMPLETED);
-                    updateStatus(syncmlDocument.getHeader().getSource().getLocURI(),
-                            pendingDataOperations);
-                }
+            Operation operation = pendingOperations.get(status.getCommandReference());
+            if (operation != null && operationCode.equals(operation.getCode())) {
+                setStatus(operation, Operation.Status.COMPLETED, updatedOperations);
             }
         }
     }
 
     public void updateDisenrollOperationStatus(DeviceIdentifier deviceIdentifier) throws OperationManagementException {
-        List<? extends Operation> pendingDeviceInfoOperations;
-        try {
-            pendingDeviceInfoOperations = WindowsAPIUtils.getPendingOperations(deviceIdentifier);
-        } catch (DeviceManagementException e) {
-            throw new OperationManagementException("Error occurred while getting pending operations.");
-        }
-        for (Operation operation : pendingDeviceInfoOperations) {
+        List<Operation> updatedOperations = new ArrayList<>();
+        for (Operation operation : loadPendingOperations(deviceIdentifier).values()) {
             if (PluginConstants.OperationCodes.DISENROLL.equals(operation.getCode())) {
                 operation.setStatus(Operation.Status.COMPLETED);
-                updateStatus(deviceIdentifier.getId(), pendingDeviceInfoOperations);
+                updatedOperations.add(operation);
             }
         }
+        updateStatus(deviceIdentifier.getId(), updatedOperations);
     }
 
-    public void updateDeviceInfoStatus(DeviceIdentifier deviceIdentifier) throws OperationManagementException {
-        List<? extends Operation> pendingDeviceInfoOperations;
-        try {
-            pendingDeviceInfoOperations = WindowsAPIUtils.getPendingOperations(deviceIdentifier);
-        } catch (DeviceManagementException e) {
-            throw new OperationManagementException("Error occurred while getting pending operations.");
-        }
-        for (Operation operation : pendingDeviceInfoOperations) {
+    private void updateDeviceInfoStatus(Map<Integer, Operation> pendingOperations,
+                                        Map<Integer, Operation> updatedOperations) {
+        for (Operation operation : pendingOperations.values()) {
             if (PluginConstants.OperationCodes.DEVICE_INFO.equals(operation.getCode())) {
-                operation.setStatus(Operation.Status.COMPLETED);
-                updateStatus(deviceIdentifier.getId(), pendingDeviceInfoOperations);
+                setStatus(operation, Operation.Status.COMPLETED, updatedOperations);
             }
         }
     }
 
-    public void updateDeviceLocationStatus(SyncmlDocument syncmlDocument) throws OperationManagementException {
-        List<? extends Operation> pendingDataOperations;
-        DeviceIdentifier deviceIdentifier = convertToDeviceIdentifierObject(
-                syncmlDocument.getHeader().getSource().getLocURI());
-        try {
-            pendingDataOperations = WindowsAPIUtils.getPendingOperations(deviceIdentifier);
-        } catch (DeviceManagementException e) {
-            throw new OperationManagementException("Error occurred in getting pending operation.");
-        }
-        for (Operation operation : pendingDataOperations) {
+    private void updateDeviceLocationStatus(SyncmlDocument syncmlDocument, Map<Integer, Operation> pendingOperations,
+                                            Map<Integer, Operation> updatedOperations) {
+        for (Operation operation : pendingOperations.values()) {
             if (PluginConstants.OperationCodes.DEVICE_LOCATION.equals(operation.getCode())) {
                 if (syncmlDocument.getBody().getResults() != null) {
                     List<ItemTag> items = syncmlDocument.getBody().getResults().getItem();
@@ -278,21 +195,56 @@ public class OperationHandler {
                         if (OperationCode.Command.LATITUDE.getCode().equals(itemTag.getSource().getLocURI())) {
                             // at this moment we can't get accepted value 200 from the device.
                             if (itemTag.getData() != null) {
-                                operation.setStatus(Operation.Status.COMPLETED);
+                                setStatus(operation, Operation.Status.COMPLETED, updatedOperations);
                             } else {
-                                operation.setStatus(Operation.Status.ERROR);
+                                setStatus(operation, Operation.Status.ERROR, updatedOperations);
                             }
                         }
                     }
                 }
-                updateStatus(syncmlDocument.getHeader().getSource().getLocURI(),
-                        pendingDataOperations);
             }
         }
     }
 
     /**
-     * Get pending operations.
+     * Loads the pending operations of the device.
+     *
+     * @param deviceIdentifier specific device identifier.
+     * @return pending operations keyed by the operation id, in the order they were returned.
+     * @throws OperationManagementException
+     */
+    private static Map<Integer, Operation> loadPendingOperations(DeviceIdentifier deviceIdentifier)
+            throws OperationManagementException {
+        List<? extends Operation> operations;
+        try {
+            operations = WindowsAPIUtils.getPendingOperations(deviceIdentifier);
+        } catch (DeviceManagementException e) {
+            throw new OperationManagementException("Error occurred in getting pending operations.", e);
+        }
+        Map<Integer, Operation> pendingOperations = new LinkedHashMap<>();
+        if (operations != null) {
+            for (Operation operation : operations) {
+                pendingOperations.put(operation.getId(), operation);
+            }
+        }
+        return pendingOperations;
+    }
+
+    /**
+     * Sets the status of the operation and records it for persisting, if the status is different from its current
+     * status.
+     */
+    private static void setStatus(Operation operation, Operation.Status status,
+                                  Map<Integer, Operation> updatedOperations) {
+        if (operation.getStatus() != status) {
+            operation.setStatus(status);
+            updatedOperations.put(operation.getId(), operation);
+        }
+    }
+
+    /**
+     * Get pending operations. The pending operations of the device are loaded once, the statuses and results sent
+     * by the device are applied to them in memory and only the operations whose status changed are persisted.
      *
      * @param syncmlDocument SyncmlDocument object which creates from the syncml engine using syncml payload
      * @return Return list of pending operations.
@@ -302,26 +254,34 @@ public class OperationHandler {
             throws OperationManagementException, WindowsOperationException {
         SyncmlHeader syncmlHeader = syncmlDocument.getHeader();
         SyncmlBody syncmlBody = syncmlDocument.getBody();
-        List<? extends Operation> pendingOperations;
         DeviceIdentifier deviceIdentifier = convertToDeviceIdentifierObject(syncmlHeader.getSource().getLocURI());
+        Map<Integer, Operation> pendingOperations = loadPendingOperations(deviceIdentifier);
+        Map<Integer, Operation> updatedOperations = new LinkedHashMap<>();
         if (syncmlBody.getResults() != null) {
             List<ItemTag> items = syncmlBody.getResults().getItem();
             for (ItemTag itemTag : items) {
                 if (OperationCode.Command.LATITUDE.getCode().equals(itemTag.getSource().getLocURI())) {
-                    updateLocation(syncmlDocument);
+                    updateLocation(syncmlDocument, pendingOperations, updatedOperations);
                 }
                 if (OperationCode.Command.TOTAL_RAM.getCode().equals(itemTag.getSource().getLocURI())) {
-                    updateDeviceInfo(syncmlDocument);
+                    updateDeviceInfo(syncmlDocument, pendingOperations, updatedOperations);
                 }
                 if (OperationCode.Command.BATTERY_CHARGE_REMAINING.equals(itemTag.getSource().getLocURI())) {
-                    updateDeviceInfo(syncmlDocument);
+                    updateDeviceInfo(syncmlDocument, pendingOperations, updatedOperations);
                 }
             }
         }
-        UpdateUriOperations(syncmlDocument);
+        UpdateUriOperations(syncmlDocument, pendingOperations, updatedOperations);
+        updateStatus(syncmlHeader.getSource().getLocURI(), updatedOperations.values());
         generateComplianceFeatureStatus(syncmlDocument);
-        pendingOperations = WindowsAPIUtils.getDeviceManagementService().getPendingOperations(deviceIdentifier);
-        return pendingOperations;
+
+        List<Operation> remainingOperations = new ArrayList<>(pendingOperations.size());
+        for (Operation operation : pendingOperations.values()) {
+            if (!updatedOperations.containsKey(operation.getId())) {
+                remainingOperations.add(operation);
+            }
+        }
+        return remainingOperations;
     }
 
     /**
@@ -342,72 +302,55 @@ public class OperationHandler {
     /**
      * Update the completed/Error status of the operation which have the URI of the operation code in the syncml payload.
      *
-     * @param syncmlDocument SyncmlDocument object generated from the the syncml engine.
+     * @param syncmlDocument    SyncmlDocument object generated from the the syncml engine.
+     * @param pendingOperations pending operations of the device, keyed by the operation id.
+     * @param updatedOperations operations whose status has been changed.
      * @throws OperationManagementException
      */
-    public void UpdateUriOperations(SyncmlDocument syncmlDocument) throws OperationManagementException,
-            WindowsOperationException {
-        List<? extends Operation> pendingDataOperations;
+    private void UpdateUriOperations(SyncmlDocument syncmlDocument, Map<Integer, Operation> pendingOperations,
+                                     Map<Integer, Operation> updatedOperations) throws OperationManagementException {
         DeviceIdentifier deviceIdentifier = convertToDeviceIdentifierObject(
                 syncmlDocument.getHeader().getSource().getLocURI());
 
         List<StatusTag> statuses = syncmlDocument.getBody().getStatus();
-        try {
-            pendingDataOperations = WindowsAPIUtils.getPendingOperations(deviceIdentifier);
-        } catch (DeviceManagementException e) {
-            throw new OperationManagementException("Error occurred in getting pending operation.");
-        }
         for (StatusTag status : statuses) {
 
             if ((Constants.EXECUTE.equals(status.getCommand()))) {
                 if (status.getTargetReference() == null) {
-                    updateDeviceOperations(status, syncmlDocument, deviceIdentifier);
+                    updateDeviceOperations(status, deviceIdentifier, pendingOperations, updatedOperations);
                 } else {
                     if ((OperationCode.Command.DEVICE_LOCK.getCode().equals(status.getTargetReference()))) {
-                        updateLockOperation(status, syncmlDocument, deviceIdentifier);
+                        updateLockOperation(status, deviceIdentifier, pendingOperations, updatedOperations);
                     }
                     if ((OperationCode.Command.DEVICE_RING.getCode().equals(status.getTargetReference()))) {
-                        ring(status, syncmlDocument, deviceIdentifier);
+                        completeOperation(status, OperationCode.Command.DEVICE_RING.getCode(), pendingOperations,
+                                updatedOperations);
                     }
                     if ((OperationCode.Command.WIPE_DATA.getCode().equals(status.getTargetReference()))) {
-                        dataWipe(status, syncmlDocument, deviceIdentifier);
+                        completeOperation(status, OperationCode.Command.WIPE_DATA.getCode(), pendingOperations,
+                                updatedOperations);
                     }
                 }
             }
             if ((Constants.SEQUENCE.equals(status.getCommand()))) {
+                Operation.Status policyStatus;
                 if ((Constants.SyncMLResponseCodes.ACCEPTED.equals(status.getData()))) {
-                    for (Operation operation : pendingDataOperations) {
-                        if ((PluginConstants.OperationCodes.POLICY_BUNDLE.equals(operation.getCode())) &&
-                                operation.getId() == status.getCommandReference()) {
-                            operation.setStatus(Operation.Status.COMPLETED);
-                        }
-                        if ((PluginConstants.OperationCodes.MONITOR.equals(operation.getCode())) &&
-                                operation.getId() == status.getCommandReference()) {
-                            operation.setStatus(Operation.Status.COMPLETED);
-                        }
-                        if (PluginConstants.OperationCodes.POLICY_REVOKE.equals(operation.getCode())) {
-                            operation.setStatus(Operation.Status.COMPLETED);
-                        }
-                    }
-                    updateStatus(syncmlDocument.getHeader().getSource().getLocURI(),
-                            pendingDataOperations);
+                    policyStatus = Operation.Status.COMPLETED;
                 } else {
-                    for (Operation operation : pendingDataOperations) {
-
-                        if ((PluginConstants.OperationCodes.POLICY_BUNDLE.equals(operation.getCode())) &&
-                                operation.getId() == status.getCommandReference()) {
-                            operation.setStatus(Operation.Status.ERROR);
-                        }
-                        if ((PluginConstants.OperationCodes.MONITOR.equals(operation.getCode())) &&
-                                operation.getId() == status.getCommandReference()) {
-                            operation.setStatus(Operation.Status.ERROR);
-                        }
-                        if (PluginConstants.OperationCodes.POLICY_REVOKE.equals(operation.getCode())) {
-                            operation.setStatus(Operation.Status.COMPLETED);
-                        }
+                    policyStatus = Operation.Status.ERROR;
+                }
+                for (Operation operation : pendingOperations.values()) {
+                    if ((PluginConstants.OperationCodes.POLICY_BUNDLE.equals(operation.getCode())) &&
+                            operation.getId() == status.getCommandReference()) {
+                        setStatus(operation, policyStatus, updatedOperations);
+                    }
+                    if ((PluginConstants.OperationCodes.MONITOR.equals(operation.getCode())) &&
+                            operation.getId() == status.getCommandReference()) {
+                        setStatus(operation, policyStatus, updatedOperations);
+                    }
+                    if (PluginConstants.OperationCodes.POLICY_REVOKE.equals(operation.getCode())) {
+                        setStatus(operation, Operation.Status.COMPLETED, updatedOperations);
                     }
-                    updateStatus(syncmlDocument.getHeader().getSource().getLocURI(),
-                            pendingDataOperations);
                 }
             }
         }
@@ -575,7 +518,8 @@ public class OperationHandler {
 
     }
 
-    public void updateDeviceInfo(SyncmlDocument syncmlDocument) throws WindowsOperationException {
+    private void updateDeviceInfo(SyncmlDocument syncmlDocument, Map<Integer, Operation> pendingOperations,
+                                  Map<Integer, Operation> updatedOperations) throws WindowsOperationException {
         String softwareVersion;
         String imsi;
         String imei;
@@ -629,15 +573,14 @@ public class OperationHandler {
         DeviceIdentifier deviceIdentifier = convertToDeviceIdentifierObject(deviceID);
         try {
             WindowsAPIUtils.updateDeviceInfo(deviceIdentifier, deviceInfo);
-            updateDeviceInfoStatus(deviceIdentifier);
+            updateDeviceInfoStatus(pendingOperations, updatedOperations);
         } catch (org.wso2.carbon.device.mgt.core.device.details.mgt.DeviceDetailsMgtException e) {
             throw new WindowsOperationException("Error occurred while adding Device info.");
-        } catch (OperationManagementException e) {
-            throw new WindowsOperationException("Error occurred while updating Device info operation status.");
         }
     }
 
-    private void updateLocation(SyncmlDocument syncmlDocument) throws WindowsOperationException {
+    private void updateLocation(SyncmlDocument syncmlDocument, Map<Integer, Operation> pendingOperations,
+                                Map<Integer, Operation> updatedOperations) throws WindowsOperationException {
         List<ItemTag> deviceInformations = syncmlDocument.getBody().getResults().getItem();
         DeviceIdentifier deviceIdentifier = convertToDeviceIdentifierObject(
                 syncmlDocument.getHeader().getSource().getLocURI());
@@ -657,22 +600,22 @@ public class OperationHandler {
         }
         try {
             WindowsAPIUtils.updateDeviceLocation(deviceLocation);
-            updateDeviceLocationStatus(syncmlDocument);
+            updateDeviceLocationStatus(syncmlDocument, pendingOperations, updatedOperations);
         } catch (DeviceDetailsMgtException e) {
             throw new WindowsOperationException("Error occurred while updating Device Location.");
-        } catch (OperationManagementException e) {
-            throw new WindowsOperationException("Error occurred while updating Device Location operation status.");
         }
     }
 
     public void checkForDeviceWipe(List<? extends Operation> pendingDeviceInfoOperations
             , DeviceIdentifier deviceIdentifier) throws OperationManagementException {
+        List<Operation> wipeOperations = new ArrayList<>();
         for (Operation operation : pendingDeviceInfoOperations) {
             if (PluginConstants.OperationCodes.WIPE_DATA.equals(operation.getCode())) {
                 operation.setStatus(Operation.Status.COMPLETED);
-                updateStatus(deviceIdentifier.getId(), pendingDeviceInfoOperations);
+                wipeOperations.add(operation);
             }
         }
+        updateStatus(deviceIdentifier.getId(), wipeOperations);
     }
 }
 
@@ -21,8 +21,7 @@ package org.wso2.carbon.device.mgt.mobile.windows.api.operations.util;
 import com.google.gson.Gson;
 import org.json.JSONException;
 import org.json.JSONObject;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
 import org.wso2.carbon.device.mgt.common.DeviceIdentifier;
 import org.wso2.carbon.device.mgt.common.operation.mgt.Operation;
 import org.wso2.carbon.device.mgt.mobile.windows.api.common.PluginConstants;
@@ -37,7 +36,11 @@ import org.wso2.carbon.policy.mgt.common.FeatureManagementException;
 import org.wso2.carbon.policy.mgt.common.PolicyManagementException;
 import org.wso2.carbon.device.mgt.common.policy.mgt.ProfileFeature;
 
+import javax.ws.rs.core.StreamingOutput;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import static org.wso2.carbon.device.mgt.mobile.windows.api.common.util.WindowsAPIUtils.convertToDeviceIdentifierObject;
@@ -58,6 +61,12 @@ public class OperationReply {
     private static final String REPLACE_COMMAND_TEXT = "Replace";
     private static final String GET_COMMAND_TEXT = "Get";
     private static final String EXEC_COMMAND_TEXT = "Exec";
+    private static final List<ItemTag> DEVICE_INFO_ITEMS = buildDeviceInfoItems();
+
+    /**
+     * Get command requesting the device information, which is the only get command of most of the heartbeat replies.
+     */
+    private static volatile SyncmlFragment deviceInfoGet;
     private List<? extends Operation> operations;
     Gson gson = new Gson();
 
@@ -81,16 +90,15 @@ public class OperationReply {
      *
      * @param syncmlDocument Parsed syncml payload from the syncml engine.
      * @param operations     Operations for generate payload.
-     * @return String type syncml payload.
+     * @return syncml payload which is streamed to the response.
      * @throws WindowsOperationException
      * @throws PolicyManagementException
      * @throws org.wso2.carbon.policy.mgt.common.FeatureManagementException
      */
-    public String generateReply(SyncmlDocument syncmlDocument, List<? extends Operation> operations)
+    public StreamingOutput generateReply(SyncmlDocument syncmlDocument, List<? extends Operation> operations)
             throws SyncmlMessageFormatException, SyncmlOperationException {
 
         OperationReply operationReply;
-        SyncmlGenerator generator;
         SyncmlDocument syncmlResponse;
         if (operations == null) {
             operationReply = new OperationReply(syncmlDocument);
@@ -98,8 +106,7 @@ public class OperationReply {
             operationReply = new OperationReply(syncmlDocument, operations);
         }
         syncmlResponse = operationReply.generateReply();
-        generator = new SyncmlGenerator();
-        return generator.generatePayload(syncmlResponse);
+        return SyncmlGenerator.generatePayload(syncmlResponse);
     }
 
     public SyncmlDocument generateReply() throws SyncmlMessageFormatException, SyncmlOperationException {
@@ -240,14 +247,19 @@ public class OperationReply {
         GetTag getElement = new GetTag();
         List<ItemTag> getElements = new ArrayList<>();
         List<ExecuteTag> executeElements = new ArrayList<>();
+        List<SyncmlFragment> executeFragments = new ArrayList<>();
         AtomicTag atomicTagElement = new AtomicTag();
         List<AddTag> addElements = new ArrayList<>();
         ReplaceTag replaceElement = new ReplaceTag();
         List<ItemTag> replaceItems = new ArrayList<>();
         SequenceTag monitorSequence = new SequenceTag();
-        List<Operation> deviceInfoOperations;
+        int deviceInfoRequests = 0;
         if (operations != null) {
+            int tenantId = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId();
             for (Operation operation : operations) {
+                if (PluginConstants.OperationCodes.POLICY_REVOKE.equals(operation.getCode())) {
+                    SyncmlFragmentCache.invalidate(tenantId);
+                }
                 Operation.Type type = operation.getType();
                 switch (type) {
                     case POLICY:
@@ -256,9 +268,7 @@ public class OperationReply {
                                     .getData())) || Constants.INITIAL_WIN10_ALERT_DATA.
                                     equals(this.syncmlDocument.getBody()
                                             .getAlert().getData())) {
-                                SequenceTag policySequence = new SequenceTag();
-                                policySequence = buildSequence(operation, policySequence);
-                                syncmlBody.setSequence(policySequence);
+                                syncmlBody.setSequenceFragment(getSequenceFragment(tenantId, operation));
                             }
                         }
                         break;
@@ -276,27 +286,20 @@ public class OperationReply {
                         getElements.add(itemGet);
                         break;
                     case COMMAND:
-                        ExecuteTag execElement;
                         if ((PluginConstants.OperationCodes.DEVICE_LOCK.equals(operation.getCode()))) {
-                            execElement = executeCommand(operation);
-                            executeElements.add(execElement);
+                            executeFragments.add(getExecuteFragment(tenantId, operation));
                         }
                         if ((PluginConstants.OperationCodes.DEVICE_RING.equals(operation.getCode()))) {
-                            execElement = executeCommand(operation);
-                            executeElements.add(execElement);
+                            executeFragments.add(getExecuteFragment(tenantId, operation));
                         }
                         if ((PluginConstants.OperationCodes.DISENROLL.equals(operation.getCode()))) {
-                            execElement = executeCommand(operation);
-                            executeElements.add(execElement);
+                            executeFragments.add(getExecuteFragment(tenantId, operation));
                         }
                         if ((PluginConstants.OperationCodes.WIPE_DATA.equals(operation.getCode()))) {
-                            execElement = executeCommand(operation);
-                            executeElements.add(execElement);
+                            executeFragments.add(getExecuteFragment(tenantId, operation));
                         }
                         if ((PluginConstants.OperationCodes.LOCK_RESET.equals(operation.getCode()))) {
-                            SequenceTag sequenceElement = new SequenceTag();
-                            SequenceTag sequence = buildSequence(operation, sequenceElement);
-                            syncmlBody.setSequence(sequence);
+                            syncmlBody.setSequenceFragment(getSequenceFragment(tenantId, operation));
                         }
                         if (PluginConstants.OperationCodes.DEVICE_LOCATION.equals(operation.getCode())) {
                             Operation longitudeOperation = new Operation();
@@ -312,8 +315,7 @@ public class OperationReply {
                             }
                         }
                         if (PluginConstants.OperationCodes.DEVICE_REBOOT.equals(operation.getCode())) {
-                            execElement = executeCommand(operation);
-                            executeElements.add(execElement);
+                            executeFragments.add(getExecuteFragment(tenantId, operation));
                         }
                         if ((PluginConstants.OperationCodes.MONITOR.equals(operation.getCode()))) {
                             GetTag monitorGetElement = new GetTag();
@@ -351,12 +353,8 @@ public class OperationReply {
                                         .getData())) || Constants.INITIAL_WIN10_ALERT_DATA.
                                         equals(this.syncmlDocument.getBody()
                                                 .getAlert().getData())) {
-                                    HeartBeatDeviceInfo heartBeatDeviceInfo = new HeartBeatDeviceInfo();
-                                    deviceInfoOperations = heartBeatDeviceInfo.getDeviceInfo();
-                                    for (Operation infoOperation : deviceInfoOperations) {
-                                        ItemTag deviceInfo = appendGetInfo(infoOperation);
-                                        getElements.add(deviceInfo);
-                                    }
+                                    getElements.addAll(DEVICE_INFO_ITEMS);
+                                    deviceInfoRequests++;
                                 }
                             }
                             break;
@@ -375,8 +373,13 @@ public class OperationReply {
                 atomicTagElement.setCommandId(Constants.SyncmlMessageCodes.atomicCommandId);
                 atomicTagElement.setAdds(addElements);
             }
-            syncmlBody.setGet(getElement);
+            if (deviceInfoRequests == 1 && getElements.size() == DEVICE_INFO_ITEMS.size()) {
+                syncmlBody.setGetFragment(getDeviceInfoGet());
+            } else {
+                syncmlBody.setGet(getElement);
+            }
             syncmlBody.setExec(executeElements);
+            syncmlBody.setExecFragments(executeFragments);
             syncmlBody.setAtomicTag(atomicTagElement);
             syncmlBody.setReplace(replaceElement);
         }
@@ -671,6 +674,98 @@ public class OperationReply {
         }
     }
 
+    /**
+     * Returns the exec command of a command operation, compiled once for all the devices the operation is sent to.
+     */
+    private SyncmlFragment getExecuteFragment(int tenantId, Operation operation) throws SyncmlOperationException {
+        String source = operation.getCode();
+        SyncmlFragment fragment = SyncmlFragmentCache.getFragment(tenantId, operation.getId(), source);
+        if (fragment == null) {
+            final ExecuteTag execElement = executeCommand(operation);
+            fragment = SyncmlGenerator.compileFragment(new SyncmlFragment.Content() {
+                @Override
+                public void write(XMLStreamWriter writer) throws XMLStreamException {
+                    execElement.writeExecElement(writer);
+                }
+            });
+            SyncmlFragmentCache.putFragment(tenantId, operation.getId(), source, fragment);
+        }
+        return fragment;
+    }
+
+    /**
+     * Returns the sequence of a policy bundle or lock reset operation, compiled once for all the devices the
+     * operation is sent to. The fragment is compiled again if the policies of the bundle are updated.
+     */
+    private SyncmlFragment getSequenceFragment(int tenantId, Operation operation)
+            throws JSONException, SyncmlOperationException {
+        String source = getSequenceSource(operation);
+        SyncmlFragment fragment = SyncmlFragmentCache.getFragment(tenantId, operation.getId(), source);
+        if (fragment == null) {
+            final SequenceTag sequenceElement = buildSequence(operation, new SequenceTag());
+            if (sequenceElement == null) {
+                return null;
+            }
+            fragment = SyncmlGenerator.compileFragment(new SyncmlFragment.Content() {
+                @Override
+                public void write(XMLStreamWriter writer) throws XMLStreamException {
+                    sequenceElement.writeSequenceElement(writer);
+                }
+            });
+            SyncmlFragmentCache.putFragment(tenantId, operation.getId(), source, fragment);
+        }
+        return fragment;
+    }
+
+    /**
+     * Gives the payload a sequence is built from, which decides whether a precompiled sequence can be reused.
+     *
+     * @param operation policy bundle or lock reset operation.
+     * @return the code of the operation followed by the codes and payloads of the policies of a policy bundle.
+     */
+    public static String getSequenceSource(Operation operation) {
+        StringBuilder source = new StringBuilder(operation.getCode());
+        if (PluginConstants.OperationCodes.POLICY_BUNDLE.equals(operation.getCode())
+                && operation.getPayLoad() instanceof List) {
+            for (Object policy : (List<?>) operation.getPayLoad()) {
+                if (policy instanceof Operation) {
+                    source.append('\n').append(((Operation) policy).getCode())
+                            .append('\n').append(((Operation) policy).getPayLoad());
+                }
+            }
+        }
+        return source.toString();
+    }
+
+    private SyncmlFragment getDeviceInfoGet() throws SyncmlOperationException {
+        SyncmlFragment fragment = deviceInfoGet;
+        if (fragment == null) {
+            final GetTag getElement = new GetTag();
+            getElement.setCommandId(Constants.SyncmlMessageCodes.elementCommandId);
+            getElement.setItems(DEVICE_INFO_ITEMS);
+            fragment = SyncmlGenerator.compileFragment(new SyncmlFragment.Content() {
+                @Override
+                public void write(XMLStreamWriter writer) throws XMLStreamException {
+                    getElement.writeGetElement(writer);
+                }
+            });
+            deviceInfoGet = fragment;
+        }
+        return fragment;
+    }
+
+    /**
+     * @return the items requesting the device information sent with the heartbeat, the items are not modified.
+     */
+    private static List<ItemTag> buildDeviceInfoItems() {
+        OperationReply operationReply = new OperationReply();
+        List<ItemTag> items = new ArrayList<>();
+        for (Operation infoOperation : new HeartBeatDeviceInfo().getDeviceInfo()) {
+            items.add(operationReply.appendGetInfo(infoOperation));
+        }
+        return Collections.unmodifiableList(items);
+    }
+
     public List<ItemTag> buildMonitorOperation(List<ProfileFeature> effectiveMonitoringFeature) {
         List<ItemTag> monitorItems = new ArrayList<>();
         Operation monitorOperation;
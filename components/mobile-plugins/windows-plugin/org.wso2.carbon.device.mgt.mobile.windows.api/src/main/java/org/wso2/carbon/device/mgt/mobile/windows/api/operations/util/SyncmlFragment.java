@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.device.mgt.mobile.windows.api.operations.util;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Serialized syncml commands. A fragment is serialized once, by {@link SyncmlGenerator#compileFragment(Content)},
+ * and then copied into the reply payloads as it is instead of writing the syncml tags of the commands again.
+ */
+public class SyncmlFragment {
+
+    private final byte[] markup;
+
+    SyncmlFragment(byte[] markup) {
+        this.markup = markup;
+    }
+
+    /**
+     * Writes the fragment at the current position of the writer.
+     *
+     * @param writer       writer of the syncml payload.
+     * @param outputStream stream the writer writes to.
+     * @throws XMLStreamException
+     * @throws IOException
+     */
+    public void write(XMLStreamWriter writer, OutputStream outputStream) throws XMLStreamException, IOException {
+        // closes a start tag left open by the writer, the fragment is then written after what the writer has flushed
+        writer.writeCharacters("");
+        writer.flush();
+        outputStream.write(markup);
+    }
+
+    /**
+     * Writes the syncml commands of a fragment.
+     */
+    public interface Content {
+
+        void write(XMLStreamWriter writer) throws XMLStreamException;
+    }
+}
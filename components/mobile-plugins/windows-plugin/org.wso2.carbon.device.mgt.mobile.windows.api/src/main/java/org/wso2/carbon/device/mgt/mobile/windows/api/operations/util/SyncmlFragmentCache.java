@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.device.mgt.mobile.windows.api.operations.util;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Precompiled commands of operations, keyed by the tenant and the id of the operation. An operation added to many
+ * devices, such as a policy bundle, is shared by all of them, hence its commands are compiled for the first device
+ * and copied into the replies to the others. A fragment is only returned for the payload it was compiled from, so
+ * an operation whose payload is updated is compiled again, and the fragments of a tenant are dropped when its
+ * policies are revoked.
+ */
+public class SyncmlFragmentCache {
+
+    private static final int MAX_CACHED_FRAGMENTS = 256;
+
+    private static final Map<FragmentKey, CachedFragment> fragments = Collections.synchronizedMap(
+            new LinkedHashMap<FragmentKey, CachedFragment>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<FragmentKey, CachedFragment> eldest) {
+                    return size() > MAX_CACHED_FRAGMENTS;
+                }
+            });
+
+    /**
+     * @param tenantId    tenant of the operation.
+     * @param operationId id of the operation.
+     * @param source      payload the commands of the operation are compiled from.
+     * @return the commands compiled from the given payload, or null if they are not cached.
+     */
+    public static SyncmlFragment getFragment(int tenantId, int operationId, String source) {
+        CachedFragment cachedFragment = fragments.get(new FragmentKey(tenantId, operationId));
+        if (cachedFragment == null || !cachedFragment.source.equals(source)) {
+            return null;
+        }
+        return cachedFragment.fragment;
+    }
+
+    public static void putFragment(int tenantId, int operationId, String source, SyncmlFragment fragment) {
+        fragments.put(new FragmentKey(tenantId, operationId), new CachedFragment(source, fragment));
+    }
+
+    /**
+     * Drops the fragments of the operations of a tenant.
+     *
+     * @param tenantId tenant whose fragments are dropped.
+     */
+    public static void invalidate(int tenantId) {
+        synchronized (fragments) {
+            Iterator<FragmentKey> keys = fragments.keySet().iterator();
+            while (keys.hasNext()) {
+                if (keys.next().tenantId == tenantId) {
+                    keys.remove();
+                }
+            }
+        }
+    }
+
+    private static class CachedFragment {
+
+        private final String source;
+        private final SyncmlFragment fragment;
+
+        private CachedFragment(String source, SyncmlFragment fragment) {
+            this.source = source;
+            this.fragment = fragment;
+        }
+    }
+
+    private static class FragmentKey {
+
+        private final int tenantId;
+        private final int operationId;
+
+        private FragmentKey(int tenantId, int operationId) {
+            this.tenantId = tenantId;
+            this.operationId = operationId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof FragmentKey)) {
+                return false;
+            }
+            FragmentKey that = (FragmentKey) o;
+            return tenantId == that.tenantId && operationId == that.operationId;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * tenantId + operationId;
+        }
+    }
+}
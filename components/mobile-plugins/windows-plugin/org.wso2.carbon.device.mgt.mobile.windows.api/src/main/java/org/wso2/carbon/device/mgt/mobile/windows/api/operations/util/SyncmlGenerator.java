@@ -18,73 +18,118 @@
 
 package org.wso2.carbon.device.mgt.mobile.windows.api.operations.util;
 
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
 import org.wso2.carbon.device.mgt.mobile.windows.api.common.exceptions.SyncmlOperationException;
 import org.wso2.carbon.device.mgt.mobile.windows.api.operations.SyncmlDocument;
-import org.wso2.carbon.device.mgt.mobile.windows.api.operations.SyncmlHeader;
-import org.wso2.carbon.device.mgt.mobile.windows.api.operations.SyncmlBody;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.*;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
-import java.io.StringWriter;
+import javax.ws.rs.core.StreamingOutput;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 
 /**
- * Generates the response syncml xml file that should be sent to the Device.
+ * Generates the response syncml xml file that should be sent to the Device. The reply is streamed to the response
+ * output stream while the syncml tags are written, without building an intermediate document.
  */
 public class SyncmlGenerator {
 
-    public static String generatePayload(SyncmlDocument syncmlDocument) throws SyncmlOperationException {
-        Document doc = generateDocument();
-        Element rootElement = createRootElement(doc);
-        SyncmlHeader header = syncmlDocument.getHeader();
-        header.buildSyncmlHeaderElement(doc, rootElement);
-        SyncmlBody body = syncmlDocument.getBody();
-        body.buildBodyElement(doc, rootElement);
-        return transformDocument(doc);
+    private static final XMLOutputFactory XML_OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+    private static final String XML_VERSION = "1.0";
+
+    /**
+     * Generates the reply payload. The document is written when the response entity is written by the JAX-RS
+     * runtime, hence it should be fully built before calling this.
+     *
+     * @param syncmlDocument reply syncml document.
+     * @return payload which writes the syncml document to the response output stream.
+     */
+    public static StreamingOutput generatePayload(final SyncmlDocument syncmlDocument) {
+        return new StreamingOutput() {
+            @Override
+            public void write(OutputStream outputStream) throws IOException {
+                try {
+                    writePayload(syncmlDocument, outputStream);
+                } catch (SyncmlOperationException e) {
+                    throw new IOException(e.getMessage(), e);
+                }
+            }
+        };
     }
 
-    private static Document generateDocument() throws SyncmlOperationException {
-        DocumentBuilderFactory documentFactory = DocumentBuilderFactory.newInstance();
-        DocumentBuilder docBuilder;
+    /**
+     * Writes the syncml document to the given output stream using UTF-8 encoding.
+     *
+     * @param syncmlDocument reply syncml document.
+     * @param outputStream   stream the document is written to, it is flushed but not closed.
+     * @throws SyncmlOperationException if the document cannot be written.
+     * @throws IOException              if the output stream cannot be written.
+     */
+    public static void writePayload(SyncmlDocument syncmlDocument, OutputStream outputStream)
+            throws SyncmlOperationException, IOException {
+        XMLStreamWriter writer = null;
         try {
-            docBuilder = documentFactory.newDocumentBuilder();
-        } catch (ParserConfigurationException e) {
-            throw new SyncmlOperationException("Error occurred while generating a new document of syncml", e);
+            writer = XML_OUTPUT_FACTORY.createXMLStreamWriter(outputStream, Constants.UTF_8);
+            writer.writeStartDocument(Constants.UTF_8, XML_VERSION);
+            writer.writeStartElement(Constants.SYNCML_ROOT_ELEMENT_NAME);
+            writer.writeDefaultNamespace(Constants.XMLNS_SYNCML);
+            syncmlDocument.writeDocument(writer, outputStream);
+            writer.writeEndElement();
+            writer.writeEndDocument();
+            writer.flush();
+        } catch (XMLStreamException e) {
+            throw new SyncmlOperationException("Error occurred while writing the syncml payload", e);
+        } finally {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (XMLStreamException ignored) {
+                    // nothing to do, the underlying stream is not closed by the writer
+                }
+            }
         }
-        return docBuilder.newDocument();
-    }
-
-    private static Element createRootElement(Document document) {
-        Element rootElement = document.createElementNS(Constants.XMLNS_SYNCML,
-                Constants.SYNCML_ROOT_ELEMENT_NAME);
-        document.appendChild(rootElement);
-        return rootElement;
     }
 
-    private static String transformDocument(Document document) throws SyncmlOperationException {
-        DOMSource domSource = new DOMSource(document);
-        TransformerFactory transformerFactory = TransformerFactory.newInstance();
-        Transformer transformer;
+    /**
+     * Serializes syncml commands into a fragment which can be written into any number of payloads.
+     *
+     * @param content writes the commands of the fragment.
+     * @return fragment holding the serialized commands.
+     * @throws SyncmlOperationException if the commands cannot be serialized.
+     */
+    public static SyncmlFragment compileFragment(SyncmlFragment.Content content) throws SyncmlOperationException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        XMLStreamWriter writer = null;
         try {
-            transformer = transformerFactory.newTransformer();
-        } catch (TransformerConfigurationException e) {
-            throw new SyncmlOperationException("Error occurred while retrieving a new transformer", e);
+            writer = XML_OUTPUT_FACTORY.createXMLStreamWriter(outputStream, Constants.UTF_8);
+            content.write(writer);
+            writer.flush();
+        } catch (XMLStreamException e) {
+            throw new SyncmlOperationException("Error occurred while writing the syncml fragment", e);
+        } finally {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (XMLStreamException ignored) {
+                    // nothing to do, the fragment is held in memory
+                }
+            }
         }
-        transformer.setOutputProperty(OutputKeys.ENCODING, Constants.UTF_8);
-        transformer.setOutputProperty(OutputKeys.INDENT, Constants.YES);
+        return new SyncmlFragment(outputStream.toByteArray());
+    }
 
-        StringWriter stringWriter = new StringWriter();
-        StreamResult streamResult = new StreamResult(stringWriter);
-        try {
-            transformer.transform(domSource, streamResult);
-        } catch (TransformerException e) {
-            throw new SyncmlOperationException("Error occurred while transforming document to a string", e);
-        }
-        return stringWriter.toString();
+    /**
+     * Writes an element which only has text content.
+     *
+     * @param writer writer of the syncml payload.
+     * @param name   name of the element.
+     * @param value  text content of the element.
+     * @throws XMLStreamException
+     */
+    public static void writeElement(XMLStreamWriter writer, String name, String value) throws XMLStreamException {
+        writer.writeStartElement(name);
+        writer.writeCharacters(value);
+        writer.writeEndElement();
     }
 }
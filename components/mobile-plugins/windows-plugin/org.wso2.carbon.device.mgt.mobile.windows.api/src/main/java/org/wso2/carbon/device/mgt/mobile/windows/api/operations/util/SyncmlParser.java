@@ -18,25 +18,27 @@
 
 package org.wso2.carbon.device.mgt.mobile.windows.api.operations.util;
 
-import org.w3c.dom.Document;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
 import org.wso2.carbon.device.mgt.mobile.windows.api.common.PluginConstants;
+import org.wso2.carbon.device.mgt.mobile.windows.api.common.exceptions.SyncmlMessageFormatException;
 import org.wso2.carbon.device.mgt.mobile.windows.api.operations.*;
 
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
- * Parses the receiving SyncML payload and generates the SyncML document object from it.
+ * Parses the receiving SyncML payload and generates the SyncML document object from it. The payload is read in a
+ * single pass with a StAX reader, hence no DOM is built for the request.
  */
 public class SyncmlParser {
 
-    private static String commandId;
-    private static String messageReference;
-    private static String commandReference;
     private static final String SYNC_HEADER = "SyncHdr";
     private static final String SYNC_BODY = "SyncBody";
+    private static final XMLInputFactory XML_INPUT_FACTORY = createXMLInputFactory();
 
     private enum SyncMLHeaderParameter {
         MSG_ID("MsgID"),
@@ -71,40 +73,57 @@ public class SyncmlParser {
         }
     }
 
-
     /**
      * Parses the raw SyncML payload and generates a SyncmlDocument object using the parsed XML contents.
      *
      * @param syncmlPayload - Received SyncML XML payload
      * @return - SyncmlDocument object generated from the received payload
+     * @throws SyncmlMessageFormatException if the payload is not a well formed SyncML message
      */
-    public static SyncmlDocument parseSyncmlPayload(Document syncmlPayload) {
-        SyncmlDocument syncmlDocument = new SyncmlDocument();
-        if (syncmlPayload.getElementsByTagName(SYNC_HEADER) == null) {
-            throw new IllegalStateException();
-        }
-        NodeList syncHeaderList = syncmlPayload.getElementsByTagName(SYNC_HEADER);
-        Node syncHeader = syncHeaderList.item(0);
-        SyncmlHeader header = generateSyncmlHeader(syncHeader);
-        if (syncmlPayload.getElementsByTagName(SYNC_BODY) == null) {
-            throw new IllegalStateException();
+    public static SyncmlDocument parseSyncmlPayload(InputStream syncmlPayload) throws SyncmlMessageFormatException {
+        XMLStreamReader reader = null;
+        try {
+            reader = XML_INPUT_FACTORY.createXMLStreamReader(syncmlPayload);
+            SyncmlHeader header = null;
+            SyncmlBody body = null;
+            while ((header == null || body == null) && reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+                    String elementName = reader.getLocalName();
+                    if (SYNC_HEADER.equals(elementName)) {
+                        header = generateSyncmlHeader(reader);
+                    } else if (SYNC_BODY.equals(elementName)) {
+                        body = generateSyncmlBody(reader);
+                    }
+                }
+            }
+            if (header == null || body == null) {
+                throw new SyncmlMessageFormatException("SyncML payload does not contain both SyncHdr and SyncBody.");
+            }
+            SyncmlDocument syncmlDocument = new SyncmlDocument();
+            syncmlDocument.setHeader(header);
+            syncmlDocument.setBody(body);
+            return syncmlDocument;
+        } catch (XMLStreamException | NumberFormatException e) {
+            throw new SyncmlMessageFormatException("Error occurred while parsing the SyncML payload.", e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException ignored) {
+                    // the reader does not hold any resource other than the request stream
+                }
+            }
         }
-        NodeList syncBodyList = syncmlPayload.getElementsByTagName(SYNC_BODY);
-        Node syncBody = syncBodyList.item(0);
-        SyncmlBody body = generateSyncmlBody(syncBody);
-
-        syncmlDocument.setHeader(header);
-        syncmlDocument.setBody(body);
-        return syncmlDocument;
     }
 
     /**
-     * Generates SyncmlHeader object by extracting properties of passed XML node.
+     * Generates SyncmlHeader object by reading the child elements of the SyncML header.
      *
-     * @param syncHeader - XML node which represents SyncML header
+     * @param reader - Reader positioned at the start of the SyncML header
      * @return - SyncmlHeader object
      */
-    private static SyncmlHeader generateSyncmlHeader(Node syncHeader) {
+    private static SyncmlHeader generateSyncmlHeader(XMLStreamReader reader)
+            throws XMLStreamException, SyncmlMessageFormatException {
 
         String sessionID = null;
         String messageID = null;
@@ -113,49 +132,28 @@ public class SyncmlParser {
         CredentialTag credential = null;
         SyncmlHeader header = new SyncmlHeader();
 
-        NodeList headerElements = syncHeader.getChildNodes();
-        for (int i = 0; i < headerElements.getLength(); i++) {
-            Node node = headerElements.item(i);
-
-            if (node.getNodeType() == Node.ELEMENT_NODE) {
-                String nodeName = node.getNodeName();
-
-                if (SyncMLHeaderParameter.MSG_ID.getValue().equals(nodeName)) {
-                    if (node.getTextContent().trim() == null) {
-                        throw new IllegalStateException();
-                    } else {
-                        messageID = node.getTextContent().trim();
-                    }
-                } else if (SyncMLHeaderParameter.SESSION_ID.getValue().equals(nodeName)) {
-                    if (node.getTextContent().trim() == null) {
-                        throw new IllegalStateException();
-                    } else {
-                        sessionID = node.getTextContent().trim();
-                    }
-                } else if (SyncMLHeaderParameter.TARGET.getValue().equals(nodeName)) {
-                    if (node.getTextContent().trim() == null) {
-                        throw new IllegalStateException();
-                    } else {
-                        target = generateTarget(node);
-                    }
-                } else if (SyncMLHeaderParameter.SOURCE.getValue().equals(nodeName)) {
-                    if (node.getTextContent().trim() == null) {
-                        throw new IllegalStateException();
-                    } else {
-                        source = generateSource(node);
-                    }
-                } else if (SyncMLHeaderParameter.CRED.getValue().equals(nodeName)) {
-                    if (node.getTextContent().trim() == null) {
-                        throw new IllegalStateException();
-                    } else {
-                        credential = generateCredential(node);
-                    }
-                }
+        while (nextChildElement(reader)) {
+            String elementName = reader.getLocalName();
+            if (SyncMLHeaderParameter.MSG_ID.getValue().equals(elementName)) {
+                messageID = readText(reader);
+            } else if (SyncMLHeaderParameter.SESSION_ID.getValue().equals(elementName)) {
+                sessionID = readText(reader);
+            } else if (SyncMLHeaderParameter.TARGET.getValue().equals(elementName)) {
+                target = generateTarget(reader);
+            } else if (SyncMLHeaderParameter.SOURCE.getValue().equals(elementName)) {
+                source = generateSource(reader);
+            } else if (SyncMLHeaderParameter.CRED.getValue().equals(elementName)) {
+                credential = generateCredential(reader);
+            } else {
+                skipElement(reader);
             }
         }
-        header.setMsgID(Integer.valueOf(messageID));
+        if (messageID == null || sessionID == null) {
+            throw new SyncmlMessageFormatException("SyncML header does not contain the message and session IDs.");
+        }
+        header.setMsgID(Integer.parseInt(messageID));
         // Syncml message contains a sessionID which is Hexadecimal value.Hexadecimal sessionID parse as a integer value.
-        header.setSessionId(Integer.valueOf(sessionID, 16));
+        header.setSessionId(Integer.parseInt(sessionID, 16));
         header.setTarget(target);
         header.setSource(source);
         header.setCredential(credential);
@@ -163,34 +161,30 @@ public class SyncmlParser {
     }
 
     /**
-     * Generates SyncmlBody object by extracting properties of passed XML node.
+     * Generates SyncmlBody object by reading the commands of the SyncML body.
      *
-     * @param syncBody - XML node which represents SyncML body
+     * @param reader - Reader positioned at the start of the SyncML body
      * @return - SyncmlBody object
      */
-    private static SyncmlBody generateSyncmlBody(Node syncBody) {
+    private static SyncmlBody generateSyncmlBody(XMLStreamReader reader) throws XMLStreamException {
 
         AlertTag alert = null;
         ReplaceTag replace = null;
         ResultsTag results = null;
         List<StatusTag> status = new ArrayList<>();
-        NodeList bodyElements = syncBody.getChildNodes();
-
-        for (int i = 0; i < bodyElements.getLength(); i++) {
-            Node node = bodyElements.item(i);
-
-            if (node.getNodeType() == Node.ELEMENT_NODE) {
-                String nodeName = node.getNodeName();
-
-                if (SycMLCommandType.ALERT.getValue().equals(nodeName)) {
-                    alert = generateAlert(node);
-                } else if (SycMLCommandType.REPLACE.getValue().equals(nodeName)) {
-                    replace = generateReplace(node);
-                } else if (SycMLCommandType.STATUS.getValue().equals(nodeName)) {
-                    status.add(generateStatus(node));
-                } else if (SycMLCommandType.RESULTS.getValue().equals(nodeName)) {
-                    results = generateResults(node);
-                }
+
+        while (nextChildElement(reader)) {
+            String elementName = reader.getLocalName();
+            if (SycMLCommandType.ALERT.getValue().equals(elementName)) {
+                alert = generateAlert(reader);
+            } else if (SycMLCommandType.REPLACE.getValue().equals(elementName)) {
+                replace = generateReplace(reader);
+            } else if (SycMLCommandType.STATUS.getValue().equals(elementName)) {
+                status.add(generateStatus(reader));
+            } else if (SycMLCommandType.RESULTS.getValue().equals(elementName)) {
+                results = generateResults(reader);
+            } else {
+                skipElement(reader);
             }
         }
         SyncmlBody body = new SyncmlBody();
@@ -202,259 +196,321 @@ public class SyncmlParser {
     }
 
     /**
-     * Generates Source object by extracting properties of passed XML node.
+     * Generates Source object by reading the Source element.
      *
-     * @param node - XML node which represents Source
+     * @param reader - Reader positioned at the start of the Source element
      * @return - Source object
      */
-    private static SourceTag generateSource(Node node) {
+    private static SourceTag generateSource(XMLStreamReader reader) throws XMLStreamException {
 
         SourceTag source = new SourceTag();
-        Node sourceURIItem = node.getChildNodes().item(0);
-        Node sourceNameItem = node.getChildNodes().item(1);
-        String sourceURI = null;
-        String sourceName = null;
-
-        if (sourceURIItem != null) {
-            sourceURI = sourceURIItem.getTextContent().trim();
-        }
-        if (sourceNameItem != null) {
-            sourceName = sourceNameItem.getTextContent().trim();
+        while (nextChildElement(reader)) {
+            String elementName = reader.getLocalName();
+            if (PluginConstants.SyncML.SYNCML_LOCATION_URI.equals(elementName)) {
+                source.setLocURI(readText(reader));
+            } else if (Constants.LOC_NAME.equals(elementName)) {
+                source.setLocName(readText(reader));
+            } else {
+                skipElement(reader);
+            }
         }
-        source.setLocURI(sourceURI);
-        source.setLocName(sourceName);
         return source;
     }
 
     /**
-     * Generates Target object by extracting properties of passed XML node.
+     * Generates Target object by reading the Target element.
      *
-     * @param node - XML node which represents Target
+     * @param reader - Reader positioned at the start of the Target element
      * @return - Target object
      */
-    private static TargetTag generateTarget(Node node) {
+    private static TargetTag generateTarget(XMLStreamReader reader) throws XMLStreamException {
 
         TargetTag target = new TargetTag();
-        Node targetURIItem = node.getChildNodes().item(0);
-        Node targetNameItem = node.getChildNodes().item(1);
-        String targetURI = null;
-        String targetName = null;
-
-        if (targetURIItem != null) {
-            targetURI = targetURIItem.getTextContent().trim();
-        }
-        if (targetNameItem != null) {
-            targetName = targetNameItem.getTextContent().trim();
+        while (nextChildElement(reader)) {
+            String elementName = reader.getLocalName();
+            if (PluginConstants.SyncML.SYNCML_LOCATION_URI.equals(elementName)) {
+                target.setLocURI(readText(reader));
+            } else if (Constants.LOC_NAME.equals(elementName)) {
+                target.setLocName(readText(reader));
+            } else {
+                skipElement(reader);
+            }
         }
-        target.setLocURI(targetURI);
-        target.setLocName(targetName);
         return target;
     }
 
     /**
-     * Generates Results object by extracting properties of passed XML node.
+     * Generates Results object by reading the Results command.
      *
-     * @param node - XML node which represents Results
+     * @param reader - Reader positioned at the start of the Results command
      * @return - Results object
      */
-    private static ResultsTag generateResults(Node node) {
+    private static ResultsTag generateResults(XMLStreamReader reader) throws XMLStreamException {
 
         ResultsTag results = new ResultsTag();
+        String commandId = null;
+        String messageReference = null;
+        String commandReference = null;
         List<ItemTag> item = new ArrayList<>();
 
-        if (node.getNodeType() == Node.ELEMENT_NODE) {
-
-            NodeList nodelist = node.getChildNodes();
-
-            for (int i = 0; i < nodelist.getLength(); i++) {
-                String nodeName = nodelist.item(i).getNodeName();
-
-                switch (nodeName) {
-                    case Constants.COMMAND_ID:
-                        commandId = node.getChildNodes().item(i).getTextContent().trim();
-                        break;
-                    case Constants.MESSAGE_REFERENCE:
-                        messageReference = node.getChildNodes().item(i).getTextContent().trim();
-                        break;
-                    case Constants.COMMAND_REFERENCE:
-                        commandReference = node.getChildNodes().item(i).getTextContent().trim();
-                        break;
-                    case Constants.ITEM:
-                        item.add(generateItem(node.getChildNodes().item(i)));
-                        break;
-                }
+        while (nextChildElement(reader)) {
+            switch (reader.getLocalName()) {
+                case Constants.COMMAND_ID:
+                    commandId = readText(reader);
+                    break;
+                case Constants.MESSAGE_REFERENCE:
+                    messageReference = readText(reader);
+                    break;
+                case Constants.COMMAND_REFERENCE:
+                    commandReference = readText(reader);
+                    break;
+                case Constants.ITEM:
+                    item.add(generateItem(reader));
+                    break;
+                default:
+                    skipElement(reader);
             }
-            results.setCommandId(Integer.valueOf(commandId));
-            results.setMessageReference(Integer.valueOf(messageReference));
-            results.setCommandReference(Integer.valueOf(commandReference));
-            results.setItem(item);
         }
+        results.setCommandId(Integer.parseInt(commandId));
+        results.setMessageReference(Integer.parseInt(messageReference));
+        results.setCommandReference(Integer.parseInt(commandReference));
+        results.setItem(item);
         return results;
     }
 
     /**
-     * Generates Status object by extracting properties of passed XML node.
+     * Generates Status object by reading the Status command.
      *
-     * @param node - XML node which represents Status
+     * @param reader - Reader positioned at the start of the Status command
      * @return - Status object
      */
-    private static StatusTag generateStatus(Node node) {
+    private static StatusTag generateStatus(XMLStreamReader reader) throws XMLStreamException {
 
         StatusTag status = new StatusTag();
-        for (int x = 0; x < node.getChildNodes().getLength(); x++) {
-            String nodeName = node.getChildNodes().item(x).getNodeName();
-            switch (nodeName) {
+        while (nextChildElement(reader)) {
+            switch (reader.getLocalName()) {
                 case PluginConstants.SyncML.SYNCML_CMD_ID:
-                    String commandId = node.getChildNodes().item(x).getTextContent().trim();
-                    status.setCommandId(Integer.valueOf(commandId));
+                    status.setCommandId(Integer.parseInt(readText(reader)));
                     break;
                 case PluginConstants.SyncML.SYNCML_MESSAGE_REF:
-                    String messageReference = node.getChildNodes().item(x).getTextContent().trim();
-                    status.setMessageReference(Integer.valueOf(messageReference));
+                    status.setMessageReference(Integer.parseInt(readText(reader)));
                     break;
                 case PluginConstants.SyncML.SYNCML_CMD_REF:
-                    String commandReference = node.getChildNodes().item(x).getTextContent().trim();
-                    status.setCommandReference(Integer.valueOf(commandReference));
+                    status.setCommandReference(Integer.parseInt(readText(reader)));
                     break;
                 case PluginConstants.SyncML.SYNCML_CMD:
-                    String command = node.getChildNodes().item(x).getTextContent().trim();
-                    status.setCommand(command);
+                    status.setCommand(readText(reader));
                     break;
                 case PluginConstants.SyncML.SYNCML_CHAL:
-                    NodeList childNodes = node.getChildNodes().item(x).getChildNodes();
-                    MetaTag meta = new MetaTag();
                     ChallengeTag challengeTag = new ChallengeTag();
-                    String format = childNodes.item(0).getFirstChild().getTextContent();
-                    meta.setFormat(format);
-                    String type = childNodes.item(0).getFirstChild().getNextSibling().getTextContent();
-                    meta.setType(type);
-                    String nonce = childNodes.item(0).getFirstChild().getNextSibling().getNextSibling().getTextContent();
-                    meta.setNextNonce(nonce);
-                    challengeTag.setMeta(meta);
+                    while (nextChildElement(reader)) {
+                        if (Constants.META.equals(reader.getLocalName())) {
+                            challengeTag.setMeta(generateMeta(reader));
+                        } else {
+                            skipElement(reader);
+                        }
+                    }
                     status.setChallenge(challengeTag);
                     break;
                 case PluginConstants.SyncML.SYNCML_DATA:
-                    String data = node.getChildNodes().item(x).getTextContent().trim();
-                    status.setData(data);
+                    status.setData(readText(reader));
                     break;
                 case PluginConstants.SyncML.SYNCML_TARGET_REF:
-                    String targetReference = node.getChildNodes().item(x).getTextContent().trim();
-                    status.setTargetReference(targetReference);
+                    status.setTargetReference(readText(reader));
                     break;
+                default:
+                    skipElement(reader);
             }
         }
         return status;
     }
 
     /**
-     * Generates Replace object by extracting properties of passed XML node.
+     * Generates Replace object by reading the Replace command.
      *
-     * @param node - XML node which represents Replace
+     * @param reader - Reader positioned at the start of the Replace command
      * @return - Replace object
      */
-    private static ReplaceTag generateReplace(Node node) {
+    private static ReplaceTag generateReplace(XMLStreamReader reader) throws XMLStreamException {
 
         ReplaceTag replace = new ReplaceTag();
-        String commandId = node.getChildNodes().item(0).getTextContent().trim();
+        String commandId = null;
         List<ItemTag> items = new ArrayList<>();
-        for (int i = 0; i < node.getChildNodes().getLength() - 1; i++) {
-            items.add(generateItem(node.getChildNodes().item(i + 1)));
+        while (nextChildElement(reader)) {
+            String elementName = reader.getLocalName();
+            if (PluginConstants.SyncML.SYNCML_CMD_ID.equals(elementName)) {
+                commandId = readText(reader);
+            } else if (Constants.ITEM.equals(elementName)) {
+                items.add(generateItem(reader));
+            } else {
+                skipElement(reader);
+            }
         }
-        replace.setCommandId(Integer.valueOf(commandId));
+        replace.setCommandId(Integer.parseInt(commandId));
         replace.setItems(items);
         return replace;
     }
 
     /**
-     * Generates Alert object by extracting properties of passed XML node.
+     * Generates Alert object by reading the Alert command.
      *
-     * @param node - XML node which represents Alert
+     * @param reader - Reader positioned at the start of the Alert command
      * @return - Alert object
      */
-    private static AlertTag generateAlert(Node node) {
+    private static AlertTag generateAlert(XMLStreamReader reader) throws XMLStreamException {
         AlertTag alert = new AlertTag();
-        String commandID = node.getChildNodes().item(0).getTextContent().trim();
-        String data = node.getChildNodes().item(1).getTextContent().trim();
-        alert.setCommandId(Integer.valueOf(commandID));
-        alert.setData(data);
+        String commandID = null;
+        while (nextChildElement(reader)) {
+            String elementName = reader.getLocalName();
+            if (PluginConstants.SyncML.SYNCML_CMD_ID.equals(elementName)) {
+                commandID = readText(reader);
+            } else if (PluginConstants.SyncML.SYNCML_DATA.equals(elementName)) {
+                alert.setData(readText(reader));
+            } else {
+                skipElement(reader);
+            }
+        }
+        alert.setCommandId(Integer.parseInt(commandID));
         return alert;
     }
 
     /**
-     * Generates Item object by extracting properties of passed XML node.
+     * Generates Item object by reading the Item element.
      *
-     * @param node - XML node which represents Item
+     * @param reader - Reader positioned at the start of the Item element
      * @return - Item object
      */
-    private static ItemTag generateItem(Node node) {
+    private static ItemTag generateItem(XMLStreamReader reader) throws XMLStreamException {
         ItemTag item = new ItemTag();
-        SourceTag source = new SourceTag();
-        String data;
-        String nodeName;
-        String childNodeName;
-        String locUri;
-        for (int x = 0; x < node.getChildNodes().getLength(); x++) {
-            Node itemNode;
-            itemNode = node.getChildNodes().item(x);
-            if (itemNode.getNodeName() != null) {
-                nodeName = node.getChildNodes().item(x).getNodeName();
-            } else {
-                throw new IllegalStateException();
-            }
-            if (PluginConstants.SyncML.SYNCML_SOURCE.equals(nodeName)) {
-                if (itemNode.getChildNodes().item(x).getNodeName() != null) {
-                    childNodeName = itemNode.getChildNodes().item(x).getNodeName();
-                } else {
-                    throw new IllegalStateException();
-                }
-                if ((PluginConstants.SyncML.SYNCML_LOCATION_URI.equals(childNodeName))) {
-                    if (itemNode.getChildNodes().item(x).getTextContent().trim() != null) {
-                        locUri = itemNode.getChildNodes().item(x).getTextContent().trim();
+        while (nextChildElement(reader)) {
+            String elementName = reader.getLocalName();
+            if (PluginConstants.SyncML.SYNCML_SOURCE.equals(elementName)) {
+                SourceTag source = new SourceTag();
+                while (nextChildElement(reader)) {
+                    if (PluginConstants.SyncML.SYNCML_LOCATION_URI.equals(reader.getLocalName())) {
+                        source.setLocURI(readText(reader));
                     } else {
-                        throw new IllegalStateException();
+                        skipElement(reader);
                     }
-                    source.setLocURI(locUri);
-                    item.setSource(source);
-                }
-            } else if (PluginConstants.SyncML.SYNCML_DATA.equals(nodeName)) {
-                if (itemNode.getTextContent().trim() != null) {
-                    data = itemNode.getTextContent().trim();
-                } else {
-                    throw new IllegalStateException();
                 }
-                item.setData(data);
+                item.setSource(source);
+            } else if (PluginConstants.SyncML.SYNCML_DATA.equals(elementName)) {
+                item.setData(readText(reader));
+            } else {
+                skipElement(reader);
             }
         }
         return item;
     }
 
     /**
-     * Generates Credential object by extracting properties of passed XML node.
+     * Generates Credential object by reading the Cred element.
      *
-     * @param node - XML node which represents Credential
+     * @param reader - Reader positioned at the start of the Cred element
      * @return - Credential object
      */
-    private static CredentialTag generateCredential(Node node) {
+    private static CredentialTag generateCredential(XMLStreamReader reader) throws XMLStreamException {
         CredentialTag credential = new CredentialTag();
-        MetaTag meta = generateMeta(node.getChildNodes().item(0));
-        String data = node.getChildNodes().item(1).getTextContent().trim();
-        credential.setMeta(meta);
-        credential.setData(data);
+        while (nextChildElement(reader)) {
+            String elementName = reader.getLocalName();
+            if (Constants.META.equals(elementName)) {
+                credential.setMeta(generateMeta(reader));
+            } else if (PluginConstants.SyncML.SYNCML_DATA.equals(elementName)) {
+                credential.setData(readText(reader));
+            } else {
+                skipElement(reader);
+            }
+        }
         return credential;
     }
 
     /**
-     * Generates MetaTag object by extracting properties of passed XML node.
+     * Generates MetaTag object by reading the Meta element.
      *
-     * @param node - XML node which represents MetaTag
+     * @param reader - Reader positioned at the start of the Meta element
      * @return - MetaTag object
      */
-    private static MetaTag generateMeta(Node node) {
+    private static MetaTag generateMeta(XMLStreamReader reader) throws XMLStreamException {
         MetaTag meta = new MetaTag();
-        String format = node.getChildNodes().item(0).getTextContent().trim();
-        String type = node.getChildNodes().item(1).getTextContent().trim();
-        meta.setFormat(format);
-        meta.setType(type);
+        while (nextChildElement(reader)) {
+            String elementName = reader.getLocalName();
+            if (Constants.FORMAT.equals(elementName)) {
+                meta.setFormat(readText(reader));
+            } else if (Constants.TYPE.equals(elementName)) {
+                meta.setType(readText(reader));
+            } else if (Constants.NEXTNONCE.equals(elementName)) {
+                meta.setNextNonce(readText(reader));
+            } else {
+                skipElement(reader);
+            }
+        }
         return meta;
     }
+
+    /**
+     * Moves the reader to the next child element of the element being read.
+     *
+     * @return false if the end of the element being read is reached instead.
+     */
+    private static boolean nextChildElement(XMLStreamReader reader) throws XMLStreamException {
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                return true;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reads the text content of the current element, including the text of its descendants, and leaves the reader
+     * at the end of the element.
+     *
+     * @return trimmed text content of the element.
+     */
+    private static String readText(XMLStreamReader reader) throws XMLStreamException {
+        StringBuilder text = new StringBuilder();
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    depth++;
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    depth--;
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                    text.append(reader.getText());
+                    break;
+            }
+        }
+        return text.toString().trim();
+    }
+
+    /**
+     * Skips the current element together with its descendants.
+     */
+    private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    private static XMLInputFactory createXMLInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
 }
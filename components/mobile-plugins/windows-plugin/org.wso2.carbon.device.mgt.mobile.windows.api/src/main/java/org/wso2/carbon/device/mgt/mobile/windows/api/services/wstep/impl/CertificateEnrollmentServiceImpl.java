@@ -26,11 +26,7 @@ import org.apache.cxf.headers.Header;
 import org.apache.cxf.helpers.CastUtils;
 import org.apache.cxf.jaxws.context.WrappedMessageContext;
 import org.apache.cxf.message.Message;
-import org.w3c.dom.Document;
 import org.w3c.dom.Element;
-import org.w3c.dom.NamedNodeMap;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
 import org.wso2.carbon.certificate.mgt.core.exception.KeystoreException;
 import org.wso2.carbon.certificate.mgt.core.service.CertificateManagementServiceImpl;
 import org.wso2.carbon.context.PrivilegedCarbonContext;
@@ -42,6 +38,7 @@ import org.wso2.carbon.device.mgt.mobile.windows.api.common.exceptions.SyncmlMes
 import org.wso2.carbon.device.mgt.mobile.windows.api.common.exceptions.WAPProvisioningException;
 import org.wso2.carbon.device.mgt.mobile.windows.api.common.exceptions.WindowsDeviceEnrolmentException;
 import org.wso2.carbon.device.mgt.mobile.windows.api.common.util.DeviceUtil;
+import org.wso2.carbon.device.mgt.mobile.windows.api.common.util.WapProvisioningTemplate;
 import org.wso2.carbon.device.mgt.mobile.windows.api.common.util.WindowsAPIUtils;
 import org.wso2.carbon.device.mgt.mobile.windows.api.operations.util.SyncmlCredentialUtil;
 import org.wso2.carbon.device.mgt.mobile.windows.api.services.wstep.CertificateEnrollmentService;
@@ -50,32 +47,21 @@ import org.wso2.carbon.device.mgt.mobile.windows.api.services.wstep.beans.Binary
 import org.wso2.carbon.device.mgt.mobile.windows.api.services.wstep.beans.RequestSecurityTokenResponse;
 import org.wso2.carbon.device.mgt.mobile.windows.api.services.wstep.beans.RequestedSecurityToken;
 import org.wso2.carbon.device.mgt.mobile.windows.impl.dto.MobileCacheEntry;
-import org.xml.sax.SAXException;
 
 import javax.annotation.Resource;
 import javax.jws.WebService;
 import javax.servlet.ServletContext;
-import javax.xml.XMLConstants;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
 import javax.xml.ws.BindingType;
 import javax.xml.ws.Holder;
 import javax.xml.ws.WebServiceContext;
 import javax.xml.ws.handler.MessageContext;
 import javax.xml.ws.soap.Addressing;
 import javax.xml.ws.soap.SOAPBinding;
-import java.io.File;
-import java.io.IOException;
-import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
 import java.security.cert.CertificateEncodingException;
 import java.security.cert.X509Certificate;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Implementation class of CertificateEnrollmentService interface. This class implements MS-WSTEP
@@ -154,16 +140,19 @@ public class CertificateEnrollmentServiceImpl implements CertificateEnrollmentSe
             }
             ServletContext ctx = (ServletContext) context.getMessageContext().
                     get(MessageContext.SERVLET_CONTEXT);
-            File wapProvisioningFile = (File) ctx.getAttribute(PluginConstants.CONTEXT_WAP_PROVISIONING_FILE);
+            WapProvisioningTemplate wapProvisioningTemplate = (WapProvisioningTemplate) ctx.getAttribute(
+                    PluginConstants.CONTEXT_WAP_PROVISIONING_TEMPLATE);
+            if (wapProvisioningTemplate == null) {
+                throw new WAPProvisioningException("wap-provisioning template has not been loaded.");
+            }
             if (log.isDebugEnabled()) {
                 log.debug("Received CSR from Device:" + binarySecurityToken);
             }
 
-            String wapProvisioningFilePath = wapProvisioningFile.getPath();
             RequestSecurityTokenResponse requestSecurityTokenResponse = new RequestSecurityTokenResponse();
             requestSecurityTokenResponse.setTokenType(PluginConstants.CertificateEnrolment.TOKEN_TYPE);
 
-            encodedWap = prepareWapProvisioningXML(binarySecurityToken, wapProvisioningFilePath,
+            encodedWap = prepareWapProvisioningXML(binarySecurityToken, wapProvisioningTemplate,
                     headerBinarySecurityToken);
             RequestedSecurityToken requestedSecurityToken = new RequestedSecurityToken();
             BinarySecurityToken binarySecToken = new BinarySecurityToken();
@@ -191,34 +180,17 @@ public class CertificateEnrollmentServiceImpl implements CertificateEnrollmentSe
         }
     }
 
-    /**
-     * Method used to Convert the Document object into a String.
-     *
-     * @param document - Wap provisioning XML document
-     * @return - String representation of wap provisioning XML document
-     * @throws TransformerException
-     */
-    private String convertDocumentToString(Document document) throws TransformerException {
-        DOMSource DOMSource = new DOMSource(document);
-        StringWriter stringWriter = new StringWriter();
-        StreamResult streamResult = new StreamResult(stringWriter);
-        TransformerFactory transformerFactory = TransformerFactory.newInstance();
-        Transformer transformer = transformerFactory.newTransformer();
-        transformer.transform(DOMSource, streamResult);
-
-        return stringWriter.toString();
-    }
-
     /**
      * This method prepares the wap-provisioning file by including relevant certificates etc.
      *
      * @param binarySecurityToken     - CSR from device
-     * @param wapProvisioningFilePath - File path of wap-provisioning file
+     * @param wapProvisioningTemplate - Template of the wap-provisioning file
      * @return - base64 encoded final wap-provisioning file as a String
      * @throws CertificateGenerationException
      * @throws org.wso2.carbon.device.mgt.mobile.windows.api.common.exceptions.WAPProvisioningException
      */
-    private String prepareWapProvisioningXML(String binarySecurityToken, String wapProvisioningFilePath,
+    private String prepareWapProvisioningXML(String binarySecurityToken,
+                                             WapProvisioningTemplate wapProvisioningTemplate,
                                              String headerBst) throws CertificateGenerationException,
                                                                       WAPProvisioningException,
                                                                       WindowsDeviceEnrolmentException {
@@ -229,111 +201,66 @@ public class CertificateEnrollmentServiceImpl implements CertificateEnrollmentSe
 
         CertificateManagementServiceImpl certMgtServiceImpl = CertificateManagementServiceImpl.getInstance();
         Base64 base64Encoder = new Base64();
+        Map<WapProvisioningTemplate.Parameter, String> wapParameters = WapProvisioningTemplate.newParameterValues();
         try {
             rootCACertificate = (X509Certificate) certMgtServiceImpl.getCACertificate();
             rootCertEncodedString = base64Encoder.encodeAsString(rootCACertificate.getEncoded());
 
-
             signedCertificate = certMgtServiceImpl.getSignedCertificateFromCSR(binarySecurityToken);
             signedCertEncodedString = base64Encoder.encodeAsString(signedCertificate.getEncoded());
 
-            DocumentBuilderFactory domFactory = DocumentBuilderFactory.newInstance();
-            domFactory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
-            domFactory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
-
-            DocumentBuilder builder = domFactory.newDocumentBuilder();
-            Document document = builder.parse(wapProvisioningFilePath);
-            NodeList wapParm = document.getElementsByTagName(PluginConstants.CertificateEnrolment.PARM);
-            Node caCertificatePosition = wapParm.item(PluginConstants.CertificateEnrolment.CA_CERTIFICATE_POSITION);
-
             //Adding SHA1 CA certificate finger print to wap-provisioning xml.
-            caCertificatePosition.getParentNode().getAttributes().getNamedItem(PluginConstants.
-                    CertificateEnrolment.TYPE).setTextContent(String.valueOf(
-                    DigestUtils.sha1Hex(rootCACertificate.getEncoded())).toUpperCase());
+            wapParameters.put(WapProvisioningTemplate.Parameter.CA_CERTIFICATE_FINGERPRINT,
+                    DigestUtils.sha1Hex(rootCACertificate.getEncoded()).toUpperCase());
             //Adding encoded CA certificate to wap-provisioning file after removing new line
             // characters.
-            NamedNodeMap rootCertAttributes = caCertificatePosition.getAttributes();
-            Node rootCertNode =
-                    rootCertAttributes.getNamedItem(PluginConstants.CertificateEnrolment.VALUE);
             rootCertEncodedString = rootCertEncodedString.replaceAll("\n", "");
-            rootCertNode.setTextContent(rootCertEncodedString);
+            wapParameters.put(WapProvisioningTemplate.Parameter.CA_CERTIFICATE, rootCertEncodedString);
 
             if (log.isDebugEnabled()) {
                 log.debug("Root certificate: " + rootCertEncodedString);
             }
 
-            Node signedCertificatePosition = wapParm.item(PluginConstants.CertificateEnrolment.
-                    SIGNED_CERTIFICATE_POSITION);
-
             //Adding SHA1 signed certificate finger print to wap-provisioning xml.
-            signedCertificatePosition.getParentNode().getAttributes().getNamedItem(PluginConstants.
-                    CertificateEnrolment.TYPE).setTextContent(String.valueOf(
-                    DigestUtils.sha1Hex(signedCertificate.getEncoded())).toUpperCase());
+            wapParameters.put(WapProvisioningTemplate.Parameter.SIGNED_CERTIFICATE_FINGERPRINT,
+                    DigestUtils.sha1Hex(signedCertificate.getEncoded()).toUpperCase());
 
             //Adding encoded signed certificate to wap-provisioning file after removing new line
             // characters.
-            NamedNodeMap clientCertAttributes = signedCertificatePosition.getAttributes();
-            Node clientEncodedNode =
-                    clientCertAttributes.getNamedItem(PluginConstants.CertificateEnrolment.VALUE);
             signedCertEncodedString = signedCertEncodedString.replaceAll("\n", "");
-
-            clientEncodedNode.setTextContent(signedCertEncodedString);
+            wapParameters.put(WapProvisioningTemplate.Parameter.SIGNED_CERTIFICATE, signedCertEncodedString);
             if (log.isDebugEnabled()) {
                 log.debug("Signed certificate: " + signedCertEncodedString);
             }
 
             //Adding domainName to wap-provisioning xml.
-            Node domainPosition = wapParm.item(PluginConstants.CertificateEnrolment.DOMAIN_POSITION);
-            NamedNodeMap domainAttribute = domainPosition.getAttributes();
-            Node domainNode = domainAttribute.getNamedItem(PluginConstants.CertificateEnrolment.VALUE);
-            domainNode.setTextContent(domain);
+            wapParameters.put(WapProvisioningTemplate.Parameter.DOMAIN, domain);
 
             //Adding Next provisioning service URL to wap-provisioning xml.
-            Node syncmlServicePosition = wapParm.item(PluginConstants.CertificateEnrolment.
-                    SYNCML_PROVISIONING_ADDR_POSITION);
-            NamedNodeMap syncmlServiceAttribute = syncmlServicePosition.getAttributes();
-            Node syncmlServiceNode = syncmlServiceAttribute.getNamedItem(PluginConstants.CertificateEnrolment.VALUE);
-            syncmlServiceNode.setTextContent(provisioningURL);
+            wapParameters.put(WapProvisioningTemplate.Parameter.SYNCML_PROVISIONING_ADDRESS, provisioningURL);
 
             // Adding user name auth token to wap-provisioning xml.
-            Node userNameAuthPosition = wapParm.item(PluginConstants.CertificateEnrolment.APPAUTH_USERNAME_POSITION);
-            NamedNodeMap appServerAttribute = userNameAuthPosition.getAttributes();
-            Node authNameNode = appServerAttribute.getNamedItem(PluginConstants.CertificateEnrolment.VALUE);
             MobileCacheEntry cacheEntry =  DeviceUtil.getTokenEntry(headerBst);
             String userName = cacheEntry.getUsername();
-            authNameNode.setTextContent(cacheEntry.getUsername());
+            wapParameters.put(WapProvisioningTemplate.Parameter.APPAUTH_USERNAME, userName);
             DeviceUtil.removeTokenEntry(headerBst);
             String password = DeviceUtil.generateRandomToken();
-            Node passwordAuthPosition = wapParm.item(PluginConstants.CertificateEnrolment.APPAUTH_PASSWORD_POSITION);
-            NamedNodeMap appSrvPasswordAttribute = passwordAuthPosition.getAttributes();
-            Node authPasswordNode = appSrvPasswordAttribute.getNamedItem(PluginConstants.CertificateEnrolment.VALUE);
-            authPasswordNode.setTextContent(password);
+            wapParameters.put(WapProvisioningTemplate.Parameter.APPAUTH_PASSWORD, password);
             String requestSecurityTokenResponse = SyncmlCredentialUtil.generateRST(userName, password);
             DeviceUtil.persistChallengeToken(requestSecurityTokenResponse, null, userName);
 
             // Get device polling frequency from the tenant Configurations.
-            Node numberOfFirstRetries = wapParm.item(PluginConstants.CertificateEnrolment.POLLING_FREQUENCY_POSITION);
-            NamedNodeMap pollingAttributes = numberOfFirstRetries.getAttributes();
-            Node pollValue = pollingAttributes.getNamedItem(PluginConstants.CertificateEnrolment.VALUE);
-            pollValue.setTextContent(pollingFrequency);
-            provisioningXmlString = convertDocumentToString(document);
+            wapParameters.put(WapProvisioningTemplate.Parameter.POLLING_FREQUENCY, pollingFrequency);
+            provisioningXmlString = wapProvisioningTemplate.render(wapParameters);
 
-        } catch (ParserConfigurationException e) {
-            throw new WAPProvisioningException("Problem occurred while creating configuration request", e);
         } catch (CertificateEncodingException e) {
             throw new WindowsDeviceEnrolmentException("Error occurred while encoding certificates.", e);
-        } catch (SAXException e) {
-            throw new WAPProvisioningException("Error occurred while parsing wap-provisioning.xml file.", e);
-        } catch (TransformerException e) {
-            throw new WAPProvisioningException("Error occurred while transforming wap-provisioning.xml file.", e);
-        } catch (IOException e) {
-            throw new WAPProvisioningException("Error occurred while getting wap-provisioning.xml file.", e);
         } catch (SyncmlMessageFormatException e) {
             throw new WindowsDeviceEnrolmentException("Error occurred while generating password hash value.", e);
         } catch (KeystoreException e) {
             throw new CertificateGenerationException("CA certificate cannot be generated.", e);
         }
-        return base64Encoder.encodeAsString(provisioningXmlString.getBytes());
+        return base64Encoder.encodeAsString(provisioningXmlString.getBytes(StandardCharsets.UTF_8));
     }
 
     /**
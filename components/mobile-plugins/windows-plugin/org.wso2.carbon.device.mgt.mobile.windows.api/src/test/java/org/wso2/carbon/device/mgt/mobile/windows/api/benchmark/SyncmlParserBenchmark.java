@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * you may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.device.mgt.mobile.windows.api.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.Document;
+import org.wso2.carbon.device.mgt.mobile.windows.api.common.exceptions.SyncmlMessageFormatException;
+import org.wso2.carbon.device.mgt.mobile.windows.api.operations.SyncmlDocument;
+import org.wso2.carbon.device.mgt.mobile.windows.api.operations.util.SyncmlParser;
+import org.wso2.carbon.device.mgt.mobile.windows.api.operations.util.SyncmlParserTest;
+import org.xml.sax.SAXException;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares parsing a SyncML results message into a SyncmlDocument with the streaming parser against only building
+ * the DOM document of the same message, which the endpoints did before handing the document to the previous
+ * parser. The DOM figure is therefore a lower bound of the previous cost. The enrollment benchmarks do the same for
+ * the first message of a device after the enrollment, which carries the device information.
+ * Run with: java -cp target/test-classes:target/classes:&lt;test classpath&gt; org.openjdk.jmh.Main
+ * SyncmlParserBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SyncmlParserBenchmark {
+
+    @Param({"5", "50"})
+    private int itemCount;
+
+    private byte[] payload;
+    private byte[] enrollmentPayload;
+    private DocumentBuilder documentBuilder;
+
+    @Setup
+    public void setup() throws ParserConfigurationException {
+        StringBuilder builder = new StringBuilder();
+        builder.append("<SyncML xmlns=\"SYNCML:SYNCML1.2\"><SyncHdr><VerDTD>1.2</VerDTD><VerProto>DM/1.2</VerProto>")
+                .append("<SessionID>1A</SessionID><MsgID>2</MsgID>")
+                .append("<Target><LocURI>https://mdm.example.com/api/device-mgt/windows/v1.0/syncml</LocURI>")
+                .append("</Target><Source><LocURI>urn:uuid:7b5a7e1c-d8c9-4d8e-9c2a-1f0b3c4d5e6f</LocURI>")
+                .append("<LocName>dummy</LocName></Source></SyncHdr><SyncBody>")
+                .append("<Status><CmdID>1</CmdID><MsgRef>1</MsgRef><CmdRef>0</CmdRef><Cmd>SyncHdr</Cmd>")
+                .append("<Data>200</Data></Status>")
+                .append("<Results><CmdID>2</CmdID><MsgRef>1</MsgRef><CmdRef>5</CmdRef>");
+        for (int i = 0; i < itemCount; i++) {
+            builder.append("<Item><Source><LocURI>./DevDetail/Ext/Microsoft/Property").append(i)
+                    .append("</LocURI></Source><Data>value-").append(i).append("</Data></Item>");
+        }
+        builder.append("</Results><Final/></SyncBody></SyncML>");
+        payload = builder.toString().getBytes(StandardCharsets.UTF_8);
+        enrollmentPayload = SyncmlParserTest.ENROLLMENT_PAYLOAD.getBytes(StandardCharsets.UTF_8);
+
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        documentBuilder = factory.newDocumentBuilder();
+    }
+
+    @Benchmark
+    public SyncmlDocument streamingParser() throws SyncmlMessageFormatException {
+        return SyncmlParser.parseSyncmlPayload(new ByteArrayInputStream(payload));
+    }
+
+    @Benchmark
+    public Document domDocument() throws IOException, SAXException {
+        return documentBuilder.parse(new ByteArrayInputStream(payload));
+    }
+
+    @Benchmark
+    public SyncmlDocument streamingParserEnrollment() throws SyncmlMessageFormatException {
+        return SyncmlParser.parseSyncmlPayload(new ByteArrayInputStream(enrollmentPayload));
+    }
+
+    @Benchmark
+    public Document domDocumentEnrollment() throws IOException, SAXException {
+        return documentBuilder.parse(new ByteArrayInputStream(enrollmentPayload));
+    }
+}
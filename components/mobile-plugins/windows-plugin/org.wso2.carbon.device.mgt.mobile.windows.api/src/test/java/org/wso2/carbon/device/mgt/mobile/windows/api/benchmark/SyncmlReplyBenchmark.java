@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.device.mgt.mobile.windows.api.benchmark;
+
+import org.json.JSONException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wso2.carbon.device.mgt.common.operation.mgt.Operation;
+import org.wso2.carbon.device.mgt.mobile.windows.api.common.PluginConstants;
+import org.wso2.carbon.device.mgt.mobile.windows.api.common.exceptions.SyncmlOperationException;
+import org.wso2.carbon.device.mgt.mobile.windows.api.operations.CredentialTag;
+import org.wso2.carbon.device.mgt.mobile.windows.api.operations.MetaTag;
+import org.wso2.carbon.device.mgt.mobile.windows.api.operations.SequenceTag;
+import org.wso2.carbon.device.mgt.mobile.windows.api.operations.SourceTag;
+import org.wso2.carbon.device.mgt.mobile.windows.api.operations.StatusTag;
+import org.wso2.carbon.device.mgt.mobile.windows.api.operations.SyncmlBody;
+import org.wso2.carbon.device.mgt.mobile.windows.api.operations.SyncmlDocument;
+import org.wso2.carbon.device.mgt.mobile.windows.api.operations.SyncmlHeader;
+import org.wso2.carbon.device.mgt.mobile.windows.api.operations.TargetTag;
+import org.wso2.carbon.device.mgt.mobile.windows.api.operations.util.Constants;
+import org.wso2.carbon.device.mgt.mobile.windows.api.operations.util.OperationReply;
+import org.wso2.carbon.device.mgt.mobile.windows.api.operations.util.SyncmlFragment;
+import org.wso2.carbon.device.mgt.mobile.windows.api.operations.util.SyncmlFragmentCache;
+import org.wso2.carbon.device.mgt.mobile.windows.api.operations.util.SyncmlGenerator;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares writing the reply which sends a policy bundle to a device with the sequence of the bundle built for the
+ * reply, which is how every reply was written before, against copying the sequence precompiled for an earlier
+ * device out of SyncmlFragmentCache.
+ * Run with: java -cp target/test-classes:target/classes:&lt;test classpath&gt; org.openjdk.jmh.Main
+ * SyncmlReplyBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SyncmlReplyBenchmark {
+
+    private static final int TENANT_ID = -1234;
+    private static final int POLICY_BUNDLE_ID = 12;
+
+    private final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    private final OperationReply operationReply = new OperationReply();
+    private Operation policyBundle;
+
+    @Setup
+    public void setup() throws JSONException, SyncmlOperationException {
+        List<Operation> policies = new ArrayList<>();
+        policies.add(createPolicy(PluginConstants.OperationCodes.CAMERA, "{\"enabled\":false}"));
+        policies.add(createPolicy(PluginConstants.OperationCodes.ENCRYPT_STORAGE, "{\"encrypted\":true}"));
+        policies.add(createPolicy(PluginConstants.OperationCodes.PASSCODE_POLICY,
+                                  "{\"enablePassword\":true,\"allowSimple\":false,\"requireAlphanumeric\":true," +
+                                  "\"minLength\":6,\"minComplexChars\":1,\"maxPINAgeInDays\":30,\"pinHistory\":5," +
+                                  "\"maxInactiveTime\":15,\"maxFailedAttempts\":5}"));
+        policyBundle = new Operation();
+        policyBundle.setId(POLICY_BUNDLE_ID);
+        policyBundle.setCode(PluginConstants.OperationCodes.POLICY_BUNDLE);
+        policyBundle.setType(Operation.Type.POLICY);
+        policyBundle.setPayLoad(policies);
+
+        final SequenceTag sequence = operationReply.buildSequence(policyBundle, new SequenceTag());
+        SyncmlFragmentCache.putFragment(TENANT_ID, POLICY_BUNDLE_ID, OperationReply.getSequenceSource(policyBundle),
+                                        SyncmlGenerator.compileFragment(new SyncmlFragment.Content() {
+                                            @Override
+                                            public void write(XMLStreamWriter writer) throws XMLStreamException {
+                                                sequence.writeSequenceElement(writer);
+                                            }
+                                        }));
+    }
+
+    @Benchmark
+    public int builtSequence() throws JSONException, SyncmlOperationException, IOException {
+        SyncmlDocument reply = createReply();
+        reply.getBody().setSequence(operationReply.buildSequence(policyBundle, new SequenceTag()));
+        outputStream.reset();
+        SyncmlGenerator.writePayload(reply, outputStream);
+        return outputStream.size();
+    }
+
+    @Benchmark
+    public int precompiledSequence() throws SyncmlOperationException, IOException {
+        SyncmlDocument reply = createReply();
+        reply.getBody().setSequenceFragment(SyncmlFragmentCache.getFragment(
+                TENANT_ID, POLICY_BUNDLE_ID, OperationReply.getSequenceSource(policyBundle)));
+        outputStream.reset();
+        SyncmlGenerator.writePayload(reply, outputStream);
+        return outputStream.size();
+    }
+
+    private static Operation createPolicy(String code, String payload) {
+        Operation policy = new Operation();
+        policy.setCode(code);
+        policy.setPayLoad(payload);
+        return policy;
+    }
+
+    private static SyncmlDocument createReply() {
+        SyncmlHeader header = new SyncmlHeader();
+        header.setMsgID(2);
+        header.setHexadecimalSessionId("1a");
+        TargetTag target = new TargetTag();
+        target.setLocURI("urn:uuid:7b5a7e1c-d8c9-4d8e-9c2a-1f0b3c4d5e6f");
+        header.setTarget(target);
+        SourceTag source = new SourceTag();
+        source.setLocURI("https://mdm.example.com/api/device-mgt/windows/v1.0/syncml");
+        header.setSource(source);
+        MetaTag meta = new MetaTag();
+        meta.setFormat(Constants.CRED_FORMAT);
+        meta.setType(Constants.CRED_TYPE);
+        CredentialTag credential = new CredentialTag();
+        credential.setMeta(meta);
+        credential.setData("a2V5LTEyMzQ1Ng==");
+        header.setCredential(credential);
+
+        SyncmlBody body = new SyncmlBody();
+        String accepted = String.valueOf(Constants.SyncMLResponseCodes.ACCEPTED);
+        body.setStatus(Collections.singletonList(new StatusTag(1, 2, 0, "SyncHdr", null, accepted)));
+        SyncmlDocument reply = new SyncmlDocument();
+        reply.setHeader(header);
+        reply.setBody(body);
+        return reply;
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.device.mgt.mobile.windows.api.operations.util;
+
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.testng.PowerMockObjectFactory;
+import org.testng.Assert;
+import org.testng.IObjectFactory;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.ObjectFactory;
+import org.testng.annotations.Test;
+import org.wso2.carbon.device.mgt.common.DeviceIdentifier;
+import org.wso2.carbon.device.mgt.common.operation.mgt.Operation;
+import org.wso2.carbon.device.mgt.core.service.DeviceManagementProviderService;
+import org.wso2.carbon.device.mgt.mobile.windows.api.common.PluginConstants;
+import org.wso2.carbon.device.mgt.mobile.windows.api.common.util.WindowsAPIUtils;
+import org.wso2.carbon.device.mgt.mobile.windows.api.operations.SyncmlDocument;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+@PowerMockIgnore({"javax.ws.rs.*", "javax.xml.*", "org.xml.*", "org.w3c.*", "org.apache.log4j.*"})
+@PrepareForTest(WindowsAPIUtils.class)
+public class OperationHandlerTest {
+
+    private static final String DEVICE_ID = "7B5A7E1CD8C94D8E9C2A1F0B3C4D5E6F";
+
+    private DeviceManagementProviderService deviceManagementProviderService;
+    private OperationHandler operationHandler;
+
+    @ObjectFactory
+    public IObjectFactory getObjectFactory() {
+        return new PowerMockObjectFactory();
+    }
+
+    @BeforeClass
+    public void init() {
+        deviceManagementProviderService = Mockito.mock(DeviceManagementProviderService.class);
+        PowerMockito.stub(PowerMockito.method(WindowsAPIUtils.class, "getDeviceManagementService"))
+                .toReturn(deviceManagementProviderService);
+        operationHandler = new OperationHandler();
+    }
+
+    @BeforeMethod
+    public void resetDeviceManagementService() {
+        Mockito.reset(deviceManagementProviderService);
+    }
+
+    @Test
+    public void testStatusChangeIsPersistedOnce() throws Exception {
+        Operation ring = createOperation(1, PluginConstants.OperationCodes.DEVICE_RING, Operation.Status.PENDING);
+        Operation policy = createOperation(2, PluginConstants.OperationCodes.POLICY_BUNDLE, Operation.Status.PENDING);
+        Operation deviceInfo = createOperation(3, PluginConstants.OperationCodes.DEVICE_INFO,
+                                               Operation.Status.PENDING);
+        Operation revoke = createOperation(4, PluginConstants.OperationCodes.POLICY_REVOKE, Operation.Status.PENDING);
+        Operation monitor = createOperation(5, PluginConstants.OperationCodes.MONITOR, Operation.Status.PENDING);
+        mockPendingOperations(ring, policy, deviceInfo, revoke, monitor);
+
+        // the ring status is repeated and each Sequence status completes the revoke operation again
+        List<? extends Operation> remainingOperations = operationHandler.getPendingOperations(parse(
+                execStatus(1, "200") + execStatus(1, "200") + sequenceStatus(2, "200") + sequenceStatus(5, "500")));
+
+        ArgumentCaptor<Operation> persisted = ArgumentCaptor.forClass(Operation.class);
+        Mockito.verify(deviceManagementProviderService, Mockito.times(4))
+                .updateOperation(Mockito.any(DeviceIdentifier.class), persisted.capture());
+        Assert.assertEquals(persisted.getAllValues(), Arrays.asList(ring, policy, revoke, monitor));
+        Assert.assertEquals(ring.getStatus(), Operation.Status.COMPLETED);
+        Assert.assertEquals(policy.getStatus(), Operation.Status.COMPLETED);
+        Assert.assertEquals(revoke.getStatus(), Operation.Status.COMPLETED);
+        Assert.assertEquals(monitor.getStatus(), Operation.Status.ERROR);
+        Assert.assertEquals(remainingOperations, Arrays.asList(deviceInfo));
+    }
+
+    @Test
+    public void testUnchangedStatusIsNotPersisted() throws Exception {
+        Operation ring = createOperation(1, PluginConstants.OperationCodes.DEVICE_RING, Operation.Status.COMPLETED);
+        Operation policy = createOperation(2, PluginConstants.OperationCodes.POLICY_BUNDLE, Operation.Status.ERROR);
+        mockPendingOperations(ring, policy);
+
+        List<? extends Operation> remainingOperations = operationHandler.getPendingOperations(parse(
+                execStatus(1, "200") + sequenceStatus(2, "500")));
+
+        Mockito.verify(deviceManagementProviderService, Mockito.never())
+                .updateOperation(Mockito.any(DeviceIdentifier.class), Mockito.any(Operation.class));
+        Assert.assertEquals(remainingOperations, Arrays.asList(ring, policy));
+    }
+
+    @Test
+    public void testRemainingOperationsKeepPendingOrder() throws Exception {
+        Operation lock = createOperation(7, PluginConstants.OperationCodes.DEVICE_LOCK, Operation.Status.PENDING);
+        Operation ring = createOperation(3, PluginConstants.OperationCodes.DEVICE_RING, Operation.Status.PENDING);
+        Operation wipe = createOperation(9, PluginConstants.OperationCodes.WIPE_DATA, Operation.Status.PENDING);
+        Operation info = createOperation(4, PluginConstants.OperationCodes.DEVICE_INFO, Operation.Status.PENDING);
+        mockPendingOperations(lock, ring, wipe, info);
+
+        // statuses of unknown operations and statuses which do not complete an operation are ignored
+        List<? extends Operation> remainingOperations = operationHandler.getPendingOperations(parse(
+                execStatus(9, "200") + execStatus(11, "200") + execStatus(3, "500") + sequenceStatus(4, "200")));
+
+        ArgumentCaptor<Operation> persisted = ArgumentCaptor.forClass(Operation.class);
+        Mockito.verify(deviceManagementProviderService)
+                .updateOperation(Mockito.any(DeviceIdentifier.class), persisted.capture());
+        Assert.assertEquals(persisted.getValue(), wipe);
+        Assert.assertEquals(remainingOperations, Arrays.asList(lock, ring, info));
+    }
+
+    @Test
+    public void testWithoutPendingOperations() throws Exception {
+        mockPendingOperations();
+
+        List<? extends Operation> remainingOperations = operationHandler.getPendingOperations(parse(execStatus(1, "200")));
+
+        Mockito.verify(deviceManagementProviderService, Mockito.never())
+                .updateOperation(Mockito.any(DeviceIdentifier.class), Mockito.any(Operation.class));
+        Assert.assertTrue(remainingOperations.isEmpty());
+    }
+
+    private void mockPendingOperations(Operation... operations) throws Exception {
+        List<Operation> pendingOperations = new ArrayList<>(Arrays.asList(operations));
+        Mockito.doReturn(pendingOperations).when(deviceManagementProviderService)
+                .getOperationsByDeviceAndStatus(Mockito.any(DeviceIdentifier.class),
+                                                Mockito.eq(Operation.Status.PENDING));
+    }
+
+    private static Operation createOperation(int id, String code, Operation.Status status) {
+        Operation operation = new Operation();
+        operation.setId(id);
+        operation.setCode(code);
+        operation.setStatus(status);
+        return operation;
+    }
+
+    private static String execStatus(int commandReference, String data) {
+        return "<Status><CmdID>1</CmdID><MsgRef>1</MsgRef><CmdRef>" + commandReference + "</CmdRef>" +
+                "<Cmd>Exec</Cmd><Data>" + data + "</Data></Status>";
+    }
+
+    private static String sequenceStatus(int commandReference, String data) {
+        return "<Status><CmdID>1</CmdID><MsgRef>1</MsgRef><CmdRef>" + commandReference + "</CmdRef>" +
+                "<Cmd>Sequence</Cmd><Data>" + data + "</Data></Status>";
+    }
+
+    private static SyncmlDocument parse(String statuses) throws Exception {
+        String payload = "<SyncML xmlns=\"SYNCML:SYNCML1.2\"><SyncHdr><VerDTD>1.2</VerDTD>" +
+                "<VerProto>DM/1.2</VerProto><SessionID>1</SessionID><MsgID>2</MsgID>" +
+                "<Target><LocURI>https://mdm.example.com/api/device-mgt/windows/v1.0/syncml</LocURI></Target>" +
+                "<Source><LocURI>" + DEVICE_ID + "</LocURI></Source></SyncHdr><SyncBody>" + statuses +
+                "<Final/></SyncBody></SyncML>";
+        return SyncmlParser.parseSyncmlPayload(new ByteArrayInputStream(payload.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.device.mgt.mobile.windows.api.operations.util;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.device.mgt.mobile.windows.api.common.exceptions.SyncmlMessageFormatException;
+import org.wso2.carbon.device.mgt.mobile.windows.api.operations.ItemTag;
+import org.wso2.carbon.device.mgt.mobile.windows.api.operations.MetaTag;
+import org.wso2.carbon.device.mgt.mobile.windows.api.operations.ReplaceTag;
+import org.wso2.carbon.device.mgt.mobile.windows.api.operations.ResultsTag;
+import org.wso2.carbon.device.mgt.mobile.windows.api.operations.StatusTag;
+import org.wso2.carbon.device.mgt.mobile.windows.api.operations.SyncmlBody;
+import org.wso2.carbon.device.mgt.mobile.windows.api.operations.SyncmlDocument;
+import org.wso2.carbon.device.mgt.mobile.windows.api.operations.SyncmlHeader;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+public class SyncmlParserTest {
+
+    private static final String DEVICE_ID = "7B5A7E1CD8C94D8E9C2A1F0B3C4D5E6F";
+    private static final String SERVER_URL = "https://mdm.example.com/api/device-mgt/windows/v1.0/syncml";
+
+    /**
+     * First message of a device after the enrollment, which carries the device information in a Replace command.
+     */
+    public static final String ENROLLMENT_PAYLOAD = "<SyncML xmlns=\"SYNCML:SYNCML1.2\"><SyncHdr>" +
+            "<VerDTD>1.2</VerDTD><VerProto>DM/1.2</VerProto><SessionID>1</SessionID><MsgID>1</MsgID>" +
+            "<Target><LocURI>" + SERVER_URL + "</LocURI></Target>" +
+            "<Source><LocURI>" + DEVICE_ID + "</LocURI><LocName>dummy</LocName></Source>" +
+            "<Cred><Meta><Format xmlns=\"syncml:metinf\">b64</Format><Type xmlns=\"syncml:metinf\">" +
+            "syncml:auth-md5</Type></Meta><Data>a2V5LTEyMzQ1Ng==</Data></Cred></SyncHdr><SyncBody>" +
+            "<Alert><CmdID>1</CmdID><Data>1201</Data></Alert>" +
+            "<Alert><CmdID>2</CmdID><Data>1224</Data><Item><Meta><Type xmlns=\"syncml:metinf\">" +
+            "com.microsoft/MDM/LoginStatus</Type></Meta><Data>user</Data></Item></Alert>" +
+            "<Replace><CmdID>3</CmdID>" +
+            "<Item><Source><LocURI>./DevInfo/DevId</LocURI></Source><Data>" + DEVICE_ID + "</Data></Item>" +
+            "<Item><Source><LocURI>./DevInfo/Man</LocURI></Source><Data>NOKIA</Data></Item>" +
+            "<Item><Source><LocURI>./DevInfo/Mod</LocURI></Source><Data>Lumia 630 Dual SIM</Data></Item>" +
+            "<Item><Source><LocURI>./DevInfo/DmV</LocURI></Source><Data>1.3</Data></Item>" +
+            "<Item><Source><LocURI>./DevInfo/Lang</LocURI></Source><Data>en-US</Data></Item>" +
+            "</Replace><Final/></SyncBody></SyncML>";
+
+    @Test
+    public void testParseEnrollmentMessage() throws SyncmlMessageFormatException {
+        SyncmlDocument document = parse(ENROLLMENT_PAYLOAD);
+
+        SyncmlHeader header = document.getHeader();
+        Assert.assertEquals(header.getMsgID(), 1);
+        Assert.assertEquals(header.getSessionId(), 1);
+        Assert.assertEquals(header.getTarget().getLocURI(), SERVER_URL);
+        Assert.assertEquals(header.getSource().getLocURI(), DEVICE_ID);
+        Assert.assertEquals(header.getSource().getLocName(), "dummy");
+        Assert.assertEquals(header.getCredential().getMeta().getFormat(), "b64");
+        Assert.assertEquals(header.getCredential().getMeta().getType(), "syncml:auth-md5");
+        Assert.assertEquals(header.getCredential().getData(), "a2V5LTEyMzQ1Ng==");
+
+        SyncmlBody body = document.getBody();
+        // the last Alert of the body is kept, the client initiated session alert is the first one
+        Assert.assertEquals(body.getAlert().getCommandId(), 2);
+        Assert.assertEquals(body.getAlert().getData(), "1224");
+        Assert.assertTrue(body.getStatus().isEmpty());
+        Assert.assertNull(body.getResults());
+
+        ReplaceTag replace = body.getReplace();
+        Assert.assertEquals(replace.getCommandId(), 3);
+        List<ItemTag> items = replace.getItems();
+        Assert.assertEquals(items.size(), 5);
+        Assert.assertEquals(items.get(0).getSource().getLocURI(), "./DevInfo/DevId");
+        Assert.assertEquals(items.get(0).getData(), DEVICE_ID);
+        Assert.assertEquals(items.get(1).getSource().getLocURI(), "./DevInfo/Man");
+        Assert.assertEquals(items.get(1).getData(), "NOKIA");
+        Assert.assertEquals(items.get(2).getData(), "Lumia 630 Dual SIM");
+        Assert.assertEquals(items.get(3).getData(), "1.3");
+        Assert.assertEquals(items.get(4).getSource().getLocURI(), "./DevInfo/Lang");
+        Assert.assertEquals(items.get(4).getData(), "en-US");
+    }
+
+    @Test
+    public void testParseAlert() throws SyncmlMessageFormatException {
+        SyncmlDocument document = parse(wrapBody("<Alert><CmdID>1</CmdID><Data>1201</Data></Alert>"));
+        Assert.assertEquals(document.getBody().getAlert().getCommandId(), 1);
+        Assert.assertEquals(document.getBody().getAlert().getData(), "1201");
+        Assert.assertNull(document.getBody().getReplace());
+    }
+
+    @Test
+    public void testParseStatusWithChallenge() throws SyncmlMessageFormatException {
+        SyncmlDocument document = parse(wrapBody(
+                "<Status><CmdID>1</CmdID><MsgRef>1</MsgRef><CmdRef>0</CmdRef><Cmd>SyncHdr</Cmd>" +
+                "<Chal><Meta><Format xmlns=\"syncml:metinf\">b64</Format>" +
+                "<Type xmlns=\"syncml:metinf\">syncml:auth-md5</Type>" +
+                "<NextNonce xmlns=\"syncml:metinf\">ZmFrZU5vbmNl</NextNonce></Meta></Chal>" +
+                "<Data>407</Data></Status>" +
+                "<Status><CmdID>2</CmdID><MsgRef>1</MsgRef><CmdRef>4</CmdRef><Cmd>Exec</Cmd>" +
+                "<TargetRef>./Vendor/MSFT/RemoteWipe/doWipe</TargetRef><Data>200</Data></Status>"));
+
+        List<StatusTag> status = document.getBody().getStatus();
+        Assert.assertEquals(status.size(), 2);
+        StatusTag headerStatus = status.get(0);
+        Assert.assertEquals(headerStatus.getCommandId(), 1);
+        Assert.assertEquals(headerStatus.getMessageReference(), 1);
+        Assert.assertEquals(headerStatus.getCommandReference(), 0);
+        Assert.assertEquals(headerStatus.getCommand(), "SyncHdr");
+        Assert.assertEquals(headerStatus.getData(), "407");
+        MetaTag meta = headerStatus.getChallenge().getMeta();
+        Assert.assertEquals(meta.getFormat(), "b64");
+        Assert.assertEquals(meta.getType(), "syncml:auth-md5");
+        Assert.assertEquals(meta.getNextNonce(), "ZmFrZU5vbmNl");
+
+        StatusTag execStatus = status.get(1);
+        Assert.assertEquals(execStatus.getCommandReference(), 4);
+        Assert.assertEquals(execStatus.getCommand(), "Exec");
+        Assert.assertEquals(execStatus.getTargetReference(), "./Vendor/MSFT/RemoteWipe/doWipe");
+        Assert.assertNull(execStatus.getChallenge());
+    }
+
+    @Test
+    public void testParseResults() throws SyncmlMessageFormatException {
+        SyncmlDocument document = parse(wrapBody(
+                "<Results><CmdID>3</CmdID><MsgRef>2</MsgRef><CmdRef>5</CmdRef>" +
+                "<Item><Source><LocURI>./DevDetail/SwV</LocURI></Source><Data>10.0.14393</Data></Item>" +
+                "<Item><Source><LocURI>./Vendor/MSFT/DeviceStatus/Battery/EstimatedChargeRemaining</LocURI>" +
+                "</Source><Meta><Format xmlns=\"syncml:metinf\">int</Format></Meta><Data>83</Data></Item>" +
+                "</Results>"));
+
+        ResultsTag results = document.getBody().getResults();
+        Assert.assertEquals(results.getCommandId(), 3);
+        Assert.assertEquals(results.getMessageReference(), 2);
+        Assert.assertEquals(results.getCommandReference(), 5);
+        Assert.assertEquals(results.getItem().size(), 2);
+        Assert.assertEquals(results.getItem().get(0).getSource().getLocURI(), "./DevDetail/SwV");
+        Assert.assertEquals(results.getItem().get(0).getData(), "10.0.14393");
+        Assert.assertEquals(results.getItem().get(1).getSource().getLocURI(),
+                            "./Vendor/MSFT/DeviceStatus/Battery/EstimatedChargeRemaining");
+        Assert.assertEquals(results.getItem().get(1).getData(), "83");
+    }
+
+    @Test
+    public void testParseHexadecimalSessionId() throws SyncmlMessageFormatException {
+        SyncmlDocument document = parse("<SyncML><SyncHdr><SessionID>1A</SessionID><MsgID>4</MsgID></SyncHdr>" +
+                                        "<SyncBody><Final/></SyncBody></SyncML>");
+        Assert.assertEquals(document.getHeader().getSessionId(), 26);
+        Assert.assertEquals(document.getHeader().getMsgID(), 4);
+        Assert.assertNull(document.getHeader().getCredential());
+    }
+
+    @Test(expectedExceptions = SyncmlMessageFormatException.class)
+    public void testParseWithoutBody() throws SyncmlMessageFormatException {
+        parse("<SyncML><SyncHdr><SessionID>1</SessionID><MsgID>1</MsgID></SyncHdr></SyncML>");
+    }
+
+    @Test(expectedExceptions = SyncmlMessageFormatException.class)
+    public void testParseWithoutHeader() throws SyncmlMessageFormatException {
+        parse("<SyncML><SyncBody><Alert><CmdID>1</CmdID><Data>1201</Data></Alert></SyncBody></SyncML>");
+    }
+
+    @Test(expectedExceptions = SyncmlMessageFormatException.class)
+    public void testParseHeaderWithoutSessionId() throws SyncmlMessageFormatException {
+        parse("<SyncML><SyncHdr><MsgID>1</MsgID></SyncHdr><SyncBody><Final/></SyncBody></SyncML>");
+    }
+
+    @Test(expectedExceptions = SyncmlMessageFormatException.class)
+    public void testParseMalformedPayload() throws SyncmlMessageFormatException {
+        parse("<SyncML><SyncHdr><SessionID>1</SessionID><MsgID>1</MsgID></SyncHdr><SyncBody>");
+    }
+
+    private static SyncmlDocument parse(String payload) throws SyncmlMessageFormatException {
+        return SyncmlParser.parseSyncmlPayload(new ByteArrayInputStream(payload.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static String wrapBody(String commands) {
+        return "<SyncML xmlns=\"SYNCML:SYNCML1.2\"><SyncHdr><VerDTD>1.2</VerDTD><VerProto>DM/1.2</VerProto>" +
+                "<SessionID>2</SessionID><MsgID>2</MsgID><Target><LocURI>" + SERVER_URL + "</LocURI></Target>" +
+                "<Source><LocURI>" + DEVICE_ID + "</LocURI></Source></SyncHdr><SyncBody>" + commands +
+                "<Final/></SyncBody></SyncML>";
+    }
+}
@@ -0,0 +1,246 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * you may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.device.mgt.mobile.windows.impl;
+
+import org.wso2.carbon.device.mgt.mobile.windows.impl.dto.MobileCacheEntry;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bounded in memory cache of the enrollment tokens, each entry expires after the configured time to live.
+ * Entries are keyed by the enrollment token, a second map points the device ids to the token of the device so that
+ * both lookups of the enrollment flow are served from the same entry. Entries are copied in and out of the cache
+ * since the callers modify the entries they get before writing them back.
+ * Entries read from the table are cached with the generation taken before the read, every invalidation moves the
+ * generation on, hence an entry read before a concurrent change of the table is dropped instead of being cached.
+ */
+public class WindowsEnrollmentTokenCache {
+
+    private final ConcurrentHashMap<String, CachedToken> tokenEntries = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, String> deviceTokens = new ConcurrentHashMap<>();
+    private final int maxSize;
+    private final long timeToLiveInMillis;
+    private volatile long generation;
+
+    public WindowsEnrollmentTokenCache(int maxSize, long timeToLiveInMillis) {
+        this.maxSize = maxSize;
+        this.timeToLiveInMillis = timeToLiveInMillis;
+    }
+
+    /**
+     * @return a copy of the cached entry of the token or null if there is no live entry for the token.
+     */
+    public MobileCacheEntry getByToken(String token) {
+        if (token == null) {
+            return null;
+        }
+        CachedToken cachedToken = tokenEntries.get(token);
+        if (cachedToken == null) {
+            return null;
+        }
+        if (cachedToken.isExpired(System.currentTimeMillis())) {
+            tokenEntries.remove(token, cachedToken);
+            return null;
+        }
+        return copy(cachedToken.entry);
+    }
+
+    /**
+     * @return a copy of the cached entry of the device or null if there is no live entry for the device.
+     */
+    public MobileCacheEntry getByDeviceId(String deviceId) {
+        if (deviceId == null) {
+            return null;
+        }
+        String token = deviceTokens.get(deviceId);
+        if (token == null) {
+            return null;
+        }
+        MobileCacheEntry entry = getByToken(token);
+        if (entry == null || !deviceId.equals(entry.getDeviceID())) {
+            deviceTokens.remove(deviceId, token);
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * @return the current generation, to be taken before reading an entry from the table.
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Caches the entry under its token, unless the cache was invalidated after the given generation was taken.
+     * Entries without a token are not cached.
+     */
+    public synchronized void put(MobileCacheEntry entry, long generation) {
+        if (maxSize <= 0 || timeToLiveInMillis <= 0 || entry == null || entry.getCacheToken() == null ||
+                generation != this.generation) {
+            return;
+        }
+        if (tokenEntries.size() >= maxSize) {
+            evict();
+        }
+        tokenEntries.put(entry.getCacheToken(), new CachedToken(copy(entry),
+                System.currentTimeMillis() + timeToLiveInMillis));
+    }
+
+    /**
+     * Caches the entry read for the device, so that the device is looked up through its token afterwards.
+     */
+    public synchronized void putForDevice(String deviceId, MobileCacheEntry entry, long generation) {
+        if (deviceId == null || entry == null || entry.getCacheToken() == null ||
+                !deviceId.equals(entry.getDeviceID())) {
+            return;
+        }
+        put(entry, generation);
+        if (tokenEntries.containsKey(entry.getCacheToken())) {
+            deviceTokens.put(deviceId, entry.getCacheToken());
+        }
+    }
+
+    /**
+     * Removes the entry of the token and the device mapping pointing to it.
+     */
+    public synchronized void removeToken(String token) {
+        if (token == null) {
+            return;
+        }
+        generation++;
+        CachedToken cachedToken = tokenEntries.remove(token);
+        if (cachedToken != null && cachedToken.entry.getDeviceID() != null) {
+            deviceTokens.remove(cachedToken.entry.getDeviceID(), token);
+        }
+    }
+
+    /**
+     * Removes the device mapping only, the entries stay cached under their tokens.
+     */
+    public synchronized void removeDeviceMapping(String deviceId) {
+        if (deviceId != null) {
+            generation++;
+            deviceTokens.remove(deviceId);
+        }
+    }
+
+    /**
+     * Removes the device mapping and every entry bound to the device.
+     */
+    public synchronized void removeDevice(String deviceId) {
+        if (deviceId == null) {
+            return;
+        }
+        generation++;
+        deviceTokens.remove(deviceId);
+        for (Iterator<CachedToken> iterator = tokenEntries.values().iterator(); iterator.hasNext(); ) {
+            if (deviceId.equals(iterator.next().entry.getDeviceID())) {
+                iterator.remove();
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        generation++;
+        tokenEntries.clear();
+        deviceTokens.clear();
+    }
+
+    public int size() {
+        return tokenEntries.size();
+    }
+
+    /**
+     * @return the number of devices mapped to a token, never more than the number of cached entries once the cache
+     * is purged or evicted.
+     */
+    public int deviceMappingSize() {
+        return deviceTokens.size();
+    }
+
+    /**
+     * Removes the expired entries and the device mappings which no longer point to a cached entry.
+     */
+    public void purgeExpired() {
+        removeExpiredEntries();
+        removeStaleDeviceMappings();
+    }
+
+    /**
+     * Removes the expired entries, if the cache is still full then entries are removed until there is room for a
+     * tenth of the capacity so that eviction does not run for every put. The device mappings of the removed entries
+     * are removed as well.
+     */
+    private void evict() {
+        removeExpiredEntries();
+        int target = maxSize - Math.max(1, maxSize / 10);
+        for (Iterator<String> iterator = tokenEntries.keySet().iterator();
+             iterator.hasNext() && tokenEntries.size() > target; ) {
+            iterator.next();
+            iterator.remove();
+        }
+        removeStaleDeviceMappings();
+    }
+
+    private void removeExpiredEntries() {
+        long now = System.currentTimeMillis();
+        for (Iterator<CachedToken> iterator = tokenEntries.values().iterator(); iterator.hasNext(); ) {
+            if (iterator.next().isExpired(now)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private void removeStaleDeviceMappings() {
+        for (Iterator<Map.Entry<String, String>> iterator = deviceTokens.entrySet().iterator();
+             iterator.hasNext(); ) {
+            if (!tokenEntries.containsKey(iterator.next().getValue())) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private static MobileCacheEntry copy(MobileCacheEntry entry) {
+        MobileCacheEntry copy = new MobileCacheEntry();
+        copy.setCacheToken(entry.getCacheToken());
+        copy.setTenantDomain(entry.getTenantDomain());
+        copy.setTenanatID(entry.getTenanatID());
+        copy.setDeviceID(entry.getDeviceID());
+        copy.setUsername(entry.getUsername());
+        copy.setOwnership(entry.getOwnership());
+        return copy;
+    }
+
+    private static class CachedToken {
+        private final MobileCacheEntry entry;
+        private final long expiryTime;
+
+        CachedToken(MobileCacheEntry entry, long expiryTime) {
+            this.entry = entry;
+            this.expiryTime = expiryTime;
+        }
+
+        boolean isExpired(long now) {
+            return now >= expiryTime;
+        }
+    }
+}
@@ -20,10 +20,32 @@ package org.wso2.carbon.device.mgt.mobile.windows.impl;
 import org.wso2.carbon.device.mgt.mobile.windows.impl.dao.MobileDeviceManagementDAOException;
 import org.wso2.carbon.device.mgt.mobile.windows.impl.dto.MobileCacheEntry;
 
+/**
+ * Reads and writes the enrollment tokens of the windows devices. Implementations may cache the tokens locally.
+ * The evict and clear methods are hooks for a cluster wide invalidation of such a cache, nothing calls them yet, hence
+ * a token changed through another node is seen by this node only once its cached entry expires.
+ */
 public interface WindowsTokenService {
     void saveCacheToken(MobileCacheEntry entry) throws MobileDeviceManagementDAOException;
     void updateCacheToken(MobileCacheEntry entry) throws MobileDeviceManagementDAOException;
     MobileCacheEntry getCacheToken(String token) throws MobileDeviceManagementDAOException;
     MobileCacheEntry getCacheTokenFromDeviceId(String deviceId) throws MobileDeviceManagementDAOException;
     void removeCacheToken(String token) throws MobileDeviceManagementDAOException;
+
+    /**
+     * Removes the cached entry of a token without touching the table, to be called when the token is changed by
+     * another node of the cluster.
+     */
+    void evictCacheToken(String token);
+
+    /**
+     * Removes the cached entries bound to a device without touching the table, to be called when the token of the
+     * device is changed by another node of the cluster.
+     */
+    void evictCacheTokenFromDeviceId(String deviceId);
+
+    /**
+     * Removes all the cached entries without touching the table.
+     */
+    void clearCacheTokens();
 }
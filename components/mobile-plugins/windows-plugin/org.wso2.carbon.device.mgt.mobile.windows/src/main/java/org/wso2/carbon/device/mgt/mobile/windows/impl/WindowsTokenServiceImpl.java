@@ -7,14 +7,24 @@ import org.wso2.carbon.device.mgt.mobile.windows.impl.dao.WindowsDAOFactory;
 import org.wso2.carbon.device.mgt.mobile.windows.impl.dao.WindowsEnrollmentTokenDAO;
 import org.wso2.carbon.device.mgt.mobile.windows.impl.dao.impl.WindowsEnrollmentTokenDAOImpl;
 import org.wso2.carbon.device.mgt.mobile.windows.impl.dto.MobileCacheEntry;
+import org.wso2.carbon.device.mgt.mobile.windows.impl.util.WindowsPluginConstants;
 
+import java.sql.Timestamp;
+
+/**
+ * Enrollment token service backed by the WINDOWS_ENROLLMENT_TOKEN table with a local read through cache. Writes only
+ * invalidate the cached entries, the entries are cached again by the next read of the table.
+ */
 public class WindowsTokenServiceImpl implements WindowsTokenService {
 
     private static final Log log = LogFactory.getLog(WindowsTokenServiceImpl.class);
     private static WindowsEnrollmentTokenDAO windowsEnrollmentTokenDAO;
+    private final WindowsEnrollmentTokenCache tokenCache;
 
     public WindowsTokenServiceImpl() {
         windowsEnrollmentTokenDAO = new WindowsEnrollmentTokenDAOImpl();
+        tokenCache = new WindowsEnrollmentTokenCache(WindowsPluginConstants.ENROLLMENT_TOKEN_CACHE_SIZE,
+                WindowsPluginConstants.ENROLLMENT_TOKEN_CACHE_TIMEOUT_IN_MILLIS);
     }
 
     @Override
@@ -26,6 +36,9 @@ public class WindowsTokenServiceImpl implements WindowsTokenService {
         }  finally {
             WindowsDAOFactory.closeConnection();
         }
+        tokenCache.removeToken(entry.getCacheToken());
+        // the device may have other tokens, so the token it is looked up by is read from the table again
+        tokenCache.removeDeviceMapping(entry.getDeviceID());
     }
 
     @Override
@@ -37,29 +50,41 @@ public class WindowsTokenServiceImpl implements WindowsTokenService {
         } finally {
             WindowsDAOFactory.closeConnection();
         }
+        tokenCache.removeToken(entry.getCacheToken());
+        tokenCache.removeDeviceMapping(entry.getDeviceID());
     }
 
     @Override
     public MobileCacheEntry getCacheToken(String token) throws MobileDeviceManagementDAOException {
-        MobileCacheEntry cacheEntry = null;
+        MobileCacheEntry cacheEntry = tokenCache.getByToken(token);
+        if (cacheEntry != null) {
+            return cacheEntry;
+        }
+        long generation = tokenCache.getGeneration();
         try {
             WindowsDAOFactory.openConnection();
             cacheEntry = windowsEnrollmentTokenDAO.getCacheToken(token);
         } finally {
             WindowsDAOFactory.closeConnection();
         }
+        tokenCache.put(cacheEntry, generation);
         return cacheEntry;
     }
 
     @Override public MobileCacheEntry getCacheTokenFromDeviceId(String deviceId)
             throws MobileDeviceManagementDAOException {
-        MobileCacheEntry cacheEntry = null;
+        MobileCacheEntry cacheEntry = tokenCache.getByDeviceId(deviceId);
+        if (cacheEntry != null) {
+            return cacheEntry;
+        }
+        long generation = tokenCache.getGeneration();
         try {
             WindowsDAOFactory.openConnection();
             cacheEntry = windowsEnrollmentTokenDAO.getCacheTokenFromDeviceId(deviceId);
         } finally {
             WindowsDAOFactory.closeConnection();
         }
+        tokenCache.putForDevice(deviceId, cacheEntry, generation);
         return cacheEntry;
     }
 
@@ -72,5 +97,57 @@ public class WindowsTokenServiceImpl implements WindowsTokenService {
         } finally {
             WindowsDAOFactory.closeConnection();
         }
+        // the rows are deleted by the device id column
+        tokenCache.removeDevice(token);
+        tokenCache.removeToken(token);
+    }
+
+    @Override
+    public void evictCacheToken(String token) {
+        tokenCache.removeToken(token);
+    }
+
+    @Override
+    public void evictCacheTokenFromDeviceId(String deviceId) {
+        tokenCache.removeDevice(deviceId);
+    }
+
+    @Override
+    public void clearCacheTokens() {
+        tokenCache.clear();
+    }
+
+    /**
+     * Removes the expired entries from the token cache, called periodically by the service component.
+     */
+    public void purgeExpiredCacheTokens() {
+        tokenCache.purgeExpired();
+        if (log.isDebugEnabled()) {
+            log.debug("Enrollment token cache has " + tokenCache.size() + " entries after purging.");
+        }
+    }
+
+    /**
+     * Deletes the superseded tokens older than the enrollment token time to live from the table, called periodically
+     * by the service component.
+     */
+    public void removeExpiredCacheTokens() throws MobileDeviceManagementDAOException {
+        Timestamp createdBefore = new Timestamp(System.currentTimeMillis() -
+                WindowsPluginConstants.ENROLLMENT_TOKEN_TIME_TO_LIVE_IN_MILLIS);
+        int deletedTokens;
+        try {
+            WindowsDAOFactory.beginTransaction();
+            deletedTokens = windowsEnrollmentTokenDAO.deleteExpiredCacheTokens(createdBefore);
+            WindowsDAOFactory.commitTransaction();
+        } finally {
+            WindowsDAOFactory.closeConnection();
+        }
+        if (deletedTokens > 0) {
+            // the deleted tokens are not known, the latest token of each device is kept so lookups by device still hit
+            tokenCache.clear();
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Deleted " + deletedTokens + " expired enrollment tokens.");
+        }
     }
 }
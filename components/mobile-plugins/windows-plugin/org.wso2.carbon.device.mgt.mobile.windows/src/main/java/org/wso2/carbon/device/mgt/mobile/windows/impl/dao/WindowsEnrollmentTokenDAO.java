@@ -19,6 +19,8 @@ package org.wso2.carbon.device.mgt.mobile.windows.impl.dao;
 
 import org.wso2.carbon.device.mgt.mobile.windows.impl.dto.MobileCacheEntry;
 
+import java.sql.Timestamp;
+
 public interface WindowsEnrollmentTokenDAO {
 
     MobileCacheEntry getCacheToken(String token) throws MobileDeviceManagementDAOException;
@@ -30,4 +32,11 @@ public interface WindowsEnrollmentTokenDAO {
     boolean updateCacheToken(MobileCacheEntry cacheEntry) throws MobileDeviceManagementDAOException;
 
     boolean deleteCacheToken(String mobileDeviceId) throws MobileDeviceManagementDAOException;
+
+    /**
+     * Deletes the tokens created before the given time which are superseded by a newer token of the same device.
+     *
+     * @return the number of deleted tokens.
+     */
+    int deleteExpiredCacheTokens(Timestamp createdBefore) throws MobileDeviceManagementDAOException;
 }
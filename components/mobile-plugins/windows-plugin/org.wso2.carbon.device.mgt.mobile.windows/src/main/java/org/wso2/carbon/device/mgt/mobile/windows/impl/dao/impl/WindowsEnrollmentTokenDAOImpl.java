@@ -29,6 +29,7 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
 
 public class WindowsEnrollmentTokenDAOImpl implements WindowsEnrollmentTokenDAO {
 
@@ -51,6 +52,7 @@ public class WindowsEnrollmentTokenDAOImpl implements WindowsEnrollmentTokenDAO
 
             while (rs.next()) {
                 cacheEntry = new MobileCacheEntry();
+                cacheEntry.setCacheToken(rs.getString(WindowsPluginConstants.ENROLLMENT_TOKEN));
                 cacheEntry.setDeviceID(rs.getString(WindowsPluginConstants.DEVICE_ID));
                 cacheEntry.setTenantDomain(rs.getString(WindowsPluginConstants.TENANT_DOMAIN));
                 cacheEntry.setTenanatID(rs.getInt(WindowsPluginConstants.TENANT_ID));
@@ -60,6 +62,8 @@ public class WindowsEnrollmentTokenDAOImpl implements WindowsEnrollmentTokenDAO
         } catch (SQLException e) {
             throw new MobileDeviceManagementDAOException("Error occurred while fetching the Windows device token for the enrollment token '" +
                     token + "' from the Windows db.", e);
+        } finally {
+            MobileDeviceManagementDAOUtil.cleanupResources(stmt, rs);
         }
         return cacheEntry;
     }
@@ -73,13 +77,14 @@ public class WindowsEnrollmentTokenDAOImpl implements WindowsEnrollmentTokenDAO
         try {
             conn = WindowsDAOFactory.getConnection();
             String selectDBQuery = "SELECT TENANT_DOMAIN, TENANT_ID, ENROLLMENT_TOKEN, DEVICE_ID, USERNAME, OWNERSHIP " +
-                    "FROM WINDOWS_ENROLLMENT_TOKEN WHERE DEVICE_ID = ?";
+                    "FROM WINDOWS_ENROLLMENT_TOKEN WHERE DEVICE_ID = ? ORDER BY ID";
             stmt = conn.prepareStatement(selectDBQuery);
             stmt.setString(1, deviceId);
             rs = stmt.executeQuery();
 
             while (rs.next()) {
                 cacheEntry = new MobileCacheEntry();
+                cacheEntry.setCacheToken(rs.getString(WindowsPluginConstants.ENROLLMENT_TOKEN));
                 cacheEntry.setDeviceID(rs.getString(WindowsPluginConstants.DEVICE_ID));
                 cacheEntry.setTenantDomain(rs.getString(WindowsPluginConstants.TENANT_DOMAIN));
                 cacheEntry.setTenanatID(rs.getInt(WindowsPluginConstants.TENANT_ID));
@@ -89,6 +94,8 @@ public class WindowsEnrollmentTokenDAOImpl implements WindowsEnrollmentTokenDAO
         } catch (SQLException e) {
             throw new MobileDeviceManagementDAOException("Error occurred while fetching the Windows device token for the enrollment token '" +
                     deviceId + "' from the Windows db.", e);
+        } finally {
+            MobileDeviceManagementDAOUtil.cleanupResources(stmt, rs);
         }
         return cacheEntry;
     }
@@ -174,4 +181,25 @@ public class WindowsEnrollmentTokenDAOImpl implements WindowsEnrollmentTokenDAO
         }
         return status;
     }
+
+    @Override
+    public int deleteExpiredCacheTokens(Timestamp createdBefore) throws MobileDeviceManagementDAOException {
+        Connection conn;
+        PreparedStatement stmt = null;
+        try {
+            conn = WindowsDAOFactory.getConnection();
+            // the latest token of a device is the one read by its device id, hence it is kept however old it is
+            String deleteDBQuery = "DELETE FROM WINDOWS_ENROLLMENT_TOKEN WHERE CREATED_TIMESTAMP < ? AND ID NOT IN " +
+                    "(SELECT ID FROM (SELECT MAX(ID) AS ID FROM WINDOWS_ENROLLMENT_TOKEN GROUP BY DEVICE_ID) " +
+                    "LATEST_TOKEN)";
+            stmt = conn.prepareStatement(deleteDBQuery);
+            stmt.setTimestamp(1, createdBefore);
+            return stmt.executeUpdate();
+        } catch (SQLException e) {
+            throw new MobileDeviceManagementDAOException("Error occurred while deleting the Windows enrollment " +
+                    "tokens created before '" + createdBefore + "' from the Windows db.", e);
+        } finally {
+            MobileDeviceManagementDAOUtil.cleanupResources(stmt, null);
+        }
+    }
 }
@@ -57,5 +57,15 @@ public class WindowsPluginConstants {
     public static final String TENANT_ID = "TENANT_ID";
     public static final String USER_NAME = "USERNAME";
     public static final String OWNERSHIP = "OWNERSHIP";
+    public static final String ENROLLMENT_TOKEN = "ENROLLMENT_TOKEN";
+
+    //properties related to the enrollment token cache
+    public static final int ENROLLMENT_TOKEN_CACHE_SIZE = 10000;
+    public static final long ENROLLMENT_TOKEN_CACHE_TIMEOUT_IN_MILLIS = 5 * 60 * 1000L;
+    public static final long ENROLLMENT_TOKEN_CACHE_PURGE_INTERVAL_IN_MILLIS = 60 * 1000L;
+
+    //properties related to the purge of the superseded rows of the WINDOWS_ENROLLMENT_TOKEN table
+    public static final long ENROLLMENT_TOKEN_TIME_TO_LIVE_IN_MILLIS = 24 * 60 * 60 * 1000L;
+    public static final long ENROLLMENT_TOKEN_PURGE_INTERVAL_IN_MILLIS = 60 * 60 * 1000L;
 
 }
@@ -25,9 +25,16 @@ import org.osgi.framework.ServiceRegistration;
 import org.osgi.service.component.ComponentContext;
 import org.wso2.carbon.device.mgt.mobile.windows.impl.WindowsTokenService;
 import org.wso2.carbon.device.mgt.mobile.windows.impl.WindowsTokenServiceImpl;
+import org.wso2.carbon.device.mgt.mobile.windows.impl.dao.MobileDeviceManagementDAOException;
+import org.wso2.carbon.device.mgt.mobile.windows.impl.util.WindowsPluginConstants;
 import org.wso2.carbon.ndatasource.core.DataSourceService;
 import org.wso2.carbon.registry.core.service.RegistryService;
 
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
 /**
  * @scr.component name="org.wso2.carbon.device.mgt.mobile.windows.impl.internal.WindowsDeviceManagementServiceComponent"
  * immediate="true"
@@ -48,6 +55,7 @@ import org.wso2.carbon.registry.core.service.RegistryService;
 public class WindowsDeviceManagementServiceComponent {
 
     private ServiceRegistration androidServiceRegRef;
+    private ScheduledExecutorService tokenCachePurgeScheduler;
 
     private static final Log log = LogFactory.getLog(WindowsDeviceManagementServiceComponent.class);
 
@@ -68,7 +76,40 @@ public class WindowsDeviceManagementServiceComponent {
 //            bundleContext.registerService(PolicyMonitoringManager.class,
 //                    new WindowsPolicyMonitoringManager(), null);
             //Enrollment token service
-            bundleContext.registerService(WindowsTokenService.class, new WindowsTokenServiceImpl(), null);
+            final WindowsTokenServiceImpl tokenService = new WindowsTokenServiceImpl();
+            bundleContext.registerService(WindowsTokenService.class, tokenService, null);
+            tokenCachePurgeScheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "windows-enrollment-token-cache-purge");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            tokenCachePurgeScheduler.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        tokenService.purgeExpiredCacheTokens();
+                    } catch (RuntimeException e) {
+                        log.error("Error occurred while purging the enrollment token cache", e);
+                    }
+                }
+            }, WindowsPluginConstants.ENROLLMENT_TOKEN_CACHE_PURGE_INTERVAL_IN_MILLIS,
+                    WindowsPluginConstants.ENROLLMENT_TOKEN_CACHE_PURGE_INTERVAL_IN_MILLIS, TimeUnit.MILLISECONDS);
+            tokenCachePurgeScheduler.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        tokenService.removeExpiredCacheTokens();
+                    } catch (MobileDeviceManagementDAOException e) {
+                        log.error("Error occurred while deleting the expired enrollment tokens", e);
+                    } catch (RuntimeException e) {
+                        log.error("Error occurred while deleting the expired enrollment tokens", e);
+                    }
+                }
+            }, WindowsPluginConstants.ENROLLMENT_TOKEN_PURGE_INTERVAL_IN_MILLIS,
+                    WindowsPluginConstants.ENROLLMENT_TOKEN_PURGE_INTERVAL_IN_MILLIS, TimeUnit.MILLISECONDS);
 
             if (log.isDebugEnabled()) {
                 log.debug("Android Mobile Device Management Service Component has been successfully activated");
@@ -86,6 +127,10 @@ public class WindowsDeviceManagementServiceComponent {
             if (androidServiceRegRef != null) {
                 androidServiceRegRef.unregister();
             }
+            if (tokenCachePurgeScheduler != null) {
+                tokenCachePurgeScheduler.shutdownNow();
+                tokenCachePurgeScheduler = null;
+            }
             if (log.isDebugEnabled()) {
                 log.debug(
                         "Android Mobile Device Management Service Component has been successfully de-activated");
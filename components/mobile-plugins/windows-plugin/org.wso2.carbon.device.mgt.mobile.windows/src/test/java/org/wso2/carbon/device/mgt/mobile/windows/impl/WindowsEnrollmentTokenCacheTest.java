@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.device.mgt.mobile.windows.impl;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.device.mgt.mobile.windows.impl.dto.MobileCacheEntry;
+
+public class WindowsEnrollmentTokenCacheTest {
+
+    private static final long TIME_TO_LIVE_IN_MILLIS = 60 * 1000L;
+
+    @Test
+    public void testEntriesAreCopied() {
+        WindowsEnrollmentTokenCache cache = new WindowsEnrollmentTokenCache(10, TIME_TO_LIVE_IN_MILLIS);
+        MobileCacheEntry entry = createEntry("token-1", "device-1");
+        cache.put(entry, cache.getGeneration());
+        entry.setDeviceID("device-2");
+
+        MobileCacheEntry cachedEntry = cache.getByToken("token-1");
+        Assert.assertEquals(cachedEntry.getDeviceID(), "device-1");
+        Assert.assertEquals(cachedEntry.getUsername(), "admin");
+        cachedEntry.setDeviceID("device-3");
+        Assert.assertEquals(cache.getByToken("token-1").getDeviceID(), "device-1");
+    }
+
+    @Test
+    public void testStalePutIsDropped() {
+        WindowsEnrollmentTokenCache cache = new WindowsEnrollmentTokenCache(10, TIME_TO_LIVE_IN_MILLIS);
+        long generation = cache.getGeneration();
+        // the token is changed in the table while the entry read before the change is being cached
+        cache.removeToken("token-1");
+        cache.put(createEntry("token-1", "device-1"), generation);
+        cache.putForDevice("device-1", createEntry("token-1", "device-1"), generation);
+
+        Assert.assertNull(cache.getByToken("token-1"));
+        Assert.assertNull(cache.getByDeviceId("device-1"));
+        Assert.assertEquals(cache.size(), 0);
+
+        cache.put(createEntry("token-1", "device-1"), cache.getGeneration());
+        Assert.assertNotNull(cache.getByToken("token-1"));
+    }
+
+    @Test
+    public void testEntriesWithoutTokenAreNotCached() {
+        WindowsEnrollmentTokenCache cache = new WindowsEnrollmentTokenCache(10, TIME_TO_LIVE_IN_MILLIS);
+        cache.put(createEntry(null, "device-1"), cache.getGeneration());
+        cache.put(null, cache.getGeneration());
+        Assert.assertEquals(cache.size(), 0);
+    }
+
+    @Test
+    public void testExpiredEntriesAreNotReturned() throws InterruptedException {
+        WindowsEnrollmentTokenCache cache = new WindowsEnrollmentTokenCache(10, 1);
+        cache.putForDevice("device-1", createEntry("token-1", "device-1"), cache.getGeneration());
+        Thread.sleep(10);
+
+        Assert.assertNull(cache.getByDeviceId("device-1"));
+        Assert.assertNull(cache.getByToken("token-1"));
+        cache.purgeExpired();
+        Assert.assertEquals(cache.size(), 0);
+        Assert.assertEquals(cache.deviceMappingSize(), 0);
+    }
+
+    @Test
+    public void testEvictionKeepsCacheBounded() {
+        WindowsEnrollmentTokenCache cache = new WindowsEnrollmentTokenCache(10, TIME_TO_LIVE_IN_MILLIS);
+        for (int i = 0; i < 25; i++) {
+            cache.put(createEntry("token-" + i, "device-" + i), cache.getGeneration());
+            Assert.assertTrue(cache.size() <= 10, "Cache holds " + cache.size() + " entries.");
+        }
+        Assert.assertNotNull(cache.getByToken("token-24"));
+    }
+
+    @Test
+    public void testDeviceMappingsAreBoundedByCache() {
+        WindowsEnrollmentTokenCache cache = new WindowsEnrollmentTokenCache(10, TIME_TO_LIVE_IN_MILLIS);
+        for (int i = 0; i < 25; i++) {
+            cache.putForDevice("device-" + i, createEntry("token-" + i, "device-" + i), cache.getGeneration());
+            Assert.assertTrue(cache.deviceMappingSize() <= cache.size(),
+                              "Cache maps " + cache.deviceMappingSize() + " devices to " + cache.size() + " entries.");
+        }
+        int mappedDevices = 0;
+        for (int i = 0; i < 25; i++) {
+            MobileCacheEntry entry = cache.getByDeviceId("device-" + i);
+            if (entry != null) {
+                Assert.assertEquals(entry.getCacheToken(), "token-" + i);
+                mappedDevices++;
+            }
+        }
+        Assert.assertEquals(mappedDevices, cache.deviceMappingSize());
+        Assert.assertNotNull(cache.getByDeviceId("device-24"));
+    }
+
+    @Test
+    public void testDeviceMappingOfAnotherDeviceIsIgnored() {
+        WindowsEnrollmentTokenCache cache = new WindowsEnrollmentTokenCache(10, TIME_TO_LIVE_IN_MILLIS);
+        cache.putForDevice("device-2", createEntry("token-1", "device-1"), cache.getGeneration());
+
+        Assert.assertNull(cache.getByDeviceId("device-2"));
+        Assert.assertEquals(cache.size(), 0);
+        Assert.assertEquals(cache.deviceMappingSize(), 0);
+    }
+
+    @Test
+    public void testRemoveToken() {
+        WindowsEnrollmentTokenCache cache = new WindowsEnrollmentTokenCache(10, TIME_TO_LIVE_IN_MILLIS);
+        cache.putForDevice("device-1", createEntry("token-1", "device-1"), cache.getGeneration());
+        cache.removeToken("token-1");
+
+        Assert.assertNull(cache.getByToken("token-1"));
+        Assert.assertNull(cache.getByDeviceId("device-1"));
+        Assert.assertEquals(cache.deviceMappingSize(), 0);
+    }
+
+    @Test
+    public void testRemoveDeviceMapping() {
+        WindowsEnrollmentTokenCache cache = new WindowsEnrollmentTokenCache(10, TIME_TO_LIVE_IN_MILLIS);
+        cache.putForDevice("device-1", createEntry("token-1", "device-1"), cache.getGeneration());
+        cache.removeDeviceMapping("device-1");
+
+        Assert.assertNull(cache.getByDeviceId("device-1"));
+        Assert.assertNotNull(cache.getByToken("token-1"));
+    }
+
+    @Test
+    public void testRemoveDevice() {
+        WindowsEnrollmentTokenCache cache = new WindowsEnrollmentTokenCache(10, TIME_TO_LIVE_IN_MILLIS);
+        cache.put(createEntry("token-1", "device-1"), cache.getGeneration());
+        cache.putForDevice("device-1", createEntry("token-2", "device-1"), cache.getGeneration());
+        cache.putForDevice("device-2", createEntry("token-3", "device-2"), cache.getGeneration());
+        cache.removeDevice("device-1");
+
+        Assert.assertNull(cache.getByToken("token-1"));
+        Assert.assertNull(cache.getByToken("token-2"));
+        Assert.assertNull(cache.getByDeviceId("device-1"));
+        Assert.assertEquals(cache.getByDeviceId("device-2").getCacheToken(), "token-3");
+        Assert.assertEquals(cache.size(), 1);
+        Assert.assertEquals(cache.deviceMappingSize(), 1);
+    }
+
+    @Test
+    public void testClear() {
+        WindowsEnrollmentTokenCache cache = new WindowsEnrollmentTokenCache(10, TIME_TO_LIVE_IN_MILLIS);
+        long generation = cache.getGeneration();
+        cache.putForDevice("device-1", createEntry("token-1", "device-1"), generation);
+        cache.clear();
+
+        Assert.assertEquals(cache.size(), 0);
+        Assert.assertEquals(cache.deviceMappingSize(), 0);
+        cache.put(createEntry("token-1", "device-1"), generation);
+        Assert.assertNull(cache.getByToken("token-1"));
+    }
+
+    @Test
+    public void testDisabledCache() {
+        WindowsEnrollmentTokenCache cache = new WindowsEnrollmentTokenCache(0, TIME_TO_LIVE_IN_MILLIS);
+        cache.putForDevice("device-1", createEntry("token-1", "device-1"), cache.getGeneration());
+
+        Assert.assertNull(cache.getByToken("token-1"));
+        Assert.assertNull(cache.getByDeviceId("device-1"));
+    }
+
+    private static MobileCacheEntry createEntry(String token, String deviceId) {
+        MobileCacheEntry entry = new MobileCacheEntry();
+        entry.setCacheToken(token);
+        entry.setDeviceID(deviceId);
+        entry.setTenantDomain("carbon.super");
+        entry.setTenanatID(-1234);
+        entry.setUsername("admin");
+        entry.setOwnership("BYOD");
+        return entry;
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.device.mgt.mobile.windows.impl.dao;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.h2.tools.RunScript;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.device.mgt.mobile.windows.impl.dao.impl.WindowsEnrollmentTokenDAOImpl;
+import org.wso2.carbon.device.mgt.mobile.windows.impl.dto.MobileCacheEntry;
+
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+
+public class WindowsEnrollmentTokenDAOTest {
+
+    private static final long DAY_IN_MILLIS = 24 * 60 * 60 * 1000L;
+
+    private WindowsEnrollmentTokenDAO windowsEnrollmentTokenDAO;
+
+    @BeforeClass
+    public void init() throws Exception {
+        JdbcDataSource h2DataSource = new JdbcDataSource();
+        h2DataSource.setURL("jdbc:h2:mem:WSO2MobileWindows_DB;DB_CLOSE_DELAY=-1");
+        h2DataSource.setUser("wso2carbon");
+        h2DataSource.setPassword("wso2carbon");
+        WindowsDAOFactory.dataSource = h2DataSource;
+        try (Connection conn = h2DataSource.getConnection();
+             Reader script = new InputStreamReader(getClass().getClassLoader().getResourceAsStream("sql/h2.sql"),
+                                                   StandardCharsets.UTF_8)) {
+            RunScript.execute(conn, script);
+        }
+        windowsEnrollmentTokenDAO = new WindowsEnrollmentTokenDAOImpl();
+    }
+
+    @BeforeMethod
+    public void clearTokens() throws SQLException {
+        try (Connection conn = WindowsDAOFactory.dataSource.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("DELETE FROM WINDOWS_ENROLLMENT_TOKEN");
+        }
+    }
+
+    @Test
+    public void testLatestTokenIsReadByDeviceId() throws Exception {
+        addToken("token-1", "device-1");
+        addToken("token-2", "device-1");
+        addToken("token-3", "device-1");
+
+        Assert.assertEquals(getTokenFromDeviceId("device-1").getCacheToken(), "token-3");
+    }
+
+    @Test
+    public void testSupersededExpiredTokensAreDeleted() throws Exception {
+        addToken("token-1", "device-1");
+        addToken("token-2", "device-1");
+        addToken("token-3", "device-1");
+        addToken("token-4", "device-2");
+        setCreatedTimestamp(new Timestamp(System.currentTimeMillis() - 2 * DAY_IN_MILLIS));
+
+        Assert.assertEquals(deleteTokensCreatedBefore(System.currentTimeMillis() - DAY_IN_MILLIS), 2);
+        Assert.assertNull(getToken("token-1"));
+        Assert.assertNull(getToken("token-2"));
+        // the latest token of each device stays however old it is
+        Assert.assertEquals(getTokenFromDeviceId("device-1").getCacheToken(), "token-3");
+        Assert.assertEquals(getTokenFromDeviceId("device-2").getCacheToken(), "token-4");
+    }
+
+    @Test
+    public void testTokensWithinTimeToLiveAreKept() throws Exception {
+        addToken("token-1", "device-1");
+        setCreatedTimestamp(new Timestamp(System.currentTimeMillis() - 2 * DAY_IN_MILLIS));
+        addToken("token-2", "device-1");
+        addToken("token-3", "device-1");
+
+        Assert.assertEquals(deleteTokensCreatedBefore(System.currentTimeMillis() - DAY_IN_MILLIS), 1);
+        Assert.assertNull(getToken("token-1"));
+        Assert.assertNotNull(getToken("token-2"));
+        Assert.assertNotNull(getToken("token-3"));
+        Assert.assertEquals(deleteTokensCreatedBefore(System.currentTimeMillis() - DAY_IN_MILLIS), 0);
+    }
+
+    private void addToken(String token, String deviceId) throws MobileDeviceManagementDAOException {
+        MobileCacheEntry cacheEntry = new MobileCacheEntry();
+        cacheEntry.setCacheToken(token);
+        cacheEntry.setDeviceID(deviceId);
+        cacheEntry.setTenantDomain("carbon.super");
+        cacheEntry.setTenanatID(-1234);
+        cacheEntry.setUsername("admin");
+        try {
+            WindowsDAOFactory.beginTransaction();
+            windowsEnrollmentTokenDAO.addCacheToken(cacheEntry);
+            WindowsDAOFactory.commitTransaction();
+        } finally {
+            WindowsDAOFactory.closeConnection();
+        }
+    }
+
+    private int deleteTokensCreatedBefore(long time) throws MobileDeviceManagementDAOException {
+        try {
+            WindowsDAOFactory.beginTransaction();
+            int deletedTokens = windowsEnrollmentTokenDAO.deleteExpiredCacheTokens(new Timestamp(time));
+            WindowsDAOFactory.commitTransaction();
+            return deletedTokens;
+        } finally {
+            WindowsDAOFactory.closeConnection();
+        }
+    }
+
+    private MobileCacheEntry getToken(String token) throws MobileDeviceManagementDAOException {
+        try {
+            WindowsDAOFactory.openConnection();
+            return windowsEnrollmentTokenDAO.getCacheToken(token);
+        } finally {
+            WindowsDAOFactory.closeConnection();
+        }
+    }
+
+    private MobileCacheEntry getTokenFromDeviceId(String deviceId) throws MobileDeviceManagementDAOException {
+        try {
+            WindowsDAOFactory.openConnection();
+            return windowsEnrollmentTokenDAO.getCacheTokenFromDeviceId(deviceId);
+        } finally {
+            WindowsDAOFactory.closeConnection();
+        }
+    }
+
+    private static void setCreatedTimestamp(Timestamp createdTimestamp) throws SQLException {
+        try (Connection conn = WindowsDAOFactory.dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(
+                     "UPDATE WINDOWS_ENROLLMENT_TOKEN SET CREATED_TIMESTAMP = ?")) {
+            stmt.setTimestamp(1, createdTimestamp);
+            stmt.executeUpdate();
+        }
+    }
+}
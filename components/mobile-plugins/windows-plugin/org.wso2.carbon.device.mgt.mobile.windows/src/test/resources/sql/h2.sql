@@ -0,0 +1,14 @@
+-- -----------------------------------------------------
+-- Table `WINDOWS_ENROLLMENT_TOKEN`
+-- -----------------------------------------------------
+CREATE TABLE IF NOT EXISTS `WINDOWS_ENROLLMENT_TOKEN` (
+  `ID` INT NOT NULL AUTO_INCREMENT,
+  `TENANT_DOMAIN` VARCHAR(45) NOT NULL,
+  `TENANT_ID` INTEGER DEFAULT 0,
+  `ENROLLMENT_TOKEN` VARCHAR(100) NULL,
+  `DEVICE_ID` VARCHAR(100) NULL,
+  `USERNAME` VARCHAR(45) NULL,
+  `OWNERSHIP` VARCHAR(45) NULL,
+  `CREATED_TIMESTAMP` TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+  PRIMARY KEY (`ID`)
+);
@@ -0,0 +1,4 @@
+-- -----------------------------------------------------
+-- Adds the creation time of the enrollment tokens, the existing tokens are taken as created by the migration
+-- -----------------------------------------------------
+ALTER TABLE `WINDOWS_ENROLLMENT_TOKEN` ADD COLUMN `CREATED_TIMESTAMP` TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP;
@@ -43,5 +43,6 @@ CREATE TABLE WINDOWS_ENROLLMENT_TOKEN (
   DEVICE_ID VARCHAR (100) NOT NULL,
   USERNAME VARCHAR (45) NOT NULL,
   OWNERSHIP VARCHAR (45) NULL DEFAULT NULL,
+  CREATED_TIMESTAMP DATETIME2 NOT NULL DEFAULT CURRENT_TIMESTAMP,
   PRIMARY KEY (ID)
 );
\ No newline at end of file
@@ -41,6 +41,7 @@ CREATE TABLE IF NOT EXISTS `WINDOWS_ENROLLMENT_TOKEN` (
   `DEVICE_ID` VARCHAR(100) NULL,
   `USERNAME` VARCHAR(45) NULL,
   `OWNERSHIP` VARCHAR(45) NULL,
+  `CREATED_TIMESTAMP` TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
   PRIMARY KEY (`ID`))
 ENGINE = InnoDB;
 